@@ -10,15 +10,23 @@ package ricelang.VC.ASTs;
 
 import ricelang.VC.Scanner.SourcePosition;
 
-public class ArgList extends List {
-  public Arg A;
-  public List AL;
-
-  public ArgList(Arg aAST, List alAST, SourcePosition thePosition) {
-    super (thePosition);
-    A = aAST;
-    AL = alAST;
-    A.parent = AL.parent = this;
+public class ArgList extends FlatList<Arg> {
+
+  public ArgList(java.util.List<? extends Arg> items, java.util.List<SourcePosition> positions, List end) {
+    super (items, positions, end);
+  }
+
+  public ArgList(Arg aAST, List alAST, SourcePosition position) {
+    super (aAST, alAST, position);
+  }
+
+  private ArgList(ArgList list, int from) {
+    super (list, from);
+  }
+
+  @Override
+  protected ArgList view(int from) {
+    return new ArgList(this, from);
   }
 
   public Object visit(Visitor v, Object o) {
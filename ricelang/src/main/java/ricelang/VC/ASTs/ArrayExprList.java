@@ -21,18 +21,23 @@ package ricelang.VC.ASTs;
 
 import ricelang.VC.Scanner.SourcePosition;
 
-public class ArrayExprList extends List {
-  public Expr E;
-  public List EL;
-
-  // array index where this element should go
-  public int index;
-
-  public ArrayExprList(Expr eAST, List elAST, SourcePosition thePosition) {
-    super (thePosition);
-    E = eAST;
-    EL = elAST;
-    E.parent = EL.parent = this;
+public class ArrayExprList extends FlatList<Expr> {
+
+  public ArrayExprList(java.util.List<? extends Expr> items, java.util.List<SourcePosition> positions, List end) {
+    super (items, positions, end);
+  }
+
+  public ArrayExprList(Expr eAST, List elAST, SourcePosition position) {
+    super (eAST, elAST, position);
+  }
+
+  private ArrayExprList(ArrayExprList list, int from) {
+    super (list, from);
+  }
+
+  @Override
+  protected ArrayExprList view(int from) {
+    return new ArrayExprList(this, from);
   }
 
   public Object visit(Visitor v, Object o) {
@@ -17,7 +17,7 @@ public class ArrayType extends Type {
   public Expr E;
 
   public ArrayType (Type tAST, Expr dAST, SourcePosition Position) {
-    super (Position);
+    super (ARRAY, Position);
     T = tAST;
     E = dAST;
     T.parent = E.parent = this;
@@ -40,16 +40,13 @@ public class ArrayType extends Type {
   }
 
   public String toString() {
-    if (T instanceof IntType)
-      return "[I";
-    else if (T instanceof FloatType)
-      return "[F";
-    else if (T instanceof BooleanType)
-      return "[Z";
-    else if (T instanceof VoidType)
-      return "[V";   // will be detected as semantic errors
-    else  // should not happen
-      return "[*";
+    switch (T.code) {
+      case INT: return "[I";
+      case FLOAT: return "[F";
+      case BOOLEAN: return "[Z";
+      case VOID: return "[V";   // will be detected as semantic errors
+      default: return "[*";     // should not happen
+    }
   }
 
 }
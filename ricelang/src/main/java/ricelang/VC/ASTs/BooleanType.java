@@ -13,7 +13,7 @@ import ricelang.VC.Scanner.SourcePosition;
 public class BooleanType extends Type {
 
   public BooleanType (SourcePosition Position) {
-    super (Position);
+    super (BOOLEAN, Position);
   }
 
   public Object visit (Visitor v, Object o) {
@@ -21,10 +21,7 @@ public class BooleanType extends Type {
   }
 
   public boolean equals(Object obj) {
-    if (obj != null && obj instanceof ErrorType)
-      return true;
-    else    
-      return (obj != null && obj instanceof BooleanType);
+    return obj instanceof Type t && (t.code == BOOLEAN || t.code == ERROR);
   }
 
   public boolean assignable(Object obj) {
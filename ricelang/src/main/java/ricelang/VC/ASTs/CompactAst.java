@@ -0,0 +1,1223 @@
+/*
+ * CompactAst.java
+ *
+ * A program's tree held in a few primitive arrays instead of one object
+ * (and one SourcePosition) per node, for keeping very large programs
+ * around.
+ *
+ * The nodes are stored in preorder, a node's children right after it. For
+ * each node there is its kind (one of the constants below), its position
+ * packed into a long, and one int: for an Ident, Operator or literal the
+ * id of its spelling in the table of symbols, each spelled once, and for
+ * any other node the index just past its subtree, where its next sibling
+ * is. A list stores its elements as its children, each after the first
+ * preceded by a CELL holding the position of the cons cell that started
+ * there, and its Empty*List last. A type that is the child of more than
+ * one node (a declaration like "int a, b;" gives both variables the same
+ * one) is stored the first time and is a REF to that index after that.
+ *
+ * A checked tree keeps what the Checker added to it. The operators it
+ * spelled out (i+, f<) and the i2f conversions it put in are part of the
+ * tree like any other node, and an int more per node holds the type of an
+ * expression or variable, or the declaration an Ident is linked to: 0 for
+ * none, the index of the node plus one for a node in the tree, and minus
+ * one minus its place in STD_TYPES or StdEnvironment.functions for a
+ * built-in. A tree never checked does without that array.
+ *
+ * The visitors run over program(), which builds the AST objects back from
+ * the arrays, a top-level declaration at a time: each is built the first
+ * time its DeclList hands it out, so a visitor that only looks at some of
+ * them only pays for those.
+ *
+ * write() and read() (toBytes() and fromBytes() for a cache in memory) save
+ * the arrays as they are, so a checked program can be kept and handed to
+ * the backends later without parsing or checking it again. The errors
+ * reported while checking are not part of it. The bytes carry a CRC32 of
+ * what follows the header, and what they hold is checked to be a tree
+ * program() can build before any of it is used, so a damaged file fails to
+ * load instead of giving a broken tree.
+ */
+
+package ricelang.VC.ASTs;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.zip.CRC32;
+
+import ricelang.VC.StdEnvironment;
+import ricelang.VC.Scanner.SourcePosition;
+
+public final class CompactAst {
+
+  public static final byte PROGRAM = 0, EMPTY_DECL_LIST = 1, EMPTY_STMT_LIST = 2, EMPTY_ARRAY_EXPR_LIST = 3,
+      EMPTY_PARA_LIST = 4, EMPTY_ARG_LIST = 5, DECL_LIST = 6, FUNC_DECL = 7, GLOBAL_VAR_DECL = 8,
+      LOCAL_VAR_DECL = 9, STMT_LIST = 10, IF_STMT = 11, WHILE_STMT = 12, FOR_STMT = 13, BREAK_STMT = 14,
+      CONTINUE_STMT = 15, RETURN_STMT = 16, COMPOUND_STMT = 17, EXPR_STMT = 18, EMPTY_COMP_STMT = 19,
+      EMPTY_STMT = 20, INT_EXPR = 21, FLOAT_EXPR = 22, BOOLEAN_EXPR = 23, STRING_EXPR = 24, UNARY_EXPR = 25,
+      BINARY_EXPR = 26, ARRAY_INIT_EXPR = 27, ARRAY_EXPR_LIST = 28, ARRAY_EXPR = 29, VAR_EXPR = 30,
+      CALL_EXPR = 31, ASSIGN_EXPR = 32, EMPTY_EXPR = 33, INT_LITERAL = 34, FLOAT_LITERAL = 35,
+      BOOLEAN_LITERAL = 36, STRING_LITERAL = 37, IDENT = 38, OPERATOR = 39, PARA_LIST = 40, PARA_DECL = 41,
+      ARG_LIST = 42, ARG = 43, VOID_TYPE = 44, BOOLEAN_TYPE = 45, INT_TYPE = 46, FLOAT_TYPE = 47,
+      STRING_TYPE = 48, ARRAY_TYPE = 49, ERROR_TYPE = 50, SIMPLE_VAR = 51, CELL = 52, REF = 53;
+
+  // a packed position holds lines below 2^20 - 1 and columns below 2^12 - 1, so it is never WIDE
+  private static final int LINE_BITS = 20, CHAR_BITS = 12;
+  private static final long WIDE = -1L;
+
+  // the built-in types a decoration can name, in the order their codes count down from -1
+  private static final Type[] STD_TYPES = { StdEnvironment.booleanType, StdEnvironment.intType,
+      StdEnvironment.floatType, StdEnvironment.stringType, StdEnvironment.voidType, StdEnvironment.errorType };
+
+  // the start of every saved tree, then the version of the format
+  private static final int MAGIC = 0x52434153, VERSION = 2;
+  // the bytes of MAGIC, VERSION and the checksum, which covers what follows them
+  private static final int HEADER = 12;
+
+  // the kinds as bits, to say what kinds a node may be
+  private static final long DECLS = bits(FUNC_DECL, GLOBAL_VAR_DECL, LOCAL_VAR_DECL),
+      STMTS = bits(IF_STMT, WHILE_STMT, FOR_STMT, BREAK_STMT, CONTINUE_STMT, RETURN_STMT, COMPOUND_STMT,
+          EXPR_STMT, EMPTY_COMP_STMT, EMPTY_STMT),
+      EXPRS = bits(INT_EXPR, FLOAT_EXPR, BOOLEAN_EXPR, STRING_EXPR, UNARY_EXPR, BINARY_EXPR, ARRAY_INIT_EXPR,
+          ARRAY_EXPR, VAR_EXPR, CALL_EXPR, ASSIGN_EXPR, EMPTY_EXPR),
+      TYPES = bits(VOID_TYPE, BOOLEAN_TYPE, INT_TYPE, FLOAT_TYPE, STRING_TYPE, ARRAY_TYPE, ERROR_TYPE);
+
+  // by kind, what each child may be; for a list, what its elements may be and the kind it ends with
+  private static final long[][] CHILDREN = new long[REF + 1][];
+  private static final long[] ELEMENTS = new long[REF + 1];
+  private static final byte[] LIST_END = new byte[REF + 1];
+
+  static {
+    Arrays.fill(CHILDREN, new long[0]);
+    CHILDREN[PROGRAM] = new long[] { bits(DECL_LIST, EMPTY_DECL_LIST) };
+    CHILDREN[FUNC_DECL] = new long[] { TYPES, bits(IDENT), bits(PARA_LIST, EMPTY_PARA_LIST), STMTS };
+    CHILDREN[GLOBAL_VAR_DECL] = new long[] { TYPES, bits(IDENT), EXPRS };
+    CHILDREN[LOCAL_VAR_DECL] = CHILDREN[GLOBAL_VAR_DECL];
+    CHILDREN[PARA_DECL] = new long[] { TYPES, bits(IDENT) };
+    CHILDREN[IF_STMT] = new long[] { EXPRS, STMTS, STMTS };
+    CHILDREN[WHILE_STMT] = new long[] { EXPRS, STMTS };
+    CHILDREN[FOR_STMT] = new long[] { EXPRS, EXPRS, EXPRS, STMTS };
+    CHILDREN[RETURN_STMT] = new long[] { EXPRS };
+    CHILDREN[COMPOUND_STMT] = new long[] { bits(DECL_LIST, EMPTY_DECL_LIST), bits(STMT_LIST, EMPTY_STMT_LIST) };
+    CHILDREN[EXPR_STMT] = new long[] { EXPRS };
+    CHILDREN[INT_EXPR] = new long[] { bits(INT_LITERAL) };
+    CHILDREN[FLOAT_EXPR] = new long[] { bits(FLOAT_LITERAL) };
+    CHILDREN[BOOLEAN_EXPR] = new long[] { bits(BOOLEAN_LITERAL) };
+    CHILDREN[STRING_EXPR] = new long[] { bits(STRING_LITERAL) };
+    CHILDREN[UNARY_EXPR] = new long[] { bits(OPERATOR), EXPRS };
+    CHILDREN[BINARY_EXPR] = new long[] { EXPRS, bits(OPERATOR), EXPRS };
+    CHILDREN[ARRAY_INIT_EXPR] = new long[] { bits(ARRAY_EXPR_LIST, EMPTY_ARRAY_EXPR_LIST) };
+    CHILDREN[ARRAY_EXPR] = new long[] { bits(SIMPLE_VAR), EXPRS };
+    CHILDREN[VAR_EXPR] = new long[] { bits(SIMPLE_VAR) };
+    CHILDREN[CALL_EXPR] = new long[] { bits(IDENT), bits(ARG_LIST, EMPTY_ARG_LIST) };
+    CHILDREN[ASSIGN_EXPR] = new long[] { EXPRS, EXPRS };
+    CHILDREN[ARG] = new long[] { EXPRS };
+    CHILDREN[ARRAY_TYPE] = new long[] { TYPES, EXPRS };
+    CHILDREN[SIMPLE_VAR] = new long[] { bits(IDENT) };
+    list(DECL_LIST, DECLS, EMPTY_DECL_LIST);
+    list(STMT_LIST, STMTS, EMPTY_STMT_LIST);
+    list(ARRAY_EXPR_LIST, EXPRS, EMPTY_ARRAY_EXPR_LIST);
+    list(PARA_LIST, bits(PARA_DECL), EMPTY_PARA_LIST);
+    list(ARG_LIST, bits(ARG), EMPTY_ARG_LIST);
+  }
+
+  private static long bits(byte... kinds) {
+    long bits = 0;
+    for (byte kind : kinds) {
+      bits |= 1L << kind;
+    }
+    return bits;
+  }
+
+  private static void list(byte kind, long elements, byte end) {
+    ELEMENTS[kind] = elements;
+    LIST_END[kind] = end;
+  }
+
+  private final byte[] kinds;
+  private final long[] positions;
+  private final int[] links;
+  private final int[] decorations; // null for a tree never checked
+  private final String[] symbols;
+  private final BitSet shared; // the nodes a REF or a decoration points at
+  private final HashMap<Integer, SourcePosition> widePositions; // by node, for those that do not pack
+  private final int nodes;
+
+  private CompactAst(byte[] kinds, long[] positions, int[] links, int[] decorations, String[] symbols,
+      BitSet shared, HashMap<Integer, SourcePosition> widePositions, int nodes) {
+    this.kinds = kinds;
+    this.positions = positions;
+    this.links = links;
+    this.decorations = decorations;
+    this.symbols = symbols;
+    this.shared = shared;
+    this.widePositions = widePositions;
+    this.nodes = nodes;
+  }
+
+  public static CompactAst of(Program ast) {
+    Encoder encoder = new Encoder();
+    ast.visit(encoder, null);
+    int size = encoder.size;
+    return new CompactAst(Arrays.copyOf(encoder.kinds, size), Arrays.copyOf(encoder.positions, size),
+        Arrays.copyOf(encoder.links, size), encoder.decorations(), encoder.symbols.toArray(new String[0]),
+        encoder.shared, encoder.widePositions, encoder.nodes);
+  }
+
+  /**
+   * The arrays as bytes: MAGIC, VERSION and a CRC32 of the rest, then the
+   * number of entries, nodes, symbols, wide positions and words of the
+   * shared bit set, and whether there are decorations, then the kinds,
+   * positions, links, decorations and shared bits, then each symbol as its
+   * length and UTF-8 bytes and each wide position as its node and four
+   * ints.
+   */
+  public byte[] toBytes() {
+    byte[][] spellings = new byte[symbols.length][];
+    int symbolBytes = 0;
+    for (int i = 0; i < symbols.length; i++) {
+      spellings[i] = symbols[i].getBytes(StandardCharsets.UTF_8);
+      symbolBytes += 4 + spellings[i].length;
+    }
+    long[] sharedWords = shared.toLongArray();
+    int size = kinds.length;
+    ByteBuffer buffer = ByteBuffer.allocate(HEADER + 5 * 4 + 1 + size * (1 + 8 + 4)
+        + (decorations == null ? 0 : 4 * size) + 8 * sharedWords.length + symbolBytes + 20 * widePositions.size());
+    buffer.putInt(MAGIC).putInt(VERSION).putInt(0).putInt(size).putInt(nodes).putInt(symbols.length)
+        .putInt(widePositions.size()).putInt(sharedWords.length).put((byte) (decorations == null ? 0 : 1));
+    buffer.put(kinds);
+    buffer.asLongBuffer().put(positions);
+    buffer.position(buffer.position() + 8 * size);
+    buffer.asIntBuffer().put(links);
+    buffer.position(buffer.position() + 4 * size);
+    if (decorations != null) {
+      buffer.asIntBuffer().put(decorations);
+      buffer.position(buffer.position() + 4 * size);
+    }
+    buffer.asLongBuffer().put(sharedWords);
+    buffer.position(buffer.position() + 8 * sharedWords.length);
+    for (byte[] spelling : spellings) {
+      buffer.putInt(spelling.length).put(spelling);
+    }
+    for (var wide : widePositions.entrySet()) {
+      SourcePosition position = wide.getValue();
+      buffer.putInt(wide.getKey()).putInt(position.lineStart).putInt(position.lineFinish)
+          .putInt(position.charStart).putInt(position.charFinish);
+    }
+    return buffer.putInt(8, checksum(buffer.array())).array();
+  }
+
+  private static int checksum(byte[] bytes) {
+    CRC32 crc = new CRC32();
+    crc.update(bytes, HEADER, bytes.length - HEADER);
+    return (int) crc.getValue();
+  }
+
+  /**
+   * The tree toBytes() gave bytes for. Bytes that are not, whether cut
+   * short, damaged or made up, throw an IllegalArgumentException.
+   */
+  public static CompactAst fromBytes(byte[] bytes) {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    try {
+      if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+        throw new IllegalArgumentException("not a compact AST of version " + VERSION);
+      }
+      if (buffer.getInt() != checksum(bytes)) {
+        throw new IllegalArgumentException("damaged compact AST: checksum does not match");
+      }
+      int size = count(buffer.getInt(), buffer, 1 + 8 + 4);
+      int nodes = buffer.getInt();
+      String[] symbols = new String[count(buffer.getInt(), buffer, 4)];
+      int wideCount = count(buffer.getInt(), buffer, 20);
+      long[] sharedWords = new long[count(buffer.getInt(), buffer, 8)];
+      boolean decorated = buffer.get() != 0;
+
+      byte[] kinds = new byte[size];
+      buffer.get(kinds);
+      long[] positions = new long[size];
+      buffer.asLongBuffer().get(positions);
+      buffer.position(buffer.position() + 8 * size);
+      int[] links = new int[size];
+      buffer.asIntBuffer().get(links);
+      buffer.position(buffer.position() + 4 * size);
+      int[] decorations = null;
+      if (decorated) {
+        decorations = new int[size];
+        buffer.asIntBuffer().get(decorations);
+        buffer.position(buffer.position() + 4 * size);
+      }
+      buffer.asLongBuffer().get(sharedWords);
+      buffer.position(buffer.position() + 8 * sharedWords.length);
+      for (int i = 0; i < symbols.length; i++) {
+        byte[] spelling = new byte[count(buffer.getInt(), buffer, 1)];
+        buffer.get(spelling);
+        symbols[i] = new String(spelling, StandardCharsets.UTF_8);
+      }
+      HashMap<Integer, SourcePosition> widePositions = new HashMap<>();
+      for (int i = 0; i < wideCount; i++) {
+        widePositions.put(buffer.getInt(),
+            new SourcePosition(buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt()));
+      }
+      if (buffer.hasRemaining()) {
+        throw new IllegalArgumentException("damaged compact AST: " + buffer.remaining() + " bytes past its end");
+      }
+      CompactAst ast = new CompactAst(kinds, positions, links, decorations, symbols, BitSet.valueOf(sharedWords),
+          widePositions, nodes);
+      ast.validate();
+      return ast;
+    } catch (java.nio.BufferUnderflowException e) {
+      throw new IllegalArgumentException("truncated compact AST", e);
+    }
+  }
+
+  // a count from the header, if there is room left for that many entries of entryBytes each
+  private static int count(int count, ByteBuffer buffer, int entryBytes) {
+    if (count < 0 || count > buffer.remaining() / entryBytes) {
+      throw new IllegalArgumentException("damaged compact AST: no room for " + count + " entries");
+    }
+    return count;
+  }
+
+  private static IllegalArgumentException damaged(int node, String what) {
+    return new IllegalArgumentException("damaged compact AST: node " + node + " " + what);
+  }
+
+  // for the stack validate() keeps: a node whose subtree must end where the next node starts, and a list with
+  // elements to come as long as the next node is a CELL; any other entry is the kinds the next node may be
+  private static final long CLOSE = 1L << 62, ELEMENTS_OF = 1L << 61;
+
+  /**
+   * Throws an IllegalArgumentException unless the arrays hold a tree
+   * program() can build: every node of a kind its parent takes there, with
+   * its link where its subtree ends or at a symbol there is, every REF to a
+   * shared node of the kind wanted that comes before it and is not one of
+   * its ancestors, and every decoration pointing at a declaration or type
+   * in the tree, or at a built-in. It walks the nodes with a stack of its
+   * own, so a tree however deep does not overflow the thread's.
+   */
+  private void validate() {
+    int size = kinds.length;
+    long[] stack = new long[64];
+    int depth = 0;
+    stack[depth++] = bits(PROGRAM);
+    int next = 0;
+    int counted = 0;
+    while (depth > 0) {
+      long top = stack[--depth];
+      if ((top & CLOSE) != 0) {
+        int node = (int) top;
+        if (links[node] != next) {
+          throw damaged(node, "does not end where its subtree does");
+        }
+        continue;
+      }
+      if (depth + 6 > stack.length) {
+        stack = Arrays.copyOf(stack, stack.length * 2);
+      }
+      if ((top & ELEMENTS_OF) != 0) {
+        byte list = (byte) top;
+        if (next < size && kinds[next] == CELL) {
+          next++;
+          stack[depth++] = ELEMENTS_OF | list;
+          stack[depth++] = ELEMENTS[list];
+        } else {
+          stack[depth++] = bits(LIST_END[list]);
+        }
+        continue;
+      }
+      if (next == size) {
+        throw new IllegalArgumentException("damaged compact AST: ends in the middle of a tree");
+      }
+      int node = next++;
+      byte kind = kinds[node];
+      if (kind == REF) {
+        int target = links[node];
+        if (target < 0 || target >= node || kinds[target] == REF || (top & 1L << kinds[target]) == 0
+            || !shared.get(target) || links[target] > node) {
+          throw damaged(node, "refers to " + target + ", not a node before it that it can share");
+        }
+        continue;
+      }
+      if (kind < 0 || kind >= REF || (top & 1L << kind) == 0) {
+        throw damaged(node, "is of kind " + kind + ", which its parent does not take there");
+      }
+      counted++;
+      if (hasSymbol(kind)) {
+        if (links[node] < 0 || links[node] >= symbols.length) {
+          throw damaged(node, "spells symbol " + links[node] + " of " + symbols.length);
+        }
+        continue;
+      }
+      stack[depth++] = CLOSE | node;
+      if (ELEMENTS[kind] != 0) {
+        stack[depth++] = ELEMENTS_OF | kind;
+        stack[depth++] = ELEMENTS[kind];
+      } else {
+        for (int child = CHILDREN[kind].length - 1; child >= 0; child--) {
+          stack[depth++] = CHILDREN[kind][child];
+        }
+      }
+    }
+    if (next != size || counted != nodes) {
+      throw new IllegalArgumentException("damaged compact AST: " + size + " entries and " + nodes
+          + " nodes, but the tree has " + next + " and " + counted);
+    }
+
+    for (var wide : widePositions.keySet()) {
+      if (wide < 0 || wide >= size || positions[wide] != WIDE) {
+        throw damaged(wide, "has a wide position but is not marked so");
+      }
+    }
+    for (int node = 0; node < size; node++) {
+      if (positions[node] == WIDE && !widePositions.containsKey(node)) {
+        throw damaged(node, "has no position");
+      }
+      int code = decorations == null ? 0 : decorations[node];
+      if (code == 0) {
+        continue;
+      }
+      boolean ident = kinds[node] == IDENT;
+      if (!ident && (1L << kinds[node] & (EXPRS | bits(ARG, SIMPLE_VAR))) == 0) {
+        throw damaged(node, "is decorated but is of kind " + kinds[node]);
+      }
+      if (code > 0) {
+        int target = code - 1;
+        if (target >= size || kinds[target] == REF || kinds[target] == CELL || !shared.get(target)
+            || (1L << kinds[target] & (ident ? DECLS | bits(PARA_DECL) : TYPES)) == 0) {
+          throw damaged(node, "is decorated with node " + target + ", not a shared " + (ident ? "declaration" : "type"));
+        }
+      } else if (-1L - code >= (ident ? StdEnvironment.functions.size() : STD_TYPES.length)) {
+        throw damaged(node, "is decorated with built-in " + (-1L - code) + ", which there is not");
+      }
+    }
+  }
+
+  // writes toBytes() after its length, for read()
+  public void write(OutputStream out) throws IOException {
+    byte[] bytes = toBytes();
+    DataOutputStream data = new DataOutputStream(out);
+    data.writeInt(bytes.length);
+    data.write(bytes);
+    data.flush();
+  }
+
+  // reads a tree write() wrote; one that cannot be read throws an IOException, whatever is wrong with it
+  public static CompactAst read(InputStream in) throws IOException {
+    DataInputStream data = new DataInputStream(in);
+    int length = data.readInt();
+    if (length < 0) {
+      throw new IOException("damaged compact AST: length " + length);
+    }
+    // read as it comes, so a damaged length does not allocate more than the stream holds
+    byte[] bytes = data.readNBytes(length);
+    if (bytes.length < length) {
+      throw new EOFException("truncated compact AST: " + bytes.length + " of " + length + " bytes");
+    }
+    try {
+      return fromBytes(bytes);
+    } catch (IllegalArgumentException e) {
+      throw new IOException(e.getMessage(), e);
+    }
+  }
+
+  // the number of AST nodes held, not counting the CELLs and REFs
+  public int nodes() {
+    return nodes;
+  }
+
+  // the number of entries in the arrays
+  public int size() {
+    return kinds.length;
+  }
+
+  public byte kind(int node) {
+    return kinds[node];
+  }
+
+  // the index just past node's subtree
+  public int end(int node) {
+    return hasSymbol(kinds[node]) || kinds[node] == REF ? node + 1 : links[node];
+  }
+
+  // the spelling of an Ident, Operator or literal
+  public String spelling(int node) {
+    return symbols[links[node]];
+  }
+
+  public SourcePosition position(int node) {
+    long packed = positions[node];
+    if (packed == WIDE) {
+      SourcePosition wide = widePositions.get(node);
+      return new SourcePosition(wide.lineStart, wide.lineFinish, wide.charStart, wide.charFinish);
+    }
+    int lineMask = (1 << LINE_BITS) - 1;
+    int charMask = (1 << CHAR_BITS) - 1;
+    return new SourcePosition((int) (packed >>> (LINE_BITS + 2 * CHAR_BITS)) & lineMask,
+        (int) (packed >>> CHAR_BITS) & lineMask,
+        (int) (packed >>> (LINE_BITS + CHAR_BITS)) & charMask,
+        (int) packed & charMask);
+  }
+
+  private static boolean hasSymbol(byte kind) {
+    return kind >= INT_LITERAL && kind <= OPERATOR;
+  }
+
+  /**
+   * The program as AST objects, its top-level declarations each built
+   * from the arrays the first time the DeclList hands it out and kept from
+   * then on, so the Checker can decorate it in place. Declarations sharing
+   * a node ("int a, b;") are built together, in order, so the node's parent
+   * is the last of them as it is in the parsed tree. Every call gives a
+   * tree of its own.
+   */
+  public Program program() {
+    Reader reader = new Reader();
+    SourcePosition position = position(0);
+    if (kinds[1] != DECL_LIST) {
+      return new Program((List) reader.readTree(1), position);
+    }
+    ArrayList<SourcePosition> cells = new ArrayList<>();
+    cells.add(position(1));
+    ArrayList<Integer> starts = new ArrayList<>();
+    int child = 2;
+    while (true) {
+      starts.add(child);
+      child = end(child);
+      if (kinds[child] != CELL) {
+        break;
+      }
+      cells.add(position(child));
+      child++;
+    }
+    List end = (List) reader.readTree(child);
+
+    // joinsPrevious[i] if declaration i is built with the one before it
+    int[] decls = starts.stream().mapToInt(Integer::intValue).toArray();
+    boolean[] joinsPrevious = new boolean[decls.length];
+    for (int i = 1; i < decls.length; i++) {
+      for (int node = decls[i]; node < end(decls[i]); node++) {
+        if (kinds[node] == REF && links[node] < decls[i]) {
+          for (int j = owner(decls, links[node]) + 1; j <= i; j++) {
+            joinsPrevious[j] = true;
+          }
+        }
+      }
+    }
+    HashMap<Integer, Decl> pending = new HashMap<>(); // built with a declaration asked for, not asked for yet
+    DeclList dlAST = new DeclList(i -> {
+      Decl dAST = pending.remove(i);
+      if (dAST != null) {
+        return dAST;
+      }
+      int first = i;
+      while (joinsPrevious[first]) {
+        first--;
+      }
+      for (int j = first; j == first || j < decls.length && joinsPrevious[j]; j++) {
+        Decl built = (Decl) reader.readTree(decls[j]);
+        if (j == i) {
+          dAST = built;
+        } else {
+          pending.put(j, built);
+        }
+      }
+      return dAST;
+    }, cells, end);
+    reader.decls = decls;
+    reader.dlAST = dlAST;
+    return new Program(dlAST, position);
+  }
+
+  // the top-level declaration, of those starting at decls, that node is in
+  private static int owner(int[] decls, int node) {
+    int owner = Arrays.binarySearch(decls, node);
+    return owner >= 0 ? owner : -owner - 2;
+  }
+
+  // builds AST objects from the arrays
+  private final class Reader {
+
+    // the node read() reads next, and the shared nodes built so far
+    private int next;
+    private final HashMap<Integer, AST> built = new HashMap<>();
+    // the top-level declarations, to build the one a decoration points into
+    int[] decls;
+    DeclList dlAST;
+    // the nodes built by the current readTree() with a decoration, and how many
+    private AST[] decorated = new AST[16];
+    private int[] decoratedNodes = new int[16];
+    private int decoratedCount;
+
+    // the subtree at node, decorated once it is all built, since an Ident in a function body can link to the function
+    AST readTree(int node) {
+      AST[] outerDecorated = decorated;
+      int[] outerNodes = decoratedNodes;
+      int outerCount = decoratedCount;
+      int outerNext = next;
+      decorated = new AST[16];
+      decoratedNodes = new int[16];
+      decoratedCount = 0;
+      next = node;
+      AST ast = read();
+      for (int i = 0; i < decoratedCount; i++) {
+        decorate(decorated[i], decoratedNodes[i]);
+      }
+      decorated = outerDecorated;
+      decoratedNodes = outerNodes;
+      decoratedCount = outerCount;
+      next = outerNext;
+      return ast;
+    }
+
+    private void decorate(AST ast, int node) {
+      int code = decorations[node];
+      if (ast instanceof Ident iAST) {
+        iAST.decl = code > 0 ? target(code - 1) : StdEnvironment.functions.get(-code - 1);
+        return;
+      }
+      Type type = code > 0 ? (Type) target(code - 1) : STD_TYPES[-code - 1];
+      if (ast instanceof Expr eAST) {
+        eAST.type = type;
+      } else {
+        ((Var) ast).type = type;
+      }
+    }
+
+    // the node a decoration points at, building the top-level declaration it is in if that is not built yet
+    private AST target(int node) {
+      AST ast = built.get(node);
+      if (ast == null) {
+        dlAST.get(owner(decls, node));
+        ast = built.get(node);
+      }
+      return ast;
+    }
+
+    // the node at next and its subtree, leaving next past them
+    private AST read() {
+      int node = next;
+      byte kind = kinds[node];
+      next = node + 1;
+      if (kind == REF) {
+        // what it points at comes before it, in the same declaration or one built with it
+        return built.get(links[node]);
+      }
+      AST ast = build(node, kind);
+      if (shared.get(node)) {
+        built.put(node, ast);
+      }
+      if (decorations != null && decorations[node] != 0) {
+        if (decoratedCount == decorated.length) {
+          decorated = Arrays.copyOf(decorated, decoratedCount * 2);
+          decoratedNodes = Arrays.copyOf(decoratedNodes, decoratedCount * 2);
+        }
+        decorated[decoratedCount] = ast;
+        decoratedNodes[decoratedCount++] = node;
+      }
+      return ast;
+    }
+
+    private Expr readExpr() {
+      return (Expr) read();
+    }
+
+    private Stmt readStmt() {
+      return (Stmt) read();
+    }
+
+    private Type readType() {
+      return (Type) read();
+    }
+
+    private Ident readIdent() {
+      return (Ident) read();
+    }
+
+    private List readList() {
+      return (List) read();
+    }
+
+    // reads the elements of a list into items and the positions of their cells into cells
+    @SuppressWarnings("unchecked")
+    private <T extends AST> void readElements(ArrayList<T> items, ArrayList<SourcePosition> cells) {
+      while (true) {
+        items.add((T) read());
+        if (kinds[next] != CELL) {
+          return;
+        }
+        cells.add(position(next));
+        next++;
+      }
+    }
+
+    private AST build(int node, byte kind) {
+      SourcePosition position = position(node);
+      switch (kind) {
+        case PROGRAM:
+          return new Program(readList(), position);
+        case EMPTY_DECL_LIST:
+          return new EmptyDeclList(position);
+        case EMPTY_STMT_LIST:
+          return new EmptyStmtList(position);
+        case EMPTY_ARRAY_EXPR_LIST:
+          return new EmptyArrayExprList(position);
+        case EMPTY_PARA_LIST:
+          return new EmptyParaList(position);
+        case EMPTY_ARG_LIST:
+          return new EmptyArgList(position);
+        case DECL_LIST: {
+          ArrayList<Decl> items = new ArrayList<>();
+          ArrayList<SourcePosition> cells = new ArrayList<>();
+          cells.add(position);
+          readElements(items, cells);
+          return new DeclList(items, cells, readList());
+        }
+        case STMT_LIST: {
+          ArrayList<Stmt> items = new ArrayList<>();
+          ArrayList<SourcePosition> cells = new ArrayList<>();
+          cells.add(position);
+          readElements(items, cells);
+          return new StmtList(items, cells, readList());
+        }
+        case ARRAY_EXPR_LIST: {
+          ArrayList<Expr> items = new ArrayList<>();
+          ArrayList<SourcePosition> cells = new ArrayList<>();
+          cells.add(position);
+          readElements(items, cells);
+          return new ArrayExprList(items, cells, readList());
+        }
+        case PARA_LIST: {
+          ArrayList<ParaDecl> items = new ArrayList<>();
+          ArrayList<SourcePosition> cells = new ArrayList<>();
+          cells.add(position);
+          readElements(items, cells);
+          return new ParaList(items, cells, readList());
+        }
+        case ARG_LIST: {
+          ArrayList<Arg> items = new ArrayList<>();
+          ArrayList<SourcePosition> cells = new ArrayList<>();
+          cells.add(position);
+          readElements(items, cells);
+          return new ArgList(items, cells, readList());
+        }
+        case FUNC_DECL:
+          return new FuncDecl(readType(), readIdent(), readList(), readStmt(), position);
+        case GLOBAL_VAR_DECL:
+          return new GlobalVarDecl(readType(), readIdent(), readExpr(), position);
+        case LOCAL_VAR_DECL:
+          return new LocalVarDecl(readType(), readIdent(), readExpr(), position);
+        case PARA_DECL:
+          return new ParaDecl(readType(), readIdent(), position);
+        case IF_STMT:
+          return new IfStmt(readExpr(), readStmt(), readStmt(), position);
+        case WHILE_STMT:
+          return new WhileStmt(readExpr(), readStmt(), position);
+        case FOR_STMT:
+          return new ForStmt(readExpr(), readExpr(), readExpr(), readStmt(), position);
+        case BREAK_STMT:
+          return new BreakStmt(position);
+        case CONTINUE_STMT:
+          return new ContinueStmt(position);
+        case RETURN_STMT:
+          return new ReturnStmt(readExpr(), position);
+        case COMPOUND_STMT:
+          return new CompoundStmt(readList(), readList(), position);
+        case EXPR_STMT:
+          return new ExprStmt(readExpr(), position);
+        case EMPTY_COMP_STMT:
+          return new EmptyCompStmt(position);
+        case EMPTY_STMT:
+          return new EmptyStmt(position);
+        case INT_EXPR:
+          return new IntExpr((IntLiteral) read(), position);
+        case FLOAT_EXPR:
+          return new FloatExpr((FloatLiteral) read(), position);
+        case BOOLEAN_EXPR:
+          return new BooleanExpr((BooleanLiteral) read(), position);
+        case STRING_EXPR:
+          return new StringExpr((StringLiteral) read(), position);
+        case UNARY_EXPR:
+          return new UnaryExpr((Operator) read(), readExpr(), position);
+        case BINARY_EXPR:
+          return new BinaryExpr(readExpr(), (Operator) read(), readExpr(), position);
+        case ARRAY_INIT_EXPR:
+          return new ArrayInitExpr(readList(), position);
+        case ARRAY_EXPR:
+          return new ArrayExpr((Var) read(), readExpr(), position);
+        case VAR_EXPR:
+          return new VarExpr((Var) read(), position);
+        case CALL_EXPR:
+          return new CallExpr(readIdent(), readList(), position);
+        case ASSIGN_EXPR:
+          return new AssignExpr(readExpr(), readExpr(), position);
+        case EMPTY_EXPR:
+          return new EmptyExpr(position);
+        case ARG:
+          return new Arg(readExpr(), position);
+        case INT_LITERAL:
+          return new IntLiteral(spelling(node), position);
+        case FLOAT_LITERAL:
+          return new FloatLiteral(spelling(node), position);
+        case BOOLEAN_LITERAL:
+          return new BooleanLiteral(spelling(node), position);
+        case STRING_LITERAL:
+          return new StringLiteral(spelling(node), position);
+        case IDENT:
+          return new Ident(spelling(node), position);
+        case OPERATOR:
+          return new Operator(spelling(node), position);
+        case VOID_TYPE:
+          return new VoidType(position);
+        case BOOLEAN_TYPE:
+          return new BooleanType(position);
+        case INT_TYPE:
+          return new IntType(position);
+        case FLOAT_TYPE:
+          return new FloatType(position);
+        case STRING_TYPE:
+          return new StringType(position);
+        case ARRAY_TYPE:
+          return new ArrayType(readType(), readExpr(), position);
+        case ERROR_TYPE:
+          return new ErrorType(position);
+        case SIMPLE_VAR:
+          return new SimpleVar(readIdent(), position);
+        default:
+          throw new IllegalStateException("node " + node + " is of kind " + kind);
+      }
+    }
+  }
+
+  // walks a tree appending its nodes to the arrays
+  private static final class Encoder implements Visitor {
+
+    byte[] kinds = new byte[1024];
+    long[] positions = new long[1024];
+    int[] links = new int[1024];
+    AST[] decorationOf = new AST[1024]; // the type or decl of each node, null for none
+    boolean decorated;
+    int size;
+    int nodes;
+    final ArrayList<String> symbols = new ArrayList<>();
+    final BitSet shared = new BitSet();
+    final HashMap<Integer, SourcePosition> widePositions = new HashMap<>();
+    private final HashMap<String, Integer> symbolIds = new HashMap<>();
+    // the types stored so far, the only nodes the parser makes the child of more than one node, and the decls
+    private final IdentityHashMap<AST, Integer> seen = new IdentityHashMap<>();
+
+    private int append(byte kind, SourcePosition position, int link) {
+      if (size == kinds.length) {
+        kinds = Arrays.copyOf(kinds, size * 2);
+        positions = Arrays.copyOf(positions, size * 2);
+        links = Arrays.copyOf(links, size * 2);
+        decorationOf = Arrays.copyOf(decorationOf, size * 2);
+      }
+      kinds[size] = kind;
+      positions[size] = pack(position);
+      if (positions[size] == WIDE) {
+        widePositions.put(size, new SourcePosition(position.lineStart, position.lineFinish,
+            position.charStart, position.charFinish));
+      }
+      links[size] = link;
+      decorationOf[size] = null;
+      return size++;
+    }
+
+    // the decorations as codes, once every node is stored, or null if there are none
+    int[] decorations() {
+      if (!decorated) {
+        return null;
+      }
+      int[] codes = new int[size];
+      for (int node = 0; node < size; node++) {
+        AST target = decorationOf[node];
+        if (target == null) {
+          continue;
+        }
+        Integer stored = seen.get(target);
+        if (stored != null) {
+          shared.set(stored);
+          codes[node] = stored + 1;
+        } else {
+          // by identity, a Type equals() any other of its kind
+          java.util.List<? extends AST> builtIns = target instanceof Type ? Arrays.asList(STD_TYPES) : StdEnvironment.functions;
+          int builtIn = 0;
+          while (builtIn < builtIns.size() && builtIns.get(builtIn) != target) {
+            builtIn++;
+          }
+          if (builtIn == builtIns.size()) {
+            throw new IllegalArgumentException("node " + node + " points at a " + target.getClass().getSimpleName()
+                + " that is neither in the tree nor built in");
+          }
+          codes[node] = -1 - builtIn;
+        }
+      }
+      return codes;
+    }
+
+    private long pack(SourcePosition position) {
+      int lines = (1 << LINE_BITS) - 1;
+      int chars = (1 << CHAR_BITS) - 1;
+      if (position.lineStart < 0 || position.lineStart >= lines || position.lineFinish < 0
+          || position.lineFinish >= lines || position.charStart < 0 || position.charStart >= chars
+          || position.charFinish < 0 || position.charFinish >= chars) {
+        return WIDE;
+      }
+      return (long) position.lineStart << (LINE_BITS + 2 * CHAR_BITS)
+          | (long) position.charStart << (LINE_BITS + CHAR_BITS)
+          | (long) position.lineFinish << CHAR_BITS
+          | position.charFinish;
+    }
+
+    // starts a node whose children follow; the link is filled in by close()
+    private int open(byte kind, AST ast) {
+      if (ast instanceof Type || ast instanceof Decl) {
+        seen.put(ast, size);
+      }
+      nodes++;
+      int node = append(kind, ast.position, 0);
+      AST decoration = ast instanceof Expr eAST ? eAST.type
+          : ast instanceof Var vAST ? vAST.type
+          : ast instanceof Ident iAST ? iAST.decl : null;
+      if (decoration != null) {
+        decorationOf[node] = decoration;
+        decorated = true;
+      }
+      return node;
+    }
+
+    private Object close(int node) {
+      links[node] = size;
+      return null;
+    }
+
+    private Object leaf(byte kind, AST ast) {
+      return close(open(kind, ast));
+    }
+
+    private Object terminal(byte kind, Terminal ast) {
+      Integer id = symbolIds.get(ast.spelling);
+      if (id == null) {
+        id = symbols.size();
+        symbols.add(ast.spelling);
+        symbolIds.put(ast.spelling, id);
+      }
+      open(kind, ast);
+      links[size - 1] = id;
+      return null;
+    }
+
+    private void child(AST ast) {
+      Integer node = ast instanceof Type ? seen.get(ast) : null;
+      if (node == null) {
+        ast.visit(this, null);
+      } else {
+        shared.set(node);
+        append(REF, ast.position, node);
+      }
+    }
+
+    private Object list(byte kind, FlatList<?> ast) {
+      int node = open(kind, ast);
+      for (int i = 0; i < ast.size(); i++) {
+        if (i > 0) {
+          append(CELL, ast.positionAt(i), 0);
+        }
+        child(ast.get(i));
+      }
+      child(ast.end);
+      return close(node);
+    }
+
+    public Object visitProgram(Program ast, Object o) {
+      int node = open(PROGRAM, ast);
+      child(ast.FL);
+      return close(node);
+    }
+
+    public Object visitEmptyDeclList(EmptyDeclList ast, Object o) {
+      return leaf(EMPTY_DECL_LIST, ast);
+    }
+
+    public Object visitEmptyStmtList(EmptyStmtList ast, Object o) {
+      return leaf(EMPTY_STMT_LIST, ast);
+    }
+
+    public Object visitEmptyArrayExprList(EmptyArrayExprList ast, Object o) {
+      return leaf(EMPTY_ARRAY_EXPR_LIST, ast);
+    }
+
+    public Object visitEmptyParaList(EmptyParaList ast, Object o) {
+      return leaf(EMPTY_PARA_LIST, ast);
+    }
+
+    public Object visitEmptyArgList(EmptyArgList ast, Object o) {
+      return leaf(EMPTY_ARG_LIST, ast);
+    }
+
+    public Object visitDeclList(DeclList ast, Object o) {
+      return list(DECL_LIST, ast);
+    }
+
+    public Object visitFuncDecl(FuncDecl ast, Object o) {
+      int node = open(FUNC_DECL, ast);
+      child(ast.T);
+      child(ast.I);
+      child(ast.PL);
+      child(ast.S);
+      return close(node);
+    }
+
+    public Object visitGlobalVarDecl(GlobalVarDecl ast, Object o) {
+      int node = open(GLOBAL_VAR_DECL, ast);
+      child(ast.T);
+      child(ast.I);
+      child(ast.E);
+      return close(node);
+    }
+
+    public Object visitLocalVarDecl(LocalVarDecl ast, Object o) {
+      int node = open(LOCAL_VAR_DECL, ast);
+      child(ast.T);
+      child(ast.I);
+      child(ast.E);
+      return close(node);
+    }
+
+    public Object visitStmtList(StmtList ast, Object o) {
+      return list(STMT_LIST, ast);
+    }
+
+    public Object visitIfStmt(IfStmt ast, Object o) {
+      int node = open(IF_STMT, ast);
+      child(ast.E);
+      child(ast.S1);
+      child(ast.S2);
+      return close(node);
+    }
+
+    public Object visitWhileStmt(WhileStmt ast, Object o) {
+      int node = open(WHILE_STMT, ast);
+      child(ast.E);
+      child(ast.S);
+      return close(node);
+    }
+
+    public Object visitForStmt(ForStmt ast, Object o) {
+      int node = open(FOR_STMT, ast);
+      child(ast.E1);
+      child(ast.E2);
+      child(ast.E3);
+      child(ast.S);
+      return close(node);
+    }
+
+    public Object visitBreakStmt(BreakStmt ast, Object o) {
+      return leaf(BREAK_STMT, ast);
+    }
+
+    public Object visitContinueStmt(ContinueStmt ast, Object o) {
+      return leaf(CONTINUE_STMT, ast);
+    }
+
+    public Object visitReturnStmt(ReturnStmt ast, Object o) {
+      int node = open(RETURN_STMT, ast);
+      child(ast.E);
+      return close(node);
+    }
+
+    public Object visitCompoundStmt(CompoundStmt ast, Object o) {
+      int node = open(COMPOUND_STMT, ast);
+      child(ast.DL);
+      child(ast.SL);
+      return close(node);
+    }
+
+    public Object visitExprStmt(ExprStmt ast, Object o) {
+      int node = open(EXPR_STMT, ast);
+      child(ast.E);
+      return close(node);
+    }
+
+    public Object visitEmptyCompStmt(EmptyCompStmt ast, Object o) {
+      return leaf(EMPTY_COMP_STMT, ast);
+    }
+
+    public Object visitEmptyStmt(EmptyStmt ast, Object o) {
+      return leaf(EMPTY_STMT, ast);
+    }
+
+    public Object visitIntExpr(IntExpr ast, Object o) {
+      int node = open(INT_EXPR, ast);
+      child(ast.IL);
+      return close(node);
+    }
+
+    public Object visitFloatExpr(FloatExpr ast, Object o) {
+      int node = open(FLOAT_EXPR, ast);
+      child(ast.FL);
+      return close(node);
+    }
+
+    public Object visitBooleanExpr(BooleanExpr ast, Object o) {
+      int node = open(BOOLEAN_EXPR, ast);
+      child(ast.BL);
+      return close(node);
+    }
+
+    public Object visitStringExpr(StringExpr ast, Object o) {
+      int node = open(STRING_EXPR, ast);
+      child(ast.SL);
+      return close(node);
+    }
+
+    public Object visitUnaryExpr(UnaryExpr ast, Object o) {
+      int node = open(UNARY_EXPR, ast);
+      child(ast.O);
+      child(ast.E);
+      return close(node);
+    }
+
+    public Object visitBinaryExpr(BinaryExpr ast, Object o) {
+      int node = open(BINARY_EXPR, ast);
+      child(ast.E1);
+      child(ast.O);
+      child(ast.E2);
+      return close(node);
+    }
+
+    public Object visitArrayInitExpr(ArrayInitExpr ast, Object o) {
+      int node = open(ARRAY_INIT_EXPR, ast);
+      child(ast.IL);
+      return close(node);
+    }
+
+    public Object visitArrayExprList(ArrayExprList ast, Object o) {
+      return list(ARRAY_EXPR_LIST, ast);
+    }
+
+    public Object visitArrayExpr(ArrayExpr ast, Object o) {
+      int node = open(ARRAY_EXPR, ast);
+      child(ast.V);
+      child(ast.E);
+      return close(node);
+    }
+
+    public Object visitVarExpr(VarExpr ast, Object o) {
+      int node = open(VAR_EXPR, ast);
+      child(ast.V);
+      return close(node);
+    }
+
+    public Object visitCallExpr(CallExpr ast, Object o) {
+      int node = open(CALL_EXPR, ast);
+      child(ast.I);
+      child(ast.AL);
+      return close(node);
+    }
+
+    public Object visitAssignExpr(AssignExpr ast, Object o) {
+      int node = open(ASSIGN_EXPR, ast);
+      child(ast.E1);
+      child(ast.E2);
+      return close(node);
+    }
+
+    public Object visitEmptyExpr(EmptyExpr ast, Object o) {
+      return leaf(EMPTY_EXPR, ast);
+    }
+
+    public Object visitIntLiteral(IntLiteral ast, Object o) {
+      return terminal(INT_LITERAL, ast);
+    }
+
+    public Object visitFloatLiteral(FloatLiteral ast, Object o) {
+      return terminal(FLOAT_LITERAL, ast);
+    }
+
+    public Object visitBooleanLiteral(BooleanLiteral ast, Object o) {
+      return terminal(BOOLEAN_LITERAL, ast);
+    }
+
+    public Object visitStringLiteral(StringLiteral ast, Object o) {
+      return terminal(STRING_LITERAL, ast);
+    }
+
+    public Object visitIdent(Ident ast, Object o) {
+      return terminal(IDENT, ast);
+    }
+
+    public Object visitOperator(Operator ast, Object o) {
+      return terminal(OPERATOR, ast);
+    }
+
+    public Object visitParaList(ParaList ast, Object o) {
+      return list(PARA_LIST, ast);
+    }
+
+    public Object visitParaDecl(ParaDecl ast, Object o) {
+      int node = open(PARA_DECL, ast);
+      child(ast.T);
+      child(ast.I);
+      return close(node);
+    }
+
+    public Object visitArgList(ArgList ast, Object o) {
+      return list(ARG_LIST, ast);
+    }
+
+    public Object visitArg(Arg ast, Object o) {
+      int node = open(ARG, ast);
+      child(ast.E);
+      return close(node);
+    }
+
+    public Object visitVoidType(VoidType ast, Object o) {
+      return leaf(VOID_TYPE, ast);
+    }
+
+    public Object visitBooleanType(BooleanType ast, Object o) {
+      return leaf(BOOLEAN_TYPE, ast);
+    }
+
+    public Object visitIntType(IntType ast, Object o) {
+      return leaf(INT_TYPE, ast);
+    }
+
+    public Object visitFloatType(FloatType ast, Object o) {
+      return leaf(FLOAT_TYPE, ast);
+    }
+
+    public Object visitStringType(StringType ast, Object o) {
+      return leaf(STRING_TYPE, ast);
+    }
+
+    public Object visitArrayType(ArrayType ast, Object o) {
+      int node = open(ARRAY_TYPE, ast);
+      child(ast.T);
+      child(ast.E);
+      return close(node);
+    }
+
+    public Object visitErrorType(ErrorType ast, Object o) {
+      return leaf(ERROR_TYPE, ast);
+    }
+
+    public Object visitSimpleVar(SimpleVar ast, Object o) {
+      int node = open(SIMPLE_VAR, ast);
+      child(ast.I);
+      return close(node);
+    }
+  }
+}
@@ -4,18 +4,31 @@
 
 package ricelang.VC.ASTs;
 
+import java.util.function.IntFunction;
+
 import ricelang.VC.Scanner.SourcePosition;
 
-public class DeclList extends List {
+public class DeclList extends FlatList<Decl> {
+
+  public DeclList(java.util.List<? extends Decl> items, java.util.List<SourcePosition> positions, List end) {
+    super (items, positions, end);
+  }
 
-  public Decl D;
-  public List DL;
+  public DeclList(IntFunction<? extends Decl> loader, java.util.List<SourcePosition> positions, List end) {
+    super (loader, positions, end);
+  }
 
   public DeclList(Decl dAST, List dlAST, SourcePosition position) {
-    super (position);
-    D = dAST;
-    DL = dlAST;
-    D.parent = DL.parent = this;
+    super (dAST, dlAST, position);
+  }
+
+  private DeclList(DeclList list, int from) {
+    super (list, from);
+  }
+
+  @Override
+  protected DeclList view(int from) {
+    return new DeclList(this, from);
   }
 
   public Object visit(Visitor v, Object o) {
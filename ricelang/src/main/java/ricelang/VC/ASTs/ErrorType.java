@@ -13,7 +13,7 @@ import ricelang.VC.Scanner.SourcePosition;
 public class ErrorType extends Type {
 
   public ErrorType(SourcePosition thePosition) {
-    super (thePosition);
+    super (ERROR, thePosition);
   }
 
   public Object visit (Visitor v, Object o) {
@@ -0,0 +1,146 @@
+/*
+ * FlatList.java
+ *
+ * What DeclList, StmtList, ParaList, ArgList and ArrayExprList have in
+ * common: the elements of the list held in one array, walked by index
+ * instead of one cons cell (and one stack frame) per element.
+ *
+ * The cons cells are still there for code written against them. The list
+ * keeps the position each cell had, and rest() (or from(i)) hands out the
+ * cell that used to start at an element as a view sharing the same array,
+ * ending in the same Empty*List the chain of cells ended in. Prepending
+ * with the old (head, rest, position) constructors still works but copies
+ * the rest, so the parser builds each list in one go instead.
+ *
+ * A list can also be made with its elements still to be built: each is
+ * built by the list's loader the first time get() asks for it, and kept.
+ */
+
+package ricelang.VC.ASTs;
+
+import java.util.function.IntFunction;
+
+import ricelang.VC.Scanner.SourcePosition;
+
+public abstract class FlatList<T extends AST> extends List {
+
+  // shared by a list and every view of it
+  private final AST[] items;
+  private final SourcePosition[] positions;
+  private final int from;
+  // builds the elements not built yet, null if they all were from the start
+  private final IntFunction<? extends T> loader;
+  // the parent of the elements, this list or the one it is a view of
+  private final FlatList<T> owner;
+
+  // the Empty*List after the last element
+  public final List end;
+
+  protected FlatList(java.util.List<? extends T> items, java.util.List<SourcePosition> positions, List end) {
+    super (positions.get(0));
+    if (items.isEmpty() || items.size() != positions.size()) {
+      throw new IllegalArgumentException(items.size() + " elements with " + positions.size() + " positions");
+    }
+    this.items = items.toArray(new AST[0]);
+    this.positions = positions.toArray(new SourcePosition[0]);
+    this.from = 0;
+    this.end = end;
+    loader = null;
+    owner = this;
+    for (AST item : this.items) {
+      item.parent = this;
+    }
+    end.parent = this;
+  }
+
+  // a list of positions.size() elements, the one at index i built by loader.apply(i) when first asked for
+  protected FlatList(IntFunction<? extends T> loader, java.util.List<SourcePosition> positions, List end) {
+    super (positions.get(0));
+    this.items = new AST[positions.size()];
+    this.positions = positions.toArray(new SourcePosition[0]);
+    this.from = 0;
+    this.end = end;
+    this.loader = loader;
+    owner = this;
+    end.parent = this;
+  }
+
+  // the old cons cell: head in front of the elements of rest
+  protected FlatList(T head, List rest, SourcePosition position) {
+    super (position);
+    int size = rest instanceof FlatList<?> tail ? tail.size() : 0;
+    items = new AST[size + 1];
+    positions = new SourcePosition[size + 1];
+    items[0] = head;
+    positions[0] = position;
+    if (rest instanceof FlatList<?> tail) {
+      for (int i = 0; i < size; i++) {
+        items[i + 1] = tail.get(i);
+      }
+      System.arraycopy(tail.positions, tail.from, positions, 1, size);
+      end = tail.end;
+    } else {
+      end = rest;
+    }
+    from = 0;
+    loader = null;
+    owner = this;
+    for (AST item : items) {
+      item.parent = this;
+    }
+    end.parent = this;
+  }
+
+  // a view of list starting at items[from]
+  protected FlatList(FlatList<T> list, int from) {
+    super (list.positions[from]);
+    items = list.items;
+    positions = list.positions;
+    this.from = from;
+    end = list.end;
+    loader = list.loader;
+    owner = list.owner;
+    parent = list;
+  }
+
+  // a view starting at items[from], which from() has checked is inside the array
+  protected abstract FlatList<T> view(int from);
+
+  @Override
+  public int size() {
+    return items.length - from;
+  }
+
+  @SuppressWarnings("unchecked")
+  public T get(int index) {
+    AST item = items[from + index];
+    if (item == null) {
+      item = loader.apply(from + index);
+      item.parent = owner;
+      items[from + index] = item;
+    }
+    return (T) item;
+  }
+
+  // swaps an element for another, e.g. an int expression for its i2f conversion
+  public void set(int index, T item) {
+    items[from + index] = item;
+  }
+
+  // the position of the cons cell that used to start at element index
+  public SourcePosition positionAt(int index) {
+    return positions[from + index];
+  }
+
+  // the list from element index on: a view, or the Empty*List once past the last element
+  public List from(int index) {
+    if (index == 0) {
+      return this;
+    }
+    return index < size() ? view(from + index) : end;
+  }
+
+  public List rest() {
+    return from(1);
+  }
+}
@@ -12,7 +12,7 @@ import ricelang.VC.Scanner.SourcePosition;
 public class FloatType extends Type {
 
   public FloatType (SourcePosition Position) {
-    super (Position);
+    super (FLOAT, Position);
   }
 
   public Object visit (Visitor v, Object o) {
@@ -20,18 +20,11 @@ public class FloatType extends Type {
   }
 
   public boolean equals(Object obj) {
-    if (obj != null && obj instanceof ErrorType)
-      return true;
-    else    
-      return (obj != null && obj instanceof FloatType);
+    return obj instanceof Type t && (t.code == FLOAT || t.code == ERROR);
   }
 
   public boolean assignable(Object obj) {
-    if (obj != null && obj instanceof ErrorType)
-      return true;
-    else    
-      return (obj != null && (obj instanceof IntType
-	     || obj instanceof FloatType));
+    return obj instanceof Type t && (t.code == INT || t.code == FLOAT || t.code == ERROR);
   }
 
   public String toString() {
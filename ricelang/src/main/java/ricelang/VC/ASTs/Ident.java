@@ -9,6 +9,7 @@ import ricelang.VC.Scanner.SourcePosition;
 public class Ident extends Terminal {
 
   public AST decl; 
+  public int symbol = -1; // the id of its spelling in its Program's symbols, -1 if it has none
 
   public Ident(String value , SourcePosition position) {
     super (value, position);
@@ -11,7 +11,7 @@ import ricelang.VC.Scanner.SourcePosition;
 public class IntType extends Type {
 
   public IntType (SourcePosition Position) {
-    super (Position);
+    super (INT, Position);
   }
 
   public Object visit (Visitor v, Object o) {
@@ -19,10 +19,7 @@ public class IntType extends Type {
   }
 
   public boolean equals(Object obj) {
-    if (obj != null && obj instanceof ErrorType)
-      return true;
-    else    
-      return (obj != null && obj instanceof IntType);
+    return obj instanceof Type t && (t.code == INT || t.code == ERROR);
   }
 
   public boolean assignable(Object obj) {
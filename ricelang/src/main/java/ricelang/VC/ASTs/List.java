@@ -36,6 +36,11 @@ public abstract class List extends AST {
     return this instanceof EmptyDeclList;
   }
 
+  // the number of elements, 0 for the Empty*Lists
+  public int size() {
+    return 0;
+  }
+
   public boolean isEmpty() {
     return isEmptyArgList() || isEmptyParaList() || isEmptyStmtList() 
            || isEmptyArrayExprList() || isEmptyDeclList();
@@ -11,16 +11,23 @@ package ricelang.VC.ASTs;
 
 import ricelang.VC.Scanner.SourcePosition;
 
-public class ParaList extends List {
-  public ParaDecl P;
-  public List PL;
-
-  public ParaList(ParaDecl pAST, List plAST,
-                                   SourcePosition thePosition) {
-    super (thePosition);
-    P = pAST;
-    PL = plAST;
-    P.parent = PL.parent = this;
+public class ParaList extends FlatList<ParaDecl> {
+
+  public ParaList(java.util.List<? extends ParaDecl> items, java.util.List<SourcePosition> positions, List end) {
+    super (items, positions, end);
+  }
+
+  public ParaList(ParaDecl pAST, List plAST, SourcePosition position) {
+    super (pAST, plAST, position);
+  }
+
+  private ParaList(ParaList list, int from) {
+    super (list, from);
+  }
+
+  @Override
+  protected ParaList view(int from) {
+    return new ParaList(this, from);
   }
 
   public Object visit(Visitor v, Object o) {
@@ -4,11 +4,13 @@
 
 package ricelang.VC.ASTs;
 
+import ricelang.VC.Symbols;
 import ricelang.VC.Scanner.SourcePosition;
 
 public class Program extends AST {
 
   public List FL;
+  public Symbols symbols; // the ids its Idents hold come from these, null if they hold none
 
   public Program (List dlAST, SourcePosition position) {
     super (position);
@@ -6,16 +6,23 @@ package ricelang.VC.ASTs;
 
 import ricelang.VC.Scanner.SourcePosition;
 
-public class StmtList extends List {
+public class StmtList extends FlatList<Stmt> {
 
-  public Stmt S;
-  public List SL;
+  public StmtList(java.util.List<? extends Stmt> items, java.util.List<SourcePosition> positions, List end) {
+    super (items, positions, end);
+  }
+
+  public StmtList(Stmt sAST, List slAST, SourcePosition position) {
+    super (sAST, slAST, position);
+  }
+
+  private StmtList(StmtList list, int from) {
+    super (list, from);
+  }
 
-  public StmtList(Stmt sAST, List slAST, SourcePosition Position) {
-    super (Position);
-    S = sAST;
-    SL = slAST;
-    S.parent = SL.parent = this;
+  @Override
+  protected StmtList view(int from) {
+    return new StmtList(this, from);
   }
 
   public Object visit(Visitor v, Object o) {
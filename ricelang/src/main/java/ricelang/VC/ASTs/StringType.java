@@ -14,7 +14,7 @@ import ricelang.VC.Scanner.SourcePosition;
 public class StringType extends Type {
 
   public StringType (SourcePosition Position) {
-    super (Position);
+    super (STRING, Position);
   }
 
   public Object visit (Visitor v, Object o) {
@@ -22,18 +22,12 @@ public class StringType extends Type {
   }
 
   public boolean equals(Object obj) {
-    if (obj != null && obj instanceof ErrorType)
-      return true;
-    else    
-      return (obj != null && obj instanceof StringType);
+    return obj instanceof Type t && (t.code == STRING || t.code == ERROR);
   }
 
   // not used this year
   public boolean assignable(Object obj) {
-    if (obj != null && obj instanceof ErrorType)
-      return true;
-    else    
-      return (obj != null && obj instanceof StringType);
+    return obj instanceof Type t && (t.code == STRING || t.code == ERROR);
   }
 
   public String toString() {
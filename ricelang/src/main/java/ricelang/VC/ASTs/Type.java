@@ -8,8 +8,14 @@ import ricelang.VC.Scanner.SourcePosition;
 
 public abstract class Type extends AST {
 
-  public Type(SourcePosition Position) {
+  // the kind of type, so checking one is an int compare instead of an instanceof
+  public static final int VOID = 0, BOOLEAN = 1, INT = 2, FLOAT = 3, STRING = 4, ARRAY = 5, ERROR = 6;
+
+  public final int code;
+
+  public Type(int code, SourcePosition Position) {
     super (Position);
+    this.code = code;
   }
 
   // The following methods will be used in Assignments 4 and 5.
@@ -23,31 +29,31 @@ public abstract class Type extends AST {
   public abstract boolean assignable(Object obj);
 
   public boolean isVoidType() {
-    return (this instanceof VoidType);
+    return code == VOID;
   }
 
   public boolean isIntType() {
-    return (this instanceof IntType);
+    return code == INT;
   }
 
   public boolean isFloatType() {
-    return (this instanceof FloatType);
+    return code == FLOAT;
   }
 
   public boolean isStringType() {
-    return (this instanceof StringType);
+    return code == STRING;
   }
 
   public boolean isBooleanType() {
-    return (this instanceof BooleanType);
+    return code == BOOLEAN;
   }
 
   public boolean isArrayType() {
-    return (this instanceof ArrayType);
+    return code == ARRAY;
   }
 
   public boolean isErrorType() {
-    return (this instanceof ErrorType);
+    return code == ERROR;
   }
 
 }
@@ -15,7 +15,7 @@ import ricelang.VC.Scanner.SourcePosition;
 public class VoidType extends Type {
 
   public VoidType (SourcePosition Position) {
-    super (Position);
+    super (VOID, Position);
   }
 
   public Object visit (Visitor v, Object o) {
@@ -23,10 +23,7 @@ public class VoidType extends Type {
   }
 
   public boolean equals(Object obj) {
-    if (obj != null && obj instanceof ErrorType)
-      return true;
-    else    
-      return (obj != null && obj instanceof VoidType);
+    return obj instanceof Type t && (t.code == VOID || t.code == ERROR);
   }
 
   // not used this year
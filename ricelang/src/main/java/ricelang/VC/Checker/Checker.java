@@ -12,11 +12,16 @@
 package ricelang.VC.Checker;
 
 import ricelang.VC.ASTs.*;
+import ricelang.VC.CompilationContext;
 import ricelang.VC.ErrorReporter;
 import ricelang.VC.Scanner.SourcePosition;
 import ricelang.VC.StdEnvironment;
+import ricelang.VC.Symbols;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 public final class Checker implements Visitor {
 
@@ -79,25 +84,93 @@ public final class Checker implements Visitor {
     }
 
     private final SymbolTable idTable;
+    private final Symbols symbols;
+    // whether the Idents being checked hold ids from symbols, so they need not be interned again
+    private boolean idsFromSymbols;
     private static final SourcePosition dummyPos = new SourcePosition();
     private final ErrorReporter reporter;
 
+    public Checker(CompilationContext context) {
+        this(context.getReporter(), context.getSymbols());
+    }
+
     public Checker(ErrorReporter reporter) {
-        this.reporter = Objects.requireNonNull(reporter, "ErrorReporter must not be null");
-        this.idTable = new SymbolTable();
+        this(reporter, new Symbols());
+    }
+
+    Checker(ErrorReporter reporter, Symbols symbols) {
+        this(reporter, symbols, new SymbolTable(symbols));
         establishStdEnvironment();
     }
 
+    // checks against idTable as it is, which already holds the built-ins
+    Checker(ErrorReporter reporter, Symbols symbols, SymbolTable idTable) {
+        this.reporter = Objects.requireNonNull(reporter, "ErrorReporter must not be null");
+        this.symbols = symbols;
+        this.idTable = idTable;
+    }
+
     public void check(AST ast) {
         ast.visit(this, null);
     }
 
+    /**
+     * Checks only the top-level declarations in {@code changed}, e.g. the ones
+     * a ParseSession re-parsed after an edit. The others are declared but not
+     * visited again: they must have been checked before, with the same
+     * declarations in front of them, and keep the types and links they got
+     * then. Their errors are reported again from {@code kept}, in source
+     * order with the new ones, and {@code kept} is left holding the errors of
+     * this program's declarations for the next check. Whether main is there
+     * is checked every time.
+     */
+    public void check(Program ast, java.util.List<Decl> changed, DeclErrors kept) {
+        Set<Decl> toCheck = Collections.newSetFromMap(new IdentityHashMap<>());
+        toCheck.addAll(changed);
+        Recorder errors = new Recorder();
+        Checker checker = new Checker(errors, symbols);
+        checker.trustIds(ast);
+        IdentityHashMap<Decl, java.util.List<Recorder.Report>> byDecl = new IdentityHashMap<>();
+        if (ast.FL instanceof DeclList decls) {
+            for (int i = 0; i < decls.size(); i++) {
+                Decl decl = decls.get(i);
+                int from = errors.reports.size();
+                if (toCheck.contains(decl)) {
+                    decl.visit(checker, null);
+                } else {
+                    checker.idTable.insert(checker.symbol(decl.I), decl);
+                    errors.reports.addAll(kept.of(decl));
+                }
+                byDecl.put(decl, java.util.List.copyOf(errors.reports.subList(from, errors.reports.size())));
+            }
+        }
+        checker.checkMain(ast);
+        kept.keep(byDecl);
+        errors.replay(reporter, 0, errors.reports.size());
+    }
+
     ///////////////////////////////////////////////////////////////////////////
     /////////////////////////////// Program ///////////////////////////////////
     ///////////////////////////////////////////////////////////////////////////
     @Override
     public Object visitProgram(Program ast, Object o) {
+        trustIds(ast);
         ast.FL.visit(this, null);
+        checkMain(ast);
+        return null;
+    }
+
+    // whether the ids ast's Idents hold can be used as they are, see symbol(Ident)
+    boolean trustIds(Program ast) {
+        return idsFromSymbols = ast.symbols == symbols;
+    }
+
+    SymbolTable symbolTable() {
+        return idTable;
+    }
+
+    // once every top-level declaration is in, reports a missing main or one not returning int
+    void checkMain(Program ast) {
         idTable.retrieve("main").ifPresentOrElse(
                 entry -> {
                     if (!(entry.attr instanceof FuncDecl mainDecl)) {
@@ -117,8 +190,6 @@ public final class Checker implements Visitor {
                     reporter.reportError(ErrorMessage.MISSING_MAIN.getMessage(), "", ast.position);
                 }
         );
-
-        return null;
     }
 
     ///////////////////////////////////////////////////////////////////////////
@@ -126,8 +197,10 @@ public final class Checker implements Visitor {
     ///////////////////////////////////////////////////////////////////////////
     @Override
     public Object visitDeclList(DeclList ast, Object o) {
-        ast.D.visit(this, null);
-        ast.DL.visit(this, null);
+        for (int i = 0; i < ast.size(); i++) {
+            ast.get(i).visit(this, null);
+        }
+        ast.end.visit(this, null);
         return null;
     }
 
@@ -141,7 +214,14 @@ public final class Checker implements Visitor {
     ///////////////////////////////////////////////////////////////////////////
     @Override
     public Object visitFuncDecl(FuncDecl ast, Object o) {
-        idTable.retrieveOneLevel(ast.I.spelling).ifPresent(entry -> {
+        declareFunction(ast);
+        checkBody(ast);
+        return null;
+    }
+
+    // a function's declaration, without its body
+    void declareFunction(FuncDecl ast) {
+        idTable.retrieveOneLevel(symbol(ast.I)).ifPresent(entry -> {
             reporter.reportError(ErrorMessage.IDENTIFIER_REDECLARED.getMessage() + ": %", ast.I.spelling, ast.position);
         });
 
@@ -150,21 +230,22 @@ public final class Checker implements Visitor {
             reporter.reportError(ErrorMessage.IDENTIFIER_DECLARED_VOID_ARRAY.getMessage() + ": %", ast.I.spelling, ast.position);
         }
 
-        idTable.insert(ast.I.spelling, ast);
+        idTable.insert(symbol(ast.I), ast);
+    }
 
+    // the parameters and body of a function, with the scope as it was once the function was declared
+    void checkBody(FuncDecl ast) {
         ast.S.visit(this, ast);
-
-        return null;
     }
 
     ///////////////////////////////////////////////////////////////////////////
     ///////////////////////// Variable Declarations ///////////////////////////
     ///////////////////////////////////////////////////////////////////////////
     private void declareVariable(Ident ident, Decl decl) {
-        idTable.retrieveOneLevel(ident.spelling).ifPresent(entry
+        idTable.retrieveOneLevel(symbol(ident)).ifPresent(entry
                 -> reporter.reportError(ErrorMessage.IDENTIFIER_REDECLARED.getMessage() + ": %", ident.spelling, ident.position)
         );
-        idTable.insert(ident.spelling, decl);
+        idTable.insert(symbol(ident), decl);
         ident.visit(this, null);
     }
 
@@ -273,19 +354,23 @@ public final class Checker implements Visitor {
 
     @Override
     public Object visitArrayExprList(ArrayExprList ast, Object o) {
-        ast.E.visit(this, null);
-
         InheritedArrayDeclAttrs inheritedAttrs = (InheritedArrayDeclAttrs) o;
 
-        if (!inheritedAttrs.expectedType().assignable(ast.E.type)) {
-            reporter.reportError(ErrorMessage.WRONG_TYPE_FOR_ARRAY_INITIALISER.getMessage() + ": at position %", inheritedAttrs.position().toString(), ast.E.position);
-        }
+        for (int i = 0; i < ast.size(); i++) {
+            Expr expr = ast.get(i);
+            expr.visit(this, null);
+
+            int position = inheritedAttrs.position() + i;
+            if (!inheritedAttrs.expectedType().assignable(expr.type)) {
+                reporter.reportError(ErrorMessage.WRONG_TYPE_FOR_ARRAY_INITIALISER.getMessage() + ": at position %", Integer.toString(position), expr.position);
+            }
 
-        if (inheritedAttrs.expectedType().isFloatType() && ast.E.type.isIntType()) {
-            ast.E = new UnaryExpr(new Operator("i2f", ast.position), ast.E, ast.position);
+            if (inheritedAttrs.expectedType().isFloatType() && expr.type.isIntType()) {
+                ast.set(i, new UnaryExpr(new Operator("i2f", ast.positionAt(i)), expr, ast.positionAt(i)));
+            }
         }
 
-        return ast.EL.visit(this, new InheritedArrayDeclAttrs(inheritedAttrs.expectedType(), inheritedAttrs.position() + 1));
+        return ast.end.visit(this, new InheritedArrayDeclAttrs(inheritedAttrs.expectedType(), inheritedAttrs.position() + ast.size()));
     }
 
     @Override
@@ -299,8 +384,10 @@ public final class Checker implements Visitor {
     ///////////////////////////////////////////////////////////////////////////
     @Override
     public Object visitParaList(ParaList ast, Object o) {
-        ast.P.visit(this, null);
-        ast.PL.visit(this, null);
+        for (int i = 0; i < ast.size(); i++) {
+            ast.get(i).visit(this, null);
+        }
+        ast.end.visit(this, null);
         return null;
     }
 
@@ -365,7 +452,7 @@ public final class Checker implements Visitor {
     ///////////////////////////////////////////////////////////////////////////
     @Override
     public Object visitIdent(Ident I, Object o) {
-        Optional<IdEntry> binding = idTable.retrieve(I.spelling);
+        Optional<IdEntry> binding = idTable.retrieve(symbol(I));
         binding.ifPresent(entry -> I.decl = entry.attr); // Link the identifier to its declaration
         return binding.map(entry -> entry.attr).orElse(null);
     }
@@ -400,11 +487,13 @@ public final class Checker implements Visitor {
     ///////////////////////////////////////////////////////////////////////////
     @Override
     public Object visitStmtList(StmtList ast, Object o) {
-        ast.S.visit(this, o);
-        if (ast.S instanceof ReturnStmt && ast.SL instanceof StmtList) {
-            reporter.reportError(ErrorMessage.STATEMENTS_NOT_REACHED.getMessage(), "", ast.SL.position);
+        for (int i = 0; i < ast.size(); i++) {
+            ast.get(i).visit(this, o);
+            if (ast.get(i) instanceof ReturnStmt && i + 1 < ast.size()) {
+                reporter.reportError(ErrorMessage.STATEMENTS_NOT_REACHED.getMessage(), "", ast.positionAt(i + 1));
+            }
         }
-        ast.SL.visit(this, o);
+        ast.end.visit(this, o);
         return null;
     }
 
@@ -799,7 +888,7 @@ public final class Checker implements Visitor {
     @Override
     public Object visitCallExpr(CallExpr ast, Object o) {
         // when calling a function, we gotta check that the correct number of arguments are passed.
-        Optional<IdEntry> res = idTable.retrieve(ast.I.spelling);
+        Optional<IdEntry> res = idTable.retrieve(symbol(ast.I));
 
         res.ifPresentOrElse(
                 entry -> {
@@ -844,19 +933,22 @@ public final class Checker implements Visitor {
 
     @Override
     public Object visitArgList(ArgList ast, Object o) {
-        if (o instanceof EmptyParaList) {
-            reporter.reportError(ErrorMessage.TOO_MANY_ACTUAL_PARAMETERS.getMessage() + ": %", ast.toString(), ast.position);
-            return null;
-        }
-
-        if (!(o instanceof ParaList paraList)) {
+        if (!(o instanceof ParaList || o instanceof EmptyParaList)) {
             throw new Error("arglist must be checking against paralist but found: " + o);
         }
+        List paraList = (List) o;
 
-        Type expectedType = paraList.P.T;
+        for (int i = 0; i < ast.size(); i++) {
+            if (i == paraList.size()) {
+                List extra = ast.from(i);
+                reporter.reportError(ErrorMessage.TOO_MANY_ACTUAL_PARAMETERS.getMessage() + ": %", extra.toString(), extra.position);
+                return null;
+            }
+            ast.get(i).visit(this, ((ParaList) paraList).get(i).T);
+        }
 
-        ast.A.visit(this, expectedType);
-        ast.AL.visit(this, paraList.PL);
+        // the arguments ran out, the parameters should have too
+        ast.end.visit(this, paraList instanceof ParaList paras ? paras.from(ast.size()) : paraList);
 
         return null;
     }
@@ -897,7 +989,7 @@ public final class Checker implements Visitor {
     @Override
     public Object visitSimpleVar(SimpleVar ast, Object o) {
         // Each SimpleVar node is decorated by setting its type field to the type of the expression.
-        idTable.retrieve(ast.I.spelling).ifPresentOrElse(
+        idTable.retrieve(symbol(ast.I)).ifPresentOrElse(
                 entry -> {
                     if (entry.attr.isFuncDecl()) {
                         reporter.reportError(ErrorMessage.ARRAY_FUNCTION_AS_SCALAR.getMessage() + ": %", ast.I.spelling, ast.position);
@@ -916,38 +1008,18 @@ public final class Checker implements Visitor {
         return ast.type;
     }
 
+    // the id of I's spelling, as the scanner gave it if it gave it from symbols
+    private int symbol(Ident I) {
+        return idsFromSymbols && I.symbol >= 0 ? I.symbol : symbols.id(I.spelling);
+    }
+
     ///////////////////////////////////////////////////////////////////////////
     /////////////////////////// Built-in Functions ////////////////////////////
     ///////////////////////////////////////////////////////////////////////////
-    private FuncDecl declareStdFunc(Type resultType, String id, ricelang.VC.ASTs.List pl) {
-        var binding = new FuncDecl(resultType, new Ident(id, dummyPos), pl, new EmptyStmt(dummyPos), dummyPos);
-        idTable.insert(id, binding);
-        return binding;
-    }
-
-    private final static Ident dummyI = new Ident("x", dummyPos);
-
+    // the built-ins themselves are shared, see StdEnvironment
     private void establishStdEnvironment() {
-        // Define four primitive types
-        // errorType is assigned to ill-typed expressions
-        StdEnvironment.booleanType = new BooleanType(dummyPos);
-        StdEnvironment.intType = new IntType(dummyPos);
-        StdEnvironment.floatType = new FloatType(dummyPos);
-        StdEnvironment.stringType = new StringType(dummyPos);
-        StdEnvironment.voidType = new VoidType(dummyPos);
-        StdEnvironment.errorType = new ErrorType(dummyPos);
-
-        // enter into the declarations for built-in functions into the table
-        StdEnvironment.getIntDecl = declareStdFunc(StdEnvironment.intType, "getInt", new EmptyParaList(dummyPos));
-        StdEnvironment.putIntDecl = declareStdFunc(StdEnvironment.voidType, "putInt", new ParaList(new ParaDecl(StdEnvironment.intType, dummyI, dummyPos), new EmptyParaList(dummyPos), dummyPos));
-        StdEnvironment.putIntLnDecl = declareStdFunc(StdEnvironment.voidType, "putIntLn", new ParaList(new ParaDecl(StdEnvironment.intType, dummyI, dummyPos), new EmptyParaList(dummyPos), dummyPos));
-        StdEnvironment.getFloatDecl = declareStdFunc(StdEnvironment.floatType, "getFloat", new EmptyParaList(dummyPos));
-        StdEnvironment.putFloatDecl = declareStdFunc(StdEnvironment.voidType, "putFloat", new ParaList(new ParaDecl(StdEnvironment.floatType, dummyI, dummyPos), new EmptyParaList(dummyPos), dummyPos));
-        StdEnvironment.putFloatLnDecl = declareStdFunc(StdEnvironment.voidType, "putFloatLn", new ParaList(new ParaDecl(StdEnvironment.floatType, dummyI, dummyPos), new EmptyParaList(dummyPos), dummyPos));
-        StdEnvironment.putBoolDecl = declareStdFunc(StdEnvironment.voidType, "putBool", new ParaList(new ParaDecl(StdEnvironment.booleanType, dummyI, dummyPos), new EmptyParaList(dummyPos), dummyPos));
-        StdEnvironment.putBoolLnDecl = declareStdFunc(StdEnvironment.voidType, "putBoolLn", new ParaList(new ParaDecl(StdEnvironment.booleanType, dummyI, dummyPos), new EmptyParaList(dummyPos), dummyPos));
-        StdEnvironment.putStringLnDecl = declareStdFunc(StdEnvironment.voidType, "putStringLn", new ParaList(new ParaDecl(StdEnvironment.stringType, dummyI, dummyPos), new EmptyParaList(dummyPos), dummyPos));
-        StdEnvironment.putStringDecl = declareStdFunc(StdEnvironment.voidType, "putString", new ParaList(new ParaDecl(StdEnvironment.stringType, dummyI, dummyPos), new EmptyParaList(dummyPos), dummyPos));
-        StdEnvironment.putLnDecl = declareStdFunc(StdEnvironment.voidType, "putLn", new EmptyParaList(dummyPos));
+        for (FuncDecl binding : StdEnvironment.functions) {
+            idTable.insert(binding.I.spelling, binding);
+        }
     }
 }
@@ -0,0 +1,32 @@
+/*
+ * DeclErrors.java
+ */
+
+package ricelang.VC.Checker;
+
+import java.util.IdentityHashMap;
+
+import ricelang.VC.ASTs.Decl;
+
+/**
+ * The errors each top-level declaration of a program got the last time it
+ * was checked, kept from one incremental check to the next (see
+ * {@link Checker#check(ricelang.VC.ASTs.Program, java.util.List, DeclErrors)}).
+ * A declaration that is not checked again has its errors reported from
+ * here, so an edit elsewhere does not lose them. One is kept per
+ * ParseSession, say, and handed to every check of its updates.
+ */
+public final class DeclErrors {
+
+    // by declaration, the reports it got; only the declarations of the last program checked are kept
+    private IdentityHashMap<Decl, java.util.List<Recorder.Report>> byDecl = new IdentityHashMap<>();
+
+    // the errors decl got when it was last checked, none if it never was
+    java.util.List<Recorder.Report> of(Decl decl) {
+        return byDecl.getOrDefault(decl, java.util.List.of());
+    }
+
+    void keep(IdentityHashMap<Decl, java.util.List<Recorder.Report>> byDecl) {
+        this.byDecl = byDecl;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * GlobalScope.java
+ */
+
+package ricelang.VC.Checker;
+
+/**
+ * The top-level entries of a program, the built-ins first, frozen once
+ * they are all in so that the function bodies can be checked against them
+ * on any number of threads at once.
+ *
+ * A top-level name is only in scope from its declaration on, and a name
+ * declared twice means its first declaration up to the second. So each
+ * entry keeps its place in the order they were made, and a lookup is for
+ * the latest entry among the first so many: those made by the time the
+ * function being checked was declared.
+ */
+final class GlobalScope {
+
+    // the entries in the order they were made, by place in that order
+    private final IdEntry[] made;
+    // by place, the place of the entry for the same symbol made before, -1 for none
+    private final int[] previous;
+    // by symbol id, the place of the last entry made for it, -1 for none
+    private final int[] last;
+
+    GlobalScope(java.util.List<IdEntry> entries, int symbols) {
+        made = entries.toArray(new IdEntry[0]);
+        previous = new int[made.length];
+        last = new int[symbols];
+        java.util.Arrays.fill(last, -1);
+        for (int place = 0; place < made.length; place++) {
+            int symbol = made[place].symbol;
+            previous[place] = last[symbol];
+            last[symbol] = place;
+        }
+    }
+
+    // the latest entry for symbol among the first visible made, null if there is none
+    IdEntry retrieve(int symbol, int visible) {
+        int place = symbol < last.length ? last[symbol] : -1;
+        while (place >= visible) {
+            place = previous[place];
+        }
+        return place < 0 ? null : made[place];
+    }
+}
@@ -11,15 +11,17 @@ import java.util.Objects;
 
 /**
  * Represents an entry in the symbol table for an identifier.
- * Each entry contains the identifier's name, its associated declaration,
- * the scope level, and a reference to the previous entry in the symbol table.
+ * Each entry contains the identifier's name and id, its associated declaration,
+ * the scope level, and a reference to the entry for the same identifier
+ * it shadows.
  */
 public final class IdEntry {
 
     protected final String id;            // The identifier's name
+    protected final int symbol;           // The identifier's id in the table's Symbols, -1 if it has none
     protected final Decl attr;            // The associated declaration
     protected final int level;            // The scope level of the identifier
-    protected final IdEntry previousEntry; // Reference to the previous entry in the symbol table
+    protected final IdEntry previousEntry; // The entry for the same identifier this one shadows
 
     /**
      * Constructs a new IdEntry.
@@ -27,10 +29,24 @@ public final class IdEntry {
      * @param id            The identifier's name.
      * @param attr          The associated declaration.
      * @param level         The scope level of the identifier.
-     * @param previousEntry The previous entry in the symbol table.
+     * @param previousEntry The entry for the same identifier this one shadows, or null.
      */
     public IdEntry(String id, Decl attr, int level, IdEntry previousEntry) {
+        this(id, -1, attr, level, previousEntry);
+    }
+
+    /**
+     * Constructs a new IdEntry for an identifier with an id.
+     *
+     * @param id            The identifier's name.
+     * @param symbol        The identifier's id in the table's Symbols.
+     * @param attr          The associated declaration.
+     * @param level         The scope level of the identifier.
+     * @param previousEntry The entry for the same identifier this one shadows, or null.
+     */
+    public IdEntry(String id, int symbol, Decl attr, int level, IdEntry previousEntry) {
         this.id = Objects.requireNonNull(id, "Identifier must not be null");
+        this.symbol = symbol;
         this.attr = Objects.requireNonNull(attr, "Declaration must not be null");
         this.level = level;
         this.previousEntry = previousEntry;
@@ -0,0 +1,124 @@
+/*
+ * ParallelChecker.java
+ */
+package ricelang.VC.Checker;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import ricelang.VC.ASTs.*;
+import ricelang.VC.CompilationContext;
+import ricelang.VC.ErrorReporter;
+import ricelang.VC.Symbols;
+
+/**
+ * Checks the bodies of a program's functions side by side on a fork-join
+ * pool.
+ *
+ * First the top-level declarations are checked in order as usual, except
+ * that a function is only declared and its body left for later. The
+ * entries they leave in the symbol table are then frozen into a
+ * GlobalScope, and each body is checked on the pool by a Checker of its
+ * own, with a table of its own for the locals over the entries that were
+ * in scope when its function was declared. Nothing a body check decorates
+ * is shared with another body, so they need no locking. The bodies go to
+ * the pool a run of consecutive functions at a time, each run checked by
+ * one Checker whose table is empty again after every body, so a program
+ * of many small functions does not cost a task and a table apiece.
+ *
+ * Every check reports to a reporter of its own, and once all are done
+ * their errors are reported in the order the sequential Checker reports
+ * them: each top-level declaration's, then its body's if it has one, and
+ * last whether main is there. The errors and the decorated tree are those
+ * of a sequential check.
+ *
+ * The bodies look their names up by the ids the scanner gave them, so a
+ * program that does not hold ids from this compilation's Symbols (one read
+ * back from a CompactAst, say) is checked sequentially.
+ */
+public final class ParallelChecker {
+
+    // a few runs of bodies to each worker, so one that finishes early can take another
+    private static final int RUNS_PER_WORKER = 4;
+
+    private final ErrorReporter errorReporter;
+    private final Symbols symbols;
+    private final ForkJoinPool pool;
+
+    public ParallelChecker(CompilationContext context) {
+        this(context, ForkJoinPool.commonPool());
+    }
+
+    public ParallelChecker(CompilationContext context, ForkJoinPool pool) {
+        errorReporter = context.getReporter();
+        symbols = context.getSymbols();
+        this.pool = pool;
+    }
+
+    public void check(AST ast) {
+        if (!(ast instanceof Program program) || !(program.FL instanceof DeclList decls) || program.symbols != symbols) {
+            new Checker(errorReporter, symbols).check(ast);
+            return;
+        }
+
+        // the top level, bodies left out
+        Recorder declared = new Recorder();
+        Checker declarer = new Checker(declared, symbols);
+        declarer.trustIds(program);
+        SymbolTable table = declarer.symbolTable();
+        int[] reported = new int[decls.size() + 1]; // where the errors declaring each declaration start
+        int[] visible = new int[decls.size()]; // the top-level entries in scope in each function's body
+        for (int i = 0; i < decls.size(); i++) {
+            reported[i] = declared.reports.size();
+            Decl decl = decls.get(i);
+            if (decl instanceof FuncDecl fAST) {
+                declarer.declareFunction(fAST);
+                visible[i] = table.size();
+            } else {
+                decl.visit(declarer, null);
+            }
+        }
+        reported[decls.size()] = declared.reports.size();
+        declarer.checkMain(program);
+
+        // the bodies, against the top level as it ended up, in runs of functions that share a table
+        GlobalScope globals = table.globals();
+        int[] bodyErrors = new int[decls.size() + 1]; // where the errors of each body start in its run's recorder
+        int run = Math.max(1, (decls.size() + RUNS_PER_WORKER * pool.getParallelism() - 1)
+                / (RUNS_PER_WORKER * pool.getParallelism()));
+        ArrayList<ForkJoinTask<Recorder>> runs = new ArrayList<>();
+        for (int from = 0; from < decls.size(); from += run) {
+            int start = from;
+            int end = Math.min(decls.size(), from + run);
+            runs.add(pool.submit(() -> checkBodies(program, decls, start, end, globals, visible, bodyErrors)));
+        }
+
+        for (int r = 0; r < runs.size(); r++) {
+            Recorder bodies = runs.get(r).join();
+            int end = Math.min(decls.size(), (r + 1) * run);
+            for (int i = r * run; i < end; i++) {
+                declared.replay(errorReporter, reported[i], reported[i + 1]);
+                bodies.replay(errorReporter, bodyErrors[i], i + 1 < end ? bodyErrors[i + 1] : bodies.reports.size());
+            }
+        }
+        declared.replay(errorReporter, reported[decls.size()], declared.reports.size());
+    }
+
+    // checks the bodies of the functions in decls[start..end) one after the other, each leaving the table empty for the next
+    private Recorder checkBodies(Program program, DeclList decls, int start, int end, GlobalScope globals,
+            int[] visible, int[] bodyErrors) {
+        Recorder errors = new Recorder();
+        SymbolTable locals = new SymbolTable(symbols, globals, 0);
+        Checker checker = new Checker(errors, symbols, locals);
+        checker.trustIds(program);
+        for (int i = start; i < end; i++) {
+            bodyErrors[i] = errors.reports.size();
+            if (decls.get(i) instanceof FuncDecl fAST) {
+                locals.showGlobals(visible[i]);
+                checker.checkBody(fAST);
+            }
+        }
+        return errors;
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Recorder.java
+ */
+
+package ricelang.VC.Checker;
+
+import java.util.ArrayList;
+
+import ricelang.VC.ErrorReporter;
+import ricelang.VC.Scanner.SourcePosition;
+
+/**
+ * An ErrorReporter that holds on to the errors reported to it, for them to
+ * be reported again later, in the order the sequential Checker would have
+ * reported them.
+ */
+final class Recorder extends ErrorReporter {
+
+    record Report(String message, String tokenName, SourcePosition position) {
+    }
+
+    final ArrayList<Report> reports = new ArrayList<>();
+
+    @Override
+    public void reportError(String message, String tokenName, SourcePosition pos) {
+        reports.add(new Report(message, tokenName, pos));
+    }
+
+    void replay(ErrorReporter reporter, int from, int until) {
+        for (Report report : reports.subList(from, until)) {
+            reporter.reportError(report.message(), report.tokenName(), report.position());
+        }
+    }
+}
@@ -2,15 +2,27 @@
  * SymbolTable.java 
  *
  * In the current implementation, there is only one symbol table for
- * the entire program being compiled. It is a stack in which each
- * entry contains an identifier, a scope level and a declaration.
+ * the entire program being compiled. Each identifier has a stack of
+ * entries, the one on top shadowing those under it, and each entry
+ * holds the identifier, its scope level and its declaration.
  *
  * There are four methods:
- * insert:    push a new entry (id, attr) to the stack
+ * insert:    push a new entry (id, attr) on the stack of id
  * retrieve:  return the top-most entry for an identifier
  * openScope: increment the current scope level by 1 
  * closeScope: pop off all entries in the current scope level
  *
+ * Identifiers are looked up by the int id Symbols gives them, and the
+ * tops of the stacks are kept in an array indexed by that id, so retrieve
+ * takes the same time however many identifiers are in scope and never
+ * hashes or compares a spelling. The methods taking a String intern it
+ * first. The entries are also kept in the order they were made, so
+ * closeScope can pop the ones made in the scope it closes off their
+ * stacks, most recent first.
+ *
+ * A table can also start out over a GlobalScope, the top-level entries
+ * of a program declared once and shared: a name with no entry of its own
+ * is looked up there, among the entries the table was told are in scope.
  *
  * In an industry compiler for a block-structured language, it is
  * common to build a new symbol table for each scope and link the
@@ -28,16 +40,56 @@
 package ricelang.VC.Checker;
 
 import ricelang.VC.ASTs.*;
+import ricelang.VC.Symbols;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Optional;
 
 public final class SymbolTable {
 
     private int level;
-    private IdEntry latest;
+    private final Symbols symbols;
+    // the top entry of each identifier's stack by id, null for none; an entry's previousEntry is the one it shadows
+    private IdEntry[] latest;
+    // every entry in scope, in the order inserted
+    private final ArrayList<IdEntry> entries;
+    // the top-level entries under these, null for none, and how many of them are in scope
+    private final GlobalScope globals;
+    private int visible;
 
     public SymbolTable() {
+        this(new Symbols());
+    }
+
+    // identifiers are looked up by their ids in symbols
+    public SymbolTable(Symbols symbols) {
+        this(symbols, null, 0);
+    }
+
+    // a table starting out with the first visible entries of globals in scope at level 1
+    SymbolTable(Symbols symbols, GlobalScope globals, int visible) {
         level = 1;
-        latest = null;
+        this.symbols = symbols;
+        // over globals it only holds locals, and insert grows it to the ids they have
+        latest = new IdEntry[globals == null ? Math.max(symbols.size(), 64) : 64];
+        entries = new ArrayList<>();
+        this.globals = globals;
+        this.visible = visible;
+    }
+
+    // puts the first visible entries of the globals in scope instead, between two bodies
+    void showGlobals(int visible) {
+        this.visible = visible;
+    }
+
+    // the number of entries in scope, leaving out those of the globals it started with
+    int size() {
+        return entries.size();
+    }
+
+    // the entries at level 1 as they are now, each with its place in the order they were inserted
+    GlobalScope globals() {
+        return new GlobalScope(entries, symbols.size());
     }
 
     // Opens a new level in the symbol table, 1 higher than the
@@ -51,24 +103,29 @@ public final class SymbolTable {
     // all entries belonging to that level.
 
     public void closeScope() {
-        IdEntry entry;
-
         // Presumably, idTable.level > 0.
-        entry = this.latest;
-        while (entry != null && entry.level == this.level) {
-            entry = entry.previousEntry;
+        while (!entries.isEmpty() && entries.get(entries.size() - 1).level == this.level) {
+            IdEntry entry = entries.remove(entries.size() - 1);
+            latest[entry.symbol] = entry.previousEntry;
         }
 
         this.level--;
-        this.latest = entry;
     }
 
     // Makes a new entry in the symbol table for the given identifier
     // and attribute. The new entry belongs to the current scope level.
 
     public void insert(String id, Decl attr) {
-        IdEntry entry = new IdEntry(id, attr, this.level, this.latest);
-        this.latest = entry;
+        insert(symbols.id(id), attr);
+    }
+
+    public void insert(int symbol, Decl attr) {
+        if (symbol >= latest.length) {
+            latest = Arrays.copyOf(latest, Math.max(symbol + 1, latest.length * 2));
+        }
+        IdEntry entry = new IdEntry(symbols.spelling(symbol), symbol, attr, this.level, latest[symbol]);
+        latest[symbol] = entry;
+        entries.add(entry);
     }
 
     // Finds an entry for the given identifier in the symbol table,
@@ -78,14 +135,11 @@ public final class SymbolTable {
     // or an empty Optional if no entry is found.
 
     public Optional<IdEntry> retrieve(String id) {
-        IdEntry entry = this.latest;
-        while (entry != null) {
-            if (entry.id.equals(id)) {
-                return Optional.of(entry);
-            }
-            entry = entry.previousEntry;
-        }
-        return Optional.empty();
+        return retrieve(symbols.id(id));
+    }
+
+    public Optional<IdEntry> retrieve(int symbol) {
+        return Optional.ofNullable(top(symbol));
     }
 
     // Used in type checking to find multiply declared names.
@@ -93,18 +147,17 @@ public final class SymbolTable {
     // or an empty Optional otherwise.
 
     public Optional<IdEntry> retrieveOneLevel(String id) {
-        IdEntry entry = this.latest;
-
-        while (entry != null) {
-            if (entry.level != this.level) {
-                return Optional.empty();
-            }
-            if (entry.id.equals(id)) {
-                return Optional.of(entry);
-            }
-            entry = entry.previousEntry;
-        }
+        return retrieveOneLevel(symbols.id(id));
+    }
+
+    public Optional<IdEntry> retrieveOneLevel(int symbol) {
+        // an entry at the current level is the latest there is for its identifier
+        IdEntry entry = top(symbol);
+        return entry != null && entry.level == this.level ? Optional.of(entry) : Optional.empty();
+    }
 
-        return Optional.empty();
+    private IdEntry top(int symbol) {
+        IdEntry entry = symbol < latest.length ? latest[symbol] : null;
+        return entry == null && globals != null ? globals.retrieve(symbol, visible) : entry;
     }
 }
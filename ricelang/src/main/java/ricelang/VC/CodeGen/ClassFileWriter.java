@@ -0,0 +1,537 @@
+/*
+*** ClassFileWriter.java
+*
+* Assembles the Jasmin instructions produced by the Emitter straight into
+* the bytes of a .class file, so /run does not have to write a .j file and
+* get jasmin to parse it back.
+*
+* Only the subset of Jasmin the Emitter actually produces is understood:
+* .class/.super/.field/.method/.limit/.var/.end directives, labels, and the
+* instructions listed in JVM. The output matches what jasmin generates for
+* the same input (class file version 45.3, so no stack map frames are
+* needed, and a SourceFile attribute naming the .j file so stack traces
+* read the same either way).
+ */
+package ricelang.VC.CodeGen;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+final class ClassFileWriter {
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int MINOR_VERSION = 3;
+    private static final int MAJOR_VERSION = 45;
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_PRIVATE = 0x0002;
+    private static final int ACC_PROTECTED = 0x0004;
+    private static final int ACC_STATIC = 0x0008;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private enum Operand { NONE, LOCAL, BYTE, SHORT, CONSTANT, BRANCH, FIELD, METHOD, CLASS, ARRAY_TYPE }
+
+    private record Opcode(int code, Operand operand) {}
+
+    private static final Map<String, Opcode> OPCODES = new HashMap<>();
+
+    private static void op(String mnemonic, int code, Operand operand) {
+        OPCODES.put(mnemonic, new Opcode(code, operand));
+    }
+
+    static {
+        op(JVM.NOP, 0x00, Operand.NONE);
+        op(JVM.ICONST_M1, 0x02, Operand.NONE);
+        op(JVM.ICONST_0, 0x03, Operand.NONE);
+        op(JVM.ICONST_1, 0x04, Operand.NONE);
+        op(JVM.ICONST_2, 0x05, Operand.NONE);
+        op(JVM.ICONST_3, 0x06, Operand.NONE);
+        op(JVM.ICONST_4, 0x07, Operand.NONE);
+        op(JVM.ICONST_5, 0x08, Operand.NONE);
+        op(JVM.FCONST_0, 0x0b, Operand.NONE);
+        op(JVM.FCONST_1, 0x0c, Operand.NONE);
+        op(JVM.FCONST_2, 0x0d, Operand.NONE);
+        op(JVM.BIPUSH, 0x10, Operand.BYTE);
+        op(JVM.SIPUSH, 0x11, Operand.SHORT);
+        op(JVM.LDC, 0x12, Operand.CONSTANT);
+
+        op(JVM.ILOAD, 0x15, Operand.LOCAL);
+        op(JVM.FLOAD, 0x17, Operand.LOCAL);
+        op(JVM.ALOAD, 0x19, Operand.LOCAL);
+        op(JVM.ISTORE, 0x36, Operand.LOCAL);
+        op(JVM.FSTORE, 0x38, Operand.LOCAL);
+        op(JVM.ASTORE, 0x3a, Operand.LOCAL);
+        String[] shortForms = { "iload", "lload", "fload", "dload", "aload" };
+        for (int kind = 0; kind < shortForms.length; kind++) {
+            for (int i = 0; i <= 3; i++) {
+                op(shortForms[kind] + "_" + i, 0x1a + kind * 4 + i, Operand.NONE);
+                op(shortForms[kind].replace("load", "store") + "_" + i, 0x3b + kind * 4 + i, Operand.NONE);
+            }
+        }
+
+        op(JVM.IALOAD, 0x2e, Operand.NONE);
+        op(JVM.FALOAD, 0x30, Operand.NONE);
+        op(JVM.BALOAD, 0x33, Operand.NONE);
+        op(JVM.IASTORE, 0x4f, Operand.NONE);
+        op(JVM.FASTORE, 0x51, Operand.NONE);
+        op(JVM.BASTORE, 0x54, Operand.NONE);
+
+        op(JVM.POP, 0x57, Operand.NONE);
+        op(JVM.DUP, 0x59, Operand.NONE);
+        op(JVM.DUP_X2, 0x5b, Operand.NONE);
+
+        op(JVM.IADD, 0x60, Operand.NONE);
+        op(JVM.FADD, 0x62, Operand.NONE);
+        op(JVM.ISUB, 0x64, Operand.NONE);
+        op(JVM.FSUB, 0x66, Operand.NONE);
+        op(JVM.IMUL, 0x68, Operand.NONE);
+        op(JVM.FMUL, 0x6a, Operand.NONE);
+        op(JVM.IDIV, 0x6c, Operand.NONE);
+        op(JVM.FDIV, 0x6e, Operand.NONE);
+        op(JVM.INEG, 0x74, Operand.NONE);
+        op(JVM.FNEG, 0x76, Operand.NONE);
+        op(JVM.IXOR, 0x82, Operand.NONE);
+        op(JVM.I2F, 0x86, Operand.NONE);
+        op(JVM.FCMPL, 0x95, Operand.NONE);
+        op(JVM.FCMPG, 0x96, Operand.NONE);
+
+        op(JVM.IFEQ, 0x99, Operand.BRANCH);
+        op(JVM.IFNE, 0x9a, Operand.BRANCH);
+        op(JVM.IFLT, 0x9b, Operand.BRANCH);
+        op(JVM.IFGE, 0x9c, Operand.BRANCH);
+        op(JVM.IFGT, 0x9d, Operand.BRANCH);
+        op(JVM.IFLE, 0x9e, Operand.BRANCH);
+        op(JVM.IF_ICMPEQ, 0x9f, Operand.BRANCH);
+        op(JVM.IF_ICMPNE, 0xa0, Operand.BRANCH);
+        op(JVM.IF_ICMPLT, 0xa1, Operand.BRANCH);
+        op(JVM.IF_ICMPGE, 0xa2, Operand.BRANCH);
+        op(JVM.IF_ICMPGT, 0xa3, Operand.BRANCH);
+        op(JVM.IF_ICMPLE, 0xa4, Operand.BRANCH);
+        op(JVM.GOTO, 0xa7, Operand.BRANCH);
+
+        op(JVM.IRETURN, 0xac, Operand.NONE);
+        op(JVM.FRETURN, 0xae, Operand.NONE);
+        op(JVM.RETURN, 0xb1, Operand.NONE);
+
+        op(JVM.GETSTATIC, 0xb2, Operand.FIELD);
+        op(JVM.PUTSTATIC, 0xb3, Operand.FIELD);
+        op(JVM.INVOKEVIRTUAL, 0xb6, Operand.METHOD);
+        op(JVM.INVOKESPECIAL, 0xb7, Operand.METHOD);
+        op("invokenonvirtual", 0xb7, Operand.METHOD); // old jasmin name for invokespecial
+        op(JVM.INVOKESTATIC, 0xb8, Operand.METHOD);
+        op(JVM.NEW, 0xbb, Operand.CLASS);
+        op(JVM.NEWARRAY, 0xbc, Operand.ARRAY_TYPE);
+    }
+
+    private static final int WIDE = 0xc4;
+    private static final int LDC_W = 0x13;
+
+    // ======================= constant pool =======================
+
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+    private final Map<String, Integer> poolIndex = new HashMap<>();
+    private int poolCount = 1;
+
+    // ======================= class state =======================
+
+    private int classFlags;
+    private int thisClass;
+    private int superClass;
+    private final ByteArrayOutputStream fields = new ByteArrayOutputStream();
+    private int fieldCount;
+    private final ByteArrayOutputStream methods = new ByteArrayOutputStream();
+    private int methodCount;
+
+    // ======================= method state =======================
+
+    private int methodFlags;
+    private int methodName;
+    private int methodDescriptor;
+    private int maxStack;
+    private int maxLocals;
+    private ByteArrayOutputStream code;
+    private Map<String, Integer> labels;
+    private List<int[]> branchFixups; // {pc of the branch, pc of its offset}, target in fixupLabels
+    private List<String> fixupLabels;
+    private List<String[]> localVars;
+
+    private final String sourceFile;
+
+    private ClassFileWriter(String sourceFile) {
+        this.sourceFile = sourceFile;
+    }
+
+    static byte[] assemble(List<Instruction> instructions, String sourceFile) {
+        ClassFileWriter writer = new ClassFileWriter(sourceFile);
+        try {
+            for (Instruction inst : instructions) {
+                writer.line(inst.assembly().trim());
+            }
+            return writer.toBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void line(String line) throws IOException {
+        if (line.isEmpty() || line.startsWith(";")) {
+            return;
+        }
+        if (line.endsWith(":")) {
+            labels.put(line.substring(0, line.length() - 1), code.size());
+            return;
+        }
+
+        String[] tokens = line.split("\\s+");
+        switch (tokens[0]) {
+            case JVM.CLASS -> {
+                classFlags = accessFlags(tokens, 1, tokens.length - 1) | ACC_SUPER;
+                thisClass = classRef(tokens[tokens.length - 1]);
+            }
+            case JVM.SUPER -> superClass = classRef(tokens[1]);
+            case ".field" -> {
+                DataOutputStream out = new DataOutputStream(fields);
+                out.writeShort(accessFlags(tokens, 1, tokens.length - 2));
+                out.writeShort(utf8(tokens[tokens.length - 2]));
+                out.writeShort(utf8(tokens[tokens.length - 1]));
+                out.writeShort(0);
+                fieldCount++;
+            }
+            case JVM.METHOD_START -> {
+                String signature = tokens[tokens.length - 1];
+                int paren = signature.indexOf('(');
+                methodFlags = accessFlags(tokens, 1, tokens.length - 1);
+                methodName = utf8(signature.substring(0, paren));
+                methodDescriptor = utf8(signature.substring(paren));
+                maxStack = 0;
+                maxLocals = 0;
+                code = new ByteArrayOutputStream();
+                labels = new HashMap<>();
+                branchFixups = new ArrayList<>();
+                fixupLabels = new ArrayList<>();
+                localVars = new ArrayList<>();
+            }
+            case JVM.LIMIT -> {
+                int value = Integer.parseInt(tokens[2]);
+                if (tokens[1].equals("stack")) {
+                    maxStack = value;
+                } else {
+                    maxLocals = value;
+                }
+            }
+            // .var <index> is <name> <descriptor> from <label> to <label>
+            case JVM.VAR -> localVars.add(new String[] { tokens[1], tokens[3], tokens[4], tokens[6], tokens[8] });
+            case JVM.METHOD_END -> endMethod();
+            default -> instruction(tokens, line);
+        }
+    }
+
+    private void instruction(String[] tokens, String line) throws IOException {
+        Opcode op = OPCODES.get(tokens[0]);
+        if (op == null) {
+            throw new IllegalArgumentException("unsupported instruction: " + line);
+        }
+        int pc = code.size();
+        DataOutputStream out = new DataOutputStream(code);
+
+        switch (op.operand()) {
+            case NONE -> out.writeByte(op.code());
+            case LOCAL -> {
+                int index = Integer.parseInt(tokens[1]);
+                if (index > JVM.MAX_BYTE) {
+                    out.writeByte(WIDE);
+                    out.writeByte(op.code());
+                    out.writeShort(index);
+                } else {
+                    out.writeByte(op.code());
+                    out.writeByte(index);
+                }
+            }
+            case BYTE -> {
+                out.writeByte(op.code());
+                out.writeByte(Integer.parseInt(tokens[1]));
+            }
+            case SHORT -> {
+                out.writeByte(op.code());
+                out.writeShort(Integer.parseInt(tokens[1]));
+            }
+            case CONSTANT -> {
+                int index = constant(line.substring(tokens[0].length()).trim());
+                if (index > JVM.MAX_BYTE) {
+                    out.writeByte(LDC_W);
+                    out.writeShort(index);
+                } else {
+                    out.writeByte(op.code());
+                    out.writeByte(index);
+                }
+            }
+            case BRANCH -> {
+                out.writeByte(op.code());
+                branchFixups.add(new int[] { pc, code.size() });
+                fixupLabels.add(tokens[1]);
+                out.writeShort(0);
+            }
+            case FIELD -> {
+                // getstatic owner/name descriptor
+                String member = tokens[1];
+                int slash = member.lastIndexOf('/');
+                out.writeByte(op.code());
+                out.writeShort(memberRef(CONSTANT_FIELDREF, member.substring(0, slash),
+                        member.substring(slash + 1), tokens[2]));
+            }
+            case METHOD -> {
+                // invokevirtual owner/name(args)ret
+                String member = tokens[1];
+                int paren = member.indexOf('(');
+                int slash = member.lastIndexOf('/', paren);
+                out.writeByte(op.code());
+                out.writeShort(memberRef(CONSTANT_METHODREF, member.substring(0, slash),
+                        member.substring(slash + 1, paren), member.substring(paren)));
+            }
+            case CLASS -> {
+                out.writeByte(op.code());
+                out.writeShort(classRef(tokens[1]));
+            }
+            case ARRAY_TYPE -> {
+                out.writeByte(op.code());
+                out.writeByte(switch (tokens[1]) {
+                    case "boolean" -> 4;
+                    case "char" -> 5;
+                    case "float" -> 6;
+                    case "double" -> 7;
+                    case "byte" -> 8;
+                    case "short" -> 9;
+                    case "int" -> 10;
+                    case "long" -> 11;
+                    default -> throw new IllegalArgumentException("unsupported array type: " + line);
+                });
+            }
+        }
+    }
+
+    private void endMethod() throws IOException {
+        byte[] bytecode = code.toByteArray();
+        for (int i = 0; i < branchFixups.size(); i++) {
+            int[] fixup = branchFixups.get(i);
+            int offset = label(fixupLabels.get(i)) - fixup[0];
+            if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) {
+                throw new IllegalStateException("branch to " + fixupLabels.get(i) + " is too far for a 16 bit offset");
+            }
+            bytecode[fixup[1]] = (byte) (offset >> 8);
+            bytecode[fixup[1] + 1] = (byte) offset;
+        }
+
+        ByteArrayOutputStream localVarTable = new ByteArrayOutputStream();
+        DataOutputStream lvt = new DataOutputStream(localVarTable);
+        for (String[] var : localVars) {
+            int start = label(var[3]);
+            lvt.writeShort(start);
+            lvt.writeShort(label(var[4]) - start);
+            lvt.writeShort(utf8(var[1]));
+            lvt.writeShort(utf8(var[2]));
+            lvt.writeShort(Integer.parseInt(var[0]));
+        }
+
+        int codeAttributeLength = 2 + 2 + 4 + bytecode.length + 2 + 2;
+        if (!localVars.isEmpty()) {
+            codeAttributeLength += 6 + 2 + localVarTable.size();
+        }
+
+        DataOutputStream out = new DataOutputStream(methods);
+        out.writeShort(methodFlags);
+        out.writeShort(methodName);
+        out.writeShort(methodDescriptor);
+        out.writeShort(1);
+        out.writeShort(utf8("Code"));
+        out.writeInt(codeAttributeLength);
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(bytecode.length);
+        out.write(bytecode);
+        out.writeShort(0); // no exception handlers
+        if (localVars.isEmpty()) {
+            out.writeShort(0);
+        } else {
+            out.writeShort(1);
+            out.writeShort(utf8("LocalVariableTable"));
+            out.writeInt(2 + localVarTable.size());
+            out.writeShort(localVars.size());
+            out.write(localVarTable.toByteArray());
+        }
+        methodCount++;
+        code = null;
+    }
+
+    private byte[] toBytes() throws IOException {
+        int sourceFileName = utf8("SourceFile");
+        int sourceFileValue = utf8(sourceFile);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeShort(MINOR_VERSION);
+        out.writeShort(MAJOR_VERSION);
+        out.writeShort(poolCount);
+        out.write(poolBytes.toByteArray());
+        out.writeShort(classFlags);
+        out.writeShort(thisClass);
+        out.writeShort(superClass);
+        out.writeShort(0); // no interfaces
+        out.writeShort(fieldCount);
+        out.write(fields.toByteArray());
+        out.writeShort(methodCount);
+        out.write(methods.toByteArray());
+        out.writeShort(1);
+        out.writeShort(sourceFileName);
+        out.writeInt(2);
+        out.writeShort(sourceFileValue);
+        return bytes.toByteArray();
+    }
+
+    private int label(String name) {
+        Integer pc = labels.get(name);
+        if (pc == null) {
+            throw new IllegalStateException("undefined label " + name);
+        }
+        return pc;
+    }
+
+    private static int accessFlags(String[] tokens, int from, int to) {
+        int flags = 0;
+        for (int i = from; i < to; i++) {
+            flags |= switch (tokens[i]) {
+                case "public" -> ACC_PUBLIC;
+                case "private" -> ACC_PRIVATE;
+                case "protected" -> ACC_PROTECTED;
+                case "static" -> ACC_STATIC;
+                case "final" -> ACC_FINAL;
+                default -> throw new IllegalArgumentException("unsupported access flag: " + tokens[i]);
+            };
+        }
+        return flags;
+    }
+
+    // ======================= constant pool entries =======================
+
+    private int utf8(String value) throws IOException {
+        Integer index = poolIndex.get("U" + value);
+        if (index == null) {
+            pool.writeByte(CONSTANT_UTF8);
+            pool.writeUTF(value);
+            index = newEntry("U" + value);
+        }
+        return index;
+    }
+
+    private int classRef(String name) throws IOException {
+        return ref("C" + name, CONSTANT_CLASS, utf8(name));
+    }
+
+    private int memberRef(int tag, String owner, String name, String descriptor) throws IOException {
+        int nameAndType = ref2("N" + name + " " + descriptor, CONSTANT_NAME_AND_TYPE, utf8(name), utf8(descriptor));
+        return ref2("M" + tag + owner + "." + name + " " + descriptor, tag, classRef(owner), nameAndType);
+    }
+
+    /**
+     * An ldc operand is either a quoted string, an int or a float (anything
+     * with a '.' or an exponent, which is how Float.toString prints them).
+     */
+    private int constant(String operand) throws IOException {
+        if (operand.startsWith("\"")) {
+            String value = unescape(operand.substring(1, operand.length() - 1));
+            return ref("S" + value, CONSTANT_STRING, utf8(value));
+        }
+        String key = "I" + operand;
+        Integer index = poolIndex.get(key);
+        if (index == null) {
+            if (operand.contains(".") || operand.contains("E") || operand.contains("N") || operand.contains("I")) {
+                pool.writeByte(CONSTANT_FLOAT);
+                pool.writeFloat(Float.parseFloat(operand));
+            } else {
+                pool.writeByte(CONSTANT_INTEGER);
+                pool.writeInt(Integer.parseInt(operand));
+            }
+            index = newEntry(key);
+        }
+        return index;
+    }
+
+    private int ref(String key, int tag, int target) throws IOException {
+        Integer index = poolIndex.get(key);
+        if (index == null) {
+            pool.writeByte(tag);
+            pool.writeShort(target);
+            index = newEntry(key);
+        }
+        return index;
+    }
+
+    private int ref2(String key, int tag, int first, int second) throws IOException {
+        Integer index = poolIndex.get(key);
+        if (index == null) {
+            pool.writeByte(tag);
+            pool.writeShort(first);
+            pool.writeShort(second);
+            index = newEntry(key);
+        }
+        return index;
+    }
+
+    private int newEntry(String key) {
+        int index = poolCount++;
+        if (poolCount > JVM.MAX_SHORT) {
+            throw new IllegalStateException("constant pool overflow");
+        }
+        poolIndex.put(key, index);
+        return index;
+    }
+
+    // the escapes jasmin understands inside a quoted string, any other it rejects and so does this
+    private static String unescape(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c != '\\' || i + 1 == s.length()) {
+                sb.append(c);
+                continue;
+            }
+            char next = s.charAt(++i);
+            switch (next) {
+                case 'n' -> sb.append('\n');
+                case 't' -> sb.append('\t');
+                case 'r' -> sb.append('\r');
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case '"', '\'' -> sb.append(next);
+                case '0', '1', '2', '3', '4', '5', '6', '7' -> {
+                    // always three digits, as jasmin reads them
+                    if (i + 2 >= s.length()) {
+                        throw new IllegalArgumentException("Bad backslash escape sequence");
+                    }
+                    sb.append((char) (((next - '0') & 7) * 64 + ((s.charAt(i + 1) - '0') & 7) * 8
+                            + ((s.charAt(i + 2) - '0') & 7)));
+                    i += 2;
+                }
+                default -> throw new IllegalArgumentException("Bad backslash escape sequence");
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -18,6 +18,7 @@ package ricelang.VC.CodeGen;
 
 import ricelang.VC.ASTs.*;
 
+import ricelang.VC.CompilationContext;
 import ricelang.VC.ErrorReporter;
 import ricelang.VC.StdEnvironment;
 
@@ -27,6 +28,11 @@ public final class Emitter implements Visitor {
     // private String inputFilename;
     private String classname;
     // private String outputFilename;
+    private final JVM jvm = new JVM();
+
+    public Emitter(String inputFilename, CompilationContext context) {
+        this(inputFilename, context.getReporter());
+    }
 
     public Emitter(String inputFilename, ErrorReporter reporter) {
         // this.inputFilename = inputFilename;
@@ -46,22 +52,29 @@ public final class Emitter implements Visitor {
 
     // ast must be a Program node
     public final void gen(AST ast) {
-        JVM.clearInstructions();
+        jvm.clearInstructions();
         ast.visit(this, null);
-        JVM.dump(classname + ".j");
+        jvm.dump(classname + ".j");
     }
 
     public final String genString(AST ast) {
-        JVM.clearInstructions();
+        jvm.clearInstructions();
+        ast.visit(this, null);
+        return jvm.dump();
+    }
+
+    // assembles the class in memory instead of writing a .j file for jasmin
+    public final byte[] genClass(AST ast) {
+        jvm.clearInstructions();
         ast.visit(this, null);
-        return JVM.dump();
+        return jvm.assemble(classname + ".j");
     }
 
     // Auxiliary methods for byte code generation
     // The following method appends an instruction directly into the JVM 
     // Code Store. It is called by all other overloaded emit methods.
     private void emit(String s) {
-        JVM.append(new Instruction(s));
+        jvm.append(new Instruction(s));
     }
 
     private void emit(String s1, String s2) {
@@ -150,11 +163,11 @@ public final class Emitter implements Visitor {
 
     private void emitLOAD(int index, Type T) {
         String loadInstruction;
-        if (T instanceof IntType || T instanceof BooleanType) {
+        if (T.isIntType() || T.isBooleanType()) {
             loadInstruction = JVM.ILOAD;
-        } else if (T instanceof FloatType) {
+        } else if (T.isFloatType()) {
             loadInstruction = JVM.FLOAD;
-        } else if (T instanceof ArrayType) {
+        } else if (T.isArrayType()) {
             loadInstruction = JVM.ALOAD;
         } else {
             throw new AssertionError("Unsupported type: " + T.getClass().getSimpleName());
@@ -210,21 +223,18 @@ public final class Emitter implements Visitor {
     }
 
     private String VCtoJavaType(Type t) {
-        boolean isArray = t instanceof ArrayType;
+        boolean isArray = t.isArrayType();
         Type baseType = isArray ? ((ArrayType) t).T : t;
         String suffix = isArray ? "[" : "";
 
-        if (baseType.equals(StdEnvironment.booleanType)) {
-            return suffix + "Z";
-        } else if (baseType.equals(StdEnvironment.intType)) {
-            return suffix + "I";
-        } else if (baseType.equals(StdEnvironment.floatType)) {
-            return suffix + "F";
-        } else if (baseType.equals(StdEnvironment.voidType)) {
-            return suffix + "V";
-        } else {
-            throw new Error("VCtoJavaType unexpected " + (isArray ? "array " : "") + "type");
-        }
+        // an error type equals any type, so it came out as the first one tried
+        return switch (baseType.code) {
+            case Type.BOOLEAN, Type.ERROR -> suffix + "Z";
+            case Type.INT -> suffix + "I";
+            case Type.FLOAT -> suffix + "F";
+            case Type.VOID -> suffix + "V";
+            default -> throw new Error("VCtoJavaType unexpected " + (isArray ? "array " : "") + "type");
+        };
     }
 
     private void emitArrayStoreAtIndex(Type T) {
@@ -262,11 +272,11 @@ public final class Emitter implements Visitor {
         if (I.decl instanceof GlobalVarDecl globalVarDecl) {
             emitPUTSTATIC(VCtoJavaType(globalVarDecl.T), globalVarDecl.I.spelling);
         } else {
-            if (T instanceof IntType || T instanceof BooleanType) {
+            if (T.isIntType() || T.isBooleanType()) {
                 emitSTORE(I.decl, JVM.ISTORE);
-            } else if (T instanceof FloatType) {
+            } else if (T.isFloatType()) {
                 emitSTORE(I.decl, JVM.FSTORE);
-            } else if (T instanceof ArrayType) {
+            } else if (T.isArrayType()) {
                 emitSTORE(I.decl, JVM.ASTORE);
             } else {
                 throw new Error("unexpected assignment type....");
@@ -312,12 +322,10 @@ public final class Emitter implements Visitor {
         //
         // This can also be done using a separate visitor.
         List list = ast.FL;
-        while (!list.isEmpty()) {
-            DeclList dlAST = (DeclList) list;
-            if (dlAST.D instanceof GlobalVarDecl vAST) {
+        for (int i = 0; i < list.size(); i++) {
+            if (((DeclList) list).get(i) instanceof GlobalVarDecl vAST) {
                 emit(JVM.STATIC_FIELD, vAST.I.spelling, VCtoJavaType(vAST.T));
             }
-            list = dlAST.DL;
         }
 
         emit("");
@@ -343,10 +351,8 @@ public final class Emitter implements Visitor {
         emit(JVM.PUTSTATIC, classname + "/scanner", "Ljava/util/Scanner;");
         frame.pop(3);
 
-        list = ast.FL;
-        while (!list.isEmpty()) {
-            DeclList dlAST = (DeclList) list;
-            if (dlAST.D instanceof GlobalVarDecl vAST) {
+        for (int i = 0; i < list.size(); i++) {
+            if (((DeclList) list).get(i) instanceof GlobalVarDecl vAST) {
                 if (vAST.T instanceof ArrayType arrayType) {
                     emitNewArray(arrayType, frame);
                     vAST.E.visit(this, new ArrayExprListAttrs(frame, 0, arrayType.T));
@@ -366,7 +372,6 @@ public final class Emitter implements Visitor {
                 emitPUTSTATIC(VCtoJavaType(vAST.T), vAST.I.spelling);
                 frame.pop();
             }
-            list = dlAST.DL;
         }
 
         emit("");
@@ -398,8 +403,10 @@ public final class Emitter implements Visitor {
     // ===================================================================== //
     @Override
     public Object visitDeclList(DeclList ast, Object o) {
-        ast.D.visit(this, o);
-        ast.DL.visit(this, o);
+        for (int i = 0; i < ast.size(); i++) {
+            ast.get(i).visit(this, o);
+        }
+        ast.end.visit(this, o);
         return null;
     }
 
@@ -446,9 +453,8 @@ public final class Emitter implements Visitor {
             // by traversing its field PL.
             StringBuffer argsTypes = new StringBuffer("");
             List fpl = ast.PL;
-            while (!fpl.isEmpty()) {
-                argsTypes.append(VCtoJavaType(((ParaList) fpl).P.T));
-                fpl = ((ParaList) fpl).PL;
+            for (int i = 0; i < fpl.size(); i++) {
+                argsTypes.append(VCtoJavaType(((ParaList) fpl).get(i).T));
             }
 
             emit(JVM.METHOD_START, ast.I.spelling + "(" + argsTypes + ")" + retType);
@@ -531,19 +537,21 @@ public final class Emitter implements Visitor {
             throw new Error("unexpected visitedArrayExprList object");
         }
 
-        emit(JVM.DUP);
-        attrs.frame.push();
+        for (int i = 0; i < ast.size(); i++) {
+            emit(JVM.DUP);
+            attrs.frame.push();
 
-        emitICONST(attrs.index());
-        attrs.frame.push();
+            emitICONST(attrs.index() + i);
+            attrs.frame.push();
 
-        ast.E.visit(this, attrs.frame); // has a push probs.
+            ast.get(i).visit(this, attrs.frame); // has a push probs.
 
-        emitArrayStoreAtIndex(attrs.type());
+            emitArrayStoreAtIndex(attrs.type());
 
-        attrs.frame.pop(3);
+            attrs.frame.pop(3);
+        }
 
-        ast.EL.visit(this, new ArrayExprListAttrs(attrs.frame, attrs.index() + 1, attrs.type()));
+        ast.end.visit(this, new ArrayExprListAttrs(attrs.frame, attrs.index() + ast.size(), attrs.type()));
 
         return null;
     }
@@ -558,8 +566,10 @@ public final class Emitter implements Visitor {
     // ===================================================================== //
     @Override
     public Object visitParaList(ParaList ast, Object o) {
-        ast.P.visit(this, o);
-        ast.PL.visit(this, o);
+        for (int i = 0; i < ast.size(); i++) {
+            ast.get(i).visit(this, o);
+        }
+        ast.end.visit(this, o);
         return null;
     }
 
@@ -691,8 +701,10 @@ public final class Emitter implements Visitor {
     // ===================================================================== //
     @Override
     public Object visitStmtList(StmtList ast, Object o) {
-        ast.S.visit(this, o);
-        ast.SL.visit(this, o);
+        for (int i = 0; i < ast.size(); i++) {
+            ast.get(i).visit(this, o);
+        }
+        ast.end.visit(this, o);
         return null;
     }
 
@@ -763,10 +775,10 @@ public final class Emitter implements Visitor {
 
         /*  Your other code goes here for handling return <Expr>. */
         ast.E.visit(this, o);
-        if (ast.E.type instanceof IntType || ast.E.type instanceof BooleanType) {
+        if (ast.E.type.isIntType() || ast.E.type.isBooleanType()) {
             emit(JVM.IRETURN);
             frame.pop();
-        } else if (ast.E.type instanceof FloatType) {
+        } else if (ast.E.type.isFloatType()) {
             emit(JVM.FRETURN);
             frame.pop();
         } else if (ast.E.type.isVoidType()) {
@@ -921,10 +933,10 @@ public final class Emitter implements Visitor {
     @Override
     public Object visitCallExpr(CallExpr ast, Object o) {
         Frame frame = (Frame) o;
-        String fname = ast.I.spelling;
 
-        switch (fname) {
-            case "getInt" -> {
+        // the Checker linked the call to its declaration, a built-in is known by that rather than by its name
+        switch (StdEnvironment.builtIn(ast.I.decl)) {
+            case StdEnvironment.GET_INT -> {
                 ast.AL.visit(this, o);
                 emit(JVM.GETSTATIC, classname + "/scanner", "Ljava/util/Scanner;");
                 emit(JVM.INVOKEVIRTUAL, "java/util/Scanner/nextLine()Ljava/lang/String;");
@@ -932,21 +944,21 @@ public final class Emitter implements Visitor {
                 emit(JVM.INVOKESTATIC, "java/lang/Integer/parseInt(Ljava/lang/String;)I");
                 frame.pop();
             }
-            case "putInt" -> {
+            case StdEnvironment.PUT_INT -> {
                 emit(JVM.GETSTATIC, "java/lang/System/out Ljava/io/PrintStream;");
                 frame.push();
                 ast.AL.visit(this, o);
                 emit(JVM.INVOKEVIRTUAL, "java/io/PrintStream/print(I)V");
                 frame.pop(2);
             }
-            case "putIntLn" -> {
+            case StdEnvironment.PUT_INT_LN -> {
                 emit(JVM.GETSTATIC, "java/lang/System/out Ljava/io/PrintStream;");
                 frame.push();
                 ast.AL.visit(this, o);
                 emit(JVM.INVOKEVIRTUAL, "java/io/PrintStream/println(I)V");
                 frame.pop(2);
             }
-            case "getFloat" -> {
+            case StdEnvironment.GET_FLOAT -> {
                 ast.AL.visit(this, o);
                 emit(JVM.GETSTATIC, classname + "/scanner", "Ljava/util/Scanner;");
                 emit(JVM.INVOKEVIRTUAL, "java/util/Scanner/nextLine()Ljava/lang/String;");
@@ -954,49 +966,49 @@ public final class Emitter implements Visitor {
                 emit(JVM.INVOKESTATIC, "java/lang/Float/parseFloat(Ljava/lang/String;)F");
                 frame.pop();
             }
-            case "putFloat" -> {
+            case StdEnvironment.PUT_FLOAT -> {
                 emit(JVM.GETSTATIC, "java/lang/System/out Ljava/io/PrintStream;");
                 frame.push();
                 ast.AL.visit(this, o);
                 emit(JVM.INVOKEVIRTUAL, "java/io/PrintStream/print(F)V");
                 frame.pop(2);
             }
-            case "putFloatLn" -> {
+            case StdEnvironment.PUT_FLOAT_LN -> {
                 emit(JVM.GETSTATIC, "java/lang/System/out Ljava/io/PrintStream;");
                 frame.push();
                 ast.AL.visit(this, o);
                 emit(JVM.INVOKEVIRTUAL, "java/io/PrintStream/println(F)V");
                 frame.pop(2);
             }
-            case "putBool" -> {
+            case StdEnvironment.PUT_BOOL -> {
                 emit(JVM.GETSTATIC, "java/lang/System/out Ljava/io/PrintStream;");
                 frame.push();
                 ast.AL.visit(this, o);
                 emit(JVM.INVOKEVIRTUAL, "java/io/PrintStream/print(Z)V");
                 frame.pop(2);
             }
-            case "putBoolLn" -> {
+            case StdEnvironment.PUT_BOOL_LN -> {
                 emit(JVM.GETSTATIC, "java/lang/System/out Ljava/io/PrintStream;");
                 frame.push();
                 ast.AL.visit(this, o);
                 emit(JVM.INVOKEVIRTUAL, "java/io/PrintStream/println(Z)V");
                 frame.pop(2);
             }
-            case "putString" -> {
+            case StdEnvironment.PUT_STRING -> {
                 emit(JVM.GETSTATIC, "java/lang/System/out Ljava/io/PrintStream;");
                 frame.push();
                 ast.AL.visit(this, o); // ldc the string
                 emit(JVM.INVOKEVIRTUAL, "java/io/PrintStream/print(Ljava/lang/String;)V");
                 frame.pop(2);
             }
-            case "putStringLn" -> {
+            case StdEnvironment.PUT_STRING_LN -> {
                 emit(JVM.GETSTATIC, "java/lang/System/out Ljava/io/PrintStream;");
                 frame.push();
                 ast.AL.visit(this, o); // ldc the string
                 emit(JVM.INVOKEVIRTUAL, "java/io/PrintStream/println(Ljava/lang/String;)V");
                 frame.pop(2);
             }
-            case "putLn" -> {
+            case StdEnvironment.PUT_LN -> {
                 emit(JVM.GETSTATIC, "java/lang/System/out Ljava/io/PrintStream;");
                 frame.push();
                 emit(JVM.INVOKEVIRTUAL, "java/io/PrintStream/println()V");
@@ -1020,13 +1032,11 @@ public final class Emitter implements Visitor {
                 // by traversing its field PL.
                 StringBuffer argsTypes = new StringBuffer("");
                 List fpl = fAST.PL;
-                int fpl_length = 1;
-                while (!fpl.isEmpty()) {
-                    argsTypes.append(VCtoJavaType(((ParaList) fpl).P.T));
-                    fpl_length += 1;
-                    fpl = ((ParaList) fpl).PL;
+                int fpl_length = 1 + fpl.size();
+                for (int i = 0; i < fpl.size(); i++) {
+                    argsTypes.append(VCtoJavaType(((ParaList) fpl).get(i).T));
                 }
-                emit("invokevirtual", classname + "/" + fname + "(" + argsTypes + ")" + retType);
+                emit("invokevirtual", classname + "/" + ast.I.spelling + "(" + argsTypes + ")" + retType);
                 frame.pop(fpl_length);
                 if (!retType.equals("V")) {
                     frame.push();
@@ -1041,8 +1051,10 @@ public final class Emitter implements Visitor {
     // ===================================================================== //
     @Override
     public Object visitArgList(ArgList ast, Object o) {
-        ast.A.visit(this, o);
-        ast.AL.visit(this, o);
+        for (int i = 0; i < ast.size(); i++) {
+            ast.get(i).visit(this, o);
+        }
+        ast.end.visit(this, o);
         return null;
     }
 
@@ -16,6 +16,10 @@ public final class Instruction {
         writer.println(assembly);
     }
 
+    String assembly() {
+        return assembly;
+    }
+
     public String read() {
         String s = "";
 
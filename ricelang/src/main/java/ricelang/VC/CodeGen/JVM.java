@@ -133,18 +133,19 @@ public final class JVM {
     public static final String POP = "pop";
     public static final String NOP = "nop";
 
-    private static final List<Instruction> instructions = new ArrayList<>();
+    // the code store of one Emitter, each compilation gets its own
+    private final List<Instruction> instructions = new ArrayList<>();
     // private static int nextInstAddr = 0;
 
-    public static void clearInstructions() {
+    public void clearInstructions() {
         instructions.clear();
     }
 
-    public static void append(Instruction inst) {
+    public void append(Instruction inst) {
         instructions.add(inst);
     }
 
-    public static void dump(String filename) {
+    public void dump(String filename) {
         try (PrintWriter writer = new PrintWriter(new FileOutputStream(filename))) {
             for (Instruction inst : instructions) {
                 inst.write(writer);
@@ -154,12 +155,16 @@ public final class JVM {
         }
     }
 
-    public static String dump() {
-        String s = "";
+    public byte[] assemble(String sourceFile) {
+        return ClassFileWriter.assemble(instructions, sourceFile);
+    }
+
+    public String dump() {
+        StringBuilder s = new StringBuilder();
         for (Instruction inst : instructions) {
-            s += inst.read() + "\n";
+            s.append(inst.read()).append("\n");
         }
 
-        return s;
+        return s.toString();
     }
 }
@@ -0,0 +1,41 @@
+package ricelang.VC;
+
+import ricelang.VC.Scanner.SourceFile;
+
+/**
+ * Everything one compilation owns: the source being compiled, the reporter
+ * its errors go to and the ids its identifiers are given.
+ *
+ * Each phase (Scanner, Parser, Checker, Emitter) takes the context instead
+ * of reaching for shared static state, so any number of compilations can
+ * run side by side on different threads. The only things shared between
+ * compilations are the built-in types and functions in StdEnvironment,
+ * which are created once and never modified.
+ */
+public final class CompilationContext {
+
+    private final SourceFile source;
+    private final ErrorReporter reporter;
+    private final Symbols symbols = new Symbols();
+
+    public CompilationContext(String sourceCode) {
+        this(new SourceFile(sourceCode), new ErrorReporter());
+    }
+
+    public CompilationContext(SourceFile source, ErrorReporter reporter) {
+        this.source = source;
+        this.reporter = reporter;
+    }
+
+    public SourceFile getSource() {
+        return source;
+    }
+
+    public ErrorReporter getReporter() {
+        return reporter;
+    }
+
+    public Symbols getSymbols() {
+        return symbols;
+    }
+}
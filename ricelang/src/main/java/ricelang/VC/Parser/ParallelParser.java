@@ -0,0 +1,221 @@
+/*
+ * ParallelParser.java
+ */
+package ricelang.VC.Parser;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import ricelang.VC.ASTs.*;
+import ricelang.VC.CompilationContext;
+import ricelang.VC.ErrorReporter;
+import ricelang.VC.Symbols;
+import ricelang.VC.Scanner.Scanner;
+import ricelang.VC.Scanner.SourceFile;
+import ricelang.VC.Scanner.SourcePosition;
+import ricelang.VC.Scanner.Token;
+import ricelang.VC.Scanner.TokenSource;
+
+/**
+ * Parses the bodies of a program's functions side by side on a fork-join
+ * pool.
+ *
+ * The whole source is scanned up front and every '{' matched with its '}'.
+ * The top-level declarations are then parsed as usual, except that a
+ * function body is skipped to its matching brace and handed to the pool,
+ * which parses it with a parser of its own starting on the same token with
+ * the same previous token, so it comes out exactly as it would in line.
+ * Once the top level is done the bodies are joined into their FuncDecls in
+ * source order.
+ *
+ * Only error-free programs are parsed that way. If scanning reports
+ * anything, or any part of the parse hits a syntax error, the program is
+ * parsed again sequentially from the scanned tokens, with each scan error
+ * reported as its token is taken, so the errors (and the positions) are
+ * always those of a sequential parse.
+ */
+public final class ParallelParser {
+
+    // bodies shorter than this are parsed in line, a task costs more than they do
+    private static final int MIN_TASK_TOKENS = 64;
+
+    private final SourceFile source;
+    private final ErrorReporter errorReporter;
+    private final Symbols symbols; // null if identifiers get no ids
+    private final ForkJoinPool pool;
+
+    private Token[] tokens;
+    private ScanError[][] scanErrors; // by token, null for most
+    private int[] closing; // the index of the '}' matching the '{' at each index, -1 elsewhere
+
+    private record ScanError(String message, String tokenName, SourcePosition position) {
+    }
+
+    private record Body(Stmt placeholder, ForkJoinTask<Stmt> task) {
+    }
+
+    public ParallelParser(CompilationContext context) {
+        this(context.getSource(), context.getReporter(), context.getSymbols(), ForkJoinPool.commonPool());
+    }
+
+    public ParallelParser(SourceFile source, ErrorReporter reporter, ForkJoinPool pool) {
+        this(source, reporter, null, pool);
+    }
+
+    private ParallelParser(SourceFile source, ErrorReporter reporter, Symbols symbols, ForkJoinPool pool) {
+        this.source = source;
+        errorReporter = reporter;
+        this.symbols = symbols;
+        this.pool = pool;
+    }
+
+    public Program parseProgram() {
+        boolean scannedCleanly = scan();
+        if (scannedCleanly) {
+            Program programAST = parseInParallel();
+            if (programAST != null) {
+                return programAST;
+            }
+        }
+        return new Parser(new Replay(0, errorReporter), errorReporter, symbols).parseProgram();
+    }
+
+    // scans the whole source, holding each error back with the token being scanned
+    private boolean scan() {
+        ArrayList<Token> scanned = new ArrayList<>();
+        ArrayList<ScanError> pending = new ArrayList<>();
+        ArrayList<ScanError[]> errors = new ArrayList<>();
+        ErrorReporter recorder = new ErrorReporter() {
+            @Override
+            public void reportError(String message, String tokenName, SourcePosition pos) {
+                pending.add(new ScanError(message, tokenName,
+                        new SourcePosition(pos.lineStart, pos.lineFinish, pos.charStart, pos.charFinish)));
+            }
+        };
+        Scanner scanner = new Scanner(source, recorder, symbols);
+        boolean clean = true;
+        Token token;
+        do {
+            token = scanner.getToken();
+            scanned.add(token);
+            if (pending.isEmpty()) {
+                errors.add(null);
+            } else {
+                errors.add(pending.toArray(new ScanError[0]));
+                pending.clear();
+                clean = false;
+            }
+        } while (token.kind != Token.EOF);
+
+        tokens = scanned.toArray(new Token[0]);
+        scanErrors = errors.toArray(new ScanError[0][]);
+        closing = new int[tokens.length];
+        int[] open = new int[tokens.length];
+        int depth = 0;
+        for (int i = 0; i < tokens.length; i++) {
+            closing[i] = -1;
+            if (tokens[i].kind == Token.LCURLY) {
+                open[depth++] = i;
+            } else if (tokens[i].kind == Token.RCURLY && depth > 0) {
+                closing[open[--depth]] = i;
+            }
+        }
+        return clean;
+    }
+
+    // the program with its bodies parsed on the pool, or null if anything went wrong
+    private Program parseInParallel() {
+        ArrayList<Body> bodies = new ArrayList<>();
+        ErrorReporter topLevelErrors = new ErrorReporter();
+        Program programAST = new SkippingParser(new Replay(0, null), topLevelErrors, bodies).parseProgram();
+        boolean parsed = programAST != null && topLevelErrors.getNumErrors() == 0;
+
+        for (Body body : bodies) {
+            if (!parsed) {
+                body.task().cancel(false);
+                continue;
+            }
+            Stmt cAST = body.task().join();
+            if (cAST == null) {
+                parsed = false;
+                continue;
+            }
+            FuncDecl fAST = (FuncDecl) body.placeholder().parent;
+            fAST.S = cAST;
+            cAST.parent = fAST;
+        }
+        return parsed ? programAST : null;
+    }
+
+    // the compound statement from tokens[open] to tokens[close], or null if it does not parse cleanly right up to there
+    private Stmt parseBody(int open, int close, SourcePosition previous) {
+        Replay replay = new Replay(open, null);
+        ErrorReporter bodyErrors = new ErrorReporter();
+        Parser parser = new Parser(replay, bodyErrors);
+        parser.previousTokenPosition = previous;
+        try {
+            Stmt cAST = parser.parseCompoundStmt();
+            // the parser has taken the token after the '}' as its current token
+            return bodyErrors.getNumErrors() == 0 && replay.next == close + 2 ? cAST : null;
+        } catch (SyntaxError s) {
+            return null;
+        }
+    }
+
+    // hands out the scanned tokens from a given one on, reporting their scan errors to reporter if there is one
+    private final class Replay implements TokenSource {
+
+        private int next;
+        private final ErrorReporter reporter;
+
+        Replay(int from, ErrorReporter reporter) {
+            next = from;
+            this.reporter = reporter;
+        }
+
+        @Override
+        public Token getToken() {
+            if (next >= tokens.length) {
+                return tokens[tokens.length - 1];
+            }
+            if (reporter != null && scanErrors[next] != null) {
+                for (ScanError error : scanErrors[next]) {
+                    reporter.reportError(error.message(), error.tokenName(), error.position());
+                }
+            }
+            return tokens[next++];
+        }
+    }
+
+    // parses the top level, leaving the longer function bodies to the pool
+    private final class SkippingParser extends Parser {
+
+        private final Replay replay;
+        private final ArrayList<Body> bodies;
+
+        SkippingParser(Replay replay, ErrorReporter reporter, ArrayList<Body> bodies) {
+            super(replay, reporter, ParallelParser.this.symbols);
+            this.replay = replay;
+            this.bodies = bodies;
+        }
+
+        @Override
+        Stmt parseFuncBody() throws SyntaxError {
+            int open = replay.next - 1;
+            int close = currentToken.kind == Token.LCURLY ? closing[open] : -1;
+            if (close - open < MIN_TASK_TOKENS) {
+                return super.parseFuncBody();
+            }
+            SourcePosition previous = previousTokenPosition;
+            Stmt placeholder = new EmptyCompStmt(new SourcePosition());
+            bodies.add(new Body(placeholder, pool.submit(() -> parseBody(open, close, previous))));
+
+            // carry on from the '}' as if the body had just been parsed
+            replay.next = close;
+            currentToken = replay.getToken();
+            accept();
+            return placeholder;
+        }
+    }
+}
@@ -0,0 +1,349 @@
+/*
+ * ParseSession.java
+ */
+package ricelang.VC.Parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import ricelang.VC.ASTs.*;
+import ricelang.VC.CompilationContext;
+import ricelang.VC.ErrorReporter;
+import ricelang.VC.Scanner.IncrementalLexer;
+import ricelang.VC.Scanner.SourceFile;
+import ricelang.VC.Scanner.SourcePosition;
+import ricelang.VC.Scanner.Token;
+import ricelang.VC.Scanner.TokenSource;
+import ricelang.VC.Scanner.TokenTable;
+
+/**
+ * Keeps the parse of a source that is edited a little at a time and, after
+ * an edit, parses again only the top-level declarations the edit touched.
+ *
+ * The program is kept as its phrases: each function, and each
+ * {@code type id1, id2, id3;}, with the text it was parsed from and every
+ * position its subtree holds. After an edit (re-lexed by an
+ * IncrementalLexer) a phrase that ends before the edit is reused as is,
+ * and one that starts after it is reused moved down by the lines the edit
+ * added, as long as the scanner got back in step before reaching it (a
+ * token starts where its first token started, in the same column). The
+ * rest of the text, between the phrases reused, is parsed again, phrase
+ * by phrase, and the program is put back together the way parseProgram
+ * would have built it: same trees, same positions.
+ *
+ * The Checker takes the changed declarations (see
+ * {@link ricelang.VC.Checker.Checker#check(Program, java.util.List, ricelang.VC.Checker.DeclErrors)})
+ * and leaves the reused ones as they were checked last time, reporting the
+ * errors they got then again. For that to hold, a reused phrase that
+ * mentions a name a changed phrase declares, or used to declare, is parsed
+ * again as well, so it gets checked against the new declarations.
+ *
+ * After a scan or syntax error, the program and errors reported are those
+ * of a full parse; the phrases parsed before are kept and the broken text
+ * is parsed again on the next edit.
+ */
+public final class ParseSession {
+
+    /**
+     * A program and the top-level declarations in it that are new since the
+     * last update with a program, in source order. The program is null, and
+     * errors holds the errors of a full parse, when the text does not parse.
+     */
+    public record Update(Program program, java.util.List<Decl> changed, ErrorReporter errors) {
+    }
+
+    private final IncrementalLexer lexer;
+    // the phrases parsed so far, in source order. Text in between them with tokens in it is still to be parsed
+    private ArrayList<Phrase> phrases = new ArrayList<>();
+    // the top-level names of the phrases dropped since the last program was handed out
+    private final Set<String> dropped = new HashSet<>();
+    private Update current;
+
+    private static final class Phrase {
+
+        int start; // offset of its first char
+        int end; // offset past its last char
+        int line; // of its first token
+        final int column; // of its first token
+        final int kind; // of its first token
+        final ArrayList<Decl> decls;
+        final ArrayList<SourcePosition> cells; // the positions of the DeclList cells holding decls
+        final SourcePosition[] positions; // every position in its subtrees, each once
+        final Set<String> names; // every identifier spelled in it
+
+        Phrase(int start, int end, int line, int column, int kind, ArrayList<Decl> decls,
+                ArrayList<SourcePosition> cells, SourcePosition[] positions, Set<String> names) {
+            this.start = start;
+            this.end = end;
+            this.line = line;
+            this.column = column;
+            this.kind = kind;
+            this.decls = decls;
+            this.cells = cells;
+            this.positions = positions;
+            this.names = names;
+        }
+
+        void move(int offsetDelta, int lineDelta) {
+            start += offsetDelta;
+            end += offsetDelta;
+            line += lineDelta;
+            if (lineDelta == 0) {
+                return;
+            }
+            // a line of 0 is a placeholder (or the end of a list cell that never got one) and stays 0
+            for (SourcePosition position : positions) {
+                if (position.lineStart != 0) {
+                    position.lineStart += lineDelta;
+                }
+                if (position.lineFinish != 0) {
+                    position.lineFinish += lineDelta;
+                }
+            }
+        }
+    }
+
+    public ParseSession(String source) {
+        lexer = new IncrementalLexer(source);
+        current = reparse();
+    }
+
+    public String text() {
+        return lexer.text();
+    }
+
+    // the result of the last edit, or of parsing the source the session started with
+    public Update current() {
+        return current;
+    }
+
+    /**
+     * Removes {@code removedLength} chars at {@code offset}, inserts
+     * {@code insertedText} in their place and brings the program up to date.
+     */
+    public Update edit(int offset, int removedLength, String insertedText) {
+        lexer.edit(offset, removedLength, insertedText);
+        TokenTable tokens = lexer.tokens();
+        int delta = insertedText.length() - removedLength;
+
+        ArrayList<Phrase> kept = new ArrayList<>(phrases.size());
+        boolean inStep = false;
+        int lineDelta = 0;
+        for (Phrase phrase : phrases) {
+            if (phrase.end <= offset) {
+                kept.add(phrase);
+                continue;
+            }
+            if (phrase.start >= offset + removedLength && !inStep) {
+                // once one phrase past the edit lines up, the scanner is in step for all the rest
+                int token = firstTokenFrom(tokens, phrase.start + delta);
+                if (tokens.start(token) == phrase.start + delta && tokens.kind(token) == phrase.kind
+                        && tokens.charStart(token) == phrase.column) {
+                    inStep = true;
+                    lineDelta = tokens.line(token) - phrase.line;
+                }
+            }
+            if (inStep) {
+                phrase.move(delta, lineDelta);
+                kept.add(phrase);
+            } else {
+                drop(phrase);
+            }
+        }
+        phrases = kept;
+        current = reparse();
+        return current;
+    }
+
+    // parses whatever text between the phrases has tokens in it and puts the program together
+    private Update reparse() {
+        TokenTable tokens = lexer.tokens();
+        if (lexer.getNumErrors() > 0) {
+            return fullParse();
+        }
+        ArrayList<Phrase> parsed = new ArrayList<>();
+        Set<Phrase> changed = Collections.newSetFromMap(new IdentityHashMap<>());
+        int next = 0; // the next token no phrase covers
+        int eof = tokens.size() - 1;
+        for (int i = 0; i <= phrases.size(); i++) {
+            Phrase phrase = i < phrases.size() ? phrases.get(i) : null;
+            int until = phrase == null ? eof : firstTokenFrom(tokens, phrase.start);
+            while (next < until) {
+                Phrase fresh = parsePhrase(tokens, next);
+                if (fresh == null) {
+                    return fullParse();
+                }
+                parsed.add(fresh);
+                changed.add(fresh);
+                next = firstTokenFrom(tokens, fresh.end);
+                // a phrase that ran on into the next one takes its place
+                while (phrase != null && next > until) {
+                    drop(phrase);
+                    phrases.remove(i);
+                    phrase = i < phrases.size() ? phrases.get(i) : null;
+                    until = phrase == null ? eof : firstTokenFrom(tokens, phrase.start);
+                }
+            }
+            if (phrase != null) {
+                parsed.add(phrase);
+                next = firstTokenFrom(tokens, phrase.end);
+            }
+        }
+        if (parsed.isEmpty()) {
+            return fullParse();
+        }
+
+        // a phrase mentioning a name declared by a changed phrase (or no longer declared) gets checked again
+        Set<String> names = new HashSet<>(dropped);
+        for (int i = 0; i < parsed.size(); i++) {
+            Phrase phrase = parsed.get(i);
+            if (!changed.contains(phrase) && !Collections.disjoint(phrase.names, names)) {
+                phrase = parsePhrase(tokens, firstTokenFrom(tokens, phrase.start));
+                parsed.set(i, phrase);
+                changed.add(phrase);
+            }
+            if (changed.contains(phrase)) {
+                for (Decl decl : phrase.decls) {
+                    names.add(decl.I.spelling);
+                }
+            }
+        }
+        phrases = parsed;
+        dropped.clear();
+        return assemble(tokens, changed);
+    }
+
+    // the program as parseProgram builds it from the phrases
+    private Update assemble(TokenTable tokens, Set<Phrase> changed) {
+        ArrayList<Decl> decls = new ArrayList<>();
+        ArrayList<SourcePosition> cells = new ArrayList<>();
+        ArrayList<Decl> changedDecls = new ArrayList<>();
+        for (Phrase phrase : phrases) {
+            decls.addAll(phrase.decls);
+            cells.addAll(phrase.cells);
+            if (changed.contains(phrase)) {
+                changedDecls.addAll(phrase.decls);
+            }
+        }
+        // every cell spans to the end of the list, the last token before EOF
+        SourcePosition last = tokens.position(tokens.size() - 2);
+        for (SourcePosition cell : cells) {
+            cell.lineFinish = last.lineFinish;
+            cell.charFinish = last.charFinish;
+        }
+        SourcePosition first = tokens.position(0);
+        SourcePosition programPos = new SourcePosition(first.lineStart, last.lineFinish, first.charStart, last.charFinish);
+        DeclList dlAST = new DeclList(decls, cells, new EmptyDeclList(new SourcePosition()));
+        return new Update(new Program(dlAST, programPos), changedDecls, new ErrorReporter());
+    }
+
+    // the program and errors of parsing the whole text in one go
+    private Update fullParse() {
+        ErrorReporter reporter = new ErrorReporter();
+        Program programAST = new Parser(new CompilationContext(new SourceFile(lexer.text()), reporter)).parseProgram();
+        java.util.List<Decl> decls = new ArrayList<>();
+        if (programAST != null && programAST.FL instanceof DeclList list) {
+            for (int i = 0; i < list.size(); i++) {
+                decls.add(list.get(i));
+            }
+        }
+        return new Update(programAST, decls, reporter);
+    }
+
+    // the phrase starting at tokens[from], or null if it does not parse, or is not followed by another or by EOF
+    private Phrase parsePhrase(TokenTable tokens, int from) {
+        Recorder recorder = new Recorder(tokens, from);
+        ErrorReporter errors = new ErrorReporter();
+        PhraseParser parser = new PhraseParser(recorder, errors);
+        ArrayList<Decl> decls = new ArrayList<>();
+        ArrayList<SourcePosition> cells = new ArrayList<>();
+        try {
+            parser.parseFuncOrVarDecls(decls, cells);
+        } catch (SyntaxError s) {
+            return null;
+        }
+        int last = recorder.next - 2; // the parser holds the token after the phrase as its current token
+        int following = tokens.kind(last + 1);
+        if (errors.getNumErrors() > 0 || following != Token.EOF && following != Token.VOID && following != Token.BOOLEAN
+                && following != Token.INT && following != Token.FLOAT) {
+            return null;
+        }
+        // the positions the parser made and the positions of the tokens it took, but not its lookahead
+        Set<SourcePosition> positions = Collections.newSetFromMap(new IdentityHashMap<>());
+        positions.addAll(parser.started);
+        positions.addAll(recorder.positions.subList(0, recorder.positions.size() - 1));
+        return new Phrase(tokens.start(from), tokens.end(last), tokens.line(from), tokens.charStart(from),
+                tokens.kind(from), decls, cells, positions.toArray(new SourcePosition[0]), recorder.names);
+    }
+
+    private void drop(Phrase phrase) {
+        for (Decl decl : phrase.decls) {
+            dropped.add(decl.I.spelling);
+        }
+    }
+
+    // the first token starting at or after offset, the EOF token if there is none
+    private static int firstTokenFrom(TokenTable tokens, int offset) {
+        int low = 0;
+        int high = tokens.size() - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (tokens.start(middle) < offset) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // hands out the tokens from one on, noting their positions and the identifiers spelled
+    private static final class Recorder implements TokenSource {
+
+        private final TokenTable tokens;
+        private int next;
+        final ArrayList<SourcePosition> positions = new ArrayList<>();
+        final Set<String> names = new HashSet<>();
+
+        Recorder(TokenTable tokens, int from) {
+            this.tokens = tokens;
+            next = from;
+        }
+
+        @Override
+        public Token getToken() {
+            Token token = tokens.token(Math.min(next, tokens.size() - 1));
+            next++;
+            positions.add(token.position);
+            if (token.kind == Token.ID) {
+                names.add(token.spelling);
+            }
+            return token;
+        }
+    }
+
+    // notes every position it starts, which with the tokens' positions are all the positions in what it parses
+    private static final class PhraseParser extends Parser {
+
+        final ArrayList<SourcePosition> started = new ArrayList<>();
+
+        PhraseParser(TokenSource tokens, ErrorReporter reporter) {
+            super(tokens, reporter);
+        }
+
+        @Override
+        void start(SourcePosition position) {
+            started.add(position);
+            super.start(position);
+        }
+
+        @Override
+        void copyStart(SourcePosition from, SourcePosition to) {
+            started.add(to);
+            super.copyStart(from, to);
+        }
+    }
+}
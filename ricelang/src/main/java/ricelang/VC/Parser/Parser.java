@@ -3,23 +3,39 @@
  */
 package ricelang.VC.Parser;
 
+import java.util.ArrayList;
+
 import ricelang.VC.ASTs.*;
+import ricelang.VC.CompilationContext;
 import ricelang.VC.ErrorReporter;
+import ricelang.VC.Symbols;
 import ricelang.VC.Scanner.Scanner;
 import ricelang.VC.Scanner.SourcePosition;
 import ricelang.VC.Scanner.Token;
+import ricelang.VC.Scanner.TokenSource;
 
 public class Parser {
 
-    private final Scanner scanner;
+    private final TokenSource scanner;
     private final ErrorReporter errorReporter;
-    private Token currentToken;
-    private SourcePosition previousTokenPosition;
+    private final Symbols symbols;
+    Token currentToken;
+    SourcePosition previousTokenPosition;
     private final SourcePosition dummyPos = new SourcePosition();
 
-    public Parser(Scanner lexer, ErrorReporter reporter) {
+    public Parser(CompilationContext context) {
+        this(new Scanner(context), context.getReporter(), context.getSymbols());
+    }
+
+    public Parser(TokenSource lexer, ErrorReporter reporter) {
+        this(lexer, reporter, null);
+    }
+
+    // the identifiers lexer hands out hold their ids in symbols, or hold none if it is null
+    public Parser(TokenSource lexer, ErrorReporter reporter, Symbols symbols) {
         scanner = lexer;
         errorReporter = reporter;
+        this.symbols = symbols;
 
         previousTokenPosition = new SourcePosition();
 
@@ -80,7 +96,7 @@ public class Parser {
         try {
             // List dlAST = parseFuncDeclList();
             if (currentToken.kind == Token.VOID || currentToken.kind == Token.BOOLEAN || currentToken.kind == Token.INT || currentToken.kind == Token.FLOAT) {
-                List dlAST = parseFuncOrVarDeclList(null);
+                List dlAST = parseFuncOrVarDeclList();
                 finish(programPos);
                 programAST = new Program(dlAST, programPos);
             } else {
@@ -93,47 +109,66 @@ public class Parser {
         } catch (SyntaxError s) {
             return null;
         }
+        programAST.symbols = symbols;
         return programAST;
     }
 
 // ========================== DECLARATIONS ========================
-    List parseFuncOrVarDeclList(Type tAST) throws SyntaxError {
-        List dlAST;
-        Decl dAST;
-
-        SourcePosition funcOrVarPos = new SourcePosition();
-        start(funcOrVarPos);
-
-        // if tAST already exists, then we parsing tail terms of `type id1, id2, id3;`
-        if (tAST == null) {
-            tAST = parseType();
-        } else if (tAST.isArrayType()) {
-            tAST = ((ArrayType) tAST).T;
-        }
-        Ident iAST = parseIdent();
-
-        // could be an array bruv if it is, must be [ INTLITERAL? ]
-        if (currentToken.kind == Token.LBRACKET) {
-            match(Token.LBRACKET);
-            switch (currentToken.kind) {
-                case Token.RBRACKET -> {
-                    match(Token.RBRACKET);
-                    tAST = new ArrayType(tAST, new EmptyExpr(dummyPos), funcOrVarPos);
-                }
-                case Token.INTLITERAL -> {
-                    IntLiteral ilAST = parseIntLiteral();
-                    Expr indexAST = new IntExpr(ilAST, funcOrVarPos);
-                    match(Token.RBRACKET);
-                    tAST = new ArrayType(tAST, indexAST, funcOrVarPos);
+    List parseFuncOrVarDeclList() throws SyntaxError {
+        ArrayList<Decl> decls = new ArrayList<>();
+        ArrayList<SourcePosition> positions = new ArrayList<>();
+        do {
+            parseFuncOrVarDecls(decls, positions);
+        } while (currentToken.kind == Token.VOID || currentToken.kind == Token.BOOLEAN || currentToken.kind == Token.INT || currentToken.kind == Token.FLOAT);
+
+        // finished at the end of the whole list, where the recursive descent used to finish them
+        for (SourcePosition position : positions) {
+            finish(position);
+        }
+        return new DeclList(decls, positions, new EmptyDeclList(dummyPos));
+    }
+
+// parseFuncOrVarDecls parses one function or one `type id1, id2, id3;` and adds
+// its declarations, and the positions of the list cells holding them, to the lists
+    void parseFuncOrVarDecls(ArrayList<Decl> decls, ArrayList<SourcePosition> positions) throws SyntaxError {
+        // if tAST is set, then we parsing tail terms of `type id1, id2, id3;`
+        Type tAST = null;
+        do {
+            SourcePosition funcOrVarPos = new SourcePosition();
+            start(funcOrVarPos);
+
+            if (tAST == null) {
+                tAST = parseType();
+            } else if (tAST.isArrayType()) {
+                tAST = ((ArrayType) tAST).T;
+            }
+            Ident iAST = parseIdent();
+
+            // could be an array bruv if it is, must be [ INTLITERAL? ]
+            if (currentToken.kind == Token.LBRACKET) {
+                match(Token.LBRACKET);
+                switch (currentToken.kind) {
+                    case Token.RBRACKET -> {
+                        match(Token.RBRACKET);
+                        tAST = new ArrayType(tAST, new EmptyExpr(dummyPos), funcOrVarPos);
+                    }
+                    case Token.INTLITERAL -> {
+                        IntLiteral ilAST = parseIntLiteral();
+                        Expr indexAST = new IntExpr(ilAST, funcOrVarPos);
+                        match(Token.RBRACKET);
+                        tAST = new ArrayType(tAST, indexAST, funcOrVarPos);
+                    }
+                    default ->
+                        syntacticError("%s illegal array decl index", currentToken.spelling);
                 }
-                default ->
-                    syntacticError("%s illegal array decl index", currentToken.spelling);
             }
-        }
 
-        if (currentToken.kind == Token.LPAREN) {
-            dAST = parseFuncDecl(tAST, iAST);
-        } else {
+            if (currentToken.kind == Token.LPAREN) {
+                decls.add(parseFuncDecl(tAST, iAST));
+                positions.add(funcOrVarPos);
+                return;
+            }
+
             SourcePosition varPos = new SourcePosition();
             start(varPos);
 
@@ -151,29 +186,17 @@ public class Parser {
                 eAST = new EmptyExpr(varPos);
             }
 
+            decls.add(new GlobalVarDecl(tAST, iAST, eAST, varPos));
             if (currentToken.kind == Token.COMMA) {
                 match(Token.COMMA);
-                dlAST = parseFuncOrVarDeclList(tAST);
-                finish(varPos);
-                dAST = new GlobalVarDecl(tAST, iAST, eAST, varPos);
-                return new DeclList(dAST, dlAST, varPos);
+                positions.add(varPos);
             } else {
                 match(Token.SEMICOLON);
                 finish(varPos);
-                dAST = new GlobalVarDecl(tAST, iAST, eAST, varPos);
+                positions.add(funcOrVarPos);
+                tAST = null;
             }
-        }
-
-        if (currentToken.kind == Token.VOID || currentToken.kind == Token.BOOLEAN || currentToken.kind == Token.INT || currentToken.kind == Token.FLOAT) {
-            dlAST = parseFuncOrVarDeclList(null);
-
-            finish(funcOrVarPos);
-            dlAST = new DeclList(dAST, dlAST, funcOrVarPos);
-        } else {
-            finish(funcOrVarPos);
-            dlAST = new DeclList(dAST, new EmptyDeclList(dummyPos), funcOrVarPos);
-        }
-        return dlAST;
+        } while (tAST != null);
     }
 
     Decl parseFuncDecl(Type tAST, Ident iAST) throws SyntaxError {
@@ -185,12 +208,17 @@ public class Parser {
         // Type tAST = parseType();
         // Ident iAST = parseIdent();
         List fplAST = parseParaList();
-        Stmt cAST = parseCompoundStmt();
+        Stmt cAST = parseFuncBody();
         finish(funcPos);
         fAST = new FuncDecl(tAST, iAST, fplAST, cAST, funcPos);
         return fAST;
     }
 
+// the compound statement of a function, which ParallelParser leaves to another thread
+    Stmt parseFuncBody() throws SyntaxError {
+        return parseCompoundStmt();
+    }
+
 //  ======================== TYPES ==========================
     Type parseType() throws SyntaxError {
         Type typeAST = null;
@@ -236,7 +264,7 @@ public class Parser {
             return new EmptyCompStmt(stmtPos);
         }
 
-        List dlAST = parseLocalVarDeclList(null);
+        List dlAST = parseLocalVarDeclList();
         List slAST = parseStmtList();
 
         match(Token.RCURLY);
@@ -245,112 +273,107 @@ public class Parser {
         return new CompoundStmt(dlAST, slAST, stmtPos);
     }
 
-    List parseLocalVarDeclList(Type tAST) throws SyntaxError {
+    List parseLocalVarDeclList() throws SyntaxError {
         if (currentToken.kind != Token.VOID
                 && currentToken.kind != Token.BOOLEAN
                 && currentToken.kind != Token.INT
-                && currentToken.kind != Token.FLOAT
-                && tAST == null) {
+                && currentToken.kind != Token.FLOAT) {
             return new EmptyDeclList(dummyPos);
         }
 
-        List dlAST;
-        Decl dAST;
-
-        SourcePosition varPos = new SourcePosition();
-        start(varPos);
+        ArrayList<Decl> decls = new ArrayList<>();
+        ArrayList<SourcePosition> positions = new ArrayList<>();
+        // finished at the end of the whole list, where the recursive descent used to finish them
+        ArrayList<SourcePosition> spanToEnd = new ArrayList<>();
 
         // if there's already a type, we are parsing tail declarations of a `type id1[2], id2, id3;`
-        if (tAST == null) {
-            tAST = parseType();
-        } else if (tAST.isArrayType()) {
-            // extract type from ArrayType cuz subsequent decl mightn't be ArrayType aswell
-            tAST = ((ArrayType) tAST).T;
-        }
-        Ident iAST = parseIdent();
-
-        if (currentToken.kind == Token.LBRACKET) {
-            match(Token.LBRACKET);
-            switch (currentToken.kind) {
-                case Token.RBRACKET -> {
-                    match(Token.RBRACKET);
-                    tAST = new ArrayType(tAST, new EmptyExpr(dummyPos), varPos);
-                }
-                case Token.INTLITERAL -> {
-                    IntLiteral ilAST = parseIntLiteral();
-                    Expr indexAST = new IntExpr(ilAST, varPos);
-                    match(Token.RBRACKET);
-                    tAST = new ArrayType(tAST, indexAST, varPos);
+        Type tAST = null;
+        do {
+            SourcePosition varPos = new SourcePosition();
+            start(varPos);
+
+            if (tAST == null) {
+                tAST = parseType();
+            } else if (tAST.isArrayType()) {
+                // extract type from ArrayType cuz subsequent decl mightn't be ArrayType aswell
+                tAST = ((ArrayType) tAST).T;
+            }
+            Ident iAST = parseIdent();
+
+            if (currentToken.kind == Token.LBRACKET) {
+                match(Token.LBRACKET);
+                switch (currentToken.kind) {
+                    case Token.RBRACKET -> {
+                        match(Token.RBRACKET);
+                        tAST = new ArrayType(tAST, new EmptyExpr(dummyPos), varPos);
+                    }
+                    case Token.INTLITERAL -> {
+                        IntLiteral ilAST = parseIntLiteral();
+                        Expr indexAST = new IntExpr(ilAST, varPos);
+                        match(Token.RBRACKET);
+                        tAST = new ArrayType(tAST, indexAST, varPos);
+                    }
+                    default ->
+                        syntacticError("%s illegal array decl index", currentToken.spelling);
                 }
-                default ->
-                    syntacticError("%s illegal array decl index", currentToken.spelling);
             }
-        }
 
-        Expr eAST;
-        if (currentToken.kind == Token.EQ) {
-            match(Token.EQ);
-            if (currentToken.kind == Token.LCURLY) {
-                match(Token.LCURLY);
-                eAST = new ArrayInitExpr(parseArrayInitExpr(), varPos);
-                match(Token.RCURLY);
+            Expr eAST;
+            if (currentToken.kind == Token.EQ) {
+                match(Token.EQ);
+                if (currentToken.kind == Token.LCURLY) {
+                    match(Token.LCURLY);
+                    eAST = new ArrayInitExpr(parseArrayInitExpr(), varPos);
+                    match(Token.RCURLY);
+                } else {
+                    eAST = parseExpr();
+                }
             } else {
-                eAST = parseExpr();
+                eAST = new EmptyExpr(varPos);
             }
-        } else {
-            eAST = new EmptyExpr(varPos);
-        }
-
-        if (currentToken.kind == Token.COMMA) {
-            match(Token.COMMA);
-            finish(varPos);
-            dlAST = parseLocalVarDeclList(tAST);
-            dAST = new LocalVarDecl(tAST, iAST, eAST, varPos);
-            return new DeclList(dAST, dlAST, varPos);
-        } else {
-            match(Token.SEMICOLON);
-            finish(varPos);
-            dAST = new LocalVarDecl(tAST, iAST, eAST, varPos);
-        }
 
-        if (currentToken.kind == Token.VOID
+            decls.add(new LocalVarDecl(tAST, iAST, eAST, varPos));
+            positions.add(varPos);
+            if (currentToken.kind == Token.COMMA) {
+                match(Token.COMMA);
+                finish(varPos);
+            } else {
+                match(Token.SEMICOLON);
+                finish(varPos);
+                spanToEnd.add(varPos);
+                tAST = null;
+            }
+        } while (tAST != null
+                || currentToken.kind == Token.VOID
                 || currentToken.kind == Token.BOOLEAN
                 || currentToken.kind == Token.INT
-                || currentToken.kind == Token.FLOAT) {
-            dlAST = parseLocalVarDeclList(null);
-            finish(varPos);
-            dlAST = new DeclList(dAST, dlAST, varPos);
-        } else {
-            finish(varPos);
-            dlAST = new DeclList(dAST, new EmptyDeclList(dummyPos), varPos);
-        }
+                || currentToken.kind == Token.FLOAT);
 
-        return dlAST;
+        for (SourcePosition position : spanToEnd) {
+            finish(position);
+        }
+        return new DeclList(decls, positions, new EmptyDeclList(dummyPos));
     }
 
     List parseStmtList() throws SyntaxError {
-        List slAST;
+        if (currentToken.kind == Token.RCURLY) {
+            return new EmptyStmtList(dummyPos);
+        }
 
-        SourcePosition stmtPos = new SourcePosition();
-        start(stmtPos);
+        ArrayList<Stmt> stmts = new ArrayList<>();
+        ArrayList<SourcePosition> positions = new ArrayList<>();
+        do {
+            SourcePosition stmtPos = new SourcePosition();
+            start(stmtPos);
+            stmts.add(parseStmt());
+            positions.add(stmtPos);
+        } while (currentToken.kind != Token.RCURLY);
 
-        if (currentToken.kind != Token.RCURLY) {
-            Stmt sAST = parseStmt();
-            {
-                if (currentToken.kind != Token.RCURLY) {
-                    slAST = parseStmtList();
-                    finish(stmtPos);
-                    slAST = new StmtList(sAST, slAST, stmtPos);
-                } else {
-                    finish(stmtPos);
-                    slAST = new StmtList(sAST, new EmptyStmtList(dummyPos), stmtPos);
-                }
-            }
-        } else {
-            slAST = new EmptyStmtList(dummyPos);
+        // each statement's cell spans to the end of the list
+        for (SourcePosition position : positions) {
+            finish(position);
         }
-
-        return slAST;
+        return new StmtList(stmts, positions, new EmptyStmtList(dummyPos));
     }
 
     Stmt parseStmt() throws SyntaxError {
@@ -537,41 +560,43 @@ public class Parser {
     }
 
     List parseProperParaList() throws SyntaxError {
-        SourcePosition formalsPos = new SourcePosition();
-        start(formalsPos);
-        ParaDecl pAST;
-        Type tAST = parseType();
-        Ident idAST = parseIdent();
-
-        if (currentToken.kind == Token.LBRACKET) {
-            match(Token.LBRACKET);
-            switch (currentToken.kind) {
-                case Token.RBRACKET -> {
-                    match(Token.RBRACKET);
-                    tAST = new ArrayType(tAST, new EmptyExpr(dummyPos), formalsPos);
-                }
-                case Token.INTLITERAL -> {
-                    IntLiteral ilAST = parseIntLiteral();
-                    Expr indexAST = new IntExpr(ilAST, formalsPos);
-                    match(Token.RBRACKET);
-                    tAST = new ArrayType(tAST, indexAST, formalsPos);
+        ArrayList<ParaDecl> paras = new ArrayList<>();
+        ArrayList<SourcePosition> positions = new ArrayList<>();
+        SourcePosition formalsPos;
+        while (true) {
+            formalsPos = new SourcePosition();
+            start(formalsPos);
+            Type tAST = parseType();
+            Ident idAST = parseIdent();
+
+            if (currentToken.kind == Token.LBRACKET) {
+                match(Token.LBRACKET);
+                switch (currentToken.kind) {
+                    case Token.RBRACKET -> {
+                        match(Token.RBRACKET);
+                        tAST = new ArrayType(tAST, new EmptyExpr(dummyPos), formalsPos);
+                    }
+                    case Token.INTLITERAL -> {
+                        IntLiteral ilAST = parseIntLiteral();
+                        Expr indexAST = new IntExpr(ilAST, formalsPos);
+                        match(Token.RBRACKET);
+                        tAST = new ArrayType(tAST, indexAST, formalsPos);
+                    }
+                    default ->
+                        syntacticError("%s illegal array expr index in func params", currentToken.spelling);
                 }
-                default ->
-                    syntacticError("%s illegal array expr index in func params", currentToken.spelling);
             }
-        }
 
-        pAST = new ParaDecl(tAST, idAST, formalsPos);
-        if (currentToken.kind == Token.COMMA) {
-            match(Token.COMMA);
-            List plAST = parseProperParaList();
-            if (plAST instanceof ParaList) {
-                return new ParaList(pAST, plAST, formalsPos);
+            paras.add(new ParaDecl(tAST, idAST, formalsPos));
+            positions.add(formalsPos);
+            if (currentToken.kind != Token.COMMA) {
+                break;
             }
+            match(Token.COMMA);
         }
+        // only the last parameter's position gets an end
         finish(formalsPos);
-        return new ParaList(pAST, new EmptyParaList(dummyPos), formalsPos);
-
+        return new ParaList(paras, positions, new EmptyParaList(dummyPos));
     }
 
 // ======================= EXPRESSIONS ======================
@@ -583,159 +608,91 @@ public class Parser {
             return new EmptyArrayExprList(pos);
         }
 
-        List ilAST;
-        Expr eAST = parseExpr();
-        switch (currentToken.kind) {
-            case Token.COMMA -> {
-                match(Token.COMMA);
-                ilAST = parseArrayInitExpr();
-                ilAST = new ArrayExprList(eAST, ilAST, pos);
+        ArrayList<Expr> exprs = new ArrayList<>();
+        ArrayList<SourcePosition> positions = new ArrayList<>();
+        List end;
+        while (true) {
+            Expr eAST = parseExpr();
+            if (currentToken.kind == Token.RCURLY) {
+                exprs.add(eAST);
+                positions.add(pos);
+                end = new EmptyArrayExprList(dummyPos);
+                break;
             }
-            case Token.RCURLY -> {
-                ilAST = new ArrayExprList(eAST, new EmptyArrayExprList(dummyPos), pos);
+            if (currentToken.kind != Token.COMMA) {
+                // anything else drops the list from here on, the caller then fails to match the "}"
+                end = new EmptyArrayExprList(pos);
+                break;
             }
-            default -> {
-                ilAST = new EmptyArrayExprList(pos);
+            match(Token.COMMA);
+            exprs.add(eAST);
+            positions.add(pos);
+
+            pos = new SourcePosition();
+            start(pos);
+            if (currentToken.kind == Token.RCURLY) {
+                // a trailing comma
+                end = new EmptyArrayExprList(pos);
+                break;
             }
         }
 
-        return ilAST;
-    }
-
-    Expr parseExpr() throws SyntaxError {
-        return ParseAssignExpr();
+        return exprs.isEmpty() ? end : new ArrayExprList(exprs, positions, end);
     }
 
     // assignExpr is right associative so we finna use recursion
-    Expr ParseAssignExpr() throws SyntaxError {
-        SourcePosition addStartPos = new SourcePosition();
-        start(addStartPos);
+    Expr parseExpr() throws SyntaxError {
+        SourcePosition assStartPos = new SourcePosition();
+        start(assStartPos);
 
-        Expr leftExprAST = parseCondOrExpr();
+        Expr leftExprAST = parseBinaryExpr(1);
         if (currentToken.kind == Token.EQ) {
             acceptOperator();
-            Expr rightExprAST = ParseAssignExpr();
+            Expr rightExprAST = parseExpr();
 
             SourcePosition assPos = new SourcePosition();
-            copyStart(addStartPos, assPos);
+            copyStart(assStartPos, assPos);
             finish(assPos);
             return new AssignExpr(leftExprAST, rightExprAST, assPos);
         }
         return leftExprAST;
     }
 
-    Expr parseCondOrExpr() throws SyntaxError {
-        Expr exprAST;
-        SourcePosition addStartPos = new SourcePosition();
-        start(addStartPos);
-
-        exprAST = parseCondAndExpr();
-        while (currentToken.kind == Token.OROR) {
-            Operator opAST = acceptOperator();
-            Expr e2AST = parseCondAndExpr();
-
-            SourcePosition condOrPos = new SourcePosition();
-            copyStart(addStartPos, condOrPos);
-            finish(condOrPos);
-            exprAST = new BinaryExpr(exprAST, opAST, e2AST, condOrPos);
-        }
-
-        return exprAST;
-    }
-
-    Expr parseCondAndExpr() throws SyntaxError {
-        Expr exprAST;
-        SourcePosition addStartPos = new SourcePosition();
-        start(addStartPos);
-
-        exprAST = parseEqualityExpr();
-        while (currentToken.kind == Token.ANDAND) {
-            Operator opAST = acceptOperator();
-            Expr e2AST = parseEqualityExpr();
-
-            SourcePosition condAndPos = new SourcePosition();
-            copyStart(addStartPos, condAndPos);
-            finish(condAndPos);
-            exprAST = new BinaryExpr(exprAST, opAST, e2AST, condAndPos);
-        }
-
-        return exprAST;
-    }
-
-    Expr parseEqualityExpr() throws SyntaxError {
-        Expr exprAST;
-        SourcePosition addStartPos = new SourcePosition();
-        start(addStartPos);
-
-        exprAST = parseRelExpr();
-        while (currentToken.kind == Token.EQEQ || currentToken.kind == Token.NOTEQ) {
-            Operator opAST = acceptOperator();
-            Expr e2AST = parseRelExpr();
-
-            SourcePosition eqPos = new SourcePosition();
-            copyStart(addStartPos, eqPos);
-            finish(eqPos);
-            exprAST = new BinaryExpr(exprAST, opAST, e2AST, eqPos);
-        }
-
-        return exprAST;
-    }
-
-    Expr parseRelExpr() throws SyntaxError {
-        Expr exprAST;
-        SourcePosition addStartPos = new SourcePosition();
-        start(addStartPos);
-
-        exprAST = parseAdditiveExpr();
-        while (currentToken.kind == Token.LT || currentToken.kind == Token.LTEQ || currentToken.kind == Token.GT || currentToken.kind == Token.GTEQ) {
-            Operator opAST = acceptOperator();
-            Expr e2AST = parseAdditiveExpr();
-
-            SourcePosition relPos = new SourcePosition();
-            copyStart(addStartPos, relPos);
-            finish(relPos);
-            exprAST = new BinaryExpr(exprAST, opAST, e2AST, relPos);
-        }
-
-        return exprAST;
-    }
-
-    Expr parseAdditiveExpr() throws SyntaxError {
-        Expr exprAST;
-
-        SourcePosition addStartPos = new SourcePosition();
-        start(addStartPos);
+// parseBinaryExpr parses the binary operators binding at least as tightly as
+// minPrecedence by precedence climbing, one call per operand instead of one
+// per grammar level (cond-or down to multiplicative). Every node starts where
+// its left operand's phrase starts, parentheses included, and finishes at the
+// last token of its right operand, exactly as the level-per-method grammar.
+    Expr parseBinaryExpr(int minPrecedence) throws SyntaxError {
+        SourcePosition binaryStartPos = new SourcePosition();
+        start(binaryStartPos);
 
-        exprAST = parseMultiplicativeExpr();
-        while (currentToken.kind == Token.PLUS
-                || currentToken.kind == Token.MINUS) {
+        Expr exprAST = parseUnaryExpr();
+        int precedence;
+        while ((precedence = precedence(currentToken.kind)) >= minPrecedence) {
             Operator opAST = acceptOperator();
-            Expr e2AST = parseMultiplicativeExpr();
+            // all of them are left associative, so the right operand only takes tighter operators
+            Expr e2AST = parseBinaryExpr(precedence + 1);
 
-            SourcePosition addPos = new SourcePosition();
-            copyStart(addStartPos, addPos);
-            finish(addPos);
-            exprAST = new BinaryExpr(exprAST, opAST, e2AST, addPos);
+            SourcePosition binaryPos = new SourcePosition();
+            copyStart(binaryStartPos, binaryPos);
+            finish(binaryPos);
+            exprAST = new BinaryExpr(exprAST, opAST, e2AST, binaryPos);
         }
         return exprAST;
     }
 
-    Expr parseMultiplicativeExpr() throws SyntaxError {
-        Expr exprAST;
-        SourcePosition multStartPos = new SourcePosition();
-        start(multStartPos);
-
-        exprAST = parseUnaryExpr();
-        while (currentToken.kind == Token.MULT
-                || currentToken.kind == Token.DIV) {
-            Operator opAST = acceptOperator();
-            Expr e2AST = parseUnaryExpr();
-            SourcePosition multPos = new SourcePosition();
-            copyStart(multStartPos, multPos);
-            finish(multPos);
-            exprAST = new BinaryExpr(exprAST, opAST, e2AST, multPos);
-        }
-        return exprAST;
+// the binding strength of a binary operator, 0 for any other token
+    static int precedence(int kind) {
+        return switch (kind) {
+            case Token.OROR -> 1;
+            case Token.ANDAND -> 2;
+            case Token.EQEQ, Token.NOTEQ -> 3;
+            case Token.LT, Token.LTEQ, Token.GT, Token.GTEQ -> 4;
+            case Token.PLUS, Token.MINUS -> 5;
+            case Token.MULT, Token.DIV -> 6;
+            default -> 0;
+        };
     }
 
     Expr parseUnaryExpr() throws SyntaxError {
@@ -832,22 +789,22 @@ public class Parser {
     }
 
     List parseProperArgList() throws SyntaxError {
-        SourcePosition pos = new SourcePosition();
-        start(pos);
-        Expr eAST;
-
-        eAST = parseExpr();
-        Arg argAST = new Arg(eAST, pos);
-
-        if (currentToken.kind == Token.COMMA) {
-            match(Token.COMMA);
-            List aplAST = parseProperArgList();
-            if (aplAST instanceof ArgList) {
-                return new ArgList(argAST, aplAST, pos);
+        ArrayList<Arg> args = new ArrayList<>();
+        ArrayList<SourcePosition> positions = new ArrayList<>();
+        SourcePosition pos;
+        while (true) {
+            pos = new SourcePosition();
+            start(pos);
+            args.add(new Arg(parseExpr(), pos));
+            positions.add(pos);
+            if (currentToken.kind != Token.COMMA) {
+                break;
             }
+            match(Token.COMMA);
         }
+        // only the last argument's position gets an end
         finish(pos);
-        return new ArgList(argAST, new EmptyArgList(dummyPos), pos);
+        return new ArgList(args, positions, new EmptyArgList(dummyPos));
     }
 
 // ========================== ID, OPERATOR and LITERALS ========================
@@ -858,6 +815,7 @@ public class Parser {
             previousTokenPosition = currentToken.position;
             String spelling = currentToken.spelling;
             I = new Ident(spelling, previousTokenPosition);
+            I.symbol = currentToken.symbol;
             currentToken = scanner.getToken();
         } else {
             syntacticError("identifier expected here", "");
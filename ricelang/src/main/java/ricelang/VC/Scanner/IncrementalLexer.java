@@ -0,0 +1,209 @@
+/*
+ * IncrementalLexer.java
+ */
+
+package ricelang.VC.Scanner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ricelang.VC.ErrorReporter;
+
+/**
+ * Keeps the tokens of a source that is edited a little at a time, the way
+ * an editor sends it, and re-lexes only around each edit.
+ *
+ * After an edit scanning restarts at the start of the last token that the
+ * edit cannot have changed: one that starts before the edit, is not a
+ * string literal (its line and column are not where the scanner was when
+ * it started) and where the scanner never looked into the edited text while
+ * reading the token before it. From
+ * there it scans until it reaches a token that starts where an old token
+ * started, in the same column, past the edit. The scanner is then in the
+ * same state it was in before, so every old token from that point on is
+ * reused as is, moved by the length the edit added and the lines it added.
+ * An edit that opens a block comment or a string is rescanned as far as
+ * the comment or string now reaches, and no further.
+ *
+ * Apart from building the new source String, which the editor sends in
+ * full anyway, the work done per edit grows with the edit and the line it
+ * is on, not with the size of the file. The resulting tokens and errors are
+ * always the same as scanning the new source from scratch.
+ */
+public final class IncrementalLexer {
+
+    // the furthest the scanner reads past the end of a token while scanning it, e.g. "1e+5"
+    private static final int LOOKAHEAD = 3;
+
+    private String text;
+    private TokenTable tokens;
+    private List<ScanError> errors = new ArrayList<>();
+
+    // an error the scanner reported while scanning token number `token` (or the gap before it)
+    private record ScanError(int token, String message, String tokenName, SourcePosition position) {
+
+        // the placeholder position of an unterminated comment has line 0 and stays where it is
+        ScanError moved(int tokenDelta, int lineDelta) {
+            if (position.lineStart == 0) {
+                return new ScanError(token + tokenDelta, message, tokenName, position);
+            }
+            return new ScanError(token + tokenDelta, message, tokenName, new SourcePosition(position.lineStart + lineDelta,
+                    position.lineFinish + lineDelta, position.charStart, position.charFinish));
+        }
+    }
+
+    // files each error under the token being scanned when it was reported
+    private static final class Recorder extends ErrorReporter {
+
+        private final List<ScanError> errors;
+        private final TokenTable table;
+
+        Recorder(List<ScanError> errors, TokenTable table) {
+            this.errors = errors;
+            this.table = table;
+        }
+
+        @Override
+        public void reportError(String message, String tokenName, SourcePosition pos) {
+            errors.add(new ScanError(table.size(), message, tokenName,
+                    new SourcePosition(pos.lineStart, pos.lineFinish, pos.charStart, pos.charFinish)));
+        }
+    }
+
+    public IncrementalLexer(String source) {
+        text = source;
+        SourceFile file = new SourceFile(source);
+        tokens = new TokenTable(file);
+        Scanner scanner = new Scanner(file, new Recorder(errors, tokens));
+        while (scanner.scanInto(tokens) != Token.EOF) {
+        }
+    }
+
+    public String text() {
+        return text;
+    }
+
+    public TokenTable tokens() {
+        return tokens;
+    }
+
+    public int getNumErrors() {
+        return errors.size();
+    }
+
+    // reports the scanner's errors for the current text, in the order a full scan reports them
+    public void reportErrors(ErrorReporter reporter) {
+        for (ScanError error : errors) {
+            reporter.reportError(error.message(), error.tokenName(), error.position());
+        }
+    }
+
+    /**
+     * Replaces the text the editor sent before with {@code source}. The edit
+     * is found by comparing the two, so this suits callers that only ever see
+     * whole sources.
+     */
+    public TokenTable update(String source) {
+        int prefix = 0;
+        int shorter = Math.min(text.length(), source.length());
+        while (prefix < shorter && text.charAt(prefix) == source.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < shorter - prefix
+                && text.charAt(text.length() - 1 - suffix) == source.charAt(source.length() - 1 - suffix)) {
+            suffix++;
+        }
+        return edit(prefix, text.length() - prefix - suffix, source.substring(prefix, source.length() - suffix));
+    }
+
+    /**
+     * Removes {@code removedLength} chars at {@code offset}, inserts
+     * {@code insertedText} in their place and brings the tokens up to date.
+     */
+    public TokenTable edit(int offset, int removedLength, String insertedText) {
+        if (offset < 0 || removedLength < 0 || offset + removedLength > text.length()) {
+            throw new IndexOutOfBoundsException("edit of " + removedLength + " chars at " + offset
+                    + " does not fit a source of " + text.length() + " chars");
+        }
+        int delta = insertedText.length() - removedLength;
+        String edited = text.substring(0, offset) + insertedText + text.substring(offset + removedLength);
+        SourceFile file = new SourceFile(edited);
+
+        int restart = restartToken(offset);
+        TokenTable table = new TokenTable(file);
+        table.addAll(tokens, 0, restart, 0, 0);
+        List<ScanError> kept = new ArrayList<>();
+        for (ScanError error : errors) {
+            if (error.token() < restart) {
+                kept.add(error);
+            }
+        }
+
+        Recorder recorder = new Recorder(kept, table);
+        Scanner scanner = restart == 0
+                ? new Scanner(file, recorder)
+                : new Scanner(file, recorder, tokens.start(restart), tokens.line(restart), tokens.charStart(restart));
+
+        // the old tokens that may line up with new ones are those past the edit
+        int old = firstTokenFrom(offset + removedLength);
+        while (true) {
+            int scanned = table.size();
+            int kind = scanner.scanInto(table);
+            if (kind == Token.EOF) {
+                break;
+            }
+            int start = table.start(scanned);
+            if (kind == Token.STRINGLITERAL || start < offset + insertedText.length()) {
+                continue;
+            }
+            while (old < tokens.size() && tokens.start(old) < start - delta) {
+                old++;
+            }
+            if (old < tokens.size() && tokens.start(old) == start - delta && tokens.kind(old) != Token.STRINGLITERAL
+                    && tokens.charStart(old) == table.charStart(scanned)) {
+                // same place, same column: from here on the scanner repeats what it did last time
+                int lineDelta = table.line(scanned) - tokens.line(old);
+                table.addAll(tokens, old + 1, tokens.size(), delta, lineDelta);
+                for (ScanError error : errors) {
+                    if (error.token() > old) {
+                        kept.add(error.moved(scanned - old, lineDelta));
+                    }
+                }
+                break;
+            }
+        }
+
+        text = edited;
+        tokens = table.fragmented() ? table.compacted() : table;
+        errors = kept;
+        return tokens;
+    }
+
+    // the last token the edit at offset cannot have changed, 0 to scan from the top. It has to start
+    // before offset, not at it: the gap before a token is skipped looking at the token's first char
+    // (a \r there may be the first half of a \r\n)
+    private int restartToken(int offset) {
+        int token = firstTokenFrom(offset) - 1;
+        while (token > 0 && (tokens.kind(token) == Token.STRINGLITERAL || tokens.kind(token) == Token.EOF
+                || tokens.end(token - 1) + LOOKAHEAD > offset)) {
+            token--;
+        }
+        return Math.max(token, 0);
+    }
+
+    // the first token starting at or after offset, the EOF token if there is none
+    private int firstTokenFrom(int offset) {
+        int low = 0;
+        int high = tokens.size() - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (tokens.start(middle) < offset) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Keywords.java
+ */
+
+package ricelang.VC.Scanner;
+
+// Recognises the reserved words (and the boolean literals true/false) without
+// building a String. The length and first char of a lexeme pick at most one
+// candidate word, which is then compared char by char, so an identifier costs
+// one switch and at most one short compare instead of a loop of equals calls.
+
+public final class Keywords {
+
+  private Keywords() {
+  }
+
+  // the token kind of text[start, end): a reserved word, BOOLEANLITERAL for true/false, ID otherwise
+  public static int kind(CharSequence text, int start, int end) {
+    return kind(text::charAt, start, end);
+  }
+
+  public static int kind(String spelling) {
+    return kind(spelling, 0, spelling.length());
+  }
+
+  // same as above, reading straight out of the source the scanner is working through
+  static int kind(SourceFile source, int start, int end) {
+    return kind(source::charAt, start, end);
+  }
+
+  // where the chars of a lexeme come from, so a String and a SourceFile share one lookup
+  private interface Chars {
+    char charAt(int index);
+  }
+
+  private static int kind(Chars text, int start, int end) {
+    int length = end - start;
+    if (length < 2 || length > 8) {
+      return Token.ID;
+    }
+    int candidate = candidate(length, text.charAt(start), text.charAt(start + 1));
+    if (candidate < 0) {
+      return Token.ID;
+    }
+    String word = WORDS[candidate];
+    for (int i = 2; i < length; i++) {
+      if (text.charAt(start + i) != word.charAt(i)) {
+        return Token.ID;
+      }
+    }
+    return KINDS[candidate];
+  }
+
+  // the only word in WORDS that can have this length and these first two chars, -1 if there is none
+  private static int candidate(int length, char first, char second) {
+    return switch (length) {
+      case 2 -> first == 'i' && second == 'f' ? 6 : -1;
+      case 3 -> first == 'f' && second == 'o' ? 5 : first == 'i' && second == 'n' ? 7 : -1;
+      case 4 -> first == 'e' && second == 'l' ? 3 : first == 'v' && second == 'o' ? 9
+          : first == 't' && second == 'r' ? 11 : -1;
+      case 5 -> switch (first) {
+        case 'b' -> second == 'r' ? 1 : -1;
+        case 'f' -> second == 'l' ? 4 : second == 'a' ? 12 : -1;
+        case 'w' -> second == 'h' ? 10 : -1;
+        default -> -1;
+      };
+      case 6 -> first == 'b' && second == 'y' ? 8 : -1;
+      case 7 -> first == 'b' && second == 'o' ? 0 : -1;
+      case 8 -> first == 'c' && second == 'o' ? 2 : -1;
+      default -> -1;
+    };
+  }
+
+  private static final String[] WORDS = {
+    "boolean", "break", "continue", "else", "float", "for", "if", "int", "byebye", "void", "while",
+    "true", "false"
+  };
+
+  private static final int[] KINDS = {
+    Token.BOOLEAN, Token.BREAK, Token.CONTINUE, Token.ELSE, Token.FLOAT, Token.FOR, Token.IF, Token.INT,
+    Token.RETURN, Token.VOID, Token.WHILE,
+    Token.BOOLEANLITERAL, Token.BOOLEANLITERAL
+  };
+}
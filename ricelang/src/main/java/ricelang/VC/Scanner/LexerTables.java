@@ -0,0 +1,164 @@
+/*
+ * LexerTables.java
+ */
+
+package ricelang.VC.Scanner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// The char-class and transition tables TableScanner runs on.
+//
+// Every char falls into one class, and a token is recognised by following
+// NEXT[row + class] from the START row until it reaches DEAD, keeping
+// the longest prefix that passed through an accepting state. The operator
+// and separator part of the automaton is built from the spellings in Token,
+// each char they use getting a class of its own. Identifiers and number
+// literals are a handful of fixed states. Strings report errors as they go,
+// so the automaton only marks where one begins (STRING) and leaves the rest
+// to the scanner.
+
+final class LexerTables {
+
+  private LexerTables() {
+  }
+
+  // char classes, the operator and separator chars are numbered after these
+  static final int NUL = 0, SPACE = 1, NEWLINE = 2, RETURN = 3, TAB = 4, LETTER = 5, EXPONENT = 6,
+      DIGIT = 7, DOT = 8, QUOTE = 9, OTHER = 10;
+
+  // states with a fixed number, DEAD has no way out and STRING is handed to the scanner
+  static final int DEAD = 0, START = 1, STRING = 2;
+
+  static final int CLASSES;
+
+  // the class of every char, 64K bytes so no char needs more than one load to classify
+  private static final byte[] CLASS = new byte[Character.MAX_VALUE + 1];
+
+  // a state is known by its row, state * CLASSES, and NEXT[row + class] is the row after reading a
+  // char of that class; keeping rows instead of state numbers saves a multiply per char
+  static final int[] NEXT;
+
+  // ACCEPT[row] is the token kind that state accepts, -1 if it does not accept
+  static final int[] ACCEPT;
+
+  static final int START_ROW, STRING_ROW;
+
+  static int classOf(char c) {
+    return CLASS[c];
+  }
+
+  // the same tests the hand-written Scanner makes, so non-ASCII letters, digits and spaces behave alike
+  private static int classify(char c) {
+    if (c == SourceFile.eof) {
+      return NUL;
+    } else if (c == '\n') {
+      return NEWLINE;
+    } else if (c == '\r') {
+      return RETURN;
+    } else if (c == '\t') {
+      return TAB;
+    } else if (Character.isWhitespace(c)) {
+      return SPACE;
+    } else if (c == 'e' || c == 'E') {
+      return EXPONENT;
+    } else if (Character.isLetter(c) || c == '_') {
+      return LETTER;
+    } else if (Character.isDigit(c)) {
+      return DIGIT;
+    } else if (c == '.') {
+      return DOT;
+    } else if (c == '"') {
+      return QUOTE;
+    }
+    return OTHER;
+  }
+
+  static {
+    int classes = OTHER + 1;
+    for (int c = 0; c <= Character.MAX_VALUE; c++) {
+      CLASS[c] = (byte) classify((char) c);
+    }
+    for (int kind = Token.PLUS; kind <= Token.COMMA; kind++) {
+      for (char c : Token.spell(kind).toCharArray()) {
+        if (CLASS[c] == OTHER) {
+          CLASS[c] = (byte) classes++;
+        }
+      }
+    }
+    CLASSES = classes;
+
+    List<int[]> next = new ArrayList<>();
+    List<Integer> accept = new ArrayList<>();
+    for (int fixed = DEAD; fixed <= STRING; fixed++) {
+      newState(next, accept, -1);
+    }
+
+    // operators and separators: one path per spelling, sharing common prefixes
+    for (int kind = Token.PLUS; kind <= Token.COMMA; kind++) {
+      int state = START;
+      for (char c : Token.spell(kind).toCharArray()) {
+        int target = next.get(state)[CLASS[c]];
+        if (target == DEAD) {
+          target = newState(next, accept, -1);
+          next.get(state)[CLASS[c]] = target;
+        }
+        state = target;
+      }
+      accept.set(state, kind);
+    }
+
+    // identifier -> letter (letter | digit)*, told apart from keywords afterwards
+    int id = newState(next, accept, Token.ID);
+    on(next, START, id, LETTER, EXPONENT);
+    on(next, id, id, LETTER, EXPONENT, DIGIT);
+
+    // digit+ | digit+ . digit* exponent? | digit* . digit+ exponent? | digit+ exponent
+    int integer = newState(next, accept, Token.INTLITERAL);
+    int point = newState(next, accept, Token.FLOATLITERAL);  // digit+ .
+    int leadingPoint = newState(next, accept, -1);           // . before any digit
+    int fraction = newState(next, accept, Token.FLOATLITERAL);
+    int exponent = newState(next, accept, -1);               // the e or E
+    int sign = newState(next, accept, -1);
+    int power = newState(next, accept, Token.FLOATLITERAL);
+    on(next, START, integer, DIGIT);
+    on(next, integer, integer, DIGIT);
+    on(next, integer, point, DOT);
+    on(next, integer, exponent, EXPONENT);
+    on(next, point, fraction, DIGIT);
+    on(next, point, exponent, EXPONENT);
+    on(next, START, leadingPoint, DOT);
+    on(next, leadingPoint, fraction, DIGIT);
+    on(next, fraction, fraction, DIGIT);
+    on(next, fraction, exponent, EXPONENT);
+    on(next, exponent, sign, CLASS['+'], CLASS['-']);
+    on(next, exponent, power, DIGIT);
+    on(next, sign, power, DIGIT);
+    on(next, power, power, DIGIT);
+
+    on(next, START, STRING, QUOTE);
+
+    NEXT = new int[next.size() * CLASSES];
+    ACCEPT = new int[next.size() * CLASSES];
+    for (int state = 0; state < next.size(); state++) {
+      for (int c = 0; c < CLASSES; c++) {
+        NEXT[state * CLASSES + c] = next.get(state)[c] * CLASSES;
+      }
+      ACCEPT[state * CLASSES] = accept.get(state);
+    }
+    START_ROW = START * CLASSES;
+    STRING_ROW = STRING * CLASSES;
+  }
+
+  private static int newState(List<int[]> next, List<Integer> accept, int kind) {
+    next.add(new int[CLASSES]);
+    accept.add(kind);
+    return next.size() - 1;
+  }
+
+  private static void on(List<int[]> next, int from, int to, int... classes) {
+    for (int c : classes) {
+      next.get(from)[c] = to;
+    }
+  }
+}
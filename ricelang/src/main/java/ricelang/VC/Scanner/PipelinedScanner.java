@@ -0,0 +1,261 @@
+/*
+ * PipelinedScanner.java
+ */
+
+package ricelang.VC.Scanner;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+import ricelang.VC.CompilationContext;
+import ricelang.VC.ErrorReporter;
+
+/**
+ * Scans on a thread of its own while the parser works through the tokens
+ * already scanned, so lexing and parsing overlap instead of taking turns.
+ *
+ * The scanner thread is the only writer of a ring of token slots and the
+ * parser the only reader, so neither side ever locks: each owns one index
+ * and only publishes it, with release/acquire ordering, once per batch of
+ * slots or before it has to wait. A side that finds the ring empty (or
+ * full) spins briefly, then yields, then parks for short spells.
+ *
+ * The errors the scanner reports are held back with the token being scanned
+ * and passed on to the real reporter when the parser takes that token, so
+ * the reporter sees exactly what it would see scanning on the parser's
+ * thread: nothing from tokens the parser never asked for, and scan errors
+ * in between the parser's own. {@link #peek} looks any distance ahead
+ * without taking anything.
+ *
+ * Close it when done with it, the scanner thread otherwise waits on a full
+ * ring until the JVM exits (it is a daemon, so it does not keep it alive).
+ */
+public final class PipelinedScanner implements TokenSource, AutoCloseable {
+
+  private static final int CAPACITY = 1 << 12; // slots, a power of two
+  private static final int BATCH = 64; // slots taken or filled between publishing an index
+  private static final int SPINS = 100;
+  private static final int YIELDS = 10;
+  private static final long PARK_NANOS = 20_000;
+
+  private static final VarHandle HEAD;
+  private static final VarHandle TAIL;
+
+  static {
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      HEAD = lookup.findVarHandle(PipelinedScanner.class, "head", long.class);
+      TAIL = lookup.findVarHandle(PipelinedScanner.class, "tail", long.class);
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  private final Token[] tokens = new Token[CAPACITY];
+  private final ScanError[][] errors = new ScanError[CAPACITY][];
+  private final ErrorReporter errorReporter;
+  private final Thread producer;
+
+  // published by the parser: slots before head are free to refill
+  private volatile long head;
+  // published by the scanner thread: slots before tail hold scanned tokens
+  private volatile long tail;
+  private volatile boolean closed;
+  private volatile Throwable failure;
+
+  // parser side
+  private long taken; // the next slot to take, published as head now and then
+  private long available; // the last tail seen
+  private final ArrayDeque<Slot> ahead = new ArrayDeque<>();
+  private Token last; // the EOF token once it has been taken
+
+  private record ScanError(String message, String tokenName, SourcePosition position) {
+  }
+
+  private record Slot(Token token, ScanError[] errors) {
+  }
+
+  public PipelinedScanner(CompilationContext context) {
+    this(errors -> new Scanner(context.getSource(), errors, context.getSymbols()), context.getReporter());
+  }
+
+  public PipelinedScanner(SourceFile source, ErrorReporter reporter) {
+    this(errors -> new Scanner(source, errors), reporter);
+  }
+
+  /**
+   * Runs the scanner {@code scanners} makes on the scanner thread. It must
+   * report its errors to the reporter it is handed, not to {@code reporter}.
+   */
+  public PipelinedScanner(Function<ErrorReporter, TokenSource> scanners, ErrorReporter reporter) {
+    errorReporter = reporter;
+    producer = new Thread(() -> produce(scanners), "ricelang-scanner");
+    producer.setDaemon(true);
+    producer.start();
+  }
+
+  @Override
+  public Token getToken() {
+    if (!ahead.isEmpty()) {
+      return handOut(ahead.poll());
+    }
+    if (last != null) {
+      return last;
+    }
+    long slot = taken;
+    awaitScanned(slot);
+    int index = (int) slot & (CAPACITY - 1);
+    Token token = tokens[index];
+    ScanError[] pending = errors[index];
+    tokens[index] = null;
+    errors[index] = null;
+    free(slot + 1);
+    if (pending != null) {
+      report(pending);
+    }
+    if (token.kind == Token.EOF) {
+      last = token;
+    }
+    return token;
+  }
+
+  /**
+   * The token {@code distance} tokens ahead of the one getToken hands out
+   * next, which is {@code peek(0)}. Past the end it is the EOF token.
+   */
+  public Token peek(int distance) {
+    while (ahead.size() <= distance) {
+      if (last != null) {
+        return last;
+      }
+      if (!ahead.isEmpty() && ahead.peekLast().token().kind == Token.EOF) {
+        return ahead.peekLast().token();
+      }
+      long slot = taken;
+      awaitScanned(slot);
+      int index = (int) slot & (CAPACITY - 1);
+      ahead.add(new Slot(tokens[index], errors[index]));
+      tokens[index] = null;
+      errors[index] = null;
+      free(slot + 1);
+    }
+    int i = 0;
+    for (Slot slot : ahead) {
+      if (i++ == distance) {
+        return slot.token();
+      }
+    }
+    throw new AssertionError();
+  }
+
+  // stops the scanner thread, it is fine to do so before reaching EOF
+  @Override
+  public void close() {
+    closed = true;
+    LockSupport.unpark(producer);
+  }
+
+  private Token handOut(Slot slot) {
+    if (slot.errors() != null) {
+      report(slot.errors());
+    }
+    if (slot.token().kind == Token.EOF) {
+      last = slot.token();
+    }
+    return slot.token();
+  }
+
+  private void report(ScanError[] pending) {
+    for (ScanError error : pending) {
+      errorReporter.reportError(error.message(), error.tokenName(), error.position());
+    }
+  }
+
+  // marks slots before next as taken, publishing that only once a batch of them has gone by
+  private void free(long next) {
+    taken = next;
+    if ((next & (BATCH - 1)) == 0) {
+      HEAD.setRelease(this, next);
+    }
+  }
+
+  private void awaitScanned(long slot) {
+    if (slot < available) {
+      return;
+    }
+    // the scanner thread may be waiting for room, so let it see everything taken so far
+    HEAD.setRelease(this, taken);
+    for (int waits = 0; (available = (long) TAIL.getAcquire(this)) <= slot; waits++) {
+      Throwable failed = failure;
+      if (failed != null && (available = (long) TAIL.getAcquire(this)) <= slot) {
+        if (failed instanceof RuntimeException e) {
+          throw e;
+        }
+        if (failed instanceof Error e) {
+          throw e;
+        }
+        throw new IllegalStateException("scanner thread failed", failed);
+      }
+      pause(waits);
+    }
+  }
+
+  // runs on the scanner thread
+  private void produce(Function<ErrorReporter, TokenSource> scanners) {
+    List<ScanError> pending = new ArrayList<>();
+    ErrorReporter recorder = new ErrorReporter() {
+      @Override
+      public void reportError(String message, String tokenName, SourcePosition pos) {
+        pending.add(new ScanError(message, tokenName,
+            new SourcePosition(pos.lineStart, pos.lineFinish, pos.charStart, pos.charFinish)));
+      }
+    };
+    long filled = 0;
+    long free = CAPACITY; // slots before this are known to be free
+    try {
+      TokenSource scanner = scanners.apply(recorder);
+      Token token;
+      do {
+        token = scanner.getToken();
+        if (filled == free) {
+          TAIL.setRelease(this, filled);
+          for (int waits = 0; (free = (long) HEAD.getAcquire(this) + CAPACITY) == filled; waits++) {
+            if (closed) {
+              return;
+            }
+            pause(waits);
+          }
+        }
+        int index = (int) filled & (CAPACITY - 1);
+        tokens[index] = token;
+        if (!pending.isEmpty()) {
+          errors[index] = pending.toArray(new ScanError[0]);
+          pending.clear();
+        }
+        filled++;
+        if ((filled & (BATCH - 1)) == 0) {
+          TAIL.setRelease(this, filled);
+        }
+      } while (token.kind != Token.EOF && !closed);
+      TAIL.setRelease(this, filled);
+    } catch (Throwable e) {
+      TAIL.setRelease(this, filled);
+      failure = e;
+    }
+  }
+
+  private static void pause(int waits) {
+    if (waits < SPINS) {
+      Thread.onSpinWait();
+    } else if (waits < SPINS + YIELDS) {
+      Thread.yield();
+    } else {
+      LockSupport.parkNanos(PARK_NANOS);
+    }
+  }
+}
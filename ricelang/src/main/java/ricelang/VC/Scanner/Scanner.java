@@ -3,32 +3,57 @@
  */
 package ricelang.VC.Scanner;
 
+import ricelang.VC.CompilationContext;
 import ricelang.VC.ErrorReporter;
-import java.util.Optional;
+import ricelang.VC.Symbols;
 
-public final class Scanner {
+public final class Scanner implements TokenSource {
 
     private SourceFile sourceFile;
     private ErrorReporter errorReporter;
+    private final Symbols symbols;
     private boolean debug;
 
-    private StringBuilder currentSpelling;
+    // tokens are not copied out char by char, the scanner only remembers where
+    // the current one starts and how many chars its spelling would have
+    private int tokenStart;
+    private int spellingLength;
     private int spellingLengthBonus;
     private char currentChar;
+    private int offset; // of currentChar in the source
     private SourcePosition sourcePos;
+    private final SourcePosition noPosition = new SourcePosition();
 
-    private int column; // charStart = column - currentSpelling.length()
+    private int column; // charStart = column - spellingLength
     private int line;
+
+    // the token found by the last scan()
+    private int kind;
+    private int tokenEnd;
+    private int tokenLine;
+    private int tokenCharStart;
+    private int tokenCharFinish;
+    private boolean unterminated;
     // =========================================================
 
+    public Scanner(CompilationContext context) {
+        this(context.getSource(), context.getReporter(), context.getSymbols());
+    }
+
     public Scanner(SourceFile source, ErrorReporter reporter) {
+        this(source, reporter, null);
+    }
+
+    // identifiers are interned in symbols, or left without an id if it is null
+    public Scanner(SourceFile source, ErrorReporter reporter, Symbols symbols) {
         sourceFile = source;
         errorReporter = reporter;
+        this.symbols = symbols;
         debug = false;
 
         // Initiaise currentChar for the starter code.  Change it if necessary for your full implementation
-        currentChar = sourceFile.getNextChar();
-        currentSpelling = new StringBuilder();
+        advance();
+        spellingLength = 0;
         spellingLengthBonus = 0;
 
         // Initialise your counters for counting line and column numbers here
@@ -38,14 +63,26 @@ public final class Scanner {
         sourcePos = new SourcePosition(line, line, column, column);
     }
 
+    // carries on scanning from offset, where a token that is not a string literal starts at line(column)
+    Scanner(SourceFile source, ErrorReporter reporter, int offset, int line, int column) {
+        sourceFile = source;
+        errorReporter = reporter;
+        symbols = null;
+        sourceFile.seek(offset);
+        advance();
+        this.line = line;
+        this.column = column;
+        // only the very first skip of a file reports an unterminated comment at 1(1)..1(1)
+        sourcePos = noPosition;
+    }
+
     public void enableDebugging() {
         debug = true;
     }
 
     // accept gets the next character from the source program.
     private void accept() {
-        // System.out.println("accepting: " + currentChar);
-        currentSpelling.append(currentChar);
+        spellingLength += 1;
 
         switch (currentChar) {
             case '\r' -> {
@@ -63,14 +100,29 @@ public final class Scanner {
                 column += 1;
         }
 
-        currentChar = sourceFile.getNextChar();
+        advance();
+    }
+
+    // accept a char that is not part of any token, so the source can let go of it
+    private void skip() {
+        sourceFile.release(offset);
+        accept();
     }
 
     private void reject() {
         column += 1;
+        advance();
+    }
+
+    private void advance() {
+        offset = sourceFile.position();
         currentChar = sourceFile.getNextChar();
     }
 
+    private boolean atEnd() {
+        return sourceFile.atEnd(offset);
+    }
+
     private boolean isFraction() {
         return currentChar == '.' && Character.isDigit(inspectChar(1));
     }
@@ -91,108 +143,121 @@ public final class Scanner {
         return sourceFile.inspectChar(nthChar);
     }
 
-    private Token nextToken() {
+    // the usual case: the token is everything accepted since tokenStart
+    private int token(int kind) {
+        return token(kind, line, column - spellingLength, column - 1, offset);
+    }
+
+    private int token(int kind, int line, int charStart, int charFinish, int end) {
+        this.kind = kind;
+        tokenEnd = end;
+        tokenLine = line;
+        tokenCharStart = charStart;
+        tokenCharFinish = charFinish;
+        return kind;
+    }
+
+    private int nextToken() {
         // Tokens: separators, operators, literals, identifiers, and keywords
         switch (currentChar) {
             case '(' -> {
                 accept();
-                return new Token(Token.LPAREN, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
+                return token(Token.LPAREN);
             }
             case ')' -> {
                 accept();
-                return new Token(Token.RPAREN, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
+                return token(Token.RPAREN);
             }
             case '{' -> {
                 accept();
-                return new Token(Token.LCURLY, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
+                return token(Token.LCURLY);
             }
             case '}' -> {
                 accept();
-                return new Token(Token.RCURLY, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
+                return token(Token.RCURLY);
             }
             case '[' -> {
                 accept();
-                return new Token(Token.LBRACKET, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
+                return token(Token.LBRACKET);
             }
             case ']' -> {
                 accept();
-                return new Token(Token.RBRACKET, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
+                return token(Token.RBRACKET);
             }
             case ';' -> {
                 accept();
-                return new Token(Token.SEMICOLON, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
+                return token(Token.SEMICOLON);
             }
             case ',' -> {
                 accept();
-                return new Token(Token.COMMA, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
+                return token(Token.COMMA);
             }
             case '+' -> {
                 accept();
-                return new Token(Token.PLUS, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
+                return token(Token.PLUS);
             }
             case '-' -> {
                 accept();
-                return new Token(Token.MINUS, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
+                return token(Token.MINUS);
             }
             case '*' -> {
                 accept();
-                return new Token(Token.MULT, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
+                return token(Token.MULT);
             }
             case '/' -> {
                 accept();
-                return new Token(Token.DIV, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
+                return token(Token.DIV);
             }
             case '=' -> {
                 accept();
                 if (currentChar == '=') {
                     accept();
-                    return new Token(Token.EQEQ, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
+                    return token(Token.EQEQ);
                 }
-                return new Token(Token.EQ, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
+                return token(Token.EQ);
             }
             case '!' -> {
                 accept();
                 if (currentChar == '=') {
                     accept();
-                    return new Token(Token.NOTEQ, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
+                    return token(Token.NOTEQ);
                 }
-                return new Token(Token.NOT, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
+                return token(Token.NOT);
             }
             case '<' -> {
                 accept();
                 if (currentChar == '=') {
                     accept();
-                    return new Token(Token.LTEQ, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
+                    return token(Token.LTEQ);
                 }
-                return new Token(Token.LT, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
+                return token(Token.LT);
             }
             case '>' -> {
                 accept();
                 if (currentChar == '=') {
                     accept();
-                    return new Token(Token.GTEQ, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
+                    return token(Token.GTEQ);
                 }
-                return new Token(Token.GT, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
+                return token(Token.GT);
             }
             case '&' -> {
                 accept();
                 if (currentChar == '&') {
                     accept();
-                    return new Token(Token.ANDAND, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
+                    return token(Token.ANDAND);
                 }
-                return new Token(Token.ERROR, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1)); // there is no bitwise & in VC; only &&
+                return token(Token.ERROR); // there is no bitwise & in VC; only &&
             }
             case '|' -> {
                 accept();
                 if (currentChar == '|') {
                     accept();
-                    return new Token(Token.OROR, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
+                    return token(Token.OROR);
                 }
-                return new Token(Token.ERROR, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1)); // there is no bitwise | in VC; only ||
+                return token(Token.ERROR); // there is no bitwise | in VC; only ||
             }
             case SourceFile.eof -> {
-                currentSpelling.append(Token.spell(Token.EOF));
-                return new Token(Token.EOF, currentSpelling.toString(), new SourcePosition(line, line, column, column));
+                return token(Token.EOF, line, column, column, offset);
             }
         }
 
@@ -215,7 +280,7 @@ public final class Scanner {
                 accept();
             }
 
-            return new Token(Token.FLOATLITERAL, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
+            return token(Token.FLOATLITERAL);
         } else if (Character.isDigit(currentChar)) {
             accept();
 
@@ -238,7 +303,7 @@ public final class Scanner {
 
                         accept();
                     }
-                    return new Token(Token.FLOATLITERAL, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
+                    return token(Token.FLOATLITERAL);
                 } else if (isExponent()) {
                     // skip the (E|e) and the (+|-)?digit then read rest of digit*
                     accept();
@@ -246,7 +311,7 @@ public final class Scanner {
                     while (Character.isDigit(currentChar)) {
                         accept();
                     }
-                    return new Token(Token.FLOATLITERAL, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
+                    return token(Token.FLOATLITERAL);
                 } else if (currentChar == '.') {
                     // can't be a fraction so we are checking if it ends with . or ends with . exponent
                     accept();
@@ -259,58 +324,41 @@ public final class Scanner {
                             accept();
                         }
                     }
-                    return new Token(Token.FLOATLITERAL, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
+                    return token(Token.FLOATLITERAL);
                 } else if (Character.isDigit(currentChar)) {
                     accept();
                 } else {
-                    return new Token(Token.INTLITERAL, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
+                    return token(Token.INTLITERAL);
                 }
             }
         } else if (currentChar == '\"') {
             accept();
             while (true) {
-                if (currentChar == '\n' || currentChar == '\r') {
-                    // strings do not span multiple lines
-                    currentSpelling = new StringBuilder(currentSpelling.toString().replaceFirst("^\"", "")); // remove first and last " 
-                    errorReporter.reportError("%: unterminated string", currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length() - 1, column - currentSpelling.length() - 1));
+                if (currentChar == '\n' || currentChar == '\r' || atEnd()) {
+                    // strings do not span multiple lines (or run off the end of the file)
+                    int length = spellingLength - 1; // without the opening "
+                    errorReporter.reportError("%: unterminated string", unescape(sourceFile, tokenStart, offset, false), new SourcePosition(line, line, column - length - 1, column - length - 1));
                     int temp_line = line;
                     int temp_column = column;
-                    reject();
-                    column = 1;
-                    line += 1;
-                    // return Token.STRINGLITERAL;
-                    return new Token(Token.STRINGLITERAL, currentSpelling.toString(), new SourcePosition(temp_line, temp_line, temp_column - currentSpelling.length() - 1 - spellingLengthBonus, temp_column - 1));
+                    int end = offset;
+                    if (!atEnd()) {
+                        reject();
+                        column = 1;
+                        line += 1;
+                    }
+                    unterminated = true;
+                    return token(Token.STRINGLITERAL, temp_line, temp_column - length - 1 - spellingLengthBonus, temp_column - 1, end);
                 } else if (currentChar == '\\') {
                     char nextChar = inspectChar(1);
-                    Optional<Character> special = switch (nextChar) {
-                        case 'b' ->
-                            Optional.of('\b');
-                        case 'f' ->
-                            Optional.of('\f');
-                        case 'n' ->
-                            Optional.of('\n');
-                        case 'r' ->
-                            Optional.of('\r');
-                        case 't' ->
-                            Optional.of('\t');
-                        case '\'' ->
-                            Optional.of('\'');
-                        case '\"' ->
-                            Optional.of('\"');
-                        case '\\' ->
-                            Optional.of('\\');
-                        default ->
-                            Optional.empty();
-                    };
 
                     // convert to desired special character and accept without accepting
-                    if (special.isPresent()) {
-                        currentSpelling.append(special.get());
+                    if (escape(nextChar) >= 0) {
+                        spellingLength += 1;
                         reject();
                         reject();
                         spellingLengthBonus += 1;
                     } else {
-                        errorReporter.reportError("%: illegal escape character", "\\" + nextChar, new SourcePosition(line, line, column - currentSpelling.length(), column));
+                        errorReporter.reportError("%: illegal escape character", "\\" + nextChar, new SourcePosition(line, line, column - spellingLength, column));
                         accept();
                         accept();
                     }
@@ -322,54 +370,77 @@ public final class Scanner {
 
             }
             accept();
-            currentSpelling = new StringBuilder(currentSpelling.toString().replaceFirst("^\"", "").replaceFirst("\"$", "")); // remove first and last "
 
-            // althought the first and last "" have disappeared, they still needa be there for position calc 
-            return new Token(Token.STRINGLITERAL, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length() - 2 - spellingLengthBonus, column - 1));
+            // the spelling loses the surrounding "" but they still count for the position
+            return token(Token.STRINGLITERAL, line, column - spellingLength - spellingLengthBonus, column - 1, offset);
         } else if (Character.isLetter(currentChar) || currentChar == '_') {
             // identifier -> letter (letter | digit)*
             while (Character.isLetter(currentChar) || currentChar == '_' || Character.isDigit(currentChar)) {
                 accept();
             }
-            return switch (currentSpelling.toString()) {
-                case "boolean" ->
-                    new Token(Token.BOOLEAN, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
-                case "break" ->
-                    new Token(Token.BREAK, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
-                case "continue" ->
-                    new Token(Token.CONTINUE, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
-                case "else" ->
-                    new Token(Token.ELSE, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
-                case "float" ->
-                    new Token(Token.FLOAT, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
-                case "for" ->
-                    new Token(Token.FOR, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
-                case "if" ->
-                    new Token(Token.IF, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
-                case "int" ->
-                    new Token(Token.INT, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
-                case "byebye" ->
-                    new Token(Token.RETURN, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
-                case "void" ->
-                    new Token(Token.VOID, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
-                case "while" ->
-                    new Token(Token.WHILE, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
-                case "true", "false" ->
-                    new Token(Token.BOOLEANLITERAL, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
-                default ->
-                    new Token(Token.ID, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
-            };
+            return token(Keywords.kind(sourceFile, tokenStart, offset));
         }
 
         accept();
-        return new Token(Token.ERROR, currentSpelling.toString(), new SourcePosition(line, line, column - currentSpelling.length(), column - 1));
+        return token(Token.ERROR);
+    }
+
+    // the char an escape sequence \c stands for, -1 if c does not make an escape sequence
+    static int escape(char c) {
+        return switch (c) {
+            case 'b' -> '\b';
+            case 'f' -> '\f';
+            case 'n' -> '\n';
+            case 'r' -> '\r';
+            case 't' -> '\t';
+            case '\'' -> '\'';
+            case '\"' -> '\"';
+            case '\\' -> '\\';
+            default -> -1;
+        };
+    }
+
+    // the value of the string literal source[start, end), quotes stripped and escapes converted
+    static String unescape(SourceFile source, int start, int end, boolean terminated) {
+        int last = terminated ? end - 1 : end;
+        StringBuilder value = new StringBuilder(last - start);
+        for (int i = start + 1; i < last; i++) {
+            char c = source.charAt(i);
+            if (c != '\\' || i + 1 >= last) {
+                value.append(c);
+                continue;
+            }
+            char next = source.charAt(++i);
+            int special = escape(next);
+            if (special >= 0) {
+                value.append((char) special);
+            } else {
+                // an illegal escape is kept as is, \r\n counting as one char like everywhere else
+                value.append(c).append(next);
+                if (next == '\r' && i + 1 < last && source.charAt(i + 1) == '\n') {
+                    i++;
+                }
+            }
+        }
+        return value.toString();
+    }
+
+    // the text of a token, only ever built when somebody asks for it
+    static String spelling(SourceFile source, int kind, int start, int end, boolean unterminated) {
+        if (kind <= Token.COMMA || kind == Token.EOF) {
+            return Token.spell(kind); // keywords, operators and separators always look the same
+        }
+        if (kind == Token.STRINGLITERAL) {
+            return unescape(source, start, end, !unterminated);
+        }
+        return source.substring(start, end);
     }
 
     private void skipSpaceAndComments() {
         while (Character.isWhitespace(currentChar) || (currentChar == '/' && inspectChar(1) == '*') || (currentChar == '/' && inspectChar(1) == '/')) {
             // skip tab but make sure it multiple of 8 aligned (A tab size of 8 characters is assumed)
             while (currentChar == '\t') {
-                accept();
+                skip();
                 for (int i = column; i % 8 != 0; i++) {
                     column++;
                 }
@@ -381,56 +452,69 @@ public final class Scanner {
                 if (currentChar == '\t') {
                     break;
                 }
-                accept();
+                skip();
             }
 
             // skipEOFComment
             if (currentChar == '/' && inspectChar(1) == '/') {
-                accept();
-                accept();
+                skip();
+                skip();
                 while (true) {
                     if (currentChar == SourceFile.eof) {
                         errorReporter.reportError(": %", "unterminated comment (please ensure \\n at end of file)", sourcePos);
                         return;
                     } else if (currentChar == '\n' || currentChar == '\r') {
-                        accept();
+                        skip();
                         break;
                     }
 
-                    accept();
+                    skip();
                 }
             }
 
             // skipTraditionalComment
             if (currentChar == '/' && inspectChar(1) == '*') {
-                accept();
-                accept();
+                skip();
+                skip();
                 while (true) {
                     if (currentChar == SourceFile.eof) {
                         errorReporter.reportError(": %", "unterminated comment (please ensure \\n at end of file)", sourcePos);
                         return;
                     } else if (currentChar == '*' && inspectChar(1) == '/') {
-                        accept();
-                        accept();
+                        skip();
+                        skip();
                         break;
                     }
 
-                    accept();
+                    skip();
                 }
             }
         }
     }
 
-    public Token getToken() {
-        Token token;
-
+    // scans the next token into kind, tokenStart, tokenEnd, tokenLine, ... without building anything
+    private int scan() {
         // Skip white space and comments and reset thingos
         skipSpaceAndComments();
-        currentSpelling = new StringBuilder();
+        spellingLength = 0;
         spellingLengthBonus = 0;
-        sourcePos = new SourcePosition();
+        unterminated = false;
+        sourcePos = noPosition;
+        tokenStart = offset;
+        sourceFile.release(tokenStart);
+
+        return nextToken();
+    }
 
-        token = nextToken();
+    @Override
+    public Token getToken() {
+        scan();
+        Token token = new Token(kind, spelling(sourceFile, kind, tokenStart, tokenEnd, unterminated),
+                new SourcePosition(tokenLine, tokenLine, tokenCharStart, tokenCharFinish));
+        if (symbols != null && token.kind == Token.ID) {
+            token.symbol = symbols.id(token.spelling);
+            token.spelling = symbols.spelling(token.symbol);
+        }
 
         // * do not remove these three lines below (for debugging purposes)
         if (debug) {
@@ -438,4 +522,23 @@ public final class Scanner {
         }
         return token;
     }
+
+    /**
+     * Scans the rest of the source in one go into a packed TokenTable. No
+     * Token, SourcePosition or spelling is created along the way, the table
+     * builds those for the tokens somebody actually looks at.
+     */
+    public TokenTable scanAll() {
+        TokenTable table = new TokenTable(sourceFile);
+        while (scanInto(table) != Token.EOF) {
+        }
+        return table;
+    }
+
+    // scans the next token onto the end of table and returns its kind
+    int scanInto(TokenTable table) {
+        scan();
+        table.add(kind, unterminated, tokenStart, tokenEnd, tokenLine, tokenCharStart, tokenCharFinish);
+        return kind;
+    }
 }
@@ -4,16 +4,38 @@
 
 package ricelang.VC.Scanner;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Path;
+
 public class SourceFile {
 
   static final char eof = '\u0000';
-  private static String content;
+  private final String content;
   private int index = 0;
 
   public SourceFile(String sourceCode) {
     content = sourceCode;
   }
 
+  // for StreamingSourceFile, which overrides everything that reads content
+  SourceFile() {
+    content = null;
+  }
+
+  // A source read from reader a window at a time, so only the chars around
+  // the token being scanned are ever in memory. Enough for Scanner.getToken
+  // and the parser; scanAll() spellings and TableScanner need the whole
+  // source and should be given a SourceFile(String).
+  public static SourceFile of(Reader reader) {
+    return new StreamingSourceFile(reader);
+  }
+
+  // the UTF-8 file at path, mapped into memory rather than read onto the heap and streamed as above
+  public static SourceFile map(Path path) throws IOException {
+    return StreamingSourceFile.mapped(path);
+  }
+
   char getNextChar() {
     if (index >= content.length()) return eof;
     return content.charAt(index++);
@@ -24,4 +46,37 @@ public class SourceFile {
     if (targetIndex >= content.length()) return eof;
     return content.charAt(targetIndex);
   }
+
+  // offset of the char the next getNextChar() returns, the length of the source once it is used up
+  int position() {
+    return index;
+  }
+
+  // moves to offset, so the next getNextChar() returns the char there
+  void seek(int offset) {
+    index = offset;
+  }
+
+  // whether offset is past the last char, a NUL inside the source does not count
+  boolean atEnd(int offset) {
+    return offset >= content.length();
+  }
+
+  // the scanner will not ask for anything before offset again
+  void release(int offset) {
+  }
+
+  // random access for building spellings after the scanner has moved on
+  char charAt(int offset) {
+    return content.charAt(offset);
+  }
+
+  String substring(int start, int end) {
+    return content.substring(start, end);
+  }
+
+  // the whole source, for scanners that walk it on their own
+  String text() {
+    return content;
+  }
 }
@@ -0,0 +1,186 @@
+/*
+ * StreamingSourceFile.java
+ */
+
+package ricelang.VC.Scanner;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// A SourceFile that pulls its chars from a Reader into a sliding window.
+//
+// The window holds everything from the last offset the scanner released up
+// to as far as it has looked ahead, so it stays a few KB no matter how big
+// the source is; only a single token longer than the window makes it grow.
+// Asking for a char that has already been released is a bug in the caller
+// and throws. Offsets are ints like everywhere else in the scanner, so a
+// source can be at most 2^31 - 1 chars long.
+
+final class StreamingSourceFile extends SourceFile {
+
+  private static final int CHUNK = 8192;
+
+  private final Reader reader;
+  private char[] window = new char[2 * CHUNK];
+  private int windowStart = 0; // offset of window[0] in the source
+  private int filled = 0;      // chars of window holding source
+  private int index = 0;       // offset of the char the next getNextChar() returns
+  private int released = 0;    // nothing before this offset will be asked for again
+  private boolean exhausted = false;
+
+  StreamingSourceFile(Reader reader) {
+    this.reader = reader;
+  }
+
+  static SourceFile mapped(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException(path + " is too big to map, it has " + channel.size() + " bytes");
+      }
+      // the mapping stays valid after the channel is closed
+      return new StreamingSourceFile(new DecodingReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())));
+    }
+  }
+
+  // makes sure offset is in the window, false if the source ends before it
+  private boolean buffered(int offset) {
+    while (offset - windowStart >= filled) {
+      if (exhausted) {
+        return false;
+      }
+      fill();
+    }
+    return true;
+  }
+
+  private void fill() {
+    int keep = Math.min(released, index) - windowStart;
+    if (keep > 0) {
+      System.arraycopy(window, keep, window, 0, filled - keep);
+      windowStart += keep;
+      filled -= keep;
+    }
+    if (window.length - filled < CHUNK) {
+      window = Arrays.copyOf(window, window.length * 2);
+    }
+    try {
+      int read = reader.read(window, filled, window.length - filled);
+      if (read < 0) {
+        exhausted = true;
+      } else {
+        filled += read;
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private int at(int offset) {
+    if (offset < windowStart) {
+      throw new IllegalStateException("offset " + offset + " of a streamed source has already been released");
+    }
+    return offset - windowStart;
+  }
+
+  @Override
+  char getNextChar() {
+    if (!buffered(index)) return eof;
+    return window[index++ - windowStart];
+  }
+
+  @Override
+  char inspectChar(int nthChar) {
+    int targetIndex = index + nthChar - 1;
+    if (!buffered(targetIndex)) return eof;
+    return window[targetIndex - windowStart];
+  }
+
+  @Override
+  int position() {
+    return index;
+  }
+
+  @Override
+  void seek(int offset) {
+    throw new UnsupportedOperationException("a streamed source can only be read front to back");
+  }
+
+  @Override
+  boolean atEnd(int offset) {
+    return !buffered(offset);
+  }
+
+  @Override
+  void release(int offset) {
+    released = offset;
+  }
+
+  @Override
+  char charAt(int offset) {
+    buffered(offset);
+    return window[at(offset)];
+  }
+
+  @Override
+  String substring(int start, int end) {
+    buffered(end - 1);
+    return new String(window, at(start), end - start);
+  }
+
+  @Override
+  String text() {
+    throw new UnsupportedOperationException("a streamed source is never in memory as a whole");
+  }
+
+  // reads UTF-8 straight out of a mapped file, so the file itself never lands on the heap
+  private static final class DecodingReader extends Reader {
+
+    private final ByteBuffer bytes;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+
+    DecodingReader(ByteBuffer bytes) {
+      this.bytes = bytes;
+    }
+
+    @Override
+    public int read(char[] buffer, int off, int len) throws IOException {
+      if (!bytes.hasRemaining()) {
+        return -1;
+      }
+      // source is nearly all ASCII, which is copied across directly until the first wider char
+      int from = bytes.position();
+      int count = Math.min(len, bytes.remaining());
+      int ascii = 0;
+      while (ascii < count && bytes.get(from + ascii) >= 0) {
+        buffer[off + ascii] = (char) bytes.get(from + ascii);
+        ascii++;
+      }
+      bytes.position(from + ascii);
+      if (ascii == count) {
+        return ascii;
+      }
+
+      CharBuffer out = CharBuffer.wrap(buffer, off + ascii, len - ascii);
+      // UTF-8 keeps no state between calls, so there is never anything to flush
+      CoderResult result = decoder.decode(bytes, out, true);
+      if (result.isError()) {
+        result.throwException();
+      }
+      return out.position() - off;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
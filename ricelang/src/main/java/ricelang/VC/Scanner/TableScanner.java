@@ -0,0 +1,252 @@
+/*
+ * TableScanner.java
+ */
+
+package ricelang.VC.Scanner;
+
+import static ricelang.VC.Scanner.LexerTables.ACCEPT;
+import static ricelang.VC.Scanner.LexerTables.DEAD;
+import static ricelang.VC.Scanner.LexerTables.NEXT;
+import static ricelang.VC.Scanner.LexerTables.START_ROW;
+import static ricelang.VC.Scanner.LexerTables.STRING_ROW;
+
+import ricelang.VC.CompilationContext;
+import ricelang.VC.ErrorReporter;
+
+/**
+ * A drop-in alternative to {@link Scanner} that recognises tokens by
+ * walking the transition tables in {@link LexerTables} instead of a chain
+ * of hand-written cases.
+ *
+ * The source is copied once into a char array with a few NUL chars past the
+ * end, so looking ahead never needs a bounds check: a NUL reads as the end
+ * of the file, exactly as the hand-written scanner treats one. Tokens,
+ * positions and error messages are the same as Scanner's, quirks included,
+ * which is what TableScannerTests checks. The copy means it needs the whole
+ * source up front, so it only works on a SourceFile built from a String.
+ */
+public final class TableScanner implements TokenSource {
+
+  private final SourceFile sourceFile;
+  private final ErrorReporter errorReporter;
+  private final String text;
+  private final char[] chars;
+  private final int length;
+  private boolean debug = false;
+
+  private int pos; // of the next unread char
+  private int line = 1;
+  private int column = 1;
+
+  // where an unterminated comment is reported, the very first skip reports it at 1(1)..1(1)
+  private SourcePosition commentPosition = new SourcePosition(1, 1, 1, 1);
+  private final SourcePosition noPosition = new SourcePosition();
+
+  // the token found by the last scan()
+  private int kind;
+  private int tokenStart;
+  private int tokenEnd;
+  private int tokenLine;
+  private int tokenCharStart;
+  private int tokenCharFinish;
+  private boolean unterminated;
+
+  public TableScanner(CompilationContext context) {
+    this(context.getSource(), context.getReporter());
+  }
+
+  public TableScanner(SourceFile source, ErrorReporter reporter) {
+    sourceFile = source;
+    errorReporter = reporter;
+    text = source.text();
+    length = text.length();
+    chars = new char[length + 2];
+    text.getChars(0, length, chars, 0);
+    pos = source.position();
+  }
+
+  public void enableDebugging() {
+    debug = true;
+  }
+
+  // one char, \r\n counting as one, never past the end; the same as Scanner.accept()
+  private void accept() {
+    char c = chars[pos];
+    if (c == '\r') {
+      if (chars[pos + 1] == '\n') {
+        pos++;
+      }
+      line++;
+      column = 1;
+    } else if (c == '\n') {
+      line++;
+      column = 1;
+    } else {
+      column++;
+    }
+    if (pos < length) {
+      pos++;
+    }
+  }
+
+  private void skipSpaceAndComments() {
+    while (true) {
+      char c = chars[pos];
+      switch (LexerTables.classOf(c)) {
+        case LexerTables.TAB -> {
+          // tabs stop at 8, counted the way Scanner counts them
+          column = (column + 8) / 8 * 8 + 1;
+          pos++;
+        }
+        case LexerTables.SPACE -> {
+          column++;
+          pos++;
+        }
+        case LexerTables.NEWLINE, LexerTables.RETURN -> accept();
+        default -> {
+          if (c != '/' || (chars[pos + 1] != '/' && chars[pos + 1] != '*')) {
+            return;
+          }
+          boolean block = chars[pos + 1] == '*';
+          pos += 2;
+          column += 2;
+          while (true) {
+            c = chars[pos];
+            if (c == SourceFile.eof) {
+              errorReporter.reportError(": %", "unterminated comment (please ensure \\n at end of file)", commentPosition);
+              return;
+            } else if (block ? c == '*' && chars[pos + 1] == '/' : c == '\n' || c == '\r') {
+              accept();
+              if (block) {
+                accept();
+              }
+              break;
+            }
+            accept();
+          }
+        }
+      }
+    }
+  }
+
+  private int token(int kind, int line, int charStart, int charFinish, int end) {
+    this.kind = kind;
+    tokenEnd = end;
+    tokenLine = line;
+    tokenCharStart = charStart;
+    tokenCharFinish = charFinish;
+    return kind;
+  }
+
+  private int nextToken() {
+    int state = NEXT[START_ROW + LexerTables.classOf(chars[pos])];
+    if (state == DEAD && chars[pos] == SourceFile.eof) {
+      return token(Token.EOF, line, column, column, pos);
+    } else if (state == STRING_ROW) {
+      return string();
+    }
+
+    // longest match: run until the tables say stop, then fall back to the last accepting state
+    int accepted = Token.ERROR;
+    int end = pos + 1;
+    int i = pos;
+    while (state != DEAD) {
+      i++;
+      if (ACCEPT[state] >= 0) {
+        accepted = ACCEPT[state];
+        end = i;
+      }
+      state = NEXT[state + LexerTables.classOf(chars[i])];
+    }
+    if (accepted == Token.ID) {
+      accepted = Keywords.kind(text, pos, end);
+    }
+
+    // nothing but strings spans a line, so the columns just move along
+    int charStart = column;
+    column += end - pos;
+    pos = end;
+    return token(accepted, line, charStart, column - 1, end);
+  }
+
+  // a string literal, the same walk Scanner makes so its errors and positions come out alike
+  private int string() {
+    int spellingLength = 1;
+    int spellingLengthBonus = 0;
+    accept();
+    while (true) {
+      char c = chars[pos];
+      if (c == '\n' || c == '\r' || pos >= length) {
+        int length = spellingLength - 1; // without the opening "
+        errorReporter.reportError("%: unterminated string", Scanner.unescape(sourceFile, tokenStart, pos, false),
+            new SourcePosition(line, line, column - length - 1, column - length - 1));
+        int tokenLine = line;
+        int tokenColumn = column;
+        int end = pos;
+        if (pos < this.length) {
+          // only the \r of a \r\n, Scanner counts the \n as a line of its own
+          pos++;
+          column = 1;
+          line++;
+        }
+        unterminated = true;
+        return token(Token.STRINGLITERAL, tokenLine, tokenColumn - length - 1 - spellingLengthBonus, tokenColumn - 1, end);
+      } else if (c == '\\') {
+        char next = chars[pos + 1];
+        if (Scanner.escape(next) >= 0) {
+          spellingLength += 1;
+          spellingLengthBonus += 1;
+          pos += 2;
+          column += 2;
+        } else {
+          errorReporter.reportError("%: illegal escape character", "\\" + next,
+              new SourcePosition(line, line, column - spellingLength, column));
+          accept();
+          accept();
+          spellingLength += 2;
+        }
+      } else if (c == '"') {
+        break;
+      } else {
+        accept();
+        spellingLength += 1;
+      }
+    }
+    accept();
+    spellingLength += 1;
+    return token(Token.STRINGLITERAL, line, column - spellingLength - spellingLengthBonus, column - 1, pos);
+  }
+
+  // scans the next token into kind, tokenStart, tokenEnd, tokenLine, ... without building anything
+  private int scan() {
+    skipSpaceAndComments();
+    commentPosition = noPosition;
+    unterminated = false;
+    tokenStart = pos;
+    return nextToken();
+  }
+
+  @Override
+  public Token getToken() {
+    scan();
+    Token token = new Token(kind, Scanner.spelling(sourceFile, kind, tokenStart, tokenEnd, unterminated),
+        new SourcePosition(tokenLine, tokenLine, tokenCharStart, tokenCharFinish));
+    if (debug) {
+      System.out.println(token);
+    }
+    return token;
+  }
+
+  /**
+   * Scans the rest of the source into a packed TokenTable, see
+   * {@link Scanner#scanAll()}.
+   */
+  public TokenTable scanAll() {
+    TokenTable table = new TokenTable(sourceFile);
+    do {
+      scan();
+      table.add(kind, unterminated, tokenStart, tokenEnd, tokenLine, tokenCharStart, tokenCharFinish);
+    } while (kind != Token.EOF);
+    return table;
+  }
+}
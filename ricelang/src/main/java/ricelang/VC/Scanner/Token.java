@@ -11,6 +11,7 @@ public final class Token {
   public int kind;
   public String spelling; // lexeme 
   public SourcePosition position;
+  public int symbol = -1; // an identifier's id in the Symbols it was scanned with, -1 if it has none
 
   public Token(int kind, String spelling, SourcePosition position) {
     if (kind == Token.ID) {
@@ -24,12 +25,11 @@ public final class Token {
 
   // Determines the keyword kind for the given spelling, if it matches a reserved word.
   private int determineKeywordKind(String spelling) {
-    for (int i = firstReservedWord; i <= lastReservedWord; i++) {
-      if (keywords[i].equals(spelling)) {
-        return i;
-      }
+    int kind = Keywords.kind(spelling);
+    if (kind >= firstReservedWord && kind <= lastReservedWord) {
+      return kind;
     }
-    return Token.ID; // If not a reserved keyword, return as ID.
+    return Token.ID; // If not a reserved keyword (true/false included), return as ID.
   }
 
   // Returns the keyword string for a given token kind.
@@ -0,0 +1,12 @@
+/*
+ * TokenSource.java
+ */
+
+package ricelang.VC.Scanner;
+
+// Anything the parser can pull tokens from, one at a time. Once the
+// EOF token has been handed out it keeps being handed out.
+public interface TokenSource {
+
+  Token getToken();
+}
@@ -0,0 +1,210 @@
+/*
+ * TokenTable.java
+ */
+
+package ricelang.VC.Scanner;
+
+import java.util.Arrays;
+
+/**
+ * Every token of a source file, packed into int arrays instead of one
+ * Token object per token.
+ *
+ * A token is just its kind, its [start, end) offsets into the source and
+ * its line and columns, six ints stored side by side. The ints live in
+ * fixed-size blocks so the table grows without ever copying what it already
+ * holds. Spellings, SourcePositions and Tokens are built on demand from the
+ * source, so scanning a file into a table allocates little more than the
+ * blocks themselves.
+ *
+ * A table made by {@link IncrementalLexer} after an edit shares the blocks
+ * of the table before it. A block can then be used from some slot on, and
+ * can carry a shift added to the offsets and lines it holds, so the tokens
+ * after an edit move without being rewritten.
+ */
+public final class TokenTable {
+
+  // set on the kind of a string literal that ran into the end of its line
+  private static final int UNTERMINATED = 1 << 16;
+
+  private static final int KIND = 0, START = 1, END = 2, LINE = 3, CHAR_START = 4, CHAR_FINISH = 5, FIELDS = 6;
+  private static final int BLOCK_BITS = 12;
+  private static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+
+  private final SourceFile source;
+  private int size = 0;
+
+  // per block: its ints, the index in this table of its first token, the slot
+  // that token sits in, and what to add to the offsets and lines it stores
+  private int blocks = 0;
+  private int[][] data = new int[16][];
+  private int[] first = new int[16];
+  private int[] from = new int[16];
+  private int[] offsetShift = new int[16];
+  private int[] lineShift = new int[16];
+
+  // false once a block is shared or starts part way in, then blocks are found by binary search
+  private boolean packed = true;
+  // whether add() may write into the last block, never true for one shared with another table
+  private boolean lastOwned = false;
+
+  TokenTable(SourceFile source) {
+    this.source = source;
+  }
+
+  void add(int kind, boolean unterminated, int start, int end, int line, int charStart, int charFinish) {
+    int last = blocks - 1;
+    if (!lastOwned || from[last] + size - first[last] == BLOCK_SIZE) {
+      last = newBlock(new int[BLOCK_SIZE * FIELDS], 0, 0, 0);
+      lastOwned = true;
+    }
+    int[] b = data[last];
+    int base = (from[last] + size - first[last]) * FIELDS;
+    b[base + KIND] = unterminated ? kind | UNTERMINATED : kind;
+    b[base + START] = start;
+    b[base + END] = end;
+    b[base + LINE] = line;
+    b[base + CHAR_START] = charStart;
+    b[base + CHAR_FINISH] = charFinish;
+    size++;
+  }
+
+  // appends tokens [start, end) of other without copying them, their offsets and lines moved by the shifts
+  void addAll(TokenTable other, int start, int end, int offsetDelta, int lineDelta) {
+    while (start < end) {
+      int b = other.block(start);
+      int count = Math.min(end, b + 1 < other.blocks ? other.first[b + 1] : other.size) - start;
+      newBlock(other.data[b], other.from[b] + start - other.first[b],
+          other.offsetShift[b] + offsetDelta, other.lineShift[b] + lineDelta);
+      packed = false;
+      lastOwned = false;
+      size += count;
+      start += count;
+    }
+  }
+
+  private int newBlock(int[] ints, int slot, int offsetDelta, int lineDelta) {
+    if (blocks == data.length) {
+      int grown = blocks * 2;
+      data = Arrays.copyOf(data, grown);
+      first = Arrays.copyOf(first, grown);
+      from = Arrays.copyOf(from, grown);
+      offsetShift = Arrays.copyOf(offsetShift, grown);
+      lineShift = Arrays.copyOf(lineShift, grown);
+    }
+    if (blocks > 0 && size - first[blocks - 1] < BLOCK_SIZE) {
+      packed = false; // the block before this one is not full
+    }
+    data[blocks] = ints;
+    first[blocks] = size;
+    from[blocks] = slot;
+    offsetShift[blocks] = offsetDelta;
+    lineShift[blocks] = lineDelta;
+    return blocks++;
+  }
+
+  // whether edits have split the table into many more blocks than it needs
+  boolean fragmented() {
+    return blocks > 2 * (size >>> BLOCK_BITS) + 16;
+  }
+
+  // the same tokens in full, unshared blocks
+  TokenTable compacted() {
+    TokenTable table = new TokenTable(source);
+    for (int i = 0; i < size; i++) {
+      table.add(kind(i), unterminated(i), start(i), end(i), line(i), charStart(i), charFinish(i));
+    }
+    return table;
+  }
+
+  private int block(int i) {
+    if (packed) {
+      return i >>> BLOCK_BITS;
+    }
+    int low = 0;
+    int high = blocks - 1;
+    while (low < high) {
+      int middle = (low + high + 1) >>> 1;
+      if (first[middle] <= i) {
+        low = middle;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return low;
+  }
+
+  private int field(int b, int i, int field) {
+    return data[b][(from[b] + i - first[b]) * FIELDS + field];
+  }
+
+  private int field(int i, int field) {
+    return field(block(i), i, field);
+  }
+
+  // the number of tokens, the last one always being EOF
+  public int size() {
+    return size;
+  }
+
+  public int kind(int i) {
+    return field(i, KIND) & ~UNTERMINATED;
+  }
+
+  boolean unterminated(int i) {
+    return (field(i, KIND) & UNTERMINATED) != 0;
+  }
+
+  // offset of the token's first char in the source
+  public int start(int i) {
+    int b = block(i);
+    return field(b, i, START) + offsetShift[b];
+  }
+
+  // offset just past the token's last char in the source
+  public int end(int i) {
+    int b = block(i);
+    return field(b, i, END) + offsetShift[b];
+  }
+
+  public int line(int i) {
+    int b = block(i);
+    return field(b, i, LINE) + lineShift[b];
+  }
+
+  public int charStart(int i) {
+    return field(i, CHAR_START);
+  }
+
+  public int charFinish(int i) {
+    return field(i, CHAR_FINISH);
+  }
+
+  public String spelling(int i) {
+    return Scanner.spelling(source, kind(i), start(i), end(i), unterminated(i));
+  }
+
+  public SourcePosition position(int i) {
+    return new SourcePosition(line(i), line(i), charStart(i), charFinish(i));
+  }
+
+  public Token token(int i) {
+    return new Token(kind(i), spelling(i), position(i));
+  }
+
+  // hands out the tokens in order, as if they came straight from the Scanner
+  public TokenSource tokens() {
+    return new TokenSource() {
+      private int next = 0;
+
+      @Override
+      public Token getToken() {
+        Token token = token(next);
+        if (next < size - 1) {
+          next++;
+        }
+        return token;
+      }
+    };
+  }
+}
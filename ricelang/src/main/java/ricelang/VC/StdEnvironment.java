@@ -1,17 +1,77 @@
 package ricelang.VC;
 
 import ricelang.VC.ASTs.*;
+import ricelang.VC.Scanner.SourcePosition;
 
+/**
+ * The built-in types and functions, shared by every compilation.
+ *
+ * These are created once when the class is loaded. Treat them as
+ * immutable: the checker hands out the type objects to AST nodes and links
+ * calls to the function declarations, but nothing may change them since
+ * other threads may be compiling against them at the same time.
+ */
 public final class StdEnvironment {
 
-  public static Type booleanType, intType, floatType, stringType, voidType, errorType;
+  private static final SourcePosition dummyPos = new SourcePosition();
+  private static final Ident dummyI = new Ident("x", dummyPos);
+
+  // Define four primitive types
+  // errorType is assigned to ill-typed expressions
+  public static final Type booleanType = new BooleanType(dummyPos);
+  public static final Type intType = new IntType(dummyPos);
+  public static final Type floatType = new FloatType(dummyPos);
+  public static final Type stringType = new StringType(dummyPos);
+  public static final Type voidType = new VoidType(dummyPos);
+  public static final Type errorType = new ErrorType(dummyPos);
 
   // Small ASTs representing "declarations" of nine built-in functions
 
-  public static FuncDecl
-    putBoolDecl, putBoolLnDecl, 
-    getIntDecl, putIntDecl, putIntLnDecl, 
-    getFloatDecl, putFloatDecl, putFloatLnDecl, 
-    putStringDecl, putStringLnDecl, putLnDecl;
+  public static final FuncDecl
+    getIntDecl = declareStdFunc(intType, "getInt", null),
+    putIntDecl = declareStdFunc(voidType, "putInt", intType),
+    putIntLnDecl = declareStdFunc(voidType, "putIntLn", intType),
+    getFloatDecl = declareStdFunc(floatType, "getFloat", null),
+    putFloatDecl = declareStdFunc(voidType, "putFloat", floatType),
+    putFloatLnDecl = declareStdFunc(voidType, "putFloatLn", floatType),
+    putBoolDecl = declareStdFunc(voidType, "putBool", booleanType),
+    putBoolLnDecl = declareStdFunc(voidType, "putBoolLn", booleanType),
+    putStringLnDecl = declareStdFunc(voidType, "putStringLn", stringType),
+    putStringDecl = declareStdFunc(voidType, "putString", stringType),
+    putLnDecl = declareStdFunc(voidType, "putLn", null);
+
+  // in the order the checker enters them into its symbol table
+  public static final java.util.List<FuncDecl> functions = java.util.List.of(
+    getIntDecl, putIntDecl, putIntLnDecl,
+    getFloatDecl, putFloatDecl, putFloatLnDecl,
+    putBoolDecl, putBoolLnDecl,
+    putStringLnDecl, putStringDecl, putLnDecl);
+
+  // each built-in's index in functions, for the backends to switch on
+  public static final int
+    GET_INT = 0, PUT_INT = 1, PUT_INT_LN = 2,
+    GET_FLOAT = 3, PUT_FLOAT = 4, PUT_FLOAT_LN = 5,
+    PUT_BOOL = 6, PUT_BOOL_LN = 7,
+    PUT_STRING_LN = 8, PUT_STRING = 9, PUT_LN = 10;
+
+  private StdEnvironment() {
+  }
+
+  // the index in functions of the built-in decl is, -1 if it is not one
+  public static int builtIn(AST decl) {
+    for (int i = 0; i < functions.size(); i++) {
+      if (functions.get(i) == decl) {
+        return i;
+      }
+    }
+    return -1;
+  }
 
+  // a built-in takes at most one parameter, paraType is null for none
+  private static FuncDecl declareStdFunc(Type resultType, String id, Type paraType) {
+    List pl = paraType == null
+      ? new EmptyParaList(dummyPos)
+      : new ParaList(new ParaDecl(paraType, dummyI, dummyPos), new EmptyParaList(dummyPos), dummyPos);
+    return new FuncDecl(resultType, new Ident(id, dummyPos), pl, new EmptyStmt(dummyPos), dummyPos);
+  }
 }
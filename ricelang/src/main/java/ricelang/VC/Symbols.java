@@ -0,0 +1,48 @@
+package ricelang.VC;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * The identifiers of one compilation, each given a small int id the first
+ * time it is seen.
+ *
+ * The Scanner interns every identifier it scans, so each token and Ident
+ * for the same name holds the same id and the same String. The Checker's
+ * symbol table is indexed by those ids, which saves hashing and comparing
+ * the spelling at every declaration and use.
+ *
+ * Not thread-safe: one compilation uses it from one thread at a time. The
+ * pipelined and parallel parsers scan on one thread and hand the tokens
+ * over, which is enough.
+ */
+public final class Symbols {
+
+    private final HashMap<String, Integer> ids = new HashMap<>();
+    private String[] spellings = new String[64];
+    private int size;
+
+    // the id of spelling, giving it the next id if it has none yet
+    public int id(String spelling) {
+        Integer id = ids.get(spelling);
+        if (id != null) {
+            return id;
+        }
+        if (size == spellings.length) {
+            spellings = Arrays.copyOf(spellings, size * 2);
+        }
+        spellings[size] = spelling;
+        ids.put(spelling, size);
+        return size++;
+    }
+
+    // the spelling id was given for, the same String every time
+    public String spelling(int id) {
+        return spellings[id];
+    }
+
+    // the number of ids given out, each id is below it
+    public int size() {
+        return size;
+    }
+}
@@ -4,25 +4,26 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class JS {
-    private static final List<String> instructions = new ArrayList<>();
+    // the code store of one Transpiler, each compilation gets its own
+    private final List<String> instructions = new ArrayList<>();
     // private static final String indentStr = "  ";
     private static final String indentStr = "\t";
-    private static int indent = 0;
+    private int indent = 0;
 
-    public static void clearInstructions() {
+    public void clearInstructions() {
         indent = 0;
         instructions.clear();
     }
 
-    public static void incrementIndent() { indent++; }
+    public void incrementIndent() { indent++; }
 
-    public static void decrementIndent() { indent--; }
+    public void decrementIndent() { indent--; }
 
-    public static void append(String inst) {
+    public void append(String inst) {
         instructions.add(indentStr.repeat(indent) + inst);
     }
 
-    public static String dump() {
+    public String dump() {
         return String.join("\n", instructions);
     }
 }
@@ -5,44 +5,46 @@ import java.util.ArrayList;
 import ricelang.VC.ASTs.*;
 
 public class Transpiler implements Visitor {
-    private static Boolean nodeJS;
+    private final Boolean nodeJS;
+    private final JS js = new JS();
 
     public Transpiler(Boolean vanillaJS) {
         nodeJS = !vanillaJS;
     }
 
     public final String genString(AST ast) {
-        JS.clearInstructions();
+        js.clearInstructions();
         ast.visit(this, null);
-        return JS.dump();
+        return js.dump();
     }
 
     @Override
     public Object visitProgram(Program ast, Object o) {
         if (nodeJS) {
-            JS.append("#!/usr/bin/env node");
-            JS.append(
+            js.append("#!/usr/bin/env node");
+            js.append(
                     "const prompt=()=>new Promise(res=>{process.stdin.resume();process.stdin.once('data',x => res(x));});");
         } else {
-            JS.append("const stdout=[];");
-            JS.append("const print=x=>stdout.length===0?stdout.push(String(x)):stdout[stdout.length-1]+=String(x);");
-            JS.append("const println=x=>{print(x); stdout.push('');}");
+            js.append("const stdout=[];");
+            js.append("const print=x=>stdout.length===0?stdout.push(String(x)):stdout[stdout.length-1]+=String(x);");
+            js.append("const println=x=>{print(x); stdout.push('');}");
         }
 
         ast.FL.visit(this, null);
 
         if (nodeJS) {
-            JS.append("main().finally(()=>process.stdin.pause());");
+            js.append("main().finally(()=>process.stdin.pause());");
         } else {
-            JS.append("main();\nconsole.log(stdout.join('\\n'));");
+            js.append("main();\nconsole.log(stdout.join('\\n'));");
         }
         return null;
     }
 
     @Override
     public Object visitDeclList(DeclList ast, Object o) {
-        ast.D.visit(this, o);
-        ast.DL.visit(this, o);
+        for (int i = 0; i < ast.size(); i++) {
+            ast.get(i).visit(this, o);
+        }
         return null;
     }
 
@@ -57,16 +59,14 @@ public class Transpiler implements Visitor {
         // StringBuilder parameters = new StringBuilder();
         ArrayList<String> parameters = new ArrayList<>();
         List list = ast.PL;
-        while (!list.isEmptyParaList()) {
-            ParaList pl = (ParaList) list;
-            parameters.add((String) pl.P.I.visit(this, null));
-            list = pl.PL;
+        for (int i = 0; i < list.size(); i++) {
+            parameters.add((String) ((ParaList) list).get(i).I.visit(this, null));
         }
 
         if (nodeJS && name.equals("main")) {
-            JS.append("const main=async()=>");
+            js.append("const main=async()=>");
         } else {
-            JS.append("const " + name + "=(" + String.join(",", parameters) + ")=>");
+            js.append("const " + name + "=(" + String.join(",", parameters) + ")=>");
         }
         ast.S.visit(this, null);
 
@@ -84,17 +84,17 @@ public class Transpiler implements Visitor {
     private Object varDecl(Ident I, Type T, Expr E) {
         String name = (String) I.visit(this, null);
         if (T instanceof ArrayType arrayType) {
-            JS.append("let " + name + "=new Array(" + arrayType.E.visit(this, null) + ").fill("
+            js.append("let " + name + "=new Array(" + arrayType.E.visit(this, null) + ").fill("
                     + identity(arrayType.T) + ");");
             if (!E.isEmptyExpr()) {
                 // $ is a valid identifier in js but not ricelang so its safe to use
-                JS.append(E.visit(this, null) + ".forEach(($, i) => " + name + "[i]=$);");
+                js.append(E.visit(this, null) + ".forEach(($, i) => " + name + "[i]=$);");
             }
         } else {
             if (E.isEmptyExpr())
-                JS.append("let " + name + "=" + identity(T) + ";");
+                js.append("let " + name + "=" + identity(T) + ";");
             else
-                JS.append("let " + name + "=" + E.visit(this, null) + ";");
+                js.append("let " + name + "=" + E.visit(this, null) + ";");
         }
         return null;
     }
@@ -113,10 +113,8 @@ public class Transpiler implements Visitor {
     public Object visitArrayInitExpr(ArrayInitExpr ast, Object o) {
         ArrayList<String> exprs = new ArrayList<>();
         List list = ast.IL;
-        while (!list.isEmptyArrayExprList()) {
-            ArrayExprList ael = (ArrayExprList) list;
-            exprs.add((String) ael.E.visit(this, null));
-            list = ael.EL;
+        for (int i = 0; i < list.size(); i++) {
+            exprs.add((String) ((ArrayExprList) list).get(i).visit(this, null));
         }
         return "[" + String.join(",", exprs) + "]";
     }
@@ -236,29 +234,25 @@ public class Transpiler implements Visitor {
 
     @Override
     public Object visitCompoundStmt(CompoundStmt ast, Object o) {
-        JS.append("{");
-        JS.incrementIndent();
+        js.append("{");
+        js.incrementIndent();
         List declList = ast.DL;
-        while (!declList.isEmptyDeclList()) {
-            DeclList decl = (DeclList) declList;
-            decl.D.visit(this, null);
-            declList = decl.DL;
+        for (int i = 0; i < declList.size(); i++) {
+            ((DeclList) declList).get(i).visit(this, null);
         }
 
         List stmtList = ast.SL;
-        while (!stmtList.isEmptyStmtList()) {
-            StmtList stmt = (StmtList) stmtList;
-            stmt.S.visit(this, null);
-            stmtList = stmt.SL;
+        for (int i = 0; i < stmtList.size(); i++) {
+            ((StmtList) stmtList).get(i).visit(this, null);
         }
-        JS.decrementIndent();
-        JS.append("}");
+        js.decrementIndent();
+        js.append("}");
         return null;
     }
 
     @Override
     public Object visitEmptyCompStmt(EmptyCompStmt ast, Object o) {
-        JS.append("{ }");
+        js.append("{ }");
         return null;
     }
 
@@ -270,7 +264,7 @@ public class Transpiler implements Visitor {
     @Override
     public Object visitReturnStmt(ReturnStmt ast, Object o) {
         String expr = (String) ast.E.visit(this, null);
-        JS.append("return " + expr + ";");
+        js.append("return " + expr + ";");
         return null;
     }
 
@@ -278,12 +272,12 @@ public class Transpiler implements Visitor {
     public Object visitIfStmt(IfStmt ast, Object o) {
         String expr = (String) ast.E.visit(this, null);
         if (ast.S2.isEmptyStmt() || ast.S2.isEmptyCompStmt()) {
-            JS.append("if (" + expr + ")");
+            js.append("if (" + expr + ")");
             ast.S1.visit(this, null);
         } else {
-            JS.append("if (" + expr + ")");
+            js.append("if (" + expr + ")");
             ast.S1.visit(this, null);
-            JS.append("else");
+            js.append("else");
             ast.S2.visit(this, null);
         }
 
@@ -293,7 +287,7 @@ public class Transpiler implements Visitor {
     @Override
     public Object visitWhileStmt(WhileStmt ast, Object o) {
         String expr = (String) ast.E.visit(this, null);
-        JS.append("while (" + expr + ")");
+        js.append("while (" + expr + ")");
         ast.S.visit(this, null);
         return null;
     }
@@ -303,27 +297,27 @@ public class Transpiler implements Visitor {
         String expr1 = (String) ast.E1.visit(this, null);
         String expr2 = (String) ast.E2.visit(this, null);
         String expr3 = (String) ast.E3.visit(this, null);
-        JS.append("for (" + expr1 + ";" + expr2 + ";" + expr3 + ")");
+        js.append("for (" + expr1 + ";" + expr2 + ";" + expr3 + ")");
         ast.S.visit(this, null);
         return null;
     }
 
     @Override
     public Object visitBreakStmt(BreakStmt ast, Object o) {
-        JS.append("break;");
+        js.append("break;");
         return null;
     }
 
     @Override
     public Object visitContinueStmt(ContinueStmt ast, Object o) {
-        JS.append("continue;");
+        js.append("continue;");
         return null;
     }
 
     @Override
     public Object visitExprStmt(ExprStmt ast, Object o) {
         String expr = (String) ast.E.visit(this, null);
-        JS.append(expr + ";");
+        js.append(expr + ";");
         return null;
     }
 
@@ -332,10 +326,8 @@ public class Transpiler implements Visitor {
         String fname = (String) ast.I.visit(this, null);
         ArrayList<String> exprs = new ArrayList<>();
         List list = ast.AL;
-        while (!list.isEmptyArgList()) {
-            ArgList argList = (ArgList) list;
-            exprs.add((String) argList.A.E.visit(this, null));
-            list = argList.AL;
+        for (int i = 0; i < list.size(); i++) {
+            exprs.add((String) ((ArgList) list).get(i).E.visit(this, null));
         }
 
         switch (fname) {
@@ -39,11 +39,15 @@ public class Mermaid implements Visitor {
 
     @Override
     public Object visitDeclList(DeclList ast, Object o) {
+        // drawn as the chain of cons cells the list used to be, each cell hanging off the one before
         int parentIndex = (int) o;
-        int index = getIndex();
-        output.append(parentIndex + "-->" + index + "[DeclList]\n");
-        ast.D.visit(this, index);
-        ast.DL.visit(this, index);
+        for (int i = 0; i < ast.size(); i++) {
+            int index = getIndex();
+            output.append(parentIndex + "-->" + index + "[DeclList]\n");
+            ast.get(i).visit(this, index);
+            parentIndex = index;
+        }
+        ast.end.visit(this, parentIndex);
         return null;
     }
 
@@ -123,11 +127,15 @@ public class Mermaid implements Visitor {
 
     @Override
     public Object visitStmtList(StmtList ast, Object o) {
+        // drawn as the chain of cons cells the list used to be, each cell hanging off the one before
         int parentIndex = (int) o;
-        int index = getIndex();
-        output.append(parentIndex + "-->" + index + "[StmtList]\n");
-        ast.S.visit(this, index);
-        ast.SL.visit(this, index);
+        for (int i = 0; i < ast.size(); i++) {
+            int index = getIndex();
+            output.append(parentIndex + "-->" + index + "[StmtList]\n");
+            ast.get(i).visit(this, index);
+            parentIndex = index;
+        }
+        ast.end.visit(this, parentIndex);
         return null;
     }
 
@@ -292,11 +300,15 @@ public class Mermaid implements Visitor {
 
     @Override
     public Object visitArrayExprList(ArrayExprList ast, Object o) {
+        // drawn as the chain of cons cells the list used to be, each cell hanging off the one before
         int parentIndex = (int) o;
-        int index = getIndex();
-        output.append(parentIndex + "-->" + index + "[ArrayExprList]\n");
-        ast.E.visit(this, index);
-        ast.EL.visit(this, index);
+        for (int i = 0; i < ast.size(); i++) {
+            int index = getIndex();
+            output.append(parentIndex + "-->" + index + "[ArrayExprList]\n");
+            ast.get(i).visit(this, index);
+            parentIndex = index;
+        }
+        ast.end.visit(this, parentIndex);
         return null;
     }
 
@@ -407,11 +419,15 @@ public class Mermaid implements Visitor {
 
     @Override
     public Object visitParaList(ParaList ast, Object o) {
+        // drawn as the chain of cons cells the list used to be, each cell hanging off the one before
         int parentIndex = (int) o;
-        int index = getIndex();
-        output.append(parentIndex + "-->" + index + "[ParaList]\n");
-        ast.P.visit(this, index);
-        ast.PL.visit(this, index);
+        for (int i = 0; i < ast.size(); i++) {
+            int index = getIndex();
+            output.append(parentIndex + "-->" + index + "[ParaList]\n");
+            ast.get(i).visit(this, index);
+            parentIndex = index;
+        }
+        ast.end.visit(this, parentIndex);
         return null;
     }
 
@@ -427,11 +443,15 @@ public class Mermaid implements Visitor {
 
     @Override
     public Object visitArgList(ArgList ast, Object o) {
-        int parentIndex = (int) o;
-        int index = getIndex();
-        output.append(parentIndex + "-->" + index + "[ArgList]\n");
-        ast.A.visit(this, index);
-        ast.AL.visit(this, index);
+        // drawn as the chain of cons cells the list used to be, each cell hanging off the one before
+        int parentIndex = (int) o;
+        for (int i = 0; i < ast.size(); i++) {
+            int index = getIndex();
+            output.append(parentIndex + "-->" + index + "[ArgList]\n");
+            ast.get(i).visit(this, index);
+            parentIndex = index;
+        }
+        ast.end.visit(this, parentIndex);
         return null;
     }
 
@@ -1,51 +1,105 @@
 package ricelang.VC;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 import ricelang.VC.ASTs.AST;
 import ricelang.VC.Checker.Checker;
+import ricelang.VC.Checker.ParallelChecker;
 import ricelang.VC.CodeGen.Emitter;
+import ricelang.VC.Parser.ParallelParser;
 import ricelang.VC.Parser.Parser;
-import ricelang.VC.Scanner.Scanner;
+import ricelang.VC.Scanner.PipelinedScanner;
 import ricelang.VC.Scanner.SourceFile;
 import ricelang.VC.Transpile.Transpiler;
 import ricelang.VC.TreeMermaid.Mermaid;
 
 public class vc {
 
-    private static Scanner scanner;
-    private static ErrorReporter reporter;
-    private static Parser parser;
-    private static Checker checker;
-    private static Emitter emitter;
-    private static Transpiler transpiler;
-    private static Mermaid mermaid;
-    static boolean transpileToJS = false;
-    static boolean isVanillaJS = true;
+    // the outputs emitAll can produce from one checked AST
+    public enum Target {
+        AST, JASMIN, JAVASCRIPT, NODEJS
+    }
 
-    private static AST theAST;
+    // how compile gets from source to AST, the diagnostics are the same every way
+    public enum Parsing {
+        SEQUENTIAL, // scan as the parser asks for tokens
+        PIPELINED, // scan on a second thread ahead of the parser
+        PARALLEL // scan first, then parse and check the function bodies on the common fork-join pool
+    }
 
-    public Optional<String> compile(String outputFileBase, String sourceCode, StringBuilder output) {
-        output.append("======== The RiceLang Compiler ========\n");
-        SourceFile source = new SourceFile(sourceCode);
-        reporter = new ErrorReporter();
+    /**
+     * Command line entry point behind the gradle compile and runVC tasks:
+     * {@code vc [-d <level>] [-p | -j] file.vc} writes file.j next to the source.
+     * The file is memory-mapped and streamed through the scanner instead of
+     * being read into a String first. With -p the scanner runs on a thread of
+     * its own ahead of the parser (see {@link PipelinedScanner}), with -j the
+     * function bodies are parsed and checked in parallel (see
+     * {@link ParallelParser} and {@link ParallelChecker}); both
+     * pay off on big files. The debug level is accepted for the usage documented in
+     * build.gradle but nothing reads it yet.
+     */
+    public static void main(String[] args) throws IOException {
+        int file = 0;
+        Parsing parsing = Parsing.SEQUENTIAL;
+        while (file < args.length - 1) {
+            if (args[file].equals("-d") && file + 2 < args.length) {
+                file += 2;
+            } else if (args[file].equals("-p")) {
+                parsing = Parsing.PIPELINED;
+                file++;
+            } else if (args[file].equals("-j")) {
+                parsing = Parsing.PARALLEL;
+                file++;
+            } else {
+                break;
+            }
+        }
+        if (args.length != file + 1) {
+            System.err.println("usage: vc [-d <level>] [-p | -j] file.vc");
+            System.exit(2);
+        }
 
-        scanner = new Scanner(source, reporter);
-        parser = new Parser(scanner, reporter);
-        theAST = parser.parseProgram();
-        if (reporter.getNumErrors() > 0) {
-            return Optional.of(reporter.getAllErrors() + "\n\nCompilation was unsuccessful due to: lexical / syntactic error");
+        StringBuilder output = new StringBuilder();
+        Optional<String> error = new vc().compile(args[file], SourceFile.map(Path.of(args[file])), output, parsing);
+        System.out.print(output);
+        if (error.isPresent()) {
+            System.out.println(error.get());
+            System.exit(1);
         }
-        output.append("Pass 1: Lexical and syntactic Analysis\n");
+    }
 
-        checker = new Checker(reporter);
-        checker.check(theAST);
-        if (reporter.getNumErrors() > 0) {
-            return Optional.of(reporter.getAllErrors() + "\n\nCompilation was unsuccessful due to: semantic error");
+    public Optional<String> compile(String outputFileBase, String sourceCode, StringBuilder output) {
+        return compile(outputFileBase, new SourceFile(sourceCode), output);
+    }
+
+    public Optional<String> compile(String outputFileBase, SourceFile source, StringBuilder output) {
+        return compile(outputFileBase, source, output, Parsing.SEQUENTIAL);
+    }
+
+    // pipelined scans on a second thread while parsing, the diagnostics are the same either way
+    public Optional<String> compile(String outputFileBase, SourceFile source, StringBuilder output, boolean pipelined) {
+        return compile(outputFileBase, source, output, pipelined ? Parsing.PIPELINED : Parsing.SEQUENTIAL);
+    }
+
+    public Optional<String> compile(String outputFileBase, SourceFile source, StringBuilder output, Parsing parsing) {
+        CompilationContext context = new CompilationContext(source, new ErrorReporter());
+        ErrorReporter reporter = context.getReporter();
+        FrontEnd checked = frontEnd(context, parsing, output);
+        if (checked.error().isPresent()) {
+            return checked.error();
         }
-        output.append("Pass 2: Semantic Analysis\n");
+        AST theAST = checked.ast();
 
-        emitter = new Emitter(outputFileBase, reporter);
+        Emitter emitter = new Emitter(outputFileBase, context);
         emitter.gen(theAST);
         if (reporter.getNumErrors() > 0) {
             return Optional.of(reporter.getAllErrors() + "\n\nCompilation was unsuccessful due to: jasmin code generation error");
@@ -55,27 +109,35 @@ public class vc {
         return Optional.empty();
     }
 
-    public Optional<String> mermaidAST(String sourceCode, StringBuilder output, StringBuilder verbose) {
-        verbose.append("======== The RiceLang Compiler ========\n");
-        SourceFile source = new SourceFile(sourceCode);
-        reporter = new ErrorReporter();
+    // same as compile but hands back the class file bytes instead of writing a .j file
+    public Optional<String> compileClass(String className, String sourceCode, StringBuilder output, ByteArrayOutputStream classFile) {
+        CompilationContext context = new CompilationContext(sourceCode);
+        ErrorReporter reporter = context.getReporter();
+        FrontEnd checked = frontEnd(context, Parsing.SEQUENTIAL, output);
+        if (checked.error().isPresent()) {
+            return checked.error();
+        }
+        AST theAST = checked.ast();
 
-        scanner = new Scanner(source, reporter);
-        parser = new Parser(scanner, reporter);
-        theAST = parser.parseProgram();
+        Emitter emitter = new Emitter(className, context);
+        classFile.writeBytes(emitter.genClass(theAST));
         if (reporter.getNumErrors() > 0) {
-            return Optional.of(reporter.getAllErrors() + "\n\nCompilation was unsuccessful due to: lexical / syntactic error");
+            return Optional.of(reporter.getAllErrors() + "\n\nCompilation was unsuccessful due to: jasmin code generation error");
         }
-        verbose.append("Pass 1: Lexical and syntactic Analysis\n");
+        output.append("Pass 3: Code Generation\n");
 
-        checker = new Checker(reporter);
-        checker.check(theAST);
-        if (reporter.getNumErrors() > 0) {
-            return Optional.of(reporter.getAllErrors() + "\n\nCompilation was unsuccessful due to: semantic error");
+        return Optional.empty();
+    }
+
+    public Optional<String> mermaidAST(String sourceCode, StringBuilder output, StringBuilder verbose) {
+        CompilationContext context = new CompilationContext(sourceCode);
+        FrontEnd checked = frontEnd(context, Parsing.SEQUENTIAL, verbose);
+        if (checked.error().isPresent()) {
+            return checked.error();
         }
-        verbose.append("Pass 2: Semantic Analysis\n");
+        AST theAST = checked.ast();
 
-        mermaid = new Mermaid();
+        Mermaid mermaid = new Mermaid();
         String mermaidOutput = mermaid.toString(theAST);
         verbose.append("Pass 3: Mermaid AST generation\n");
         output.append(mermaidOutput);
@@ -84,26 +146,19 @@ public class vc {
     }
 
     public Optional<String> jasminSrc(String sourceCode, StringBuilder output, StringBuilder verbose) {
-        verbose.append("======== The RiceLang Compiler ========\n");
-        SourceFile source = new SourceFile(sourceCode);
-        reporter = new ErrorReporter();
-
-        scanner = new Scanner(source, reporter);
-        parser = new Parser(scanner, reporter);
-        theAST = parser.parseProgram();
-        if (reporter.getNumErrors() > 0) {
-            return Optional.of(reporter.getAllErrors() + "\n\nCompilation was unsuccessful due to: lexical / syntactic error");
-        }
-        verbose.append("Pass 1: Lexical and syntactic Analysis\n");
+        return jasminSrc("temp", sourceCode, output, verbose);
+    }
 
-        checker = new Checker(reporter);
-        checker.check(theAST);
-        if (reporter.getNumErrors() > 0) {
-            return Optional.of(reporter.getAllErrors() + "\n\nCompilation was unsuccessful due to: semantic error");
+    public Optional<String> jasminSrc(String className, String sourceCode, StringBuilder output, StringBuilder verbose) {
+        CompilationContext context = new CompilationContext(sourceCode);
+        ErrorReporter reporter = context.getReporter();
+        FrontEnd checked = frontEnd(context, Parsing.SEQUENTIAL, verbose);
+        if (checked.error().isPresent()) {
+            return checked.error();
         }
-        verbose.append("Pass 2: Semantic Analysis\n");
+        AST theAST = checked.ast();
 
-        emitter = new Emitter("temp");
+        Emitter emitter = new Emitter(className, context);
         String jasminSrcString = emitter.genString(theAST);
         if (reporter.getNumErrors() > 0) {
             return Optional.of(reporter.getAllErrors() + "\n\nCompilation was unsuccessful due to: jasmin code generation error");
@@ -116,26 +171,15 @@ public class vc {
     }
 
     public Optional<String> javascriptSrc(String sourceCode, StringBuilder output, StringBuilder verbose, Boolean vanillaJS) {
-        verbose.append("======== The RiceLang Compiler ========\n");
-        SourceFile source = new SourceFile(sourceCode);
-        reporter = new ErrorReporter();
-
-        scanner = new Scanner(source, reporter);
-        parser = new Parser(scanner, reporter);
-        theAST = parser.parseProgram();
-        if (reporter.getNumErrors() > 0) {
-            return Optional.of(reporter.getAllErrors() + "\n\nCompilation was unsuccessful due to: lexical / syntactic error");
+        CompilationContext context = new CompilationContext(sourceCode);
+        ErrorReporter reporter = context.getReporter();
+        FrontEnd checked = frontEnd(context, Parsing.SEQUENTIAL, verbose);
+        if (checked.error().isPresent()) {
+            return checked.error();
         }
-        verbose.append("Pass 1: Lexical and syntactic Analysis\n");
+        AST theAST = checked.ast();
 
-        checker = new Checker(reporter);
-        checker.check(theAST);
-        if (reporter.getNumErrors() > 0) {
-            return Optional.of(reporter.getAllErrors() + "\n\nCompilation was unsuccessful due to: semantic error");
-        }
-        verbose.append("Pass 2: Semantic Analysis\n");
-
-        transpiler = new Transpiler(vanillaJS);
+        Transpiler transpiler = new Transpiler(vanillaJS);
         String javascriptSrcString = transpiler.genString(theAST);
         if (reporter.getNumErrors() > 0) {
             return Optional.of(reporter.getAllErrors() + "\n\nCompilation was unsuccessful due to: jasmin code generation error");
@@ -146,4 +190,86 @@ public class vc {
 
         return Optional.empty();
     }
+
+    /**
+     * Scans, parses and checks {@code sourceCode} once, then runs every backend
+     * in {@code targets} on the same checked AST and puts what each one
+     * generated into {@code outputs}. None of the backends modify the tree
+     * after checking except the Emitter (which only it reads back), so when
+     * an {@code executor} is given they run on it side by side; pass null to
+     * run them one after another on the calling thread.
+     */
+    public Optional<String> emitAll(String sourceCode, Set<Target> targets, Map<Target, String> outputs, StringBuilder verbose,
+            Executor executor) {
+        CompilationContext context = new CompilationContext(sourceCode);
+        ErrorReporter reporter = context.getReporter();
+        FrontEnd checked = frontEnd(context, Parsing.SEQUENTIAL, verbose);
+        if (checked.error().isPresent()) {
+            return checked.error();
+        }
+        AST theAST = checked.ast();
+
+        Map<Target, CompletableFuture<String>> pending = new EnumMap<>(Target.class);
+        for (Target target : targets) {
+            Supplier<String> backend = switch (target) {
+                case AST -> () -> new Mermaid().toString(theAST);
+                case JASMIN -> () -> new Emitter("temp", context).genString(theAST);
+                case JAVASCRIPT -> () -> new Transpiler(true).genString(theAST);
+                case NODEJS -> () -> new Transpiler(false).genString(theAST);
+            };
+            pending.put(target, executor == null
+                    ? CompletableFuture.completedFuture(backend.get())
+                    : CompletableFuture.supplyAsync(backend, executor));
+        }
+
+        for (Map.Entry<Target, CompletableFuture<String>> entry : pending.entrySet()) {
+            outputs.put(entry.getKey(), entry.getValue().join());
+            verbose.append(entry.getKey() == Target.AST
+                    ? "Pass 3: Mermaid AST generation\n"
+                    : "Pass 3: Code Generation (" + entry.getKey().name().toLowerCase() + ")\n");
+        }
+        if (reporter.getNumErrors() > 0) {
+            return Optional.of(reporter.getAllErrors() + "\n\nCompilation was unsuccessful due to: jasmin code generation error");
+        }
+
+        return Optional.empty();
+    }
+
+    // a checked AST, or what went wrong on the way to one
+    private record FrontEnd(AST ast, Optional<String> error) {
+    }
+
+    // the passes every output starts with: scanning and parsing, then checking, logged to verbose
+    private static FrontEnd frontEnd(CompilationContext context, Parsing parsing, StringBuilder verbose) {
+        verbose.append("======== The RiceLang Compiler ========\n");
+        ErrorReporter reporter = context.getReporter();
+
+        AST theAST;
+        switch (parsing) {
+            case PIPELINED -> {
+                try (PipelinedScanner scanner = new PipelinedScanner(context)) {
+                    theAST = new Parser(scanner, reporter, context.getSymbols()).parseProgram();
+                }
+            }
+            case PARALLEL ->
+                theAST = new ParallelParser(context).parseProgram();
+            default ->
+                theAST = new Parser(context).parseProgram();
+        }
+        if (reporter.getNumErrors() > 0) {
+            return new FrontEnd(null, Optional.of(reporter.getAllErrors() + "\n\nCompilation was unsuccessful due to: lexical / syntactic error"));
+        }
+        verbose.append("Pass 1: Lexical and syntactic Analysis\n");
+
+        if (parsing == Parsing.PARALLEL) {
+            new ParallelChecker(context).check(theAST);
+        } else {
+            new Checker(context).check(theAST);
+        }
+        if (reporter.getNumErrors() > 0) {
+            return new FrontEnd(null, Optional.of(reporter.getAllErrors() + "\n\nCompilation was unsuccessful due to: semantic error"));
+        }
+        verbose.append("Pass 2: Semantic Analysis\n");
+        return new FrontEnd(theAST, Optional.empty());
+    }
 }
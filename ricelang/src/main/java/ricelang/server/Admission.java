@@ -0,0 +1,137 @@
+package ricelang.server;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Limits how much work the endpoints take on at once.
+ *
+ * Compiling and running programs each have their own gate, so a burst of
+ * slow /run requests cannot starve the cheap compile-only endpoints. A gate
+ * lets {@code maxConcurrent} requests through, parks up to
+ * {@code queueDepth} more for at most {@code maxWaitMs}, and turns away
+ * everything else with a {@link ServerBusyException}.
+ */
+@Component
+public class Admission {
+
+    private final Gate compile;
+    private final Gate run;
+    private final long retryAfterSeconds;
+
+    public record GateStats(int maxConcurrent, int active, int waiting, int queueDepth, long admitted, long rejected) {}
+
+    public record AdmissionStats(GateStats compile, GateStats run) {}
+
+    // a slot taken, given back by close(); closing it again does nothing
+    public interface Slot extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    public Admission(
+            @Value("${ricelang.admission.compile.max-concurrent:8}") int compileConcurrent,
+            @Value("${ricelang.admission.compile.queue-depth:64}") int compileQueueDepth,
+            @Value("${ricelang.admission.run.max-concurrent:4}") int runConcurrent,
+            @Value("${ricelang.admission.run.queue-depth:32}") int runQueueDepth,
+            @Value("${ricelang.admission.max-wait-ms:10000}") long maxWaitMs,
+            @Value("${ricelang.admission.retry-after-s:2}") long retryAfterSeconds) {
+        this.compile = new Gate("compile", compileConcurrent, compileQueueDepth, maxWaitMs);
+        this.run = new Gate("run", runConcurrent, runQueueDepth, maxWaitMs);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public <T> T compile(Supplier<T> work) {
+        return compile.call(work);
+    }
+
+    public <T> T run(Supplier<T> work) {
+        return run.call(work);
+    }
+
+    // a run slot for work handed to another thread, held until that thread closes it
+    public Slot enterRun() {
+        return run.enter();
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public AdmissionStats stats() {
+        return new AdmissionStats(compile.stats(), run.stats());
+    }
+
+    private final class Gate {
+
+        private final String name;
+        private final int maxConcurrent;
+        private final int queueDepth;
+        private final long maxWaitMs;
+        private final Semaphore permits;
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final AtomicLong admitted = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+
+        Gate(String name, int maxConcurrent, int queueDepth, long maxWaitMs) {
+            this.name = name;
+            this.maxConcurrent = maxConcurrent;
+            this.queueDepth = queueDepth;
+            this.maxWaitMs = maxWaitMs;
+            this.permits = new Semaphore(maxConcurrent, true);
+        }
+
+        <T> T call(Supplier<T> work) {
+            try (Slot slot = enter()) {
+                return work.get();
+            }
+        }
+
+        Slot enter() {
+            if (!permits.tryAcquire()) {
+                waitForPermit();
+            }
+            admitted.incrementAndGet();
+            AtomicBoolean released = new AtomicBoolean();
+            return () -> {
+                if (released.compareAndSet(false, true)) {
+                    permits.release();
+                }
+            };
+        }
+
+        private void waitForPermit() {
+            if (waiting.incrementAndGet() > queueDepth) {
+                waiting.decrementAndGet();
+                throw reject("all " + maxConcurrent + " " + name + " slots are busy and the queue is full");
+            }
+            try {
+                if (!permits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS)) {
+                    throw reject("no " + name + " slot became free in " + maxWaitMs / 1000 + "s");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw reject("interrupted while waiting for a " + name + " slot");
+            } finally {
+                waiting.decrementAndGet();
+            }
+        }
+
+        private ServerBusyException reject(String message) {
+            rejected.incrementAndGet();
+            return new ServerBusyException(message, retryAfterSeconds);
+        }
+
+        GateStats stats() {
+            return new GateStats(maxConcurrent, maxConcurrent - permits.availablePermits(), waiting.get(), queueDepth,
+                    admitted.get(), rejected.get());
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package ricelang.server;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Collects a program's output up to a fixed number of bytes and drops the rest.
+ *
+ * The first write that does not fit runs {@code onLimit} once, which the
+ * executors use to stop the program instead of letting it spin until the
+ * timeout. When a {@code live} consumer is given, {@link #passOn} hands it
+ * everything written since the last call as one piece of text, holding back
+ * the bytes of a UTF-8 character that has not been completely written yet.
+ * It runs on the thread waiting for the program, outside the lock the
+ * program writes under, so a consumer sending over the network never holds
+ * up the program.
+ */
+final class CappedOutputStream extends OutputStream {
+
+    private final int limit;
+    private final Runnable onLimit;
+    private volatile Consumer<String> live;
+    private byte[] buffer = new byte[256];
+    private int count = 0;
+    private int streamed = 0;
+    private boolean limitReached = false;
+    private boolean closed = false;
+
+    CappedOutputStream(int limit) {
+        this(limit, null, null);
+    }
+
+    CappedOutputStream(int limit, Consumer<String> live, Runnable onLimit) {
+        this.limit = limit;
+        this.live = live;
+        this.onLimit = onLimit;
+    }
+
+    @Override
+    public void write(int b) {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) {
+        int keep = Math.min(len, limit - count);
+        if (keep > 0) {
+            if (count + keep > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.min(limit, Math.max(count + keep, buffer.length * 2)));
+            }
+            System.arraycopy(b, off, buffer, count, keep);
+            count += keep;
+            notifyAll();
+        }
+        if (keep < len && !limitReached) {
+            limitReached = true;
+            notifyAll();
+            if (onLimit != null) {
+                onLimit.run();
+            }
+        }
+    }
+
+    /**
+     * Marks the program done writing, which wakes {@link #passOn}.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    /**
+     * Waits up to {@code timeoutNanos} while there is nothing new to pass
+     * on and the program is still writing, then passes on what there is.
+     *
+     * @return whether the program is done writing: closed, or stopped at
+     *         the limit
+     */
+    boolean passOn(long timeoutNanos) throws InterruptedException {
+        boolean done;
+        String chunk;
+        synchronized (this) {
+            long deadline = System.nanoTime() + timeoutNanos;
+            for (long left = timeoutNanos; completeUpTo() == streamed && !closed && !limitReached && left > 0;
+                    left = deadline - System.nanoTime()) {
+                wait(left / 1_000_000, (int) (left % 1_000_000));
+            }
+            done = closed || limitReached;
+            chunk = take(completeUpTo());
+        }
+        send(chunk);
+        return done;
+    }
+
+    /**
+     * Passes on whatever is left, held back bytes included; call once the
+     * program is done.
+     */
+    void finish() {
+        String chunk;
+        synchronized (this) {
+            chunk = take(count);
+        }
+        send(chunk);
+    }
+
+    synchronized boolean limitReached() {
+        return limitReached;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return new String(buffer, 0, count, StandardCharsets.UTF_8);
+    }
+
+    // the text from where the last chunk ended up to end, null if there is none or nobody to pass it to
+    private String take(int end) {
+        if (live == null || end <= streamed) {
+            return null;
+        }
+        String chunk = new String(buffer, streamed, end - streamed, StandardCharsets.UTF_8);
+        streamed = end;
+        return chunk;
+    }
+
+    private void send(String chunk) {
+        Consumer<String> listener = live;
+        if (chunk == null || listener == null) {
+            return;
+        }
+        try {
+            listener.accept(chunk);
+        } catch (RuntimeException e) {
+            // the listener went away, keep collecting for the final result only
+            live = null;
+        }
+    }
+
+    // end of the last complete UTF-8 sequence, a lead byte tells how long its sequence is
+    private int completeUpTo() {
+        for (int i = count - 1; i >= Math.max(streamed, count - 3); i--) {
+            int b = buffer[i] & 0xff;
+            if (b < 0x80) {
+                return count;
+            }
+            if (b >= 0xc0) {
+                int length = b >= 0xf0 ? 4 : b >= 0xe0 ? 3 : 2;
+                return i + length <= count ? count : i;
+            }
+        }
+        return count;
+    }
+}
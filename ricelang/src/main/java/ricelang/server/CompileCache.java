@@ -0,0 +1,111 @@
+package ricelang.server;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers the Output of the compile-only endpoints (/ast, /jasmin,
+ * /javascript, /nodejs).
+ *
+ * Entries are keyed by a SHA-256 of the target plus the source, so the
+ * same program sent to the same endpoint is only ever compiled once while
+ * it stays cached. Failed compiles are cached too, they are just as
+ * deterministic. Eviction is least-recently-used, bounded by the
+ * approximate number of bytes the cached strings take up rather than by
+ * entry count, because one big program can outweigh hundreds of small ones.
+ */
+@Component
+public class CompileCache {
+
+    // rough per-entry cost of the map node, key and record on top of the strings themselves
+    private static final long ENTRY_OVERHEAD_BYTES = 200;
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, Output> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    public record CacheStats(int entries, long bytes, long maxBytes, long hits, long misses, long evictions) {}
+
+    public CompileCache(@Value("${ricelang.cache.max-bytes:33554432}") long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the cached Output for {@code key}, computed with
+     * {@link #key(String...)} from the target and the source, or runs
+     * {@code compile} and caches what it returns. The compile runs outside
+     * the lock, so two identical requests arriving together may both compile
+     * unless the caller coalesces them (see {@link SingleFlight}).
+     */
+    public Output get(String key, Supplier<Output> compile) {
+        if (maxBytes <= 0) {
+            return compile.get();
+        }
+        synchronized (this) {
+            Output cached = entries.get(key);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+
+        Output output = compile.get();
+        put(key, output);
+        return output;
+    }
+
+    public synchronized CacheStats stats() {
+        return new CacheStats(entries.size(), bytes, maxBytes, hits, misses, evictions);
+    }
+
+    private synchronized void put(String key, Output output) {
+        long size = sizeOf(key, output);
+        if (size > maxBytes) {
+            return;
+        }
+        Output previous = entries.put(key, output);
+        if (previous != null) {
+            bytes -= sizeOf(key, previous);
+        }
+        bytes += size;
+
+        Iterator<Map.Entry<String, Output>> eldest = entries.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Output> entry = eldest.next();
+            bytes -= sizeOf(entry.getKey(), entry.getValue());
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    private static long sizeOf(String key, Output output) {
+        return ENTRY_OVERHEAD_BYTES + 2L * (key.length() + output.output().length() + output.verbose().length());
+    }
+
+    // each part is followed by a 0 byte so ("ab", "c") and ("a", "bc") hash differently
+    static String key(String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                digest.update(part.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is always available", e);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package ricelang.server;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ExecutionConfig {
+
+    @Bean
+    public ProgramExecutor programExecutor(
+            @Value("${ricelang.run.mode:process}") String mode,
+            @Value("${ricelang.run.timeout-ms:2000}") long timeoutMs,
+            @Value("${ricelang.pool.size:2}") int poolSize,
+            @Value("${ricelang.pool.queue-depth:16}") int queueDepth,
+            @Value("${ricelang.pool.max-runs:100}") int maxRuns,
+            @Value("${ricelang.pool.max-heap-growth-mb:64}") long maxHeapGrowthMb,
+            @Value("${ricelang.pool.worker-heap-mb:128}") int workerHeapMb) throws IOException {
+        return switch (mode) {
+            case "process" -> new ProcessExecutor(timeoutMs);
+            case "in-process" -> new InProcessExecutor(timeoutMs);
+            case "pool" -> new WorkerPool(poolSize, queueDepth, maxRuns, maxHeapGrowthMb << 20, workerHeapMb, timeoutMs);
+            default -> throw new IllegalArgumentException("unknown ricelang.run.mode: " + mode);
+        };
+    }
+}
@@ -0,0 +1,13 @@
+package ricelang.server;
+
+/**
+ * @param outputLimitReached the program printed more than
+ *                           {@link ProgramExecutor#MAX_OUTPUT_BYTES} and was
+ *                           stopped, {@code output} holds the first part
+ */
+public record ExecutionResult(String output, boolean timedOut, boolean outputLimitReached) {
+
+    public ExecutionResult(String output, boolean timedOut) {
+        this(output, timedOut, false);
+    }
+}
@@ -0,0 +1,305 @@
+package ricelang.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Runs programs inside the server's own JVM.
+ *
+ * Each run gets a throwaway class loader (parented to the platform loader so
+ * the program cannot see any server classes) and its own thread. System.out,
+ * System.err and System.in are swapped once for routing streams that send
+ * each thread's I/O to the buffers of the run it belongs to; every other
+ * thread keeps talking to the real console. The routing happens above the
+ * PrintStream, not below it, so a run stopped halfway through a print cannot
+ * leave half a line in a shared encoder buffer for the next writer to flush.
+ */
+public class InProcessExecutor implements ProgramExecutor {
+
+    private static final ThreadLocal<PrintStream> currentOut = new ThreadLocal<>();
+    private static final ThreadLocal<InputStream> currentIn = new ThreadLocal<>();
+    private static boolean installed = false;
+
+    private final long timeoutMs;
+
+    public InProcessExecutor(long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+        installRouting();
+    }
+
+    private static synchronized void installRouting() {
+        if (installed) {
+            return;
+        }
+        PrintStream out = System.out;
+        PrintStream err = System.err;
+        InputStream in = System.in;
+        System.setOut(new RoutedPrintStream(out));
+        System.setErr(new RoutedPrintStream(err));
+        System.setIn(new RoutedInputStream(in));
+        installed = true;
+    }
+
+    @Override
+    public ExecutionResult execute(String className, byte[] classBytes, String stdin) throws Exception {
+        return execute(className, classBytes, stdin, null);
+    }
+
+    @Override
+    public ExecutionResult execute(String className, byte[] classBytes, String stdin, Consumer<String> live)
+            throws Exception {
+        CappedOutputStream output = new CappedOutputStream(MAX_OUTPUT_BYTES, live, null);
+        InputStream input = new ByteArrayInputStream(stdin.getBytes(StandardCharsets.UTF_8));
+        ProgramLoader loader = new ProgramLoader(className, classBytes);
+
+        PrintStream out = new PrintStream(output, true, StandardCharsets.UTF_8);
+        AtomicBoolean returned = new AtomicBoolean(false);
+
+        Thread runner = new Thread(() -> {
+            currentOut.set(out);
+            currentIn.set(input);
+            try {
+                runMain(loader, className, out);
+                returned.set(true);
+            } finally {
+                currentOut.remove();
+                currentIn.remove();
+                output.close();
+            }
+        }, "ricelang-" + className);
+        runner.setDaemon(true);
+        runner.start();
+
+        // this thread passes the output on as it comes, until the program returns, hits the output limit or times out
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        boolean stopped;
+        do {
+            stopped = output.passOn(deadline - System.nanoTime());
+        } while (!stopped && System.nanoTime() < deadline);
+
+        if (!returned.get()) {
+            String partial = output.toString();
+            kill(runner);
+            output.finish();
+            return new ExecutionResult(partial, !output.limitReached(), output.limitReached());
+        }
+        output.finish();
+        return new ExecutionResult(output.toString(), false, output.limitReached());
+    }
+
+    private static void runMain(ClassLoader loader, String className, PrintStream out) {
+        try {
+            Class<?> program = loader.loadClass(className);
+            program.getMethod("main", String[].class).invoke(null, (Object) new String[0]);
+        } catch (InvocationTargetException | ExceptionInInitializerError e) {
+            // mimic what the `java` launcher prints for an uncaught exception
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof ThreadDeath) {
+                return; // killed by the timeout, nobody is listening anymore
+            }
+            out.println("Exception in thread \"main\" " + cause);
+            for (StackTraceElement frame : cause.getStackTrace()) {
+                if (frame.getClassName().equals(className)) {
+                    out.println("\tat " + frame);
+                }
+            }
+        } catch (ReflectiveOperationException | LinkageError e) {
+            out.println("Error: could not load " + className + ": " + e);
+        } finally {
+            out.flush();
+        }
+    }
+
+    // interrupt is useless against a tight `while (true) {}` loop so fall back to stop
+    @SuppressWarnings({ "deprecation", "removal" })
+    private static void kill(Thread runner) throws InterruptedException {
+        runner.interrupt();
+        runner.join(50);
+        if (runner.isAlive()) {
+            runner.stop();
+        }
+    }
+
+    private static final class ProgramLoader extends ClassLoader {
+
+        private final String className;
+        private final byte[] classBytes;
+
+        ProgramLoader(String className, byte[] classBytes) {
+            super(ClassLoader.getPlatformClassLoader());
+            this.className = className;
+            this.classBytes = classBytes;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            if (!name.equals(className)) {
+                throw new ClassNotFoundException(name);
+            }
+            return defineClass(name, classBytes, 0, classBytes.length);
+        }
+    }
+
+    private static final class RoutedPrintStream extends PrintStream {
+
+        private final PrintStream fallback;
+
+        RoutedPrintStream(PrintStream fallback) {
+            super(fallback, true);
+            this.fallback = fallback;
+        }
+
+        private PrintStream target() {
+            PrintStream out = currentOut.get();
+            return out != null ? out : fallback;
+        }
+
+        // print(...), printf(...), format(...) and append(...) all funnel into these
+
+        @Override
+        public void write(int b) {
+            target().write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            target().write(b, off, len);
+        }
+
+        @Override
+        public void flush() {
+            target().flush();
+        }
+
+        @Override
+        public void print(boolean b) {
+            target().print(b);
+        }
+
+        @Override
+        public void print(char c) {
+            target().print(c);
+        }
+
+        @Override
+        public void print(int i) {
+            target().print(i);
+        }
+
+        @Override
+        public void print(long l) {
+            target().print(l);
+        }
+
+        @Override
+        public void print(float f) {
+            target().print(f);
+        }
+
+        @Override
+        public void print(double d) {
+            target().print(d);
+        }
+
+        @Override
+        public void print(char[] s) {
+            target().print(s);
+        }
+
+        @Override
+        public void print(String s) {
+            target().print(s);
+        }
+
+        @Override
+        public void print(Object obj) {
+            target().print(obj);
+        }
+
+        @Override
+        public void println() {
+            target().println();
+        }
+
+        @Override
+        public void println(boolean x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(char x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(int x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(long x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(float x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(double x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(char[] x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(String x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(Object x) {
+            target().println(x);
+        }
+    }
+
+    private static final class RoutedInputStream extends InputStream {
+
+        private final InputStream fallback;
+
+        RoutedInputStream(InputStream fallback) {
+            this.fallback = fallback;
+        }
+
+        private InputStream target() {
+            InputStream in = currentIn.get();
+            return in != null ? in : fallback;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return target().read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return target().read(b, off, len);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return target().available();
+        }
+    }
+}
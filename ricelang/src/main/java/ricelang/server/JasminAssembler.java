@@ -0,0 +1,33 @@
+package ricelang.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import jasmin.ClassFile;
+
+/**
+ * Drives jasmin's ClassFile directly so Jasmin source can be turned into
+ * class file bytes without a .j or .class file on disk.
+ */
+public final class JasminAssembler {
+
+    private JasminAssembler() {
+    }
+
+    /**
+     * @param source     Jasmin source, e.g. from {@code vc.jasminSrc}
+     * @param sourceName recorded as the SourceFile attribute (and used in jasmin's error messages)
+     */
+    public static byte[] assemble(String source, String sourceName) throws Exception {
+        ClassFile classFile = new ClassFile();
+        classFile.readJasmin(new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)), sourceName, false);
+        if (classFile.errorCount() > 0) {
+            throw new IOException(sourceName + ": jasmin found " + classFile.errorCount() + " error(s)");
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        classFile.write(out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,95 @@
+package ricelang.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Runs every program in a freshly spawned {@code java} process.
+ *
+ * The program's output is read while it runs, so one that prints more than
+ * the OS pipe buffer holds never blocks on a full pipe, and it is killed as
+ * soon as it either runs out of time or prints more than
+ * {@link ProgramExecutor#MAX_OUTPUT_BYTES}.
+ */
+public class ProcessExecutor implements ProgramExecutor {
+
+    private final long timeoutMs;
+
+    public ProcessExecutor(long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+
+    @Override
+    public ExecutionResult execute(String className, byte[] classBytes, String stdin) throws Exception {
+        return execute(className, classBytes, stdin, null);
+    }
+
+    @Override
+    public ExecutionResult execute(String className, byte[] classBytes, String stdin, Consumer<String> live)
+            throws Exception {
+        Path dir = Files.createTempDirectory("ricelang");
+        Path classFile = dir.resolve(className + ".class");
+        try {
+            Files.write(classFile, classBytes);
+
+            ProcessBuilder builder = new ProcessBuilder("java", "-cp", dir.toString(), className);
+            builder.redirectErrorStream(true);
+            Process process = builder.start();
+            try {
+                return collect(process, stdin, live);
+            } finally {
+                process.destroyForcibly();
+            }
+        } finally {
+            Files.deleteIfExists(classFile);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    private ExecutionResult collect(Process process, String stdin, Consumer<String> live) throws Exception {
+        // a program that never reads its input must not stall us on a full stdin pipe either
+        Thread feeder = new Thread(() -> {
+            try (OutputStream in = process.getOutputStream()) {
+                in.write(stdin.getBytes(StandardCharsets.UTF_8));
+            } catch (IOException ignored) {
+                // the program exited without reading everything
+            }
+        }, "ricelang-stdin");
+        feeder.setDaemon(true);
+        feeder.start();
+
+        AtomicBoolean timedOut = new AtomicBoolean(false);
+        CompletableFuture.delayedExecutor(timeoutMs, TimeUnit.MILLISECONDS).execute(() -> {
+            if (process.isAlive()) {
+                timedOut.set(true);
+                process.destroyForcibly();
+            }
+        });
+
+        CappedOutputStream output = new CappedOutputStream(MAX_OUTPUT_BYTES, live, process::destroyForcibly);
+        try (InputStream out = process.getInputStream()) {
+            // passed on between reads, so the program's pipe is drained while the chunks go out
+            byte[] chunk = new byte[8192];
+            for (int read = out.read(chunk); read >= 0; read = out.read(chunk)) {
+                output.write(chunk, 0, read);
+                output.passOn(0);
+            }
+        } catch (IOException e) {
+            // killing the process closes the pipe under our feet
+            if (!timedOut.get() && !output.limitReached()) {
+                throw e;
+            }
+        }
+        process.waitFor();
+        output.finish();
+        return new ExecutionResult(output.toString(), timedOut.get() && !output.limitReached(), output.limitReached());
+    }
+}
@@ -0,0 +1,33 @@
+package ricelang.server;
+
+import java.util.function.Consumer;
+
+/**
+ * Runs a compiled ricelang class and collects everything it printed.
+ */
+public interface ProgramExecutor {
+
+    // more than enough for any sane program, stops `while (true) putInt(1);` from eating the heap
+    int MAX_OUTPUT_BYTES = 1 << 20;
+
+    /**
+     * @param className  binary name of the generated class (the jasmin .class directive)
+     * @param classBytes contents of the generated .class file
+     * @param stdin      text fed to the program's System.in, may be empty
+     */
+    ExecutionResult execute(String className, byte[] classBytes, String stdin) throws Exception;
+
+    /**
+     * Same as above, but also hands the output to {@code live} while the
+     * program is still running. Executors that cannot watch the output as it
+     * is produced pass it on in one piece once the program is done.
+     */
+    default ExecutionResult execute(String className, byte[] classBytes, String stdin, Consumer<String> live)
+            throws Exception {
+        ExecutionResult result = execute(className, classBytes, stdin);
+        if (!result.output().isEmpty()) {
+            live.accept(result.output());
+        }
+        return result;
+    }
+}
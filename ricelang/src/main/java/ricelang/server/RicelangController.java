@@ -1,72 +1,186 @@
 package ricelang.server;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.InputStreamReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import ricelang.VC.vc;
 
-import jasmin.Main;
-
 @RestController
 @CrossOrigin(origins = { "http://localhost:3000", "https://ricelang-playground.vercel.app" })
 public class RicelangController {
 
-    @PostMapping("/run")
-    public Output run(@RequestBody SourceCodeBody sourceCodebody) {
-        vc vc = new vc();
-        String outputFileBase = "temp" + UUID.randomUUID().toString().replace("-", "");
-        String jasminFile = outputFileBase + ".j";
-        StringBuilder verbose = new StringBuilder();
+    private final ProgramExecutor executor;
+    private final CompileCache cache;
+    private final SingleFlight flights;
+    private final Admission admission;
+    private final long timeoutMs;
+    private final String backend;
+    private final boolean assembleWithJasmin;
+    private final boolean coalesceRuns;
+    private final Executor backends;
+    // runs spend nearly all their time waiting on the program, so they get their own threads off the request pool
+    private final ExecutorService runThreads = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "ricelang-run");
+        t.setDaemon(true);
+        return t;
+    });
 
+    public RicelangController(ProgramExecutor executor, CompileCache cache, SingleFlight flights, Admission admission,
+            @Value("${ricelang.run.timeout-ms:2000}") long timeoutMs,
+            @Value("${ricelang.run.backend:classfile}") String backend,
+            @Value("${ricelang.run.coalesce:true}") boolean coalesceRuns,
+            @Value("${ricelang.compile.parallel-backends:true}") boolean parallelBackends) {
+        this.executor = executor;
+        this.cache = cache;
+        this.flights = flights;
+        this.admission = admission;
+        this.timeoutMs = timeoutMs;
+        this.backend = backend;
+        this.coalesceRuns = coalesceRuns;
+        this.backends = parallelBackends ? ForkJoinPool.commonPool() : null;
+        this.assembleWithJasmin = switch (backend) {
+            case "classfile" -> false;
+            case "jasmin" -> true;
+            default -> throw new IllegalArgumentException("unknown ricelang.run.backend: " + backend);
+        };
+    }
+
+    @PostMapping("/run")
+    public CompletableFuture<Output> run(@RequestBody SourceCodeBody sourceCodebody) {
         if (sourceCodebody.getSourceCode() == null)
-            return new Output("404 no source code", "", true);
+            return CompletableFuture.completedFuture(new Output("404 no source code", "", true));
 
-        // generate temp.j
-        Optional<String> opt = vc.compile(outputFileBase, sourceCodebody.getSourceCode(), verbose);
-        if (opt.isPresent()) {
-            new File(jasminFile).delete();
-            return new Output(opt.get(), verbose.toString(), true);
+        // a program's output depends only on its source and stdin, so identical runs in flight share one execution
+        if (!coalesceRuns) {
+            return CompletableFuture.supplyAsync(() -> admission.run(() -> execute(sourceCodebody)), runThreads);
         }
-        verbose.append("Generated: " + jasminFile + "\n");
-
-        // compile temp.j to a .class file
-        Main.main(new String[] { jasminFile });
-        new File(jasminFile).delete();
-        verbose.append("Running: " + outputFileBase + ".class\n");
+        String key = CompileCache.key("run", backend, sourceCodebody.getSourceCode(), sourceCodebody.getStdin());
+        return CompletableFuture.supplyAsync(
+                () -> flights.run(key, () -> admission.run(() -> execute(sourceCodebody))), runThreads);
+    }
 
-        StringBuilder output = new StringBuilder();
-        // run the .class file on the jvm (pipe output to string) to return to request
+    /**
+     * Same as /run but sends the program's output as server-sent events while
+     * it runs: any number of {@code output} events carrying the next piece of
+     * text, then one {@code exit} event with an Output holding whatever is
+     * left to say (compile errors, timeout notices) and the verbose log.
+     * The run slot is taken before the stream starts, so a busy server
+     * answers 429 with Retry-After here just as it does for /run.
+     */
+    @PostMapping("/run/stream")
+    public ResponseEntity<SseEmitter> runStream(@RequestBody SourceCodeBody sourceCodebody) {
+        Admission.Slot slot;
         try {
-            ProcessBuilder builder = new ProcessBuilder("java", outputFileBase);
-            builder.redirectErrorStream(true);
-            Process process = builder.start();
-
-            if (process.waitFor(2, TimeUnit.SECONDS)) {
-                BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    output.append(line).append("\n");
+            slot = admission.enterRun();
+        } catch (ServerBusyException e) {
+            // no body, an Output would have to be written as an event stream
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds())).build();
+        }
+
+        // leave room for compiling and waiting for a pool worker on top of the run itself
+        SseEmitter emitter = new SseEmitter(timeoutMs + 30_000);
+        runThreads.execute(() -> {
+            try (slot) {
+                Output exit;
+                try {
+                    exit = sourceCodebody.getSourceCode() == null
+                            ? new Output("404 no source code", "", true)
+                            : execute(sourceCodebody, chunk -> send(emitter, "output", chunk));
+                } catch (ServerBusyException e) {
+                    // the stream has started, so a pool that turns the run away can only say so in the exit event
+                    exit = new Output("Server busy: " + e.getMessage() + ", try again shortly", "", true);
                 }
-            } else {
-                output.append("\nError: Timed out after [2s] ...\n");
-                process.destroyForcibly();
+                send(emitter, "exit", exit);
+                emitter.complete();
+            } catch (RuntimeException e) {
+                emitter.completeWithError(e);
+            }
+        });
+        return ResponseEntity.ok(emitter);
+    }
+
+    private static void send(SseEmitter emitter, String event, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(data));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Output execute(SourceCodeBody sourceCodebody) {
+        return execute(sourceCodebody, null);
+    }
+
+    // with a live consumer the program's output goes there as it is printed and the returned Output only has the notices
+    private Output execute(SourceCodeBody sourceCodebody, Consumer<String> live) {
+        vc vc = new vc();
+        String className = "temp" + UUID.randomUUID().toString().replace("-", "");
+        StringBuilder verbose = new StringBuilder();
+
+        // assemble the class file in memory, no .j or .class ever touches the disk
+        ByteArrayOutputStream classFile = new ByteArrayOutputStream();
+        StringBuilder jasminSrc = new StringBuilder();
+        try {
+            // an instruction the assembler rejects fails the same way on either path, as an internal error below
+            Optional<String> opt = assembleWithJasmin
+                    ? vc.jasminSrc(className, sourceCodebody.getSourceCode(), jasminSrc, verbose)
+                    : vc.compileClass(className, sourceCodebody.getSourceCode(), verbose, classFile);
+            if (opt.isPresent()) {
+                return new Output(opt.get(), verbose.toString(), true);
             }
 
-            new File(outputFileBase + ".class").delete();
-            return new Output(output.toString(), verbose.toString(), false);
+            if (assembleWithJasmin) {
+                classFile.writeBytes(JasminAssembler.assemble(jasminSrc.toString(), className + ".j"));
+            }
+            verbose.append("Running: " + className + ".class\n");
+
+            // run the class on the jvm (pipe output to string) to return to request
+            ExecutionResult result = live == null
+                    ? executor.execute(className, classFile.toByteArray(), sourceCodebody.getStdin())
+                    : executor.execute(className, classFile.toByteArray(), sourceCodebody.getStdin(), live);
+            String output = live == null ? result.output() : "";
+            if (result.timedOut()) {
+                output += "\nError: Timed out after [" + timeoutMs / 1000 + "s] ...\n";
+            }
+            if (result.outputLimitReached()) {
+                output += "\nError: Stopped after printing [" + ProgramExecutor.MAX_OUTPUT_BYTES / 1024 + "KB] ...\n";
+            }
+            return new Output(output, verbose.toString(), false);
+        } catch (RejectedExecutionException e) {
+            throw new ServerBusyException(e.getMessage(), admission.getRetryAfterSeconds());
         } catch (Exception e) {
             e.printStackTrace();
-            new File(outputFileBase + ".class").delete();
             return new Output("Internal error: " + e.getMessage(), verbose.toString(), true);
         }
     }
@@ -76,7 +190,15 @@ public class RicelangController {
         R apply(A a, B b, C c);
     }
 
-    private static Output runCompiler(String sourceCode, TriFunction<vc, StringBuilder, StringBuilder, Optional<String>> action) {
+    private Output runCompiler(String target, String sourceCode, TriFunction<vc, StringBuilder, StringBuilder, Optional<String>> action) {
+        if (sourceCode == null) {
+            return compile(action);
+        }
+        String key = CompileCache.key(target, sourceCode);
+        return cache.get(key, () -> flights.run(key, () -> admission.compile(() -> compile(action))));
+    }
+
+    private static Output compile(TriFunction<vc, StringBuilder, StringBuilder, Optional<String>> action) {
         StringBuilder output = new StringBuilder();
         StringBuilder verbose = new StringBuilder();
         vc compiler = new vc();
@@ -88,23 +210,81 @@ public class RicelangController {
     }
 
     @PostMapping("/ast")
-    public static Output mermaid(@RequestBody SourceCodeBody sourceCodebody) {
-        return runCompiler(sourceCodebody.toString(), (v, out, verbose) -> v.mermaidAST(sourceCodebody.toString(), out, verbose));
+    public Output mermaid(@RequestBody SourceCodeBody sourceCodebody) {
+        return runCompiler("ast", sourceCodebody.toString(), (v, out, verbose) -> v.mermaidAST(sourceCodebody.toString(), out, verbose));
     }
 
     @PostMapping("/jasmin")
-    public static Output jasmin(@RequestBody SourceCodeBody sourceCodebody) {
-        return runCompiler(sourceCodebody.toString(), (v, out, verbose) -> v.jasminSrc(sourceCodebody.toString(), out, verbose));
+    public Output jasmin(@RequestBody SourceCodeBody sourceCodebody) {
+        return runCompiler("jasmin", sourceCodebody.toString(), (v, out, verbose) -> v.jasminSrc(sourceCodebody.toString(), out, verbose));
     }
 
     @PostMapping("/javascript")
-    public static Output vanillaJS(@RequestBody SourceCodeBody sourceCodebody) {
-        return runCompiler(sourceCodebody.toString(), (v, out, verbose) -> v.javascriptSrc(sourceCodebody.toString(), out, verbose, true));
+    public Output vanillaJS(@RequestBody SourceCodeBody sourceCodebody) {
+        return runCompiler("javascript", sourceCodebody.toString(), (v, out, verbose) -> v.javascriptSrc(sourceCodebody.toString(), out, verbose, true));
     }
 
     @PostMapping("/nodejs")
-    public static Output nodeJS(@RequestBody SourceCodeBody sourceCodebody) {
-        return runCompiler(sourceCodebody.toString(), (v, out, verbose) -> v.javascriptSrc(sourceCodebody.toString(), out, verbose, false));
+    public Output nodeJS(@RequestBody SourceCodeBody sourceCodebody) {
+        return runCompiler("nodejs", sourceCodebody.toString(), (v, out, verbose) -> v.javascriptSrc(sourceCodebody.toString(), out, verbose, false));
+    }
+
+    // one front end pass for several outputs, keyed by the endpoint that generates the same output on its own
+    @PostMapping("/compile")
+    public Map<String, Output> compileAll(@RequestBody SourceCodeBody sourceCodebody,
+            @RequestParam(defaultValue = "ast,jasmin,javascript,nodejs") List<String> targets) {
+        Set<vc.Target> requested = EnumSet.noneOf(vc.Target.class);
+        for (String target : targets) {
+            try {
+                requested.add(vc.Target.valueOf(target.trim().toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "unknown target: " + target);
+            }
+        }
+
+        Map<String, Output> result = new LinkedHashMap<>();
+        if (sourceCodebody.getSourceCode() == null) {
+            requested.forEach(target -> result.put(target.name().toLowerCase(), new Output("404 no source code", "", true)));
+            return result;
+        }
+
+        Map<vc.Target, String> outputs = new EnumMap<>(vc.Target.class);
+        StringBuilder verbose = new StringBuilder();
+        Optional<String> error = admission.compile(
+                () -> new vc().emitAll(sourceCodebody.getSourceCode(), requested, outputs, verbose, backends));
+        for (vc.Target target : requested) {
+            result.put(target.name().toLowerCase(), error.isPresent()
+                    ? new Output(error.get(), verbose.toString(), true)
+                    : new Output(outputs.get(target), verbose.toString(), false));
+        }
+        return result;
+    }
+
+    @ExceptionHandler(ServerBusyException.class)
+    public ResponseEntity<Output> serverBusy(ServerBusyException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds()))
+                .body(new Output("Server busy: " + e.getMessage() + ", try again shortly", "", true));
+    }
+
+    @GetMapping("/stats/pool")
+    public WorkerPool.PoolStats poolStats() {
+        return executor instanceof WorkerPool pool ? pool.stats() : null;
+    }
+
+    @GetMapping("/stats/cache")
+    public CompileCache.CacheStats cacheStats() {
+        return cache.stats();
+    }
+
+    @GetMapping("/stats/coalescing")
+    public SingleFlight.CoalescingStats coalescingStats() {
+        return flights.stats();
+    }
+
+    @GetMapping("/stats/admission")
+    public Admission.AdmissionStats admissionStats() {
+        return admission.stats();
     }
 
     @GetMapping("/healthcheck")
@@ -0,0 +1,63 @@
+package ricelang.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Entry point of a pooled worker JVM (see {@link WorkerPool}).
+ *
+ * The worker talks to the server over its stdin/stdout. It announces itself
+ * with a single ready byte and then loops over requests:
+ *
+ * <pre>
+ *   request:  UTF className, int n, n class bytes, int m, m stdin bytes
+ *   response: boolean timedOut, boolean outputLimitReached, int k, k output bytes, long committed heap
+ * </pre>
+ *
+ * Programs are run by an {@link InProcessExecutor}, so each one still gets a
+ * fresh class loader and its own captured stdio. The worker exits when the
+ * server closes the pipe.
+ */
+public class SandboxWorker {
+
+    static final int READY = 'R';
+
+    public static void main(String[] args) throws Exception {
+        long timeoutMs = Long.parseLong(args[0]);
+
+        // grab the real pipes before the executor swaps System.in/out for its routing streams
+        DataInputStream requests = new DataInputStream(new BufferedInputStream(System.in));
+        DataOutputStream responses = new DataOutputStream(new BufferedOutputStream(System.out));
+        InProcessExecutor executor = new InProcessExecutor(timeoutMs);
+
+        responses.write(READY);
+        responses.flush();
+
+        while (true) {
+            String className;
+            try {
+                className = requests.readUTF();
+            } catch (EOFException e) {
+                return;
+            }
+            byte[] classBytes = new byte[requests.readInt()];
+            requests.readFully(classBytes);
+            byte[] stdin = new byte[requests.readInt()];
+            requests.readFully(stdin);
+
+            ExecutionResult result = executor.execute(className, classBytes, new String(stdin, StandardCharsets.UTF_8));
+
+            byte[] output = result.output().getBytes(StandardCharsets.UTF_8);
+            responses.writeBoolean(result.timedOut());
+            responses.writeBoolean(result.outputLimitReached());
+            responses.writeInt(output.length);
+            responses.write(output);
+            responses.writeLong(Runtime.getRuntime().totalMemory());
+            responses.flush();
+        }
+    }
+}
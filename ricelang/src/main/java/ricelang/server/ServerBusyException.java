@@ -0,0 +1,21 @@
+package ricelang.server;
+
+/**
+ * Thrown when a request is turned away because the server is saturated, the
+ * controller answers it with 429 and a Retry-After header.
+ */
+public class ServerBusyException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    public ServerBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,63 @@
+package ricelang.server;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Collapses identical requests that are in flight at the same time.
+ *
+ * The first caller for a key (the leader) does the work, every caller that
+ * shows up with the same key before the leader finishes just waits for the
+ * leader's Output instead of compiling or running the program again. Once
+ * the leader is done the key is forgotten, so this only dedupes concurrent
+ * work; remembering finished results is {@link CompileCache}'s job.
+ */
+@Component
+public class SingleFlight {
+
+    private final ConcurrentMap<String, CompletableFuture<Output>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong leaders = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public record CoalescingStats(int inFlight, long leaders, long coalesced) {}
+
+    /**
+     * Runs {@code work} unless an identical request is already running, in
+     * which case its Output is shared. If the leader throws, every waiter
+     * gets the same exception.
+     */
+    public Output run(String key, Supplier<Output> work) {
+        CompletableFuture<Output> flight = new CompletableFuture<>();
+        CompletableFuture<Output> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException r ? r : e;
+            }
+        }
+
+        leaders.incrementAndGet();
+        try {
+            Output output = work.get();
+            flight.complete(output);
+            return output;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    public CoalescingStats stats() {
+        return new CoalescingStats(inFlight.size(), leaders.get(), coalesced.get());
+    }
+}
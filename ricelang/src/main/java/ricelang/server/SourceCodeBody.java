@@ -2,6 +2,7 @@ package ricelang.server;
 
 public class SourceCodeBody {
     private String sourceCode;
+    private String stdin = "";
 
     public SourceCodeBody(String sourceCode) {
         this.sourceCode = sourceCode;
@@ -15,6 +16,14 @@ public class SourceCodeBody {
         this.sourceCode = sourceCode;
     }
 
+    public String getStdin() {
+        return stdin;
+    }
+
+    public void setStdin(String stdin) {
+        this.stdin = stdin == null ? "" : stdin;
+    }
+
     public String toString() {
         return sourceCode;
     }
@@ -0,0 +1,248 @@
+package ricelang.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Runs programs on a pool of long-lived {@link SandboxWorker} JVMs.
+ *
+ * Keeps the process isolation of {@link ProcessExecutor} without paying for a
+ * cold JVM start on every request. Workers are spawned in the background and
+ * handed out one run at a time. A worker is thrown away and replaced after
+ * {@code maxRuns} runs, after any run that timed out, or once its committed
+ * heap has grown more than {@code maxHeapGrowthBytes} past what it started
+ * with. At most {@code queueDepth} requests wait for a free worker, anything
+ * beyond that is rejected.
+ */
+public class WorkerPool implements ProgramExecutor, AutoCloseable {
+
+    // extra time the worker gets to stop the program itself before we kill the whole jvm
+    private static final long KILL_GRACE_MS = 1000;
+    private static final long ACQUIRE_TIMEOUT_MS = 30_000;
+    private static final long RESPAWN_DELAY_MS = 1000;
+
+    private final int size;
+    private final int queueDepth;
+    private final int maxRuns;
+    private final long maxHeapGrowthBytes;
+    private final int workerHeapMb;
+    private final long timeoutMs;
+
+    private final Path classpath;
+    private final BlockingQueue<Worker> idle = new LinkedBlockingQueue<>();
+    private final ScheduledExecutorService background;
+    private volatile boolean closed = false;
+
+    private final AtomicInteger busy = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong recycled = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public record PoolStats(int size, int idle, int busy, int waiting, int queueDepth,
+            long runs, long recycled, long rejected) {}
+
+    public WorkerPool(int size, int queueDepth, int maxRuns, long maxHeapGrowthBytes, int workerHeapMb, long timeoutMs)
+            throws IOException {
+        this.size = size;
+        this.queueDepth = queueDepth;
+        this.maxRuns = maxRuns;
+        this.maxHeapGrowthBytes = maxHeapGrowthBytes;
+        this.workerHeapMb = workerHeapMb;
+        this.timeoutMs = timeoutMs;
+        this.classpath = extractWorkerClasses();
+        this.background = Executors.newScheduledThreadPool(2, r -> {
+            Thread t = new Thread(r, "ricelang-pool");
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < size; i++) {
+            background.execute(this::spawn);
+        }
+    }
+
+    @Override
+    public ExecutionResult execute(String className, byte[] classBytes, String stdin) throws Exception {
+        Worker worker = idle.poll();
+        if (worker == null) {
+            if (waiting.incrementAndGet() > queueDepth) {
+                waiting.decrementAndGet();
+                rejected.incrementAndGet();
+                throw new RejectedExecutionException("all " + size + " workers are busy and the run queue is full");
+            }
+            try {
+                worker = idle.poll(ACQUIRE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } finally {
+                waiting.decrementAndGet();
+            }
+            if (worker == null) {
+                throw new IOException("no sandbox worker became available in " + ACQUIRE_TIMEOUT_MS / 1000 + "s");
+            }
+        }
+
+        busy.incrementAndGet();
+        runs.incrementAndGet();
+        boolean healthy = false;
+        try {
+            ExecutionResult result = worker.run(className, classBytes, stdin);
+            // a program stopped mid-run may leave the worker in a bad state, same as a timeout
+            healthy = !result.timedOut() && !result.outputLimitReached()
+                    && worker.runs < maxRuns
+                    && worker.heap - worker.baselineHeap <= maxHeapGrowthBytes;
+            return result;
+        } finally {
+            busy.decrementAndGet();
+            if (healthy && !closed) {
+                idle.offer(worker);
+            } else {
+                recycle(worker);
+            }
+        }
+    }
+
+    public PoolStats stats() {
+        return new PoolStats(size, idle.size(), busy.get(), waiting.get(), queueDepth,
+                runs.get(), recycled.get(), rejected.get());
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        background.shutdownNow();
+        Worker worker;
+        while ((worker = idle.poll()) != null) {
+            worker.process.destroyForcibly();
+        }
+    }
+
+    private void recycle(Worker worker) {
+        worker.process.destroyForcibly();
+        if (!closed) {
+            recycled.incrementAndGet();
+            background.execute(this::spawn);
+        }
+    }
+
+    private void spawn() {
+        if (closed) {
+            return;
+        }
+        try {
+            ProcessBuilder builder = new ProcessBuilder("java", "-Xmx" + workerHeapMb + "m", "-XX:+UseSerialGC",
+                    "-cp", classpath.toString(), SandboxWorker.class.getName(), Long.toString(timeoutMs));
+            builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+            Worker worker = new Worker(builder.start());
+            if (worker.in.read() != SandboxWorker.READY) {
+                worker.process.destroyForcibly();
+                throw new IOException("sandbox worker exited during startup");
+            }
+            idle.offer(worker);
+        } catch (IOException e) {
+            e.printStackTrace();
+            background.schedule(this::spawn, RESPAWN_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * The server runs from a boot jar, so the worker classes are copied out to
+     * a directory a plain {@code java -cp} can use.
+     */
+    private static Path extractWorkerClasses() throws IOException {
+        Path dir = Files.createTempDirectory("ricelang-worker");
+        List<Class<?>> classes = new ArrayList<>(List.of(SandboxWorker.class, InProcessExecutor.class,
+                ProgramExecutor.class, ExecutionResult.class, CappedOutputStream.class));
+        classes.addAll(List.of(InProcessExecutor.class.getDeclaredClasses()));
+
+        for (Class<?> c : classes) {
+            String resource = c.getName().replace('.', '/') + ".class";
+            Path target = dir.resolve(resource);
+            Files.createDirectories(target.getParent());
+            try (InputStream in = WorkerPool.class.getClassLoader().getResourceAsStream(resource)) {
+                if (in == null) {
+                    throw new IOException("missing worker class " + resource);
+                }
+                Files.copy(in, target);
+            }
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            } catch (IOException ignored) {
+            }
+        }));
+        return dir;
+    }
+
+    private final class Worker {
+
+        final Process process;
+        final DataInputStream in;
+        final DataOutputStream out;
+        int runs = 0;
+        long baselineHeap = -1;
+        long heap;
+
+        Worker(Process process) {
+            this.process = process;
+            this.in = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+        }
+
+        ExecutionResult run(String className, byte[] classBytes, String stdin) throws IOException {
+            runs++;
+            AtomicBoolean killed = new AtomicBoolean(false);
+            ScheduledFuture<?> watchdog = background.schedule(() -> {
+                killed.set(true);
+                process.destroyForcibly();
+            }, timeoutMs + KILL_GRACE_MS, TimeUnit.MILLISECONDS);
+
+            try {
+                byte[] input = stdin.getBytes(StandardCharsets.UTF_8);
+                out.writeUTF(className);
+                out.writeInt(classBytes.length);
+                out.write(classBytes);
+                out.writeInt(input.length);
+                out.write(input);
+                out.flush();
+
+                boolean timedOut = in.readBoolean();
+                boolean outputLimitReached = in.readBoolean();
+                byte[] output = new byte[in.readInt()];
+                in.readFully(output);
+                heap = in.readLong();
+                if (baselineHeap < 0) {
+                    baselineHeap = heap;
+                }
+                return new ExecutionResult(new String(output, StandardCharsets.UTF_8), timedOut, outputLimitReached);
+            } catch (IOException e) {
+                if (killed.get()) {
+                    return new ExecutionResult("", true);
+                }
+                throw new IOException("sandbox worker died", e);
+            } finally {
+                watchdog.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package ricelang.VC.ASTs;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+
+/**
+ * Prints an AST one node per line, with its position and every public
+ * field, so two trees are equal exactly when their dumps are. The ids
+ * identifiers are interned with are left out, they depend on the
+ * compilation rather than on the tree. Lists are
+ * printed element by element, a type or a declaration an identifier links
+ * to by its class and position, and a node whose parent is not the node it
+ * hangs off is marked, so broken parent links show up as well.
+ */
+public final class AstDump {
+
+    private AstDump() {
+    }
+
+    public static String of(AST ast) {
+        StringBuilder out = new StringBuilder();
+        dump(ast, null, out, 0);
+        return out.toString();
+    }
+
+    private static void dump(AST ast, AST parent, StringBuilder out, int depth) {
+        out.append("  ".repeat(depth));
+        if (ast == null) {
+            out.append("null\n");
+            return;
+        }
+        out.append(ast.getClass().getSimpleName()).append(' ').append(ast.position);
+        if (parent != null && ast.parent != parent) {
+            out.append(" !parent");
+        }
+        if (ast instanceof FlatList<?> list) {
+            out.append('\n');
+            for (int i = 0; i < list.size(); i++) {
+                out.append("  ".repeat(depth + 1)).append('#').append(i).append(' ').append(list.positionAt(i)).append('\n');
+                dump(list.get(i), list, out, depth + 2);
+            }
+            dump(list.end, list, out, depth + 1);
+            return;
+        }
+        ArrayList<AST> children = new ArrayList<>();
+        for (Field field : fields(ast.getClass())) {
+            Object value;
+            try {
+                value = field.get(ast);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+            String name = field.getName();
+            if (name.equals("type") || name.equals("decl")) {
+                out.append(' ').append(name).append('=').append(value == null ? "null"
+                        : value.getClass().getSimpleName() + ' ' + ((AST) value).position);
+            } else if (value instanceof AST child) {
+                children.add(child);
+            } else {
+                out.append(' ').append(name).append('=').append(value);
+            }
+        }
+        out.append('\n');
+        for (AST child : children) {
+            dump(child, ast, out, depth + 1);
+        }
+    }
+
+    // public instance fields other than parent, position and the symbol ids, superclass fields first
+    private static ArrayList<Field> fields(Class<?> type) {
+        ArrayList<Field> fields = type == AST.class ? new ArrayList<>() : fields(type.getSuperclass());
+        for (Field field : type.getDeclaredFields()) {
+            int modifiers = field.getModifiers();
+            if (Modifier.isPublic(modifiers) && !Modifier.isStatic(modifiers) && field.getDeclaringClass() != AST.class
+                    && !field.getName().equals("symbol") && !field.getName().equals("symbols")) {
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+}
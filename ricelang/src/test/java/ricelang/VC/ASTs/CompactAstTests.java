@@ -0,0 +1,195 @@
+package ricelang.VC.ASTs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+import org.junit.jupiter.api.Test;
+
+import ricelang.VC.CompilationContext;
+import ricelang.VC.StdEnvironment;
+import ricelang.VC.Checker.Checker;
+import ricelang.VC.CodeGen.Emitter;
+import ricelang.VC.Parser.Parser;
+
+class CompactAstTests {
+
+    private static final String PROGRAM = """
+            int a[3] = {3, 1, 2}, n = 3;
+            float scale = 2.5;
+            boolean verbose = true;
+            void show(int x[], int count) {
+                int i;
+                for (i = 0; i < count; i = i + 1) { putInt(x[i]); putString(" "); }
+                putLn();
+            }
+            int max(int x, int y) { if (x > y) byebye x; else byebye y; }
+            int main() {
+                int i = 0, m = a[0];
+                {}
+                ;
+                while (i < n) {
+                    if (!verbose || -i > 0) break;
+                    m = max(m, a[i]);
+                    i = i + 1;
+                    continue;
+                }
+                for (;;) break;
+                show(a, n);
+                putFloatLn(m * scale / 2);
+                byebye 0;
+            }
+            """;
+
+    private static Program parse(String source) {
+        return new Parser(new CompilationContext(source)).parseProgram();
+    }
+
+    private static Program check(Program program) {
+        CompilationContext context = new CompilationContext(PROGRAM);
+        new Checker(context).check(program);
+        assertEquals(0, context.getReporter().getNumErrors());
+        return program;
+    }
+
+    // the nodes the Checker puts in (i2f, array sizes, the true of "for (;;)") have no parent, built from the arrays they do
+    private static String dumpChecked(Program program) {
+        return AstDump.of(program).replace(" !parent", "");
+    }
+
+    private static String jasmin(Program program) {
+        return new Emitter("temp", new CompilationContext(PROGRAM)).genString(check(program));
+    }
+
+    @Test
+    void viewIsTheParsedTree() {
+        Program parsed = parse(PROGRAM);
+        CompactAst compact = CompactAst.of(parsed);
+        assertEquals(AstDump.of(parsed), AstDump.of(compact.program()));
+        // every view is a tree of its own
+        assertEquals(AstDump.of(parsed), AstDump.of(compact.program()));
+
+        Program empty = parse("");
+        assertEquals(AstDump.of(empty), AstDump.of(CompactAst.of(empty).program()));
+    }
+
+    @Test
+    void positionsThatDoNotPackAreKept() {
+        String source = "int f() {" + " ".repeat(5000) + "byebye 1; }\nint main() { byebye f(); }\n";
+        Program parsed = parse(source);
+        assertEquals(AstDump.of(parsed), AstDump.of(CompactAst.of(parsed).program()));
+    }
+
+    @Test
+    void visitorsRunOverTheView() {
+        String expected = jasmin(parse(PROGRAM));
+        assertEquals(expected, jasmin(CompactAst.of(parse(PROGRAM)).program()));
+    }
+
+    @Test
+    void sharedNodesStayShared() {
+        Program parsed = parse("int a, b[2]; float c, d; int main() { int e, f; }");
+        assertSame(((DeclList) parsed.FL).get(2).T, ((DeclList) parsed.FL).get(3).T);
+
+        CompactAst compact = CompactAst.of(parsed);
+        assertTrue(compact.nodes() < compact.size());
+        DeclList decls = (DeclList) compact.program().FL;
+        // built out of order, the later declaration first
+        Decl d = decls.get(3);
+        Decl c = decls.get(2);
+        assertSame(c.T, d.T);
+        assertSame(decls, c.parent);
+        CompoundStmt body = (CompoundStmt) ((FuncDecl) decls.get(4)).S;
+        DeclList locals = (DeclList) body.DL;
+        assertSame(locals.get(0).T, locals.get(1).T);
+        assertSame(locals.get(1), locals.get(1).T.parent);
+    }
+
+    @Test
+    void checkedTreeRoundTripsThroughBytes() {
+        Program checked = check(parse(PROGRAM));
+        String expected = dumpChecked(checked);
+        byte[] bytes = CompactAst.of(checked).toBytes();
+        String jasmin = new Emitter("temp", new CompilationContext(PROGRAM)).genString(checked);
+
+        Program loaded = CompactAst.fromBytes(bytes).program();
+        assertEquals(expected, dumpChecked(loaded));
+        assertEquals(jasmin, new Emitter("temp", new CompilationContext(PROGRAM)).genString(loaded));
+
+        // the backends start from a tree that needs no checking, with the built-ins linked as the Checker links them
+        DeclList decls = (DeclList) loaded.FL;
+        FuncDecl show = (FuncDecl) decls.get(4);
+        StmtList body = (StmtList) ((CompoundStmt) show.S).SL;
+        CallExpr putLn = (CallExpr) ((ExprStmt) body.get(1)).E;
+        assertSame(StdEnvironment.putLnDecl, putLn.I.decl);
+        assertSame(StdEnvironment.voidType, putLn.type);
+        FuncDecl max = (FuncDecl) decls.get(5);
+        FuncDecl main = (FuncDecl) decls.get(6);
+        WhileStmt loop = (WhileStmt) ((StmtList) ((CompoundStmt) main.S).SL).get(2);
+        AssignExpr assign = (AssignExpr) ((ExprStmt) ((StmtList) ((CompoundStmt) loop.S).SL).get(1)).E;
+        assertSame(max, ((CallExpr) assign.E2).I.decl);
+        BinaryExpr less = (BinaryExpr) loop.E;
+        assertEquals("i<", less.O.spelling);
+        assertSame(decls.get(1).T, less.E2.type);
+    }
+
+    @Test
+    void readsBackWhatItWrites() throws IOException {
+        CompactAst parsed = CompactAst.of(parse(PROGRAM));
+        CompactAst checked = CompactAst.of(check(parse(PROGRAM)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        parsed.write(out);
+        checked.write(out);
+
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        assertEquals(AstDump.of(parsed.program()), AstDump.of(CompactAst.read(in).program()));
+        assertEquals(AstDump.of(checked.program()), AstDump.of(CompactAst.read(in).program()));
+
+        byte[] bytes = parsed.toBytes();
+        assertThrows(IllegalArgumentException.class, () -> CompactAst.fromBytes(Arrays.copyOf(bytes, bytes.length / 2)));
+        bytes[0]++;
+        assertThrows(IllegalArgumentException.class, () -> CompactAst.fromBytes(bytes));
+    }
+
+    @Test
+    void rejectsDamagedBytes() throws IOException {
+        byte[] bytes = CompactAst.of(check(parse(PROGRAM))).toBytes();
+        Random random = new Random(22);
+        for (int i = 0; i < 2000; i++) {
+            byte[] damaged = bytes.clone();
+            for (int n = 1 + random.nextInt(3); n > 0; n--) {
+                damaged[random.nextInt(damaged.length)] ^= (byte) (1 + random.nextInt(255));
+            }
+            assertThrows(IllegalArgumentException.class, () -> CompactAst.fromBytes(damaged));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new DataOutputStream(out).writeInt(damaged.length);
+            out.write(damaged);
+            assertThrows(IOException.class, () -> CompactAst.read(new ByteArrayInputStream(out.toByteArray())));
+
+            // with the checksum made to match, what gets past the checks must still build
+            CRC32 crc = new CRC32();
+            crc.update(damaged, 12, damaged.length - 12);
+            ByteBuffer.wrap(damaged).putInt(8, (int) crc.getValue());
+            try {
+                AstDump.of(CompactAst.fromBytes(damaged).program());
+            } catch (IllegalArgumentException expected) {
+                // damage the checks caught
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new DataOutputStream(out).writeInt(Integer.MAX_VALUE);
+        out.write(bytes);
+        assertThrows(IOException.class, () -> CompactAst.read(new ByteArrayInputStream(out.toByteArray())));
+    }
+}
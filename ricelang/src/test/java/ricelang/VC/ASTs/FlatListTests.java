@@ -0,0 +1,74 @@
+package ricelang.VC.ASTs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import ricelang.VC.CompilationContext;
+import ricelang.VC.vc;
+import ricelang.VC.Parser.Parser;
+import ricelang.VC.Scanner.SourcePosition;
+
+class FlatListTests {
+
+    private static Stmt stmt(int line) {
+        return new EmptyStmt(new SourcePosition(line, line, 1, 1));
+    }
+
+    @Test
+    void consCellsStillWork() {
+        EmptyStmtList end = new EmptyStmtList(new SourcePosition());
+        SourcePosition first = new SourcePosition(1, 3, 1, 1);
+        SourcePosition second = new SourcePosition(2, 3, 1, 1);
+        StmtList list = new StmtList(stmt(1), new StmtList(stmt(2), end, second), first);
+
+        assertEquals(2, list.size());
+        assertSame(first, list.position);
+        assertSame(second, list.positionAt(1));
+        assertSame(list, list.get(0).parent);
+        assertSame(end, list.end);
+
+        StmtList rest = (StmtList) list.rest();
+        assertEquals(1, rest.size());
+        assertSame(list.get(1), rest.get(0));
+        assertSame(second, rest.position);
+        assertSame(end, rest.rest());
+        assertTrue(rest.rest().isEmptyStmtList());
+    }
+
+    // one element per stack frame used to overflow the stack long before this
+    @Test
+    void compilesHugeListsOnASmallStack() throws Exception {
+        StringBuilder source = new StringBuilder("int a[] = {");
+        for (int i = 0; i < 50_000; i++) {
+            source.append(i == 0 ? "" : ", ").append(i);
+        }
+        source.append("};\nint main() {\n  int i = 0;\n");
+        for (int i = 0; i < 50_000; i++) {
+            source.append("  i = i + a[").append(i % 7).append("];\n");
+        }
+        source.append("  putIntLn(i);\n}\n");
+
+        AtomicReference<Optional<String>> error = new AtomicReference<>();
+        StringBuilder jasmin = new StringBuilder();
+        Thread thread = new Thread(null, () -> error.set(new vc().jasminSrc(source.toString(), jasmin, new StringBuilder())),
+                "small-stack", 256 * 1024);
+        thread.start();
+        thread.join();
+
+        assertEquals(Optional.empty(), error.get());
+        assertTrue(jasmin.toString().contains("iastore"));
+
+        Program program = new Parser(new CompilationContext(source.toString())).parseProgram();
+        DeclList decls = (DeclList) program.FL;
+        ArrayExprList elements = (ArrayExprList) ((ArrayInitExpr) ((GlobalVarDecl) decls.get(0)).E).IL;
+        assertEquals(50_000, elements.size());
+        CompoundStmt body = (CompoundStmt) ((FuncDecl) decls.get(1)).S;
+        assertEquals(50_001, body.SL.size());
+    }
+}
@@ -0,0 +1,89 @@
+package ricelang.VC.Checker;
+
+import ricelang.VC.ASTs.*;
+import java.util.Optional;
+
+/**
+ * The symbol table as it was before it kept a stack of entries per name in
+ * a hash map: one stack of all the entries, chained through previousEntry
+ * and searched from the top. Kept to check the new table against and to
+ * benchmark it.
+ */
+public final class LinearSymbolTable {
+
+    private int level;
+    private IdEntry latest;
+
+    public LinearSymbolTable() {
+        level = 1;
+        latest = null;
+    }
+
+    // Opens a new level in the symbol table, 1 higher than the
+    // current topmost level.
+
+    public void openScope() {
+        level++;
+    }
+
+    // Closes the topmost level in the symbol table, discarding
+    // all entries belonging to that level.
+
+    public void closeScope() {
+        IdEntry entry;
+
+        // Presumably, idTable.level > 0.
+        entry = this.latest;
+        while (entry != null && entry.level == this.level) {
+            entry = entry.previousEntry;
+        }
+
+        this.level--;
+        this.latest = entry;
+    }
+
+    // Makes a new entry in the symbol table for the given identifier
+    // and attribute. The new entry belongs to the current scope level.
+
+    public void insert(String id, Decl attr) {
+        IdEntry entry = new IdEntry(id, attr, this.level, this.latest);
+        this.latest = entry;
+    }
+
+    // Finds an entry for the given identifier in the symbol table,
+    // if any. If there are several entries for that identifier, finds the
+    // entry at the highest level according to the scope rules.
+    // Returns an Optional containing the attribute field of the entry found,
+    // or an empty Optional if no entry is found.
+
+    public Optional<IdEntry> retrieve(String id) {
+        IdEntry entry = this.latest;
+        while (entry != null) {
+            if (entry.id.equals(id)) {
+                return Optional.of(entry);
+            }
+            entry = entry.previousEntry;
+        }
+        return Optional.empty();
+    }
+
+    // Used in type checking to find multiply declared names.
+    // Returns an Optional containing the entry if found at the current level,
+    // or an empty Optional otherwise.
+
+    public Optional<IdEntry> retrieveOneLevel(String id) {
+        IdEntry entry = this.latest;
+
+        while (entry != null) {
+            if (entry.level != this.level) {
+                return Optional.empty();
+            }
+            if (entry.id.equals(id)) {
+                return Optional.of(entry);
+            }
+            entry = entry.previousEntry;
+        }
+
+        return Optional.empty();
+    }
+}
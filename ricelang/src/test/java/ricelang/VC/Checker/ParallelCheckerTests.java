@@ -0,0 +1,85 @@
+package ricelang.VC.Checker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+import ricelang.VC.CompilationContext;
+import ricelang.VC.RandomPrograms;
+import ricelang.VC.ASTs.AstDump;
+import ricelang.VC.ASTs.CompactAst;
+import ricelang.VC.ASTs.Program;
+import ricelang.VC.Parser.Parser;
+
+class ParallelCheckerTests {
+
+    // bodies to spread over four workers whatever the machine, on daemon threads that need no shutting down
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    // a few messages spell out a list node as Object.toString() does, which differs from run to run
+    private static String errors(CompilationContext context) {
+        return context.getReporter().getAllErrors().replaceAll("@[0-9a-f]+", "");
+    }
+
+    private static int assertSameAsSequential(String source) {
+        CompilationContext sequential = new CompilationContext(source);
+        Program expected = new Parser(sequential).parseProgram();
+        new Checker(sequential).check(expected);
+        CompilationContext parallel = new CompilationContext(source);
+        Program actual = new Parser(parallel).parseProgram();
+        new ParallelChecker(parallel, POOL).check(actual);
+
+        assertEquals(errors(sequential), errors(parallel), source);
+        assertEquals(AstDump.of(expected), AstDump.of(actual), source);
+        return sequential.getReporter().getNumErrors();
+    }
+
+    @Test
+    void bodiesSeeWhatWasDeclaredBeforeTheirFunction() {
+        String[] sources = {
+            // a global declared after the function using it
+            "int f() { byebye late; }\nint late = 1;\nint main() { byebye f() + late; }",
+            // a function calling itself, and one declared after it
+            "int f(int n) { if (n > 0) byebye f(n - 1); byebye g(); }\nint g() { byebye 0; }\nint main() { byebye f(3); }",
+            // a name declared twice, used in between and after
+            "int x = 1;\nint f() { byebye x; }\nfloat x = 2.0;\nint g() { byebye x; }\nint main() { byebye f(); }",
+            // locals shadowing globals and built-ins, and errors in bodies and at the top level in turn
+            "int a = true;\nvoid f(int a) { float a; putInt(1.5); }\nboolean b = 1;\nvoid g() { int putLn; putLn(); }\nint main() { f(); }",
+            "void main() { }",
+            "int f() { byebye 0; }",
+            "",
+        };
+        for (String source : sources) {
+            assertSameAsSequential(source);
+        }
+    }
+
+    @Test
+    void checksRandomProgramsLikeTheSequentialChecker() {
+        Random random = new Random(250);
+        for (int i = 0; i < 150; i++) {
+            if (i % 2 == 0) {
+                assertEquals(0, assertSameAsSequential(RandomPrograms.valid(random, 1 + random.nextInt(12))));
+            } else {
+                assertSameAsSequential(RandomPrograms.misnamed(random, 1 + random.nextInt(8)));
+            }
+        }
+    }
+
+    @Test
+    void checksSequentiallyWithoutIds() {
+        String source = RandomPrograms.misnamed(new Random(25), 6);
+        CompilationContext sequential = new CompilationContext(source);
+        Program expected = new Parser(sequential).parseProgram();
+        new Checker(sequential).check(expected);
+        CompilationContext parallel = new CompilationContext(source);
+        Program view = CompactAst.of(new Parser(new CompilationContext(source)).parseProgram()).program();
+        new ParallelChecker(parallel, POOL).check(view);
+
+        assertEquals(errors(sequential), errors(parallel));
+        assertEquals(AstDump.of(expected), AstDump.of(view));
+    }
+}
@@ -0,0 +1,107 @@
+package ricelang.VC.Checker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Optional;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import ricelang.VC.ASTs.Decl;
+import ricelang.VC.ASTs.EmptyExpr;
+import ricelang.VC.ASTs.GlobalVarDecl;
+import ricelang.VC.ASTs.Ident;
+import ricelang.VC.ASTs.IntType;
+import ricelang.VC.Scanner.SourcePosition;
+
+class SymbolTableTests {
+
+    private static Decl decl(String id) {
+        SourcePosition position = new SourcePosition();
+        return new GlobalVarDecl(new IntType(position), new Ident(id, position), new EmptyExpr(position), position);
+    }
+
+    private static Decl attr(Optional<IdEntry> entry) {
+        return entry.map(e -> e.attr).orElse(null);
+    }
+
+    @Test
+    void innerDeclarationsShadowOuterOnesUntilTheirScopeCloses() {
+        SymbolTable table = new SymbolTable();
+        Decl outer = decl("x");
+        Decl inner = decl("x");
+        Decl y = decl("y");
+        table.insert("x", outer);
+        table.openScope();
+        assertTrue(table.retrieveOneLevel("x").isEmpty());
+        table.insert("x", inner);
+        table.insert("y", y);
+        assertSame(inner, attr(table.retrieve("x")));
+        assertSame(inner, attr(table.retrieveOneLevel("x")));
+        assertSame(y, attr(table.retrieve("y")));
+
+        table.closeScope();
+        assertSame(outer, attr(table.retrieve("x")));
+        assertSame(outer, attr(table.retrieveOneLevel("x")));
+        assertTrue(table.retrieve("y").isEmpty());
+    }
+
+    @Test
+    void aNameDeclaredTwiceInOneScopeIsUndoneBothTimes() {
+        SymbolTable table = new SymbolTable();
+        Decl global = decl("x");
+        table.insert("x", global);
+        table.openScope();
+        table.insert("x", decl("x"));
+        Decl again = decl("x");
+        table.insert("x", again);
+        assertSame(again, attr(table.retrieve("x")));
+        table.closeScope();
+        assertSame(global, attr(table.retrieve("x")));
+    }
+
+    @Test
+    void sameAsTheLinearTableOnRandomScopes() {
+        Random random = new Random(23);
+        String[] names = new String[40];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "v" + i;
+        }
+        for (int round = 0; round < 200; round++) {
+            SymbolTable table = new SymbolTable();
+            LinearSymbolTable linear = new LinearSymbolTable();
+            int depth = 0;
+            for (int step = 0; step < 300; step++) {
+                String name = names[random.nextInt(names.length)];
+                switch (random.nextInt(6)) {
+                    case 0 -> {
+                        table.openScope();
+                        linear.openScope();
+                        depth++;
+                    }
+                    case 1 -> {
+                        if (depth > 0) {
+                            table.closeScope();
+                            linear.closeScope();
+                            depth--;
+                        }
+                    }
+                    case 2, 3 -> {
+                        Decl decl = decl(name);
+                        table.insert(name, decl);
+                        linear.insert(name, decl);
+                    }
+                    default -> {
+                        assertSame(attr(linear.retrieve(name)), attr(table.retrieve(name)));
+                        assertSame(attr(linear.retrieveOneLevel(name)), attr(table.retrieveOneLevel(name)));
+                    }
+                }
+            }
+            for (String name : names) {
+                assertEquals(linear.retrieve(name).isPresent(), table.retrieve(name).isPresent());
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package ricelang.VC.CodeGen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+import ricelang.VC.vc;
+import ricelang.server.InProcessExecutor;
+import ricelang.server.JasminAssembler;
+
+/**
+ * Holds the class files Emitter.genClass assembles directly to the ones
+ * jasmin assembles from the same program's Jasmin text.
+ */
+class ClassFileWriterTests {
+
+    private static byte[] direct(String source) {
+        ByteArrayOutputStream classFile = new ByteArrayOutputStream();
+        assertEquals(Optional.empty(), new vc().compileClass("T", source, new StringBuilder(), classFile));
+        return classFile.toByteArray();
+    }
+
+    private static byte[] jasmin(String source) throws Exception {
+        StringBuilder jasminSrc = new StringBuilder();
+        assertEquals(Optional.empty(), new vc().jasminSrc("T", source, jasminSrc, new StringBuilder()));
+        return JasminAssembler.assemble(jasminSrc.toString(), "T.j");
+    }
+
+    private static String run(byte[] classFile) throws Exception {
+        return new InProcessExecutor(10_000).execute("T", classFile, "").output();
+    }
+
+    @Test
+    void stringLiteralsPrintTheSameEitherWay() throws Exception {
+        String source = "int main() { putStringLn(\"tab\\there \\\"quoted\\\" it's\\nnext line\"); }";
+        assertEquals(run(jasmin(source)), run(direct(source)));
+    }
+
+    @Test
+    void aBackslashInAStringIsRejectedEitherWay() {
+        String source = "int main() { putStringLn(\"back\\\\slash\"); }";
+        Exception jasmin = assertThrows(Exception.class, () -> jasmin(source));
+        Exception direct = assertThrows(IllegalArgumentException.class, () -> direct(source));
+        assertEquals(jasmin.getMessage(), direct.getMessage());
+    }
+}
@@ -0,0 +1,110 @@
+package ricelang.VC;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Hammers one set of programs through every backend from many threads at
+ * once and checks each result is exactly what a lone sequential compile
+ * gives, i.e. compilations share no mutable state.
+ */
+class ConcurrentCompileTests {
+
+    private static final String[] PROGRAMS = {
+            """
+            int fib(int n) {
+                if (n <= 1) byebye n;
+                byebye fib(n - 1) + fib(n - 2);
+            }
+            int main() {
+                int i;
+                for (i = 0; i < 10; i = i + 1) { putInt(fib(i)); putString(" "); }
+                putLn();
+            }
+            """,
+            """
+            float PI = 3.1415926535;
+            float area(float r) { byebye PI * r * r; }
+            int main() {
+                float a[3] = {1.0, 2, 3.5};
+                boolean big = area(a[2]) > 10 && !(a[0] == 0.0);
+                putFloatLn(area(a[1]));
+                putBoolLn(big);
+            }
+            """,
+            """
+            int f(int a, float b) { byebye a; putInt(1); }
+            int main() { int x; float y; boolean b = 1 < 2.0;
+              x = y; f(1); undeclared = 3; if (x) {} while (1) {} y = x + true; continue; }
+            """,
+            "int main() { int x = 1 +; }",
+    };
+
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 50;
+
+    private static String run(int program, int backend) {
+        String source = PROGRAMS[program];
+        StringBuilder output = new StringBuilder();
+        StringBuilder verbose = new StringBuilder();
+        vc compiler = new vc();
+        var error = switch (backend) {
+            case 0 -> compiler.jasminSrc("Stress", source, output, verbose);
+            case 1 -> compiler.javascriptSrc(source, output, verbose, true);
+            case 2 -> compiler.javascriptSrc(source, output, verbose, false);
+            case 3 -> compiler.mermaidAST(source, output, verbose);
+            default -> {
+                ByteArrayOutputStream classFile = new ByteArrayOutputStream();
+                var result = compiler.compileClass("Stress", source, verbose, classFile);
+                output.append(Arrays.toString(classFile.toByteArray()));
+                yield result;
+            }
+        };
+        // some checker messages print AST nodes with their identity hash
+        return (error.orElse("") + "\n--\n" + output + "\n--\n" + verbose).replaceAll("@[0-9a-f]+", "@");
+    }
+
+    @Test
+    void concurrentCompilesMatchSequentialOnes() throws Exception {
+        int backends = 5;
+        String[][] expected = new String[PROGRAMS.length][backends];
+        for (int p = 0; p < PROGRAMS.length; p++) {
+            for (int b = 0; b < backends; b++) {
+                expected[p][b] = run(p, b);
+            }
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int round = 0; round < ROUNDS; round++) {
+                for (int p = 0; p < PROGRAMS.length; p++) {
+                    for (int b = 0; b < backends; b++) {
+                        int program = p;
+                        int backend = b;
+                        tasks.add(() -> {
+                            assertEquals(expected[program][backend], run(program, backend),
+                                    "program " + program + " backend " + backend);
+                            return null;
+                        });
+                    }
+                }
+            }
+            for (Future<Void> result : pool.invokeAll(tasks)) {
+                result.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package ricelang.VC;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * emitAll has to hand back exactly what the single-backend vc methods
+ * generate, whether the backends share the calling thread or not.
+ */
+class EmitAllTests {
+
+    private static final String PROGRAM = """
+            int a[3] = {3, 1, 2};
+            int max(int x, int y) { if (x > y) byebye x; byebye y; }
+            int main() {
+                int i;
+                int m = a[0];
+                for (i = 1; i < 3; i = i + 1) m = max(m, a[i]);
+                putIntLn(m);
+                putFloatLn(m / 2.0);
+            }
+            """;
+
+    @Test
+    void matchesSingleBackendOutput() throws Exception {
+        Map<vc.Target, String> expected = new EnumMap<>(vc.Target.class);
+        StringBuilder out = new StringBuilder();
+        new vc().mermaidAST(PROGRAM, out, new StringBuilder());
+        expected.put(vc.Target.AST, out.toString());
+        out = new StringBuilder();
+        new vc().jasminSrc(PROGRAM, out, new StringBuilder());
+        expected.put(vc.Target.JASMIN, out.toString());
+        out = new StringBuilder();
+        new vc().javascriptSrc(PROGRAM, out, new StringBuilder(), true);
+        expected.put(vc.Target.JAVASCRIPT, out.toString());
+        out = new StringBuilder();
+        new vc().javascriptSrc(PROGRAM, out, new StringBuilder(), false);
+        expected.put(vc.Target.NODEJS, out.toString());
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            for (ExecutorService executor : new ExecutorService[] { null, pool }) {
+                Map<vc.Target, String> outputs = new EnumMap<>(vc.Target.class);
+                Optional<String> error = new vc().emitAll(PROGRAM, EnumSet.allOf(vc.Target.class), outputs,
+                        new StringBuilder(), executor);
+                assertTrue(error.isEmpty());
+                assertEquals(expected, outputs);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void frontEndErrorsSkipTheBackends() {
+        Map<vc.Target, String> outputs = new EnumMap<>(vc.Target.class);
+        StringBuilder verbose = new StringBuilder();
+        Optional<String> error = new vc().emitAll("int main() { f(1); }", EnumSet.of(vc.Target.JASMIN), outputs,
+                verbose, null);
+
+        StringBuilder single = new StringBuilder();
+        assertEquals(new vc().jasminSrc("int main() { f(1); }", new StringBuilder(), single), error);
+        assertEquals(single.toString(), verbose.toString());
+        assertTrue(outputs.isEmpty());
+    }
+}
@@ -0,0 +1,162 @@
+package ricelang.VC.Parser;
+
+import ricelang.VC.ASTs.*;
+import ricelang.VC.CompilationContext;
+import ricelang.VC.ErrorReporter;
+import ricelang.VC.Scanner.SourcePosition;
+import ricelang.VC.Scanner.Token;
+import ricelang.VC.Scanner.TokenSource;
+
+/**
+ * The parser as it was before precedence climbing: expressions go down one
+ * method per grammar level, from assignment to multiplicative, before
+ * reaching a unary or primary expression. Kept as the reference the
+ * precedence climber is tested and benchmarked against.
+ */
+public class DescentParser extends Parser {
+
+    public DescentParser(CompilationContext context) {
+        super(context);
+    }
+
+    public DescentParser(TokenSource lexer, ErrorReporter reporter) {
+        super(lexer, reporter);
+    }
+
+    @Override
+    Expr parseExpr() throws SyntaxError {
+        return ParseAssignExpr();
+    }
+
+    // assignExpr is right associative so we finna use recursion
+    Expr ParseAssignExpr() throws SyntaxError {
+        SourcePosition addStartPos = new SourcePosition();
+        start(addStartPos);
+
+        Expr leftExprAST = parseCondOrExpr();
+        if (currentToken.kind == Token.EQ) {
+            acceptOperator();
+            Expr rightExprAST = ParseAssignExpr();
+
+            SourcePosition assPos = new SourcePosition();
+            copyStart(addStartPos, assPos);
+            finish(assPos);
+            return new AssignExpr(leftExprAST, rightExprAST, assPos);
+        }
+        return leftExprAST;
+    }
+
+    Expr parseCondOrExpr() throws SyntaxError {
+        Expr exprAST;
+        SourcePosition addStartPos = new SourcePosition();
+        start(addStartPos);
+
+        exprAST = parseCondAndExpr();
+        while (currentToken.kind == Token.OROR) {
+            Operator opAST = acceptOperator();
+            Expr e2AST = parseCondAndExpr();
+
+            SourcePosition condOrPos = new SourcePosition();
+            copyStart(addStartPos, condOrPos);
+            finish(condOrPos);
+            exprAST = new BinaryExpr(exprAST, opAST, e2AST, condOrPos);
+        }
+
+        return exprAST;
+    }
+
+    Expr parseCondAndExpr() throws SyntaxError {
+        Expr exprAST;
+        SourcePosition addStartPos = new SourcePosition();
+        start(addStartPos);
+
+        exprAST = parseEqualityExpr();
+        while (currentToken.kind == Token.ANDAND) {
+            Operator opAST = acceptOperator();
+            Expr e2AST = parseEqualityExpr();
+
+            SourcePosition condAndPos = new SourcePosition();
+            copyStart(addStartPos, condAndPos);
+            finish(condAndPos);
+            exprAST = new BinaryExpr(exprAST, opAST, e2AST, condAndPos);
+        }
+
+        return exprAST;
+    }
+
+    Expr parseEqualityExpr() throws SyntaxError {
+        Expr exprAST;
+        SourcePosition addStartPos = new SourcePosition();
+        start(addStartPos);
+
+        exprAST = parseRelExpr();
+        while (currentToken.kind == Token.EQEQ || currentToken.kind == Token.NOTEQ) {
+            Operator opAST = acceptOperator();
+            Expr e2AST = parseRelExpr();
+
+            SourcePosition eqPos = new SourcePosition();
+            copyStart(addStartPos, eqPos);
+            finish(eqPos);
+            exprAST = new BinaryExpr(exprAST, opAST, e2AST, eqPos);
+        }
+
+        return exprAST;
+    }
+
+    Expr parseRelExpr() throws SyntaxError {
+        Expr exprAST;
+        SourcePosition addStartPos = new SourcePosition();
+        start(addStartPos);
+
+        exprAST = parseAdditiveExpr();
+        while (currentToken.kind == Token.LT || currentToken.kind == Token.LTEQ || currentToken.kind == Token.GT || currentToken.kind == Token.GTEQ) {
+            Operator opAST = acceptOperator();
+            Expr e2AST = parseAdditiveExpr();
+
+            SourcePosition relPos = new SourcePosition();
+            copyStart(addStartPos, relPos);
+            finish(relPos);
+            exprAST = new BinaryExpr(exprAST, opAST, e2AST, relPos);
+        }
+
+        return exprAST;
+    }
+
+    Expr parseAdditiveExpr() throws SyntaxError {
+        Expr exprAST;
+
+        SourcePosition addStartPos = new SourcePosition();
+        start(addStartPos);
+
+        exprAST = parseMultiplicativeExpr();
+        while (currentToken.kind == Token.PLUS
+                || currentToken.kind == Token.MINUS) {
+            Operator opAST = acceptOperator();
+            Expr e2AST = parseMultiplicativeExpr();
+
+            SourcePosition addPos = new SourcePosition();
+            copyStart(addStartPos, addPos);
+            finish(addPos);
+            exprAST = new BinaryExpr(exprAST, opAST, e2AST, addPos);
+        }
+        return exprAST;
+    }
+
+    Expr parseMultiplicativeExpr() throws SyntaxError {
+        Expr exprAST;
+        SourcePosition multStartPos = new SourcePosition();
+        start(multStartPos);
+
+        exprAST = parseUnaryExpr();
+        while (currentToken.kind == Token.MULT
+                || currentToken.kind == Token.DIV) {
+            Operator opAST = acceptOperator();
+            Expr e2AST = parseUnaryExpr();
+            SourcePosition multPos = new SourcePosition();
+            copyStart(multStartPos, multPos);
+            finish(multPos);
+            exprAST = new BinaryExpr(exprAST, opAST, e2AST, multPos);
+        }
+        return exprAST;
+    }
+}
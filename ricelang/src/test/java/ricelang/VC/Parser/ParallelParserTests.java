@@ -0,0 +1,67 @@
+package ricelang.VC.Parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+import ricelang.VC.CompilationContext;
+import ricelang.VC.ErrorReporter;
+import ricelang.VC.RandomPrograms;
+import ricelang.VC.ASTs.AstDump;
+import ricelang.VC.ASTs.Program;
+import ricelang.VC.Scanner.SourceFile;
+
+class ParallelParserTests {
+
+    // more workers than this machine may have cores, its threads are daemons
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    private static void assertSameAsSequential(String source) {
+        CompilationContext sequential = new CompilationContext(source);
+        Program expected = new Parser(sequential).parseProgram();
+        ErrorReporter reporter = new ErrorReporter();
+        Program actual = new ParallelParser(new SourceFile(source), reporter, POOL).parseProgram();
+
+        assertEquals(sequential.getReporter().getAllErrors(), reporter.getAllErrors(), source);
+        assertEquals(expected == null ? null : AstDump.of(expected), actual == null ? null : AstDump.of(actual), source);
+    }
+
+    @Test
+    void sameTreeAsSequential() {
+        Program program = new ParallelParser(new CompilationContext(RandomPrograms.valid(new Random(19), 40))).parseProgram();
+        assertNotNull(program);
+        for (int seed = 0; seed < 50; seed++) {
+            assertSameAsSequential(RandomPrograms.valid(new Random(seed), 1 + seed % 12));
+        }
+    }
+
+    @Test
+    void sameErrorsAsSequential() {
+        String body = "{\n" + "  i = i + 1;\n".repeat(30) + "}\n";
+        String[] sources = {
+            "int f() " + body + "int g() " + body.replace("i + 1;\n}", "i + ;\n}"), // in a parallel body
+            "int f() " + body + "int g( " + body, // at the top level, after a parallel body
+            "int f() " + body + "int g() " + body.replace("i = i", "i = \"i"), // scan error
+            "int f() " + body + "int g() " + body.replace("i = i", "i = #i"),
+            "int f() " + body.replace("}", ""), // no matching brace
+            "int f() " + body + "}\n",
+            "int f() " + body.replace("i = i", "{ i = i") + "int g() " + body,
+            "",
+        };
+        for (String source : sources) {
+            assertSameAsSequential(source);
+        }
+    }
+
+    @Test
+    void sameAsSequentialOnRandomPrograms() {
+        Random random = new Random(190);
+        for (int i = 0; i < 300; i++) {
+            assertSameAsSequential(RandomPrograms.damaged(random, 1 + random.nextInt(8)));
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package ricelang.VC.Parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import ricelang.VC.CompilationContext;
+import ricelang.VC.ErrorReporter;
+import ricelang.VC.ASTs.AstDump;
+import ricelang.VC.ASTs.DeclList;
+import ricelang.VC.ASTs.FuncDecl;
+import ricelang.VC.ASTs.Program;
+import ricelang.VC.Checker.Checker;
+import ricelang.VC.Checker.DeclErrors;
+
+class ParseSessionTests {
+
+    private static String program(int functions) {
+        StringBuilder sb = new StringBuilder("int g0 = 1, g1[3] = {1, 2, 3};\nfloat scale = 2.0;\n\n");
+        for (int f = 0; f < functions; f++) {
+            sb.append("int f").append(f).append("(int a, float b[]) {\n");
+            sb.append("  int i = 0, j[2];\n");
+            sb.append("  while (i < a) {\n    i = i + g1[1] * ").append(f).append(";\n  }\n");
+            if (f > 0) {
+                sb.append("  i = i + f").append(f - 1).append("(a - 1, b);\n");
+            }
+            sb.append("  byebye i;\n}\n\n");
+        }
+        sb.append("int main() {\n  float b[2];\n  putIntLn(f").append(functions - 1).append("(3, b));\n}\n");
+        return sb.toString();
+    }
+
+    // a few messages spell out a list node as Object.toString() does, which differs from run to run
+    private static String errors(ErrorReporter reporter) {
+        return reporter.getAllErrors().replaceAll("@[0-9a-f]+", "");
+    }
+
+    // the session's program and errors are a fresh parse's, and checking just what changed gives the same tree and errors
+    private static void assertSameAsFresh(ParseSession session, ParseSession.Update update, DeclErrors kept) {
+        CompilationContext fresh = new CompilationContext(session.text());
+        Program expected = new Parser(fresh).parseProgram();
+        assertEquals(fresh.getReporter().getAllErrors(), update.errors().getAllErrors(), session.text());
+        if (expected == null) {
+            assertNull(update.program(), session.text());
+            return;
+        }
+        if (update.errors().getNumErrors() > 0) {
+            assertEquals(AstDump.of(expected), AstDump.of(update.program()), session.text());
+            return;
+        }
+
+        // the declarations reused still carry what the last check gave them
+        new Checker(fresh).check(expected);
+        ErrorReporter incremental = new ErrorReporter();
+        new Checker(incremental).check(update.program(), update.changed(), kept);
+        assertEquals(AstDump.of(expected), AstDump.of(update.program()), session.text());
+        assertEquals(errors(fresh.getReporter()), errors(incremental), session.text());
+    }
+
+    @Test
+    void reparsesOnlyTheFunctionEdited() {
+        ParseSession session = new ParseSession(program(6));
+        ParseSession.Update first = session.current();
+        assertEquals(10, first.changed().size());
+        DeclList before = (DeclList) first.program().FL;
+
+        // a new line in the body of f2: f2 and the functions calling it again, on down to main
+        int at = session.text().indexOf("byebye", session.text().indexOf("int f2("));
+        ParseSession.Update update = session.edit(at, 0, "i = i + 1;\n  ");
+        DeclList after = (DeclList) update.program().FL;
+        assertEquals(java.util.List.of(after.get(5), after.get(6), after.get(7), after.get(8), after.get(9)), update.changed());
+        for (int i = 0; i < 5; i++) {
+            assertSame(before.get(i), after.get(i));
+        }
+        assertEquals("f2", ((FuncDecl) after.get(5)).I.spelling);
+    }
+
+    @Test
+    void reusesWhatFollowsMovedDown() {
+        ParseSession session = new ParseSession(program(4));
+        DeclErrors kept = new DeclErrors();
+        assertSameAsFresh(session, session.current(), kept);
+        DeclList before = (DeclList) session.current().program().FL;
+        // a blank line at the top moves everything, but nothing declared changed
+        ParseSession.Update update = session.edit(0, 0, "\n\n");
+        assertTrue(update.changed().isEmpty());
+        DeclList after = (DeclList) update.program().FL;
+        for (int i = 0; i < after.size(); i++) {
+            assertSame(before.get(i), after.get(i));
+        }
+        assertEquals(3, after.get(0).position.lineStart);
+        assertSameAsFresh(session, update, kept);
+    }
+
+    @Test
+    void recoversFromSyntaxErrors() {
+        ParseSession session = new ParseSession(program(3));
+        DeclErrors kept = new DeclErrors();
+        assertSameAsFresh(session, session.current(), kept);
+        int at = session.text().indexOf("byebye i;");
+        ParseSession.Update broken = session.edit(at + 8, 1, "");
+        assertNull(broken.program());
+        assertTrue(broken.errors().getNumErrors() > 0);
+        assertSameAsFresh(session, broken, kept);
+
+        ParseSession.Update fixed = session.edit(at + 8, 0, ";");
+        assertNotNull(fixed.program());
+        assertEquals(4, fixed.changed().size()); // the function fixed, the two calling down the line and main
+        assertSameAsFresh(session, fixed, kept);
+    }
+
+    @Test
+    void keepsTheErrorsOfWhatItReuses() {
+        ParseSession session = new ParseSession("int f0() { byebye true; }\nint f1() { byebye 1; }\nint main() { byebye f1(); }\n");
+        DeclErrors kept = new DeclErrors();
+        assertSameAsFresh(session, session.current(), kept);
+        int at = session.text().indexOf("byebye 1");
+        ParseSession.Update update = session.edit(at + 7, 1, "2");
+        assertEquals("f1", update.changed().get(0).I.spelling);
+        assertSameAsFresh(session, update, kept);
+        assertSameAsFresh(session, session.edit(at + 7, 1, "3"), kept);
+    }
+
+    @Test
+    void sameAsFreshOverRandomEdits() {
+        String[] snippets = { "\n", " ", "  i = i + 1;\n", "int h(int a) {\n  byebye a;\n}\n", "/*", "*/", "}", "{", ";", "\"", "g0", "f1(1, b)" };
+        for (int seed = 0; seed < 40; seed++) {
+            Random random = new Random(seed);
+            String good = program(2 + random.nextInt(6));
+            ParseSession session = new ParseSession(good);
+            DeclErrors kept = new DeclErrors();
+            assertSameAsFresh(session, session.current(), kept);
+            for (int step = 0; step < 60; step++) {
+                String text = session.text();
+                ParseSession.Update update;
+                if (step % 20 == 19) {
+                    update = session.edit(0, text.length(), good);
+                } else if (random.nextBoolean()) {
+                    update = validEdit(session, random);
+                } else if (random.nextBoolean() && text.length() > 0) {
+                    int at = random.nextInt(text.length());
+                    update = session.edit(at, Math.min(random.nextInt(4), text.length() - at), "");
+                } else {
+                    int at = random.nextInt(text.length() + 1);
+                    update = session.edit(at, 0, snippets[random.nextInt(snippets.length)]);
+                }
+                assertSameAsFresh(session, update, kept);
+            }
+        }
+    }
+
+    // an edit that keeps a program that parses parsing
+    private static ParseSession.Update validEdit(ParseSession session, Random random) {
+        String text = session.text();
+        int at = random.nextInt(text.length());
+        switch (random.nextInt(5)) {
+            case 0: {
+                int digit = indexOfAny(text, at, "0123456789");
+                return digit < 0 ? appendLine(session) : session.edit(digit, 1, Integer.toString(random.nextInt(10)));
+            }
+            case 1: {
+                int end = indexOfAny(text, at, ";{");
+                return end < 0 ? appendLine(session) : session.edit(end + 1, 0, random.nextBoolean() ? "\n" : "\n\n  ");
+            }
+            case 2: {
+                int statement = text.indexOf("  byebye", at);
+                return statement < 0 ? appendLine(session) : session.edit(statement, 0, "  i = i + g0;\n");
+            }
+            case 3: {
+                int function = text.indexOf("\nint f", at);
+                return function < 0 ? appendLine(session)
+                        : session.edit(function + 1, 0, random.nextBoolean() ? "int g0;\n" : "float k" + at + " = 1.0;\n");
+            }
+            default: {
+                int function = text.indexOf("\nint f", at);
+                return function < 0 ? appendLine(session) : session.edit(function + 1, 0, "void v" + at + "() {\n  g0 = 2;\n}\n");
+            }
+        }
+    }
+
+    private static ParseSession.Update appendLine(ParseSession session) {
+        return session.edit(session.text().length(), 0, "\n");
+    }
+
+    private static int indexOfAny(String text, int from, String chars) {
+        for (int i = from; i < text.length(); i++) {
+            if (chars.indexOf(text.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
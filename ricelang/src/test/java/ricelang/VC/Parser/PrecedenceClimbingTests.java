@@ -0,0 +1,91 @@
+package ricelang.VC.Parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import ricelang.VC.CompilationContext;
+import ricelang.VC.ASTs.AstDump;
+import ricelang.VC.ASTs.Program;
+
+class PrecedenceClimbingTests {
+
+    private static final String[] OPERATORS = { "||", "&&", "==", "!=", "<", "<=", ">", ">=", "+", "-", "*", "/", "=" };
+
+    private static void assertSameAsDescent(String source) {
+        CompilationContext climbing = new CompilationContext(source);
+        Program climbed = new Parser(climbing).parseProgram();
+        CompilationContext descent = new CompilationContext(source);
+        Program descended = new DescentParser(descent).parseProgram();
+
+        assertEquals(descent.getReporter().getAllErrors(), climbing.getReporter().getAllErrors(), source);
+        assertEquals(descended == null ? null : AstDump.of(descended),
+                climbed == null ? null : AstDump.of(climbed), source);
+    }
+
+    @Test
+    void sameTreesAsTheDescentParser() {
+        String[] expressions = {
+            "1", "a", "-a", "!!b", "+-1.5", "(a)", "((a + b))",
+            "a + b * c", "a * b + c", "a - b - c", "a / b / c * d",
+            "a || b && c || d", "a && b || c && d", "a == b != c", "a < b == c > d",
+            "-a * (b + c) / -d", "a = b = c + 1", "a + b = c", "(a = b) + c",
+            "f(a + b, c * d, g())", "a[i + 1] = b[j] * 2", "!(a <= b) && c >= d || e",
+            "a + \"s\" + true", "1 < 2 < 3", "a\n  +\n  b * \n c",
+        };
+        for (String expression : expressions) {
+            assertSameAsDescent("int main() {\n  x = " + expression + ";\n}\n");
+        }
+    }
+
+    @Test
+    void sameErrorsAsTheDescentParser() {
+        String[] expressions = { "a +", "* a", "a + (b", "a = ", "f(a,", "a[1", "a + + b", "(a b)", "a || && b" };
+        for (String expression : expressions) {
+            assertSameAsDescent("int main() {\n  x = " + expression + ";\n}\n");
+        }
+    }
+
+    @Test
+    void sameTreesOnRandomExpressions() {
+        Random random = new Random(18);
+        for (int i = 0; i < 3000; i++) {
+            StringBuilder source = new StringBuilder("int main() {\n");
+            for (int s = 0; s < 4; s++) {
+                source.append("  ").append(expression(random, 4)).append(";\n");
+            }
+            source.append("}\n");
+            String text = source.toString();
+            if (random.nextInt(5) == 0) {
+                // a missing token somewhere, so the errors get compared too
+                int at = random.nextInt(text.length());
+                text = text.substring(0, at) + text.substring(at + 1);
+            }
+            assertSameAsDescent(text);
+        }
+    }
+
+    private static String expression(Random random, int depth) {
+        switch (depth <= 0 ? random.nextInt(3) : random.nextInt(9)) {
+            case 0:
+                return Integer.toString(random.nextInt(100));
+            case 1:
+                return random.nextBoolean() ? "v" + random.nextInt(3) : random.nextInt(10) + ".5";
+            case 2:
+                return random.nextBoolean() ? "true" : "\"s\"";
+            case 3:
+                return "(" + expression(random, depth - 1) + ")";
+            case 4:
+                return (random.nextBoolean() ? "-" : random.nextBoolean() ? "!" : "+") + expression(random, depth - 1);
+            case 5:
+                return "f(" + expression(random, depth - 1) + ", " + expression(random, depth - 2) + ")";
+            case 6:
+                return "v" + random.nextInt(3) + "[" + expression(random, depth - 1) + "]";
+            default:
+                return expression(random, depth - 1) + " " + OPERATORS[random.nextInt(OPERATORS.length)]
+                        + (random.nextBoolean() ? "\n" : " ") + expression(random, depth - 1);
+        }
+    }
+}
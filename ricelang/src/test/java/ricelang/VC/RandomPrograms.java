@@ -0,0 +1,67 @@
+package ricelang.VC;
+
+import java.util.Random;
+
+/**
+ * Random programs for the tests that hold a parallel phase to the
+ * sequential one: functions calling the ones before them, with a global
+ * declared after each, most with bodies long enough to be worth handing
+ * to another thread.
+ */
+public final class RandomPrograms {
+
+    private RandomPrograms() {
+    }
+
+    // a program that parses and checks without errors
+    public static String valid(Random random, int functions) {
+        return program(random, functions, false);
+    }
+
+    // a program that parses, with calls and globals used before they are declared, so it does not check
+    public static String misnamed(Random random, int functions) {
+        String source = program(random, functions, true);
+        for (int i = random.nextInt(3); i > 0; i--) {
+            String from = "f" + random.nextInt(functions);
+            String to = random.nextBoolean() ? "f" + random.nextInt(functions) : "g";
+            source = source.replace(from + "(", to + "(");
+        }
+        return source;
+    }
+
+    // a misnamed program, a third of them with a character that may not scan or parse there
+    public static String damaged(Random random, int functions) {
+        String source = misnamed(random, functions);
+        if (random.nextInt(3) == 0) {
+            int at = random.nextInt(source.length());
+            source = source.substring(0, at) + "\"#}{;(".charAt(random.nextInt(6)) + source.substring(at + 1);
+        }
+        return source;
+    }
+
+    private static String program(Random random, int functions, boolean forward) {
+        StringBuilder sb = new StringBuilder("int g = 1, h[2] = {1, 2};\n");
+        for (int f = 0; f < functions; f++) {
+            sb.append("int f").append(f).append("(int a, float b[]) {\n");
+            sb.append("  int i = 0, j[3] = {1, 2, 3};\n");
+            int statements = random.nextInt(3) == 0 ? random.nextInt(3) : 10 + random.nextInt(30);
+            for (int s = 0; s < statements; s++) {
+                switch (random.nextInt(5)) {
+                    case 0 -> sb.append("  i = i * ").append(s).append(" + j[i - 1] / a + g;\n");
+                    case 1 -> sb.append("  if (i < a && b[0] >= 1.5) { i = i + h[1]; } else a = f")
+                            .append(random.nextInt(f + 1)).append("(a, b);\n");
+                    case 2 -> sb.append("  for (i = 0; i < 3; i = i + 1) { float g = 2.0; b[i] = g * a; }\n");
+                    case 3 -> sb.append("  while (a > 0) { a = a / 2; if (a == 1) break; else continue; }\n");
+                    default -> {
+                        int v = random.nextInt(functions);
+                        sb.append("  putFloatLn(b[0] + ").append(v < f || forward ? "v" + v : "2.0").append(");\n");
+                    }
+                }
+            }
+            sb.append("  byebye i;\n}\n");
+            sb.append("float v").append(f).append(" = 2.0;\n");
+        }
+        sb.append("int main() { float x[2]; putStringLn(\"s\"); byebye f0(g, x); }\n");
+        return sb.toString();
+    }
+}
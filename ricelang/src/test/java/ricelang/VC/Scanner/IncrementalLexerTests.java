@@ -0,0 +1,119 @@
+package ricelang.VC.Scanner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import ricelang.VC.ErrorReporter;
+
+class IncrementalLexerTests {
+
+    // pieces glued together at random, heavy on the things that reach past a single token
+    private static final String[] FRAGMENTS = {
+        "int", "float", "true", "while", "x", "_a1", "e", "E5", "\u00e9",
+        "12", "1.5", ".5", "1.", "1.e5", "2E-3", "3e", "3e+", ".e1", "9e9e9",
+        "\"abc\"", "\"a\\nb\"", "\"\\q\"", "\"unterminated", "\"\\", "\"", "\\\r\n",
+        "//c", "/*c*/", "/* x\n y */", "/*", "*/", "/", "*",
+        " ", "\t", "\n", "\n", "\r\n", "\r", "\u001c",
+        "+", "-", "=", "==", "!", "!=", "<", "<=", "&&", "&", "||", "|",
+        "(", ")", "{", "}", ";", ",", "@", "\u0000", "\\"
+    };
+
+    private static String describe(TokenTable table, ErrorReporter errors) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < table.size(); i++) {
+            Token token = table.token(i);
+            out.append(token.kind).append(' ').append(token.spelling).append(' ').append(token.position)
+                    .append(' ').append(table.start(i)).append('-').append(table.end(i)).append('\n');
+        }
+        return out + errors.getAllErrors();
+    }
+
+    private static void assertSameAsFullScan(IncrementalLexer lexer) {
+        ErrorReporter fullErrors = new ErrorReporter();
+        TokenTable full = new Scanner(new SourceFile(lexer.text()), fullErrors).scanAll();
+
+        ErrorReporter errors = new ErrorReporter();
+        lexer.reportErrors(errors);
+        assertEquals(describe(full, fullErrors), describe(lexer.tokens(), errors), lexer.text());
+        assertEquals(fullErrors.getNumErrors(), lexer.getNumErrors());
+    }
+
+    private static String random(Random random, int fragments) {
+        StringBuilder source = new StringBuilder();
+        for (int n = random.nextInt(fragments); n > 0; n--) {
+            source.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+        }
+        return source.toString();
+    }
+
+    @Test
+    void editsThatOpenAndCloseCommentsAndStrings() {
+        String source = """
+                int main() {
+                    int x = 1;
+                    putStringLn("a string");
+                    x = x + 2;
+                }
+                """;
+        IncrementalLexer lexer = new IncrementalLexer(source);
+        int assignment = source.indexOf("x = x");
+
+        lexer.edit(assignment, 0, "/* ");
+        assertSameAsFullScan(lexer);
+        lexer.edit(lexer.text().indexOf("}"), 0, " */");
+        assertSameAsFullScan(lexer);
+        lexer.edit(lexer.text().indexOf("/* "), 3, "");
+        assertSameAsFullScan(lexer);
+
+        lexer.edit(lexer.text().indexOf("a string"), 0, "\"");
+        assertSameAsFullScan(lexer);
+        lexer.edit(lexer.text().indexOf("\"a string"), 1, "");
+        assertSameAsFullScan(lexer);
+
+        lexer.edit(lexer.text().indexOf("int x"), 0, "// ");
+        assertSameAsFullScan(lexer);
+        lexer.update(lexer.text().replace("1;", "1.5e;\r\n"));
+        assertSameAsFullScan(lexer);
+        lexer.update(source);
+        assertSameAsFullScan(lexer);
+    }
+
+    @Test
+    void sameAsFullScanAfterRandomEdits() {
+        Random random = new Random(15);
+        for (int i = 0; i < 2000; i++) {
+            IncrementalLexer lexer = new IncrementalLexer(random(random, 40));
+            for (int edit = 0; edit < 10; edit++) {
+                String text = lexer.text();
+                int offset = random.nextInt(text.length() + 1);
+                int removed = random.nextInt(Math.min(8, text.length() - offset) + 1);
+                String inserted = random(random, 3);
+                if (random.nextBoolean()) {
+                    lexer.edit(offset, removed, inserted);
+                } else {
+                    lexer.update(text.substring(0, offset) + inserted + text.substring(offset + removed));
+                }
+                assertSameAsFullScan(lexer);
+            }
+        }
+    }
+
+    @Test
+    void manyEditsKeepTheTableCompact() {
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            source.append("x = x + ").append(i).append(";\n");
+        }
+        IncrementalLexer lexer = new IncrementalLexer(source.toString());
+        Random random = new Random(1);
+        for (int i = 0; i < 500; i++) {
+            lexer.edit(lexer.text().indexOf('\n', random.nextInt(lexer.text().length() - 1)) + 1, 0, "y;\n");
+        }
+        assertSameAsFullScan(lexer);
+        assertFalse(lexer.tokens().fragmented());
+    }
+}
@@ -0,0 +1,54 @@
+package ricelang.VC.Scanner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class KeywordsTests {
+
+    private static final String[] RESERVED = {
+        "boolean", "break", "continue", "else", "float", "for", "if", "int", "byebye", "void", "while"
+    };
+
+    // what the scanner used to do: compare against every reserved word in turn
+    private static int linear(String spelling) {
+        for (int i = 0; i < RESERVED.length; i++) {
+            if (RESERVED[i].equals(spelling)) {
+                return i;
+            }
+        }
+        return spelling.equals("true") || spelling.equals("false") ? Token.BOOLEANLITERAL : Token.ID;
+    }
+
+    @Test
+    void agreesWithTheLinearScan() {
+        List<String> spellings = new ArrayList<>(List.of("true", "false", "i", "x", "_", "If", "IF", "return",
+                "whilst", "fals", "truex", "flo", "floats", "bool", "breaks", "continu", "byeby", "byebye1"));
+        for (String word : RESERVED) {
+            spellings.add(word);
+            spellings.add(word.substring(0, word.length() - 1));
+            spellings.add(word + "_");
+            // flip each char in turn so every position of the compare gets a miss
+            for (int i = 0; i < word.length(); i++) {
+                spellings.add(word.substring(0, i) + 'z' + word.substring(i + 1));
+            }
+        }
+
+        for (String spelling : spellings) {
+            assertEquals(linear(spelling), Keywords.kind(spelling), spelling);
+            String padded = "(" + spelling + ")";
+            assertEquals(linear(spelling), Keywords.kind(padded, 1, padded.length() - 1), padded);
+            assertEquals(linear(spelling), Keywords.kind(new SourceFile(padded), 1, padded.length() - 1), padded);
+        }
+    }
+
+    @Test
+    void tokensKeepTrueAndFalseAsIdentifiers() {
+        assertEquals(Token.WHILE, new Token(Token.ID, "while", null).kind);
+        assertEquals(Token.ID, new Token(Token.ID, "true", null).kind);
+        assertEquals(Token.ID, new Token(Token.ID, "whale", null).kind);
+    }
+}
@@ -0,0 +1,87 @@
+package ricelang.VC.Scanner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import ricelang.VC.ErrorReporter;
+import ricelang.VC.Parser.Parser;
+
+class PipelinedScannerTests {
+
+    private static final String[] FRAGMENTS = {
+        "int", "float", "x", "_a1", "12", "1.5", "3e+", "\"abc\"", "\"\\q\"", "\"unterminated", "\"",
+        "//c", "/*c*/", "/*", "*/", " ", "\t", "\n", "\r\n", "+", "==", "!", "<=", "&&", "|", "(", ")",
+        "{", "}", ";", ",", "@", "\\"
+    };
+
+    private static String describe(TokenSource tokens, ErrorReporter errors) {
+        StringBuilder out = new StringBuilder();
+        Token token;
+        do {
+            token = tokens.getToken();
+            out.append(token.kind).append(' ').append(token.spelling).append(' ').append(token.position)
+                    .append(' ').append(errors.getNumErrors()).append('\n');
+        } while (token.kind != Token.EOF);
+        return out + errors.getAllErrors();
+    }
+
+    @Test
+    void sameTokensAndErrorsAsScanningInline() {
+        Random random = new Random(16);
+        for (int i = 0; i < 300; i++) {
+            StringBuilder source = new StringBuilder();
+            // long enough now and then to go round the ring a few times
+            for (int n = random.nextInt(i % 10 == 0 ? 20_000 : 40); n > 0; n--) {
+                source.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            }
+            ErrorReporter inlineErrors = new ErrorReporter();
+            String expected = describe(new Scanner(new SourceFile(source.toString()), inlineErrors), inlineErrors);
+
+            ErrorReporter errors = new ErrorReporter();
+            try (PipelinedScanner scanner = new PipelinedScanner(new SourceFile(source.toString()), errors)) {
+                assertEquals(expected, describe(scanner, errors));
+            }
+        }
+    }
+
+    @Test
+    void peekLooksAheadWithoutTaking() {
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            source.append("x").append(i).append(' ');
+        }
+        try (PipelinedScanner scanner = new PipelinedScanner(new SourceFile(source.toString()), new ErrorReporter())) {
+            assertEquals("x0", scanner.peek(0).spelling);
+            // further than the ring holds
+            assertEquals("x9999", scanner.peek(9999).spelling);
+            assertEquals(Token.EOF, scanner.peek(20_000).kind);
+            for (int i = 0; i < 10_000; i++) {
+                assertEquals("x" + i, scanner.getToken().spelling);
+            }
+            assertEquals(Token.EOF, scanner.getToken().kind);
+            assertEquals(Token.EOF, scanner.getToken().kind);
+            assertEquals(Token.EOF, scanner.peek(3).kind);
+        }
+    }
+
+    @Test
+    void parserStopsAtTheSameErrorAsWithoutThePipeline() {
+        StringBuilder source = new StringBuilder("int main() {\n");
+        for (int i = 0; i < 300; i++) {
+            source.append("  x = \"\\q\" + 1;\n");
+        }
+        source.append("  x = ;\n  y = @;\n}\n");
+
+        ErrorReporter inlineErrors = new ErrorReporter();
+        new Parser(new Scanner(new SourceFile(source.toString()), inlineErrors), inlineErrors).parseProgram();
+
+        ErrorReporter errors = new ErrorReporter();
+        try (PipelinedScanner scanner = new PipelinedScanner(new SourceFile(source.toString()), errors)) {
+            new Parser(scanner, errors).parseProgram();
+        }
+        assertEquals(inlineErrors.getAllErrors(), errors.getAllErrors());
+    }
+}
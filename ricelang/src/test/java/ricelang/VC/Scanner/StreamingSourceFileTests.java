@@ -0,0 +1,92 @@
+package ricelang.VC.Scanner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+import ricelang.VC.ErrorReporter;
+
+class StreamingSourceFileTests {
+
+    private static final String SOURCE = """
+            int main() {
+            \tfloat f = 1.5e3 + .5 + 2.;   // trailing comment \u00e9
+                /* block
+                   comment */ putStringLn("tab\\there \\"quoted\\" \\q \u20ac");
+                boolean b = true && !false || x1 != 3 & 4 | @;
+                putString("unterminated
+                byebye 0;
+            }
+            """;
+
+    // hands out at most n chars per read so tokens straddle every possible window edge
+    private static final class TrickleReader extends Reader {
+
+        private final String text;
+        private final int n;
+        private int next = 0;
+
+        TrickleReader(String text, int n) {
+            this.text = text;
+            this.n = n;
+        }
+
+        @Override
+        public int read(char[] buffer, int off, int len) {
+            if (next >= text.length()) {
+                return -1;
+            }
+            int count = Math.min(Math.min(len, n), text.length() - next);
+            text.getChars(next, next + count, buffer, off);
+            next += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static String describe(SourceFile source) {
+        ErrorReporter errors = new ErrorReporter();
+        Scanner scanner = new Scanner(source, errors);
+        StringBuilder out = new StringBuilder();
+        Token token;
+        do {
+            token = scanner.getToken();
+            out.append(token.kind).append(' ').append(token.spelling).append(' ').append(token.position).append('\n');
+        } while (token.kind != Token.EOF);
+        return out + errors.getAllErrors();
+    }
+
+    @Test
+    void streamedSourceScansLikeAString() {
+        String expected = describe(new SourceFile(SOURCE));
+        for (int n : new int[] { 1, 2, 7, 8192 }) {
+            assertEquals(expected, describe(SourceFile.of(new TrickleReader(SOURCE, n))), "reads of " + n);
+        }
+    }
+
+    @Test
+    void tokensLongerThanTheWindowStillScan() {
+        String source = "int " + "x".repeat(50_000) + " = 1; putStringLn(\"" + "y".repeat(30_000) + "\");\n";
+        assertEquals(describe(new SourceFile(source)), describe(SourceFile.of(new TrickleReader(source, 100))));
+    }
+
+    @Test
+    void mappedFileScansLikeAString() throws IOException {
+        Path file = Files.createTempFile("ricelang", ".vc");
+        try {
+            Files.writeString(file, SOURCE.repeat(500), StandardCharsets.UTF_8);
+            assertEquals(describe(new SourceFile(SOURCE.repeat(500))), describe(SourceFile.map(file)));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
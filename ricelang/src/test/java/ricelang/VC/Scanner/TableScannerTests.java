@@ -0,0 +1,74 @@
+package ricelang.VC.Scanner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import ricelang.VC.ErrorReporter;
+
+class TableScannerTests {
+
+    // pieces glued together at random, chosen to hit every odd corner of the hand-written scanner
+    private static final String[] FRAGMENTS = {
+        "int", "float", "boolean", "byebye", "true", "false", "while", "x", "_a1", "e", "E5", "\u00e9", "\u0663",
+        "12", "1.5", ".5", "1.", "1.e5", "2E-3", "3e", "3e+", ".e1", "1.2.3", "9e9e9",
+        "\"abc\"", "\"a\\nb\"", "\"\\q\"", "\"\\\"x\"", "\"unterminated", "\"\\", "\"tab\there\"", "\"", "\\\r\n",
+        "//c", "/*c*/", "/* x\n y */", "/*", "*/", "/", "*",
+        " ", "\t", "\n", "\r\n", "\r", "\f", "\u00a0", "\u001c", "\u2028",
+        "+", "-", "=", "==", "!", "!=", "<", "<=", ">", ">=", "&&", "&", "||", "|",
+        "(", ")", "{", "}", "[", "]", ";", ",", "@", "\u0000", "'", "\\", "\ud83d\ude00"
+    };
+
+    private static String describe(TokenSource tokens, ErrorReporter errors) {
+        StringBuilder out = new StringBuilder();
+        Token token;
+        do {
+            token = tokens.getToken();
+            out.append(token.kind).append(' ').append(token.spelling).append(' ').append(token.position).append('\n');
+        } while (token.kind != Token.EOF);
+        return out + errors.getAllErrors();
+    }
+
+    private static void assertSameTokens(String source) {
+        ErrorReporter handErrors = new ErrorReporter();
+        String expected = describe(new Scanner(new SourceFile(source), handErrors), handErrors);
+
+        ErrorReporter tableErrors = new ErrorReporter();
+        assertEquals(expected, describe(new TableScanner(new SourceFile(source), tableErrors), tableErrors), source);
+
+        ErrorReporter packedErrors = new ErrorReporter();
+        TokenTable table = new TableScanner(new SourceFile(source), packedErrors).scanAll();
+        assertEquals(expected, describe(table.tokens(), packedErrors), source);
+    }
+
+    @Test
+    void sameTokensAsTheHandWrittenScanner() {
+        assertSameTokens("""
+                int main() {
+                \tfloat f = 1.5e3 + .5 + 2.;   // trailing comment
+                    /* block
+                       comment */ putStringLn("tab\\there \\"quoted\\" \\q");
+                    boolean b = true && !false || x1 != 3 & 4 | @;
+                    putString("unterminated
+                    byebye 0;
+                }
+                """);
+        assertSameTokens("// no newline at the end");
+        assertSameTokens("/* never closed");
+        assertSameTokens("x = \"cut off at the end");
+    }
+
+    @Test
+    void sameTokensOnRandomInput() {
+        Random random = new Random(13);
+        for (int i = 0; i < 5000; i++) {
+            StringBuilder source = new StringBuilder();
+            for (int n = random.nextInt(30); n > 0; n--) {
+                source.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            }
+            assertSameTokens(source.toString());
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package ricelang.VC.Scanner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import ricelang.VC.ErrorReporter;
+
+class TokenTableTests {
+
+    private static final String SOURCE = """
+            int main() {
+            \tfloat f = 1.5e3 + .5 + 2.;   // trailing comment
+                /* block
+                   comment */ putStringLn("tab\\there \\"quoted\\" \\q");
+                boolean b = true && !false || x1 != 3 & 4 | @;
+                putString("unterminated
+                byebye 0;
+            }
+            """;
+
+    private static List<String> describe(TokenSource tokens) {
+        List<String> out = new ArrayList<>();
+        Token token;
+        do {
+            token = tokens.getToken();
+            out.add(token.kind + " " + token.spelling + " " + token.position);
+        } while (token.kind != Token.EOF);
+        return out;
+    }
+
+    @Test
+    void tableMatchesTheTokenStream() {
+        ErrorReporter streamErrors = new ErrorReporter();
+        List<String> expected = describe(new Scanner(new SourceFile(SOURCE), streamErrors));
+
+        ErrorReporter tableErrors = new ErrorReporter();
+        TokenTable table = new Scanner(new SourceFile(SOURCE), tableErrors).scanAll();
+
+        assertEquals(expected, describe(table.tokens()));
+        assertEquals(expected.size(), table.size());
+        assertEquals(streamErrors.getAllErrors(), tableErrors.getAllErrors());
+    }
+
+    @Test
+    void spellingsComeFromTheSource() {
+        TokenTable table = new Scanner(new SourceFile("x = \"a\\tb\";"), new ErrorReporter()).scanAll();
+
+        assertEquals(Token.STRINGLITERAL, table.kind(2));
+        assertEquals("a\tb", table.spelling(2));
+        assertEquals(4, table.start(2));
+        assertEquals(10, table.end(2));
+        assertEquals("x", table.spelling(0));
+        assertEquals(Token.EOF, table.kind(table.size() - 1));
+    }
+}
@@ -0,0 +1,75 @@
+package ricelang.VC;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+import ricelang.VC.ASTs.AstDump;
+import ricelang.VC.ASTs.Program;
+import ricelang.VC.Checker.Checker;
+import ricelang.VC.Parser.Parser;
+import ricelang.VC.Scanner.Scanner;
+import ricelang.VC.Scanner.Token;
+
+class SymbolsTests {
+
+    private static final String PROGRAM = """
+            int n = 2, x;
+            int twice(int x) { byebye x + x; }
+            int main() {
+                int x = twice(n), x;
+                { float x = 1.5; putFloatLn(x); }
+                putIntLn(x + y);
+                byebye 0;
+            }
+            """;
+
+    @Test
+    void scannerGivesEachNameOneIdAndOneString() {
+        CompilationContext context = new CompilationContext("int count; count = count + 1;");
+        Scanner scanner = new Scanner(context);
+        Token type = scanner.getToken();
+        Token first = scanner.getToken();
+        scanner.getToken();
+        Token second = scanner.getToken();
+        Token assign = scanner.getToken();
+        Token third = scanner.getToken();
+
+        assertEquals(-1, type.symbol);
+        assertEquals(-1, assign.symbol);
+        assertEquals(first.symbol, second.symbol);
+        assertEquals(first.symbol, third.symbol);
+        assertSame(first.spelling, third.spelling);
+        assertEquals("count", context.getSymbols().spelling(first.symbol));
+    }
+
+    @Test
+    void checksTheSameWithOrWithoutIds() {
+        CompilationContext withIds = new CompilationContext(PROGRAM);
+        Program interned = new Parser(withIds).parseProgram();
+        assertSame(withIds.getSymbols(), interned.symbols);
+        new Checker(withIds).check(interned);
+
+        CompilationContext withoutIds = new CompilationContext(PROGRAM);
+        Program plain = new Parser(new Scanner(withoutIds.getSource(), withoutIds.getReporter()),
+                withoutIds.getReporter()).parseProgram();
+        assertNull(plain.symbols);
+        new Checker(withoutIds).check(plain);
+
+        // ids from another compilation are not trusted, whatever names it saw first
+        CompilationContext other = new CompilationContext(PROGRAM);
+        other.getSymbols().id("y");
+        other.getSymbols().id("main");
+        Program foreign = new Parser(new CompilationContext(PROGRAM)).parseProgram();
+        new Checker(other).check(foreign);
+
+        String errors = withIds.getReporter().getAllErrors();
+        assertEquals(2, withIds.getReporter().getNumErrors());
+        assertEquals(errors, withoutIds.getReporter().getAllErrors());
+        assertEquals(errors, other.getReporter().getAllErrors());
+        assertEquals(AstDump.of(interned), AstDump.of(plain));
+        assertEquals(AstDump.of(interned), AstDump.of(foreign));
+    }
+}
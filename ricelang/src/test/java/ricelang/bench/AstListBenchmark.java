@@ -0,0 +1,37 @@
+package ricelang.bench;
+
+import ricelang.VC.vc;
+
+/**
+ * Compiles one long main to jasmin at 1k, 10k and 100k statements and
+ * prints the time per statement, which should stay flat now the AST lists
+ * are arrays walked in a loop. With a cons cell (and a stack frame in the
+ * parser, checker and emitter) per element the larger sizes used to throw
+ * StackOverflowError on a default stack.
+ */
+public class AstListBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        for (int statements = 1_000; statements <= 100_000; statements *= 10) {
+            String source = longMain(statements);
+            int iterations = Math.max(3, 300_000 / statements);
+            double nanos = Bench.time(iterations, iterations, () ->
+                    new vc().jasminSrc(source, new StringBuilder(), new StringBuilder()));
+            System.out.printf("%7d statements %10.1f us/compile %8.1f ns/statement%n",
+                    statements, nanos / 1000, nanos / statements);
+        }
+    }
+
+    private static String longMain(int statements) {
+        StringBuilder sb = new StringBuilder("int a[] = {");
+        for (int i = 0; i < statements; i++) {
+            sb.append(i == 0 ? "" : ", ").append(i % 10);
+        }
+        sb.append("};\nint main() {\n    int i = 0;\n");
+        for (int i = 0; i < statements; i++) {
+            sb.append("    i = i + a[").append(i % 10).append("];\n");
+        }
+        sb.append("    putIntLn(i);\n}\n");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,35 @@
+package ricelang.bench;
+
+/**
+ * Tiny timing harness for the benchmarks in this package.
+ *
+ * The benchmarks are plain main classes run with
+ * {@code ./gradlew bench -Pbench=<ClassName>}. They are meant for comparing
+ * two code paths on the same machine, not for absolute numbers.
+ */
+final class Bench {
+
+    @FunctionalInterface
+    interface Body {
+        void run() throws Exception;
+    }
+
+    private Bench() {
+    }
+
+    /** Runs {@code body} {@code warmup} times untimed, then returns the mean of {@code iterations} timed runs in ns. */
+    static double time(int warmup, int iterations, Body body) throws Exception {
+        for (int i = 0; i < warmup; i++) {
+            body.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            body.run();
+        }
+        return (double) (System.nanoTime() - start) / iterations;
+    }
+
+    static void report(String label, double nanos) {
+        System.out.printf("%-40s %12.1f us/op%n", label, nanos / 1000);
+    }
+}
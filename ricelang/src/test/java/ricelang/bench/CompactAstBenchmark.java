@@ -0,0 +1,75 @@
+package ricelang.bench;
+
+import ricelang.VC.CompilationContext;
+import ricelang.VC.ASTs.CompactAst;
+import ricelang.VC.ASTs.Program;
+import ricelang.VC.Checker.Checker;
+import ricelang.VC.CodeGen.Emitter;
+import ricelang.VC.Parser.Parser;
+
+/**
+ * Measures the heap a parsed program takes per AST node as objects and as
+ * a CompactAst, then times encoding it, and checking the view program()
+ * builds against parsing the source again and checking that. The heap is
+ * measured as the growth in used memory after a few GCs, which is rough
+ * but plenty to compare the two.
+ *
+ * Then the same for a cache of checked programs: the bytes toBytes() gives
+ * for the checked tree, how long writing and reading them takes, and
+ * emitting jasmin straight from the bytes against parsing, checking and
+ * emitting.
+ */
+public class CompactAstBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String source = Programs.synthetic(400, 200);
+        System.out.printf("source: %d KB%n", source.length() / 1024);
+
+        long before = usedHeap();
+        Program program = new Parser(new CompilationContext(source)).parseProgram();
+        long objects = usedHeap() - before;
+        CompactAst compact = CompactAst.of(program);
+        int nodes = compact.nodes();
+        program = null;
+        compact = null;
+        before = usedHeap();
+        compact = CompactAst.of(new Parser(new CompilationContext(source)).parseProgram());
+        long compacted = usedHeap() - before;
+
+        System.out.printf("%d nodes%n", nodes);
+        System.out.printf("%-40s %12.1f bytes/node%n", "objects", (double) objects / nodes);
+        System.out.printf("%-40s %12.1f bytes/node%n", "compact", (double) compacted / nodes);
+
+        Program parsed = new Parser(new CompilationContext(source)).parseProgram();
+        Bench.report("encode", Bench.time(3, 10, () -> CompactAst.of(parsed)));
+        CompactAst held = compact;
+        Bench.report("parse + check", Bench.time(3, 10, () ->
+                new Checker(new CompilationContext(source)).check(new Parser(new CompilationContext(source)).parseProgram())));
+        Bench.report("view + check", Bench.time(3, 10, () ->
+                new Checker(new CompilationContext(source)).check(held.program())));
+
+        new Checker(new CompilationContext(source)).check(parsed);
+        CompactAst checked = CompactAst.of(parsed);
+        byte[] bytes = checked.toBytes();
+        System.out.printf("%-40s %12.1f bytes/node%n", "checked, as bytes", (double) bytes.length / nodes);
+        Bench.report("toBytes", Bench.time(3, 10, checked::toBytes));
+        Bench.report("fromBytes", Bench.time(3, 10, () -> CompactAst.fromBytes(bytes)));
+        Bench.report("parse + check + emit", Bench.time(3, 10, () -> {
+            CompilationContext context = new CompilationContext(source);
+            Program fresh = new Parser(context).parseProgram();
+            new Checker(context).check(fresh);
+            new Emitter("temp", context).genString(fresh);
+        }));
+        Bench.report("fromBytes + emit", Bench.time(3, 10, () ->
+                new Emitter("temp", new CompilationContext(source)).genString(CompactAst.fromBytes(bytes).program())));
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
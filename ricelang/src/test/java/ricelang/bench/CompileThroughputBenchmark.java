@@ -0,0 +1,49 @@
+package ricelang.bench;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import ricelang.VC.vc;
+
+/**
+ * Compiles the same batch of programs with 1, 2, 4, ... threads and prints
+ * compiles per second, to show compilation scales with cores now that
+ * nothing in the pipeline is shared between compiles.
+ */
+public class CompileThroughputBenchmark {
+
+    private static final int BATCH = 2000;
+
+    public static void main(String[] args) throws Exception {
+        String[] sources = { Programs.BUBBLE, Programs.MANDELBROT, Programs.synthetic(3, 8) };
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println(cores + " cores available");
+
+        double baseline = 0;
+        for (int threads = 1; threads <= Math.max(cores, 1); threads *= 2) {
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int i = 0; i < BATCH; i++) {
+                String source = sources[i % sources.length];
+                tasks.add(() -> {
+                    new vc().compileClass("Bench", source, new StringBuilder(), new ByteArrayOutputStream());
+                    return null;
+                });
+            }
+            pool.invokeAll(tasks); // warm up
+            long start = System.nanoTime();
+            pool.invokeAll(tasks);
+            double perSecond = BATCH / ((System.nanoTime() - start) / 1e9);
+            pool.shutdown();
+
+            if (threads == 1) {
+                baseline = perSecond;
+            }
+            System.out.printf("%2d threads %10.0f compiles/s  x%.2f%n", threads, perSecond, perSecond / baseline);
+        }
+    }
+}
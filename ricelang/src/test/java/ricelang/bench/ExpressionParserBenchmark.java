@@ -0,0 +1,59 @@
+package ricelang.bench;
+
+import ricelang.VC.ErrorReporter;
+import ricelang.VC.Parser.DescentParser;
+import ricelang.VC.Parser.Parser;
+import ricelang.VC.Scanner.Scanner;
+import ricelang.VC.Scanner.SourceFile;
+import ricelang.VC.Scanner.Token;
+import ricelang.VC.Scanner.TokenSource;
+import ricelang.VC.Scanner.TokenTable;
+
+/**
+ * Parses an expression-heavy program with the precedence-climbing parser
+ * and with the old one-method-per-grammar-level descent, which goes nine
+ * calls deep for every literal and variable. The tokens are scanned up
+ * front, so only the parsing is timed.
+ */
+public class ExpressionParserBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String source = expressions(2000);
+        TokenTable table = new Scanner(new SourceFile(source), new ErrorReporter()).scanAll();
+        Token[] tokens = new Token[table.size()];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = table.token(i);
+        }
+        System.out.printf("%d chars, %d tokens%n", source.length(), tokens.length);
+
+        Bench.report("descent, one method per level", Bench.time(50, 200, () ->
+                new DescentParser(replay(tokens), new ErrorReporter()).parseProgram()));
+        Bench.report("precedence climbing", Bench.time(50, 200, () ->
+                new Parser(replay(tokens), new ErrorReporter()).parseProgram()));
+    }
+
+    private static TokenSource replay(Token[] tokens) {
+        return new TokenSource() {
+            private int next = 0;
+
+            @Override
+            public Token getToken() {
+                return tokens[Math.min(next++, tokens.length - 1)];
+            }
+        };
+    }
+
+    private static String expressions(int statements) {
+        StringBuilder sb = new StringBuilder("int main() {\n    int a = 1, b = 2, c = 3, d[4];\n    boolean p = true;\n");
+        for (int i = 0; i < statements; i++) {
+            switch (i % 4) {
+                case 0 -> sb.append("    a = b * c + d[a - 1] / ").append(i).append(" - (a + b) * -c;\n");
+                case 1 -> sb.append("    p = a < b && b <= c || !(c == d[0]) && a != ").append(i).append(";\n");
+                case 2 -> sb.append("    d[a] = b = c = a * a + b * b - c * c + ").append(i).append(";\n");
+                default -> sb.append("    putIntLn(a + b + c + d[1] + d[2] * ").append(i).append(");\n");
+            }
+        }
+        sb.append("}\n");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,43 @@
+package ricelang.bench;
+
+import ricelang.VC.ErrorReporter;
+import ricelang.VC.Scanner.IncrementalLexer;
+import ricelang.VC.Scanner.Scanner;
+import ricelang.VC.Scanner.SourceFile;
+
+/**
+ * Re-lexing after a keystroke in a big file: a full rescan of the edited
+ * source against {@link IncrementalLexer#edit}, for a one-char edit inside
+ * a statement and for opening (and closing again) a block comment, which
+ * has to rescan as far as the comment reaches: in this program, which has
+ * no comments, to the end of the file.
+ */
+public class IncrementalLexerBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String source = Programs.synthetic(400, 100);
+        IncrementalLexer lexer = new IncrementalLexer(source);
+        int middle = source.indexOf(";\n", source.length() / 2);
+        System.out.printf("%d chars, %d tokens%n", source.length(), lexer.tokens().size());
+
+        Bench.report("full rescan", Bench.time(10, 30, () ->
+                sink(new Scanner(new SourceFile(source), new ErrorReporter()).scanAll().size())));
+
+        // type a digit and delete it again, so every iteration edits the same text
+        Bench.report("incremental, type a char", Bench.time(200, 2000, () -> {
+            lexer.edit(middle, 0, "1");
+            lexer.edit(middle, 1, "");
+        }) / 2);
+
+        Bench.report("incremental, open a comment", Bench.time(200, 2000, () -> {
+            lexer.edit(middle, 0, "/*");
+            lexer.edit(middle, 2, "");
+        }) / 2);
+    }
+
+    private static int sunk;
+
+    private static void sink(int value) {
+        sunk += value;
+    }
+}
@@ -0,0 +1,46 @@
+package ricelang.bench;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import ricelang.VC.vc;
+import ricelang.server.JasminAssembler;
+
+/**
+ * Compares the ways /run can turn source into class file bytes:
+ * the old temp-file path (write .j, jasmin.Main, read .class back),
+ * feeding Jasmin text to jasmin's ClassFile in memory, and the direct
+ * class file backend.
+ */
+public class JasminPathBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        run("bubble", Programs.BUBBLE, 200, 500);
+        run("mandelbrot", Programs.MANDELBROT, 200, 500);
+        run("synthetic(20x20)", Programs.synthetic(20, 20), 20, 50);
+    }
+
+    private static void run(String name, String source, int warmup, int iterations) throws Exception {
+        System.out.println("== " + name);
+
+        Bench.report("temp files + jasmin.Main", Bench.time(warmup, iterations, () -> {
+            new vc().compile("bench", source, new StringBuilder());
+            jasmin.Main.main(new String[] { "bench.j" });
+            Files.readAllBytes(Path.of("bench.class"));
+            new File("bench.j").delete();
+            new File("bench.class").delete();
+        }));
+
+        Bench.report("in-memory jasmin ClassFile", Bench.time(warmup, iterations, () -> {
+            StringBuilder jasminSrc = new StringBuilder();
+            new vc().jasminSrc("bench", source, jasminSrc, new StringBuilder());
+            JasminAssembler.assemble(jasminSrc.toString(), "bench.j");
+        }));
+
+        Bench.report("direct class file backend", Bench.time(warmup, iterations, () -> {
+            new vc().compileClass("bench", source, new StringBuilder(), new ByteArrayOutputStream());
+        }));
+    }
+}
@@ -0,0 +1,88 @@
+package ricelang.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import ricelang.VC.ErrorReporter;
+import ricelang.VC.Scanner.Keywords;
+import ricelang.VC.Scanner.Scanner;
+import ricelang.VC.Scanner.SourceFile;
+
+/**
+ * Keyword recognition on identifier-heavy input: the old linear equals loop
+ * over a substring of each lexeme against the length and first-chars lookup
+ * in {@link Keywords}, which reads the lexeme in place. Also scans a whole
+ * file made only of identifiers and keywords.
+ */
+public class KeywordBenchmark {
+
+    private static final String[] RESERVED = {
+        "boolean", "break", "continue", "else", "float", "for", "if", "int", "byebye", "void", "while"
+    };
+
+    private static final String[] IDENTIFIERS = {
+        "i", "j", "n", "x", "sum", "count", "index", "value", "result", "temp", "limit", "lastChange",
+        "printIntArray", "bubbleSort", "forward", "iffy", "integer", "voidable", "whilst", "floaty", "elsewhere"
+    };
+
+    public static void main(String[] args) throws Exception {
+        // roughly one keyword for every three identifiers, like real code
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder();
+        List<int[]> lexemes = new ArrayList<>();
+        for (int i = 0; i < 200_000; i++) {
+            String word = random.nextInt(4) == 0
+                    ? RESERVED[random.nextInt(RESERVED.length)]
+                    : IDENTIFIERS[random.nextInt(IDENTIFIERS.length)];
+            lexemes.add(new int[] { text.length(), text.length() + word.length() });
+            text.append(word).append(' ');
+        }
+        String source = text.toString();
+        int[] starts = lexemes.stream().mapToInt(l -> l[0]).toArray();
+        int[] ends = lexemes.stream().mapToInt(l -> l[1]).toArray();
+        System.out.printf("%d lexemes, %d chars%n", starts.length, source.length());
+
+        double linear = Bench.time(20, 100, () -> {
+            int keywords = 0;
+            for (int i = 0; i < starts.length; i++) {
+                keywords += linear(source.substring(starts[i], ends[i])) != -1 ? 1 : 0;
+            }
+            sink(keywords);
+        });
+        report("linear equals over substring", starts.length, linear);
+
+        double lookup = Bench.time(20, 100, () -> {
+            int keywords = 0;
+            for (int i = 0; i < starts.length; i++) {
+                keywords += Keywords.kind(source, starts[i], ends[i]) <= 10 ? 1 : 0;
+            }
+            sink(keywords);
+        });
+        report("Keywords.kind in place", starts.length, lookup);
+
+        double scan = Bench.time(10, 30, () ->
+                sink(new Scanner(new SourceFile(source), new ErrorReporter()).scanAll().size()));
+        report("scanAll identifier-heavy file", starts.length, scan);
+    }
+
+    private static int linear(String spelling) {
+        for (int i = 0; i < RESERVED.length; i++) {
+            if (RESERVED[i].equals(spelling)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int sunk;
+
+    private static void sink(int value) {
+        sunk += value;
+    }
+
+    private static void report(String label, int lexemes, double nanos) {
+        Bench.report(label, nanos);
+        System.out.printf("%-40s %12.1f ns/lexeme%n", "", nanos / lexemes);
+    }
+}
@@ -0,0 +1,82 @@
+package ricelang.bench;
+
+import java.util.concurrent.ForkJoinPool;
+
+import ricelang.VC.CompilationContext;
+import ricelang.VC.ASTs.Program;
+import ricelang.VC.Checker.Checker;
+import ricelang.VC.Checker.ParallelChecker;
+import ricelang.VC.Parser.Parser;
+
+/**
+ * Checks a program of many functions sequentially and with
+ * {@link ParallelChecker} on pools of 1, 2, 4, ... workers. The top level
+ * and putting the errors back in order stay sequential, so the speedup is
+ * bounded by how much of the time goes into function bodies, and by the
+ * cores available. A tree is checked only once, so each check gets a
+ * freshly parsed one.
+ *
+ * Then the same for programs of thousands of tiny functions, each with
+ * names of its own, where what a body check costs beyond the body itself
+ * shows: it has to stay flat however many names the program has.
+ */
+public class ParallelCheckerBenchmark {
+
+    private static final int WARMUP = 5;
+    private static final int ITERATIONS = 10;
+
+    private interface Check {
+        void run(CompilationContext context, Program program);
+    }
+
+    public static void main(String[] args) throws Exception {
+        String source = Programs.synthetic(200, 60);
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%d chars, %d cores available%n", source.length(), cores);
+
+        Bench.report("sequential", time(source, (context, program) -> new Checker(context).check(program)));
+        for (int workers = 1; workers <= Math.max(cores, 2); workers *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(workers);
+            Bench.report("parallel, " + workers + " workers", time(source, (context, program) ->
+                    new ParallelChecker(context, pool).check(program)));
+            pool.shutdown();
+        }
+
+        ForkJoinPool single = new ForkJoinPool(1);
+        for (int functions = 2_000; functions <= 20_000; functions *= 10) {
+            String many = manyNames(functions);
+            Bench.report(functions + " functions, sequential", time(many, (context, program) ->
+                    new Checker(context).check(program)));
+            Bench.report(functions + " functions, parallel, 1 worker", time(many, (context, program) ->
+                    new ParallelChecker(context, single).check(program)));
+        }
+        single.shutdown();
+    }
+
+    // functions of one line, each with a parameter and a local no other function uses
+    private static String manyNames(int functions) {
+        StringBuilder sb = new StringBuilder();
+        for (int f = 0; f < functions; f++) {
+            sb.append("int f").append(f).append("(int a").append(f).append(") { int t").append(f)
+                    .append(" = a").append(f).append("; byebye t").append(f).append("; }\n");
+        }
+        sb.append("int main() { byebye f0(1); }\n");
+        return sb.toString();
+    }
+
+    // the mean time a check takes, each timed after a GC so the trees held do not make one pay for the others
+    private static double time(String source, Check check) throws Exception {
+        long total = 0;
+        for (int i = 0; i < WARMUP + ITERATIONS; i++) {
+            CompilationContext context = new CompilationContext(source);
+            Program program = new Parser(context).parseProgram();
+            System.gc();
+            long start = System.nanoTime();
+            check.run(context, program);
+            if (i >= WARMUP) {
+                total += System.nanoTime() - start;
+            }
+        }
+        return (double) total / ITERATIONS;
+    }
+}
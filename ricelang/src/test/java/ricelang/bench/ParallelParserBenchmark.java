@@ -0,0 +1,33 @@
+package ricelang.bench;
+
+import java.util.concurrent.ForkJoinPool;
+
+import ricelang.VC.CompilationContext;
+import ricelang.VC.ErrorReporter;
+import ricelang.VC.Parser.ParallelParser;
+import ricelang.VC.Parser.Parser;
+import ricelang.VC.Scanner.SourceFile;
+
+/**
+ * Parses a program of many functions sequentially and with
+ * {@link ParallelParser} on pools of 1, 2, 4, ... workers. Scanning and the
+ * top level stay sequential, so the speedup is bounded by how much of the
+ * time goes into function bodies, and by the cores available.
+ */
+public class ParallelParserBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String source = Programs.synthetic(400, 100);
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%d chars, %d cores available%n", source.length(), cores);
+
+        Bench.report("sequential", Bench.time(5, 20, () ->
+                new Parser(new CompilationContext(source)).parseProgram()));
+        for (int workers = 1; workers <= Math.max(cores, 2); workers *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(workers);
+            Bench.report("parallel, " + workers + " workers", Bench.time(5, 20, () ->
+                    new ParallelParser(new SourceFile(source), new ErrorReporter(), pool).parseProgram()));
+            pool.shutdown();
+        }
+    }
+}
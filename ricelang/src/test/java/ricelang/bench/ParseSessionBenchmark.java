@@ -0,0 +1,42 @@
+package ricelang.bench;
+
+import ricelang.VC.CompilationContext;
+import ricelang.VC.ErrorReporter;
+import ricelang.VC.ASTs.Program;
+import ricelang.VC.Checker.Checker;
+import ricelang.VC.Checker.DeclErrors;
+import ricelang.VC.Parser.ParseSession;
+import ricelang.VC.Parser.Parser;
+
+/**
+ * Keystroke to checked program in a big file: parsing and checking the
+ * edited source from scratch against a {@link ParseSession} edit followed
+ * by checking only the declarations it changed. Every function here is
+ * called from main, so main is parsed and checked again along with the
+ * function edited.
+ */
+public class ParseSessionBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String source = Programs.synthetic(400, 100);
+        ParseSession session = new ParseSession(source);
+        DeclErrors kept = new DeclErrors();
+        new Checker(new ErrorReporter()).check(session.current().program(), session.current().changed(), kept);
+        int middle = source.indexOf(";\n", source.length() / 2);
+        System.out.printf("%d chars%n", source.length());
+
+        Bench.report("full parse and check", Bench.time(5, 20, () -> {
+            CompilationContext context = new CompilationContext(source);
+            Program program = new Parser(context).parseProgram();
+            new Checker(context).check(program);
+        }));
+
+        // type a digit and delete it again, so every iteration edits the same text
+        Bench.report("session edit and check of what changed", Bench.time(50, 500, () -> {
+            ParseSession.Update typed = session.edit(middle, 0, "1");
+            new Checker(new ErrorReporter()).check(typed.program(), typed.changed(), kept);
+            ParseSession.Update deleted = session.edit(middle, 1, "");
+            new Checker(new ErrorReporter()).check(deleted.program(), deleted.changed(), kept);
+        }) / 2);
+    }
+}
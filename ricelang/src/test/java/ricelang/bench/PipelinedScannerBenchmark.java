@@ -0,0 +1,40 @@
+package ricelang.bench;
+
+import ricelang.VC.ErrorReporter;
+import ricelang.VC.Parser.Parser;
+import ricelang.VC.Scanner.PipelinedScanner;
+import ricelang.VC.Scanner.Scanner;
+import ricelang.VC.Scanner.SourceFile;
+
+/**
+ * Parsing a large program with the scanner called inline by the parser
+ * against the scanner running ahead on its own thread through a
+ * {@link PipelinedScanner}. The pipeline can only win with a second core
+ * to run on; on a single core it measures what the hand-over costs.
+ */
+public class PipelinedScannerBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        System.out.println(Runtime.getRuntime().availableProcessors() + " cores available");
+        for (int functions : new int[] { 40, 400, 2000 }) {
+            String source = Programs.synthetic(functions, 100);
+            System.out.printf("%d chars%n", source.length());
+            int iterations = Math.max(3, 12_000 / functions);
+
+            double inline = Bench.time(iterations, iterations, () -> {
+                ErrorReporter reporter = new ErrorReporter();
+                new Parser(new Scanner(new SourceFile(source), reporter), reporter).parseProgram();
+            });
+            Bench.report("inline", inline);
+
+            double pipelined = Bench.time(iterations, iterations, () -> {
+                ErrorReporter reporter = new ErrorReporter();
+                try (PipelinedScanner scanner = new PipelinedScanner(new SourceFile(source), reporter)) {
+                    new Parser(scanner, reporter).parseProgram();
+                }
+            });
+            Bench.report("pipelined", pipelined);
+            System.out.printf("%-40s %12.2fx%n", "", inline / pipelined);
+        }
+    }
+}
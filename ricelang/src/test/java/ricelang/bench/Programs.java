@@ -0,0 +1,126 @@
+package ricelang.bench;
+
+/**
+ * Source programs shared by the benchmarks.
+ */
+final class Programs {
+
+    private Programs() {
+    }
+
+    static final String BUBBLE = """
+            void printIntArray(int a[], int n) {
+                int i;
+                for (i = 0; i < n; i = i + 1) {
+                    putInt(a[i]);
+                    putString(" ");
+                }
+                putLn();
+            }
+
+            void bubbleSort(int a[], int n) {
+                int lcv;
+                int limit = n - 1;
+                int temp;
+                int lastChange;
+
+                while (limit != 0) {
+                    lastChange = 0;
+                    for (lcv = 0; lcv < limit; lcv = lcv + 1)
+                        if (a[lcv] > a[lcv + 1]) {
+                            temp = a[lcv];
+                            a[lcv] = a[lcv + 1];
+                            a[lcv + 1] = temp;
+                            lastChange = lcv;
+                        }
+                    limit = lastChange;
+                }
+            }
+
+            int main() {
+                int x[10] = {3, 10, 1, 5, 8, 0, 20, 1, 4, 100};
+                int n = 10;
+
+                putStringLn("The array was:");
+                printIntArray(x, n);
+                putLn();
+                bubbleSort(x, n);
+                putStringLn("The sorted array is:");
+                printIntArray(x, n);
+            }
+            """;
+
+    static final String MANDELBROT = """
+            int MAX_DEPTH = 100;
+            float LIMIT = 8.0;
+            int WIDTH = 150;
+            int HEIGHT = 50;
+            float REAL_MIN = -2.5;
+            float REAL_MAX = 1.0;
+            float IMAG_MIN = -1.5;
+            float IMAG_MAX = 1.5;
+
+            int mandelbrot(float real, float imag) {
+                float z_real = 0.0;
+                float z_imag = 0.0;
+                float z_real2 = 0.0;
+                float z_imag2 = 0.0;
+                int depth = 0;
+
+                while (depth < MAX_DEPTH && z_real2 + z_imag2 < LIMIT) {
+                    z_imag = 2.0 * z_real * z_imag + imag;
+                    z_real = z_real2 - z_imag2 + real;
+                    z_real2 = z_real * z_real;
+                    z_imag2 = z_imag * z_imag;
+                    depth = depth + 1;
+                }
+                byebye depth;
+            }
+
+            int main() {
+                int x, y;
+                float real, imag;
+
+                for (y = 0; y < HEIGHT; y = y + 1) {
+                    for (x = 0; x < WIDTH; x = x + 1) {
+                        real = REAL_MIN + (REAL_MAX - REAL_MIN) * x / WIDTH;
+                        imag = IMAG_MIN + (IMAG_MAX - IMAG_MIN) * y / HEIGHT;
+                        if (mandelbrot(real, imag) == MAX_DEPTH) {
+                            putString("#");
+                        } else {
+                            putString(" ");
+                        }
+                    }
+                    putLn();
+                }
+            }
+            """;
+
+    /**
+     * A well-formed program with {@code functions} helper functions of
+     * {@code statements} statements each, plus a main that calls them all.
+     */
+    static String synthetic(int functions, int statements) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("int counter = 0;\nfloat scale = 1.5;\n\n");
+        for (int f = 0; f < functions; f++) {
+            sb.append("int f").append(f).append("(int a, float b) {\n");
+            sb.append("    int i;\n    float acc = 0.0;\n");
+            for (int s = 0; s < statements; s++) {
+                switch (s % 4) {
+                    case 0 -> sb.append("    acc = acc + b * ").append(s).append(".5 - a / 3;\n");
+                    case 1 -> sb.append("    if (a > ").append(s).append(" && acc <= 100.0) counter = counter + 1; else a = a - 1;\n");
+                    case 2 -> sb.append("    for (i = 0; i < 4; i = i + 1) { acc = acc + i * scale; }\n");
+                    default -> sb.append("    while (a != 0 || !(acc >= 2.0)) { a = a / 2; acc = acc / 2.0; break; }\n");
+                }
+            }
+            sb.append("    byebye a + counter;\n}\n\n");
+        }
+        sb.append("int main() {\n    int total = 0;\n");
+        for (int f = 0; f < functions; f++) {
+            sb.append("    total = total + f").append(f).append("(").append(f).append(", 2.0);\n");
+        }
+        sb.append("    putIntLn(total);\n}\n");
+        return sb.toString();
+    }
+}
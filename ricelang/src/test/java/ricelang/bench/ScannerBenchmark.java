@@ -0,0 +1,76 @@
+package ricelang.bench;
+
+import java.lang.management.ManagementFactory;
+
+import ricelang.VC.ErrorReporter;
+import ricelang.VC.Scanner.Scanner;
+import ricelang.VC.Scanner.SourceFile;
+import ricelang.VC.Scanner.TableScanner;
+import ricelang.VC.Scanner.Token;
+import ricelang.VC.Scanner.TokenTable;
+
+/**
+ * Tokens per second for the two ways of scanning a large file: one Token
+ * object per getToken() call, and scanAll() into a packed TokenTable, each
+ * with the hand-written Scanner and the table-driven TableScanner.
+ * Also prints how many bytes each approach allocates per token.
+ */
+public class ScannerBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String source = Programs.synthetic(400, 100);
+        int tokens = new Scanner(new SourceFile(source), new ErrorReporter()).scanAll().size();
+        System.out.printf("%d chars, %d tokens%n", source.length(), tokens);
+
+        double objects = Bench.time(20, 50, () -> {
+            Scanner scanner = new Scanner(new SourceFile(source), new ErrorReporter());
+            while (scanner.getToken().kind != Token.EOF) {
+            }
+        });
+        report("getToken", tokens, objects, allocated(() -> {
+            Scanner scanner = new Scanner(new SourceFile(source), new ErrorReporter());
+            while (scanner.getToken().kind != Token.EOF) {
+            }
+        }));
+
+        double packed = Bench.time(20, 50, () -> {
+            TokenTable table = new Scanner(new SourceFile(source), new ErrorReporter()).scanAll();
+            if (table.size() != tokens) {
+                throw new AssertionError();
+            }
+        });
+        report("scanAll", tokens, packed, allocated(() -> new Scanner(new SourceFile(source), new ErrorReporter()).scanAll()));
+
+        double tableObjects = Bench.time(20, 50, () -> {
+            TableScanner scanner = new TableScanner(new SourceFile(source), new ErrorReporter());
+            while (scanner.getToken().kind != Token.EOF) {
+            }
+        });
+        report("TableScanner getToken", tokens, tableObjects, allocated(() -> {
+            TableScanner scanner = new TableScanner(new SourceFile(source), new ErrorReporter());
+            while (scanner.getToken().kind != Token.EOF) {
+            }
+        }));
+
+        double tablePacked = Bench.time(20, 50, () -> {
+            TokenTable table = new TableScanner(new SourceFile(source), new ErrorReporter()).scanAll();
+            if (table.size() != tokens) {
+                throw new AssertionError();
+            }
+        });
+        report("TableScanner scanAll", tokens, tablePacked,
+                allocated(() -> new TableScanner(new SourceFile(source), new ErrorReporter()).scanAll()));
+    }
+
+    private static void report(String label, int tokens, double nanos, long bytes) {
+        Bench.report(label, nanos);
+        System.out.printf("%-40s %12.1f M tokens/s %8.1f bytes/token%n", "", tokens / nanos * 1000, (double) bytes / tokens);
+    }
+
+    private static long allocated(Bench.Body body) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        body.run();
+        return threads.getCurrentThreadAllocatedBytes() - before;
+    }
+}
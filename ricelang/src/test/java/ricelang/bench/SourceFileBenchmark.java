@@ -0,0 +1,95 @@
+package ricelang.bench;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import ricelang.VC.ErrorReporter;
+import ricelang.VC.Scanner.Scanner;
+import ricelang.VC.Scanner.SourceFile;
+import ricelang.VC.Scanner.Token;
+
+/**
+ * Scanning the same program held in a String, streamed from a Reader and
+ * memory-mapped from a file. Then streams a program far bigger than the
+ * heap through the scanner, printing the heap in use as it goes, which
+ * should stay flat.
+ */
+public class SourceFileBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String source = Programs.synthetic(400, 100);
+        Path file = Files.createTempFile("ricelang-bench", ".vc");
+        Files.writeString(file, source, StandardCharsets.UTF_8);
+        int tokens = scan(new SourceFile(source));
+        System.out.printf("%d chars, %d tokens%n", source.length(), tokens);
+
+        try {
+            report("String", tokens, Bench.time(10, 30, () -> scan(new SourceFile(source))));
+            report("Reader", tokens, Bench.time(10, 30, () -> scan(SourceFile.of(new StringReader(source)))));
+            report("mapped file", tokens, Bench.time(10, 30, () -> scan(SourceFile.map(file))));
+        } finally {
+            Files.delete(file);
+        }
+
+        // the same program over and over, 2 billion chars of it (offsets are ints), never held anywhere
+        long total = 2_000_000_000L;
+        Scanner scanner = new Scanner(SourceFile.of(new RepeatingReader(source, total)), new ErrorReporter());
+        long scanned = 0;
+        long next = 1;
+        while (scanner.getToken().kind != Token.EOF) {
+            if (++scanned == next) {
+                System.gc();
+                Runtime runtime = Runtime.getRuntime();
+                System.out.printf("%,15d tokens  %8.1f MB heap in use%n", scanned,
+                        (runtime.totalMemory() - runtime.freeMemory()) / 1e6);
+                next = scanned == 1 ? 100_000_000 : next + 100_000_000;
+            }
+        }
+        System.out.printf("%,15d tokens in %,d chars of source%n", scanned, total);
+    }
+
+    private static int scan(SourceFile source) {
+        Scanner scanner = new Scanner(source, new ErrorReporter());
+        int tokens = 1;
+        while (scanner.getToken().kind != Token.EOF) {
+            tokens++;
+        }
+        return tokens;
+    }
+
+    private static void report(String label, int tokens, double nanos) {
+        Bench.report(label, nanos);
+        System.out.printf("%-40s %12.1f M tokens/s%n", "", tokens / nanos * 1000);
+    }
+
+    private static final class RepeatingReader extends Reader {
+
+        private final String text;
+        private long left;
+        private int next = 0;
+
+        RepeatingReader(String text, long length) {
+            this.text = text;
+            this.left = length;
+        }
+
+        @Override
+        public int read(char[] buffer, int off, int len) {
+            if (left <= 0) {
+                return -1;
+            }
+            int count = (int) Math.min(Math.min(len, text.length() - next), left);
+            text.getChars(next, next + count, buffer, off);
+            next = (next + count) % text.length();
+            left -= count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package ricelang.bench;
+
+import ricelang.VC.CompilationContext;
+import ricelang.VC.ASTs.Decl;
+import ricelang.VC.ASTs.EmptyExpr;
+import ricelang.VC.ASTs.GlobalVarDecl;
+import ricelang.VC.ASTs.Ident;
+import ricelang.VC.ASTs.IntType;
+import ricelang.VC.ASTs.Program;
+import ricelang.VC.Checker.Checker;
+import ricelang.VC.Checker.LinearSymbolTable;
+import ricelang.VC.Checker.SymbolTable;
+import ricelang.VC.Parser.Parser;
+import ricelang.VC.Scanner.SourcePosition;
+
+/**
+ * Runs the Checker's pattern of symbol table calls (declare the globals,
+ * then per function open a scope, declare the locals, look names up and
+ * close it) on the hash-based SymbolTable and the old LinearSymbolTable,
+ * with more and more globals and locals. Then checks programs of that
+ * shape, where the time per identifier should stay flat.
+ */
+public class SymbolTableBenchmark {
+
+    private interface Table {
+        void openScope();
+
+        void closeScope();
+
+        void insert(String id, Decl attr);
+
+        boolean retrieve(String id);
+
+        boolean retrieveOneLevel(String id);
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (int size = 500; size <= 8_000; size *= 4) {
+            String[] globals = names("g", size);
+            String[] locals = names("l", size / 4);
+            Decl decl = decl();
+            SymbolTable hashed = new SymbolTable();
+            LinearSymbolTable linear = new LinearSymbolTable();
+            Table hashedTable = new Table() {
+                public void openScope() { hashed.openScope(); }
+                public void closeScope() { hashed.closeScope(); }
+                public void insert(String id, Decl attr) { hashed.insert(id, attr); }
+                public boolean retrieve(String id) { return hashed.retrieve(id).isPresent(); }
+                public boolean retrieveOneLevel(String id) { return hashed.retrieveOneLevel(id).isPresent(); }
+            };
+            Table linearTable = new Table() {
+                public void openScope() { linear.openScope(); }
+                public void closeScope() { linear.closeScope(); }
+                public void insert(String id, Decl attr) { linear.insert(id, attr); }
+                public boolean retrieve(String id) { return linear.retrieve(id).isPresent(); }
+                public boolean retrieveOneLevel(String id) { return linear.retrieveOneLevel(id).isPresent(); }
+            };
+            for (String global : globals) {
+                hashed.insert(global, decl);
+                linear.insert(global, decl);
+            }
+            int iterations = Math.max(3, 40_000 / size);
+            Bench.report(size + " globals, " + locals.length + " locals: linear",
+                    Bench.time(iterations, iterations, () -> function(linearTable, globals, locals, decl)));
+            Bench.report(size + " globals, " + locals.length + " locals: hashed",
+                    Bench.time(iterations, iterations, () -> function(hashedTable, globals, locals, decl)));
+        }
+
+        for (int size = 500; size <= 8_000; size *= 4) {
+            String source = program(size, size / 4);
+            int identifiers = 3 * size + size / 4 * 4;
+            int iterations = Math.max(5, 40_000 / size);
+            double nanos = Bench.time(iterations, iterations, () -> {
+                CompilationContext context = new CompilationContext(source);
+                Program program = new Parser(context).parseProgram();
+                new Checker(context).check(program);
+            });
+            System.out.printf("parse + check, %5d globals, %4d locals %10.1f us %8.1f ns/identifier%n",
+                    size, size / 4, nanos / 1000, nanos / identifiers);
+        }
+    }
+
+    // a function: its locals declared (checked for redeclaration first), then every local and global looked up
+    private static void function(Table table, String[] globals, String[] locals, Decl decl) {
+        table.openScope();
+        for (String local : locals) {
+            if (!table.retrieveOneLevel(local)) {
+                table.insert(local, decl);
+            }
+        }
+        for (String local : locals) {
+            table.retrieve(local);
+        }
+        for (int i = 0; i < globals.length; i += 4) {
+            table.retrieve(globals[i]);
+        }
+        table.closeScope();
+    }
+
+    private static String[] names(String prefix, int count) {
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = prefix + i;
+        }
+        return names;
+    }
+
+    private static Decl decl() {
+        SourcePosition position = new SourcePosition();
+        return new GlobalVarDecl(new IntType(position), new Ident("x", position), new EmptyExpr(position), position);
+    }
+
+    // globals declared one per line, then a main with the locals, each set from the one before and a global
+    private static String program(int globals, int locals) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < globals; i++) {
+            sb.append("int g").append(i).append(" = ").append(i).append(";\n");
+        }
+        sb.append("int main() {\n");
+        for (int i = 0; i < locals; i++) {
+            sb.append("    int l").append(i).append(" = 0;\n");
+        }
+        for (int i = 1; i < locals; i++) {
+            sb.append("    l").append(i).append(" = l").append(i - 1).append(" + g").append(i * 4 % globals).append(";\n");
+        }
+        for (int i = 0; i < globals; i++) {
+            sb.append("    g").append(i).append(" = g").append(i).append(" + 1;\n");
+        }
+        sb.append("    putIntLn(l").append(locals - 1).append(");\n}\n");
+        return sb.toString();
+    }
+}
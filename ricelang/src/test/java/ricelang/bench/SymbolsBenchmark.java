@@ -0,0 +1,63 @@
+package ricelang.bench;
+
+import ricelang.VC.CompilationContext;
+import ricelang.VC.ASTs.Program;
+import ricelang.VC.Checker.Checker;
+import ricelang.VC.Parser.Parser;
+import ricelang.VC.Scanner.Scanner;
+
+/**
+ * Times parsing with the scanner interning every identifier against
+ * parsing without, then checking the trees each gives: with the ids the
+ * scanner handed out the Checker indexes its symbol table straight away,
+ * without them it interns every name it declares or looks up itself.
+ *
+ * A tree is checked only once, so each round parses the trees it checks
+ * up front. The two ways take turns for a few rounds to warm up alike and
+ * only the last round is reported.
+ */
+public class SymbolsBenchmark {
+
+    private static final int ROUNDS = 4;
+    private static final int TREES = 8;
+
+    public static void main(String[] args) throws Exception {
+        String source = Programs.synthetic(100, 40);
+        System.out.printf("source: %d KB%n", source.length() / 1024);
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            boolean last = round == ROUNDS;
+            CompilationContext[] contexts = new CompilationContext[TREES];
+            Program[] interned = new Program[TREES];
+            Program[] plain = new Program[TREES];
+            int[] next = { 0 };
+
+            double withIds = Bench.time(0, TREES, () -> {
+                int i = next[0]++;
+                contexts[i] = new CompilationContext(source);
+                interned[i] = new Parser(contexts[i]).parseProgram();
+            });
+            next[0] = 0;
+            double withoutIds = Bench.time(0, TREES, () -> {
+                CompilationContext context = new CompilationContext(source);
+                plain[next[0]++] = new Parser(new Scanner(context.getSource(), context.getReporter()),
+                        context.getReporter()).parseProgram();
+            });
+            next[0] = 0;
+            double checkWithIds = Bench.time(0, TREES, () -> {
+                int i = next[0]++;
+                new Checker(contexts[i]).check(interned[i]);
+            });
+            next[0] = 0;
+            double checkWithoutIds = Bench.time(0, TREES, () ->
+                    new Checker(new CompilationContext(source)).check(plain[next[0]++]));
+
+            if (last) {
+                Bench.report("parse, ids at scan time", withIds);
+                Bench.report("parse, no ids", withoutIds);
+                Bench.report("check, ids from the scanner", checkWithIds);
+                Bench.report("check, interning every name", checkWithoutIds);
+            }
+        }
+    }
+}
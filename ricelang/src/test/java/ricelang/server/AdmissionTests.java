@@ -0,0 +1,81 @@
+package ricelang.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class AdmissionTests {
+
+    @Test
+    void saturatedRunGateRejectsWithoutTouchingCompiles() throws Exception {
+        // one run slot and one place in line
+        Admission admission = new Admission(1, 0, 1, 1, 10_000, 3);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = pool.submit(() -> admission.run(() -> {
+                running.countDown();
+                await(release);
+                return "first";
+            }));
+            running.await();
+            Future<String> queued = pool.submit(() -> admission.run(() -> "queued"));
+            while (admission.stats().run().waiting() == 0) {
+                Thread.sleep(5);
+            }
+
+            try {
+                admission.run(() -> "rejected");
+                fail("expected the full queue to turn the run away");
+            } catch (ServerBusyException e) {
+                assertEquals(3, e.getRetryAfterSeconds());
+            }
+            assertEquals("compiled", admission.compile(() -> "compiled"));
+
+            release.countDown();
+            assertEquals("first", first.get(10, TimeUnit.SECONDS));
+            assertEquals("queued", queued.get(10, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(new Admission.GateStats(1, 0, 0, 1, 2, 1), admission.stats().run());
+        assertEquals(new Admission.GateStats(1, 0, 0, 0, 1, 0), admission.stats().compile());
+    }
+
+    @Test
+    void slotIsHeldUntilClosedOnce() {
+        // one run slot and no place in line
+        Admission admission = new Admission(1, 0, 1, 0, 10_000, 3);
+        Admission.Slot slot = admission.enterRun();
+        try {
+            admission.enterRun();
+            fail("expected the held slot to turn the run away");
+        } catch (ServerBusyException e) {
+            assertEquals(3, e.getRetryAfterSeconds());
+        }
+
+        slot.close();
+        slot.close();
+        assertEquals(new Admission.GateStats(1, 0, 0, 0, 1, 1), admission.stats().run());
+        assertEquals("ran", admission.run(() -> "ran"));
+        assertEquals(new Admission.GateStats(1, 0, 0, 0, 2, 1), admission.stats().run());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
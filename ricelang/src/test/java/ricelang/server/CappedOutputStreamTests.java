@@ -0,0 +1,65 @@
+package ricelang.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class CappedOutputStreamTests {
+
+    @Test
+    void liveChunksNeverSplitACharacter() throws Exception {
+        List<String> chunks = new ArrayList<>();
+        CappedOutputStream output = new CappedOutputStream(1024, chunks::add, null);
+        byte[] bytes = "a\u20acb".getBytes(StandardCharsets.UTF_8);
+        for (byte b : bytes) {
+            output.write(b);
+            output.passOn(0);
+        }
+        output.finish();
+
+        assertEquals(List.of("a", "\u20ac", "b"), chunks);
+        assertEquals("a\u20acb", output.toString());
+    }
+
+    @Test
+    void limitIsReportedOnceAndTheRestDropped() {
+        AtomicInteger calls = new AtomicInteger();
+        CappedOutputStream output = new CappedOutputStream(4, null, calls::incrementAndGet);
+        output.write("abc".getBytes(StandardCharsets.UTF_8), 0, 3);
+        output.write("def".getBytes(StandardCharsets.UTF_8), 0, 3);
+        output.write("ghi".getBytes(StandardCharsets.UTF_8), 0, 3);
+
+        assertEquals("abcd", output.toString());
+        assertTrue(output.limitReached());
+        assertEquals(1, calls.get());
+    }
+
+    // however many writes the program made, what it wrote in the meantime goes out as one chunk
+    @Test
+    void chunksGoOutOnTheThreadPassingThemOn() throws Exception {
+        List<String> chunks = new ArrayList<>();
+        List<Thread> senders = new ArrayList<>();
+        CappedOutputStream output = new CappedOutputStream(1024, chunk -> {
+            chunks.add(chunk);
+            senders.add(Thread.currentThread());
+        }, null);
+        Thread program = new Thread(() -> {
+            output.write("ab".getBytes(StandardCharsets.UTF_8), 0, 2);
+            output.write("c".getBytes(StandardCharsets.UTF_8), 0, 1);
+            output.close();
+        });
+        program.start();
+        program.join();
+
+        assertTrue(chunks.isEmpty());
+        assertTrue(output.passOn(0));
+        assertEquals(List.of("abc"), chunks);
+        assertEquals(List.of(Thread.currentThread()), senders);
+    }
+}
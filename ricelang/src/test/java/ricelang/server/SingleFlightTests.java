@@ -0,0 +1,68 @@
+package ricelang.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTests {
+
+    @Test
+    void identicalRequestsInFlightShareOneExecution() throws Exception {
+        SingleFlight flights = new SingleFlight();
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 8;
+
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Output>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> flights.run("key", () -> {
+                    executions.incrementAndGet();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return new Output("out", "", false);
+                })));
+            }
+            // hold the leader until everyone else has joined its flight
+            while (flights.stats().coalesced() < callers - 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            Output first = results.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<Output> result : results) {
+                assertSame(first, result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, executions.get());
+        assertEquals(new SingleFlight.CoalescingStats(0, 1, callers - 1), flights.stats());
+    }
+
+    @Test
+    void finishedFlightsAreNotRemembered() {
+        SingleFlight flights = new SingleFlight();
+        AtomicInteger executions = new AtomicInteger();
+        flights.run("key", () -> new Output("" + executions.incrementAndGet(), "", false));
+        Output second = flights.run("key", () -> new Output("" + executions.incrementAndGet(), "", false));
+
+        assertEquals("2", second.output());
+        assertEquals(new SingleFlight.CoalescingStats(0, 2, 0), flights.stats());
+    }
+}